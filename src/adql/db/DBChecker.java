@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
@@ -60,6 +61,7 @@ import adql.query.operand.function.geometry.GeometryFunction;
 import adql.query.operand.function.geometry.PointFunction;
 import adql.query.operand.function.geometry.PolygonFunction;
 import adql.query.operand.function.geometry.RegionFunction;
+import adql.search.ADQLVisitor;
 import adql.search.ISearchHandler;
 import adql.search.SearchColumnHandler;
 import adql.search.SimpleSearchHandler;
@@ -379,6 +381,11 @@ public class DBChecker implements QueryChecker {
 	 * 	<li>Consistency of types still unknown (because the syntactic parser could not yet resolve them)</li>
 	 * </ol>
 	 * 
+	 * <p><i>Note:
+	 * 	All the items to check are gathered in only one walk through the query (see {@link QueryItems}).
+	 * 	The verifications are then done on these lists of items.
+	 * </i></p>
+	 * 
 	 * @param query			The query to check.
 	 * @param fathersList	List of all columns available in the father queries and that should be accessed in sub-queries.
 	 *                   	Each item of this stack is a list of columns available in each father-level query.
@@ -389,30 +396,34 @@ public class DBChecker implements QueryChecker {
 	 * 
 	 * @since 1.2
 	 * 
-	 * @see #checkDBItems(ADQLQuery, Stack, UnresolvedIdentifiersException)
-	 * @see #checkSubQueries(ADQLQuery, Stack, SearchColumnList, UnresolvedIdentifiersException)
-	 * @see #checkUDFs(ADQLQuery, UnresolvedIdentifiersException)
-	 * @see #checkGeometries(ADQLQuery, UnresolvedIdentifiersException)
-	 * @see #checkTypes(ADQLQuery, UnresolvedIdentifiersException)
+	 * @see QueryItems
+	 * @see #checkDBItems(ADQLQuery, QueryItems, Stack, UnresolvedIdentifiersException)
+	 * @see #checkSubQueries(List, Stack, SearchColumnList, UnresolvedIdentifiersException)
+	 * @see #checkUDFs(List, UnresolvedIdentifiersException)
+	 * @see #checkGeometries(QueryItems, UnresolvedIdentifiersException)
+	 * @see #checkTypes(List, UnresolvedIdentifiersException)
 	 */
 	protected void check(final ADQLQuery query, final Stack<SearchColumnList> fathersList) throws UnresolvedIdentifiersException{
 		UnresolvedIdentifiersException errors = new UnresolvedIdentifiersException();
 
+		// Gather all items to check in only one walk through the query:
+		QueryItems items = new QueryItems(query);
+
 		// A. Check DB items (tables and columns):
-		SearchColumnList availableColumns = checkDBItems(query, fathersList, errors);
+		SearchColumnList availableColumns = checkDBItems(query, items, fathersList, errors);
 
 		// B. Check UDFs:
 		if (allowedUdfs != null)
-			checkUDFs(query, errors);
+			checkUDFs(items.udfs, errors);
 
 		// C. Check geometries:
-		checkGeometries(query, errors);
+		checkGeometries(items, errors);
 
 		// D. Check types:
-		checkTypes(query, errors);
+		checkTypes(items.unknownTypes, errors);
 
 		// E. Check sub-queries:
-		checkSubQueries(query, fathersList, availableColumns, errors);
+		checkSubQueries(items.subQueries, fathersList, availableColumns, errors);
 
 		// Throw all errors, if any:
 		if (errors.getNbErrors() > 0)
@@ -441,15 +452,41 @@ public class DBChecker implements QueryChecker {
 	 * 
 	 * @return	List of all columns available in the given query.
 	 * 
-	 * @see #resolveTables(ADQLQuery, Stack, UnresolvedIdentifiersException)
-	 * @see FromContent#getDBColumns()
-	 * @see #resolveColumns(ADQLQuery, Stack, Map, SearchColumnList, UnresolvedIdentifiersException)
+	 * @see #checkDBItems(ADQLQuery, QueryItems, Stack, UnresolvedIdentifiersException)
 	 * 
 	 * @since 1.3
 	 */
 	protected SearchColumnList checkDBItems(final ADQLQuery query, final Stack<SearchColumnList> fathersList, final UnresolvedIdentifiersException errors){
+		return checkDBItems(query, new QueryItems(query), fathersList, errors);
+	}
+
+	/**
+	 * <p>Check DB items (tables and columns) used in the given ADQL query.</p>
+	 * 
+	 * <p>
+	 * 	This function does exactly the same as {@link #checkDBItems(ADQLQuery, Stack, UnresolvedIdentifiersException)},
+	 * 	except that the tables and columns to check are not searched again in the query: they are taken from the given
+	 * 	items, gathered before in only one walk through the query.
+	 * </p>
+	 * 
+	 * @param query			Query in which the existence of DB items must be checked.
+	 * @param items			All the items found in the given query.
+	 * @param fathersList	List of all columns available in the father queries and that should be accessed in sub-queries.
+	 *                   	Each item of this stack is a list of columns available in each father-level query.
+	 *                   	<i>Note: this parameter is NULL if this function is called with the root/father query as parameter.</i>
+	 * @param errors		List of errors to complete in this function each time an unknown table or column is encountered.
+	 * 
+	 * @return	List of all columns available in the given query.
+	 * 
+	 * @see #resolveTables(ADQLQuery, List, List, Stack, UnresolvedIdentifiersException)
+	 * @see FromContent#getDBColumns()
+	 * @see #resolveColumns(ADQLQuery, List, List, Stack, Map, SearchColumnList, UnresolvedIdentifiersException)
+	 * 
+	 * @since 1.3
+	 */
+	protected SearchColumnList checkDBItems(final ADQLQuery query, final QueryItems items, final Stack<SearchColumnList> fathersList, final UnresolvedIdentifiersException errors){
 		// a. Resolve all tables:
-		Map<DBTable,ADQLTable> mapTables = resolveTables(query, fathersList, errors);
+		Map<DBTable,ADQLTable> mapTables = resolveTables(query, items.tables, items.wildcards, fathersList, errors);
 
 		// b. Get the list of all columns made available in the clause FROM:
 		SearchColumnList availableColumns;
@@ -461,7 +498,7 @@ public class DBChecker implements QueryChecker {
 		}
 
 		// c. Resolve all columns:
-		resolveColumns(query, fathersList, mapTables, availableColumns, errors);
+		resolveColumns(query, items.columns, items.colRefs, fathersList, mapTables, availableColumns, errors);
 
 		return availableColumns;
 	}
@@ -491,18 +528,39 @@ public class DBChecker implements QueryChecker {
 	 * @param errors		List of errors to complete in this function each time an unknown table or column is encountered.
 	 * 
 	 * @return	An associative map of all the resolved tables.
+	 * 
+	 * @see #resolveTables(ADQLQuery, List, List, Stack, UnresolvedIdentifiersException)
 	 */
 	protected Map<DBTable,ADQLTable> resolveTables(final ADQLQuery query, final Stack<SearchColumnList> fathersList, final UnresolvedIdentifiersException errors){
+		List<ADQLTable> tables = search(new SearchTableHandler(), query.getFrom());
+		List<SelectAllColumns> wildcards = search(new SearchWildCardHandler(), query.getSelect());
+		return resolveTables(query, tables, wildcards, fathersList, errors);
+	}
+
+	/**
+	 * <p>Resolve the given table references against the available tables, and if there is only one match,
+	 * attach the matching metadata to them. Then attach the resolved tables to the given "{table}.*" SELECT items.</p>
+	 * 
+	 * <p>See {@link #resolveTables(ADQLQuery, Stack, UnresolvedIdentifiersException)} for more details.</p>
+	 * 
+	 * @param query			Query in which the given tables and wildcards have been found.
+	 * @param tables		All tables of the clause FROM of the given query.
+	 * @param wildcards		All SELECT items of the form "{table}.*" of the given query.
+	 * @param fathersList	List of all columns available in the father queries and that should be accessed in sub-queries.
+	 *                      Each item of this stack is a list of columns available in each father-level query.
+	 *                   	<i>Note: this parameter is NULL if this function is called with the root/father query as parameter.</i>
+	 * @param errors		List of errors to complete in this function each time an unknown table or column is encountered.
+	 * 
+	 * @return	An associative map of all the resolved tables.
+	 * 
+	 * @since 1.3
+	 */
+	protected Map<DBTable,ADQLTable> resolveTables(final ADQLQuery query, final List<ADQLTable> tables, final List<SelectAllColumns> wildcards, final Stack<SearchColumnList> fathersList, final UnresolvedIdentifiersException errors){
 		HashMap<DBTable,ADQLTable> mapTables = new HashMap<DBTable,ADQLTable>();
-		ISearchHandler sHandler;
 
 		// Check the existence of all tables:
-		sHandler = new SearchTableHandler();
-		sHandler.search(query.getFrom());
-		for(ADQLObject result : sHandler){
+		for(ADQLTable table : tables){
 			try{
-				ADQLTable table = (ADQLTable)result;
-
 				// resolve the table:
 				DBTable dbTable = null;
 				if (table.isSubQuery()){
@@ -529,19 +587,16 @@ public class DBChecker implements QueryChecker {
 		 *       no interest to select a father column in a sub-query
 		 *       (which can return only one column ; besides, no aggregate is allowed
 		 *       in sub-queries).*/
-		sHandler = new SearchWildCardHandler();
-		sHandler.search(query.getSelect());
-		for(ADQLObject result : sHandler){
+		for(SelectAllColumns wildcard : wildcards){
 			try{
-				SelectAllColumns wildcard = (SelectAllColumns)result;
 				ADQLTable table = wildcard.getAdqlTable();
 				DBTable dbTable = null;
 
 				// first, try to resolve the table by table alias:
 				if (table.getTableName() != null && table.getSchemaName() == null){
-					ArrayList<ADQLTable> tables = query.getFrom().getTablesByAlias(table.getTableName(), table.isCaseSensitive(IdentifierField.TABLE));
-					if (tables.size() == 1)
-						dbTable = tables.get(0).getDBLink();
+					ArrayList<ADQLTable> aliasedTables = query.getFrom().getTablesByAlias(table.getTableName(), table.isCaseSensitive(IdentifierField.TABLE));
+					if (aliasedTables.size() == 1)
+						dbTable = aliasedTables.get(0).getDBLink();
 				}
 
 				// then try to resolve the table reference by table name:
@@ -604,16 +659,37 @@ public class DBChecker implements QueryChecker {
 	 * @param mapTables		List of all resolved tables.
 	 * @param list			List of column metadata to complete in this function each time a column reference is resolved.
 	 * @param errors		List of errors to complete in this function each time an unknown table or column is encountered.
+	 * 
+	 * @see #resolveColumns(ADQLQuery, List, List, Stack, Map, SearchColumnList, UnresolvedIdentifiersException)
 	 */
 	protected void resolveColumns(final ADQLQuery query, final Stack<SearchColumnList> fathersList, final Map<DBTable,ADQLTable> mapTables, final SearchColumnList list, final UnresolvedIdentifiersException errors){
-		ISearchHandler sHandler;
+		List<ADQLColumn> columns = search(new SearchColumnHandler(), query);
+		List<ColumnReference> colRefs = search(new SearchColReferenceHandler(), query);
+		resolveColumns(query, columns, colRefs, fathersList, mapTables, list, errors);
+	}
 
+	/**
+	 * <p>Resolve the given column references thanks to the given tables' metadata,
+	 * and if there is only one match, attach the matching metadata to them.</p>
+	 * 
+	 * <p>See {@link #resolveColumns(ADQLQuery, Stack, Map, SearchColumnList, UnresolvedIdentifiersException)} for more details.</p>
+	 * 
+	 * @param query			Query in which the given columns and column references have been found.
+	 * @param columns		All columns of the given query (sub-queries excluded).
+	 * @param colRefs		All references to selected columns (i.e. in ORDER BY and GROUP BY) of the given query (sub-queries excluded).
+	 * @param fathersList	List of all columns available in the father queries and that should be accessed in sub-queries.
+	 *                      Each item of this stack is a list of columns available in each father-level query.
+	 *                   	<i>Note: this parameter is NULL if this function is called with the root/father query as parameter.</i>
+	 * @param mapTables		List of all resolved tables.
+	 * @param list			List of column metadata to complete in this function each time a column reference is resolved.
+	 * @param errors		List of errors to complete in this function each time an unknown table or column is encountered.
+	 * 
+	 * @since 1.3
+	 */
+	protected void resolveColumns(final ADQLQuery query, final List<ADQLColumn> columns, final List<ColumnReference> colRefs, final Stack<SearchColumnList> fathersList, final Map<DBTable,ADQLTable> mapTables, final SearchColumnList list, final UnresolvedIdentifiersException errors){
 		// Check the existence of all columns:
-		sHandler = new SearchColumnHandler();
-		sHandler.search(query);
-		for(ADQLObject result : sHandler){
+		for(ADQLColumn adqlColumn : columns){
 			try{
-				ADQLColumn adqlColumn = (ADQLColumn)result;
 				// resolve the column:
 				DBColumn dbColumn = resolveColumn(adqlColumn, list, fathersList);
 				// link with the matched DBColumn:
@@ -627,12 +703,9 @@ public class DBChecker implements QueryChecker {
 		// Check the correctness of all column references (= references to selected columns):
 		/* Note: no need to provide the father tables when resolving column references,
 		 *       because no father column can be used in ORDER BY and/or GROUP BY. */
-		sHandler = new SearchColReferenceHandler();
-		sHandler.search(query);
 		ClauseSelect select = query.getSelect();
-		for(ADQLObject result : sHandler){
+		for(ColumnReference colRef : colRefs){
 			try{
-				ColumnReference colRef = (ColumnReference)result;
 				// resolve the column reference:
 				DBColumn dbColumn = checkColumnReference(colRef, select, list);
 				// link with the matched DBColumn:
@@ -777,17 +850,30 @@ public class DBChecker implements QueryChecker {
 	 * @param query		Query in which UDFs must be checked.
 	 * @param errors	List of errors to complete in this function each time a UDF does not match to any of the allowed UDFs.
 	 * 
+	 * @see #checkUDFs(List, UnresolvedIdentifiersException)
+	 * 
 	 * @since 1.3
 	 */
 	protected void checkUDFs(final ADQLQuery query, final UnresolvedIdentifiersException errors){
-		// Search all UDFs:
-		ISearchHandler sHandler = new SearchUDFHandler();
-		sHandler.search(query);
+		List<UserDefinedFunction> udfs = search(new SearchUDFHandler(), query);
+		checkUDFs(udfs, errors);
+	}
 
+	/**
+	 * <p>Check the signature of the given UDFs (User Defined Functions) against the list of allowed UDFs.</p>
+	 * 
+	 * <p>See {@link #checkUDFs(ADQLQuery, UnresolvedIdentifiersException)} for more details.</p>
+	 * 
+	 * @param udfs		All UDFs found in the query to check.
+	 * @param errors	List of errors to complete in this function each time a UDF does not match to any of the allowed UDFs.
+	 * 
+	 * @since 1.3
+	 */
+	protected void checkUDFs(final List<UserDefinedFunction> udfs, final UnresolvedIdentifiersException errors){
 		// If no UDF are allowed, throw immediately an error:
 		if (allowedUdfs.length == 0){
-			for(ADQLObject result : sHandler)
-				errors.addException(new UnresolvedFunction((UserDefinedFunction)result));
+			for(UserDefinedFunction udf : udfs)
+				errors.addException(new UnresolvedFunction(udf));
 		}
 		// Otherwise, try to resolve all of them:
 		else{
@@ -805,8 +891,8 @@ public class DBChecker implements QueryChecker {
 			/* Note: at this stage, it can happen that UDFs can not be yet resolved because the building of
 			 *       their signature depends of other UDFs. That's why, these special cases should be kept
 			 *       for a later resolution try. */
-			for(ADQLObject result : sHandler){
-				udf = (UserDefinedFunction)result;
+			for(int i = 0; i < udfs.size(); i++){
+				udf = udfs.get(i);
 				// search for a match:
 				match = binSearch.search(udf, allowedUdfs);
 				// if no match...
@@ -888,12 +974,7 @@ public class DBChecker implements QueryChecker {
 	 * @since 1.3
 	 */
 	protected void checkGeometries(final ADQLQuery query, final UnresolvedIdentifiersException errors){
-		BinarySearch<String,String> binSearch = new BinarySearch<String,String>(){
-			@Override
-			protected int compare(String searchItem, String arrayItem){
-				return searchItem.compareToIgnoreCase(arrayItem);
-			}
-		};
+		BinarySearch<String,String> binSearch = createGeometrySearch();
 
 		// a. Ensure that all used geometry functions are allowed:
 		if (allowedGeo != null)
@@ -908,6 +989,53 @@ public class DBChecker implements QueryChecker {
 			resolveSTCSExpressions(query, binSearch, errors);
 	}
 
+	/**
+	 * <p>Check all the given geometries.</p>
+	 * 
+	 * <p>See {@link #checkGeometries(ADQLQuery, UnresolvedIdentifiersException)} for more details.</p>
+	 * 
+	 * @param items		All the items found in the query to check.
+	 *             		<i>Only geometrical functions, coordinate systems and REGION functions are used here.</i>
+	 * @param errors	List of errors to complete in this function each time a geometry item is not supported.
+	 * 
+	 * @see #resolveGeometryFunctions(List, BinarySearch, UnresolvedIdentifiersException)
+	 * @see #resolveCoordinateSystems(List, UnresolvedIdentifiersException)
+	 * @see #resolveSTCSExpressions(List, BinarySearch, UnresolvedIdentifiersException)
+	 * 
+	 * @since 1.3
+	 */
+	protected void checkGeometries(final QueryItems items, final UnresolvedIdentifiersException errors){
+		BinarySearch<String,String> binSearch = createGeometrySearch();
+
+		// a. Ensure that all used geometry functions are allowed:
+		if (allowedGeo != null)
+			resolveGeometryFunctions(items.geometries, binSearch, errors);
+
+		// b. Check whether the coordinate systems are allowed:
+		if (allowedCoordSys != null)
+			resolveCoordinateSystems(items.coordSys, errors);
+
+		// c. Check all STC-S expressions (in RegionFunctions only) + the used coordinate systems (if StringConstant only):
+		if (allowedGeo == null || (allowedGeo.length > 0 && binSearch.search("REGION", allowedGeo) >= 0))
+			resolveSTCSExpressions(items.regions, binSearch, errors);
+	}
+
+	/**
+	 * Create the object to use in order to search a function or region name inside the list of allowed geometrical functions.
+	 * 
+	 * @return	A binary search comparing strings without case sensitivity.
+	 * 
+	 * @since 1.3
+	 */
+	private final BinarySearch<String,String> createGeometrySearch(){
+		return new BinarySearch<String,String>(){
+			@Override
+			protected int compare(String searchItem, String arrayItem){
+				return searchItem.compareToIgnoreCase(arrayItem);
+			}
+		};
+	}
+
 	/**
 	 * Search for all geometrical functions and check whether they are allowed.
 	 * 
@@ -919,14 +1047,24 @@ public class DBChecker implements QueryChecker {
 	 * @since 1.3
 	 */
 	protected void resolveGeometryFunctions(final ADQLQuery query, final BinarySearch<String,String> binSearch, final UnresolvedIdentifiersException errors){
-		ISearchHandler sHandler = new SearchGeometryHandler();
-		sHandler.search(query);
+		List<GeometryFunction> geometries = search(new SearchGeometryHandler(), query);
+		resolveGeometryFunctions(geometries, binSearch, errors);
+	}
 
-		String fctName;
-		for(ADQLObject result : sHandler){
-			fctName = result.getName();
-			checkGeometryFunction(fctName, (ADQLFunction)result, binSearch, errors);
-		}
+	/**
+	 * Check whether all the given geometrical functions are allowed.
+	 * 
+	 * @param geometries	All geometrical functions found in the query to check.
+	 * @param binSearch		The object to use in order to search a function name inside the list of allowed functions.
+	 * @param errors		List of errors to complete in this function each time a geometrical function is not supported.
+	 * 
+	 * @see #checkGeometryFunction(String, ADQLFunction, BinarySearch, UnresolvedIdentifiersException)
+	 * 
+	 * @since 1.3
+	 */
+	protected void resolveGeometryFunctions(final List<GeometryFunction> geometries, final BinarySearch<String,String> binSearch, final UnresolvedIdentifiersException errors){
+		for(GeometryFunction fct : geometries)
+			checkGeometryFunction(fct.getName(), fct, binSearch, errors);
 	}
 
 	/**
@@ -972,10 +1110,23 @@ public class DBChecker implements QueryChecker {
 	 * @since 1.3
 	 */
 	protected void resolveCoordinateSystems(final ADQLQuery query, final UnresolvedIdentifiersException errors){
-		ISearchHandler sHandler = new SearchCoordSysHandler();
-		sHandler.search(query);
-		for(ADQLObject result : sHandler)
-			checkCoordinateSystem((StringConstant)result, errors);
+		List<StringConstant> coordSys = search(new SearchCoordSysHandler(), query);
+		resolveCoordinateSystems(coordSys, errors);
+	}
+
+	/**
+	 * Check the syntax of all the given explicit coordinate system declarations and whether they are allowed by this implementation.
+	 * 
+	 * @param coordSys	All explicit coordinate system declarations found in the query to check.
+	 * @param errors	List of errors to complete in this function each time a coordinate system has a wrong syntax or is not supported.
+	 * 
+	 * @see #checkCoordinateSystem(StringConstant, UnresolvedIdentifiersException)
+	 * 
+	 * @since 1.3
+	 */
+	protected void resolveCoordinateSystems(final List<StringConstant> coordSys, final UnresolvedIdentifiersException errors){
+		for(StringConstant adqlCoordSys : coordSys)
+			checkCoordinateSystem(adqlCoordSys, errors);
 	}
 
 	/**
@@ -1034,22 +1185,38 @@ public class DBChecker implements QueryChecker {
 	 */
 	protected void resolveSTCSExpressions(final ADQLQuery query, final BinarySearch<String,String> binSearch, final UnresolvedIdentifiersException errors){
 		// Search REGION functions:
-		ISearchHandler sHandler = new SearchRegionHandler();
-		sHandler.search(query);
+		List<RegionFunction> regions = search(new SearchRegionHandler(), query);
 
 		// Parse and check their STC-S expression:
+		resolveSTCSExpressions(regions, binSearch, errors);
+	}
+
+	/**
+	 * <p>Parse the STC-S expression of all the given REGION functions (and so check their syntax) and then determine
+	 * whether the declared coordinate system and the expressed region are allowed in this implementation.</p>
+	 * 
+	 * @param regions		All REGION functions (whose the parameter is a string constant) found in the query to check.
+	 * @param binSearch		The object to use in order to search a region name inside the list of allowed functions/regions.
+	 * @param errors		List of errors to complete in this function each time the STC-S syntax is wrong or each time the declared coordinate system or region is not supported.
+	 * 
+	 * @see STCS#parseRegion(String)
+	 * @see #checkRegion(Region, RegionFunction, BinarySearch, UnresolvedIdentifiersException)
+	 * 
+	 * @since 1.3
+	 */
+	protected void resolveSTCSExpressions(final List<RegionFunction> regions, final BinarySearch<String,String> binSearch, final UnresolvedIdentifiersException errors){
 		String stcs;
 		Region region;
-		for(ADQLObject result : sHandler){
+		for(RegionFunction fct : regions){
 			try{
 				// get the STC-S expression:
-				stcs = ((StringConstant)((RegionFunction)result).getParameter(0)).getValue();
+				stcs = ((StringConstant)fct.getParameter(0)).getValue();
 
 				// parse the STC-S expression (and so check the syntax):
 				region = STCS.parseRegion(stcs);
 
 				// check whether the regions (this one + the possible inner ones) and the coordinate systems are allowed:
-				checkRegion(region, (RegionFunction)result, binSearch, errors);
+				checkRegion(region, fct, binSearch, errors);
 			}catch(ParseException pe){
 				errors.addException(new ParseException(pe.getMessage())); // TODO Missing object position!
 			}
@@ -1129,18 +1296,30 @@ public class DBChecker implements QueryChecker {
 	 * @param errors	List of errors to complete in this function each time a types does not match to the expected one.
 	 * 
 	 * @see UnknownType
+	 * @see #checkTypes(List, UnresolvedIdentifiersException)
 	 * 
 	 * @since 1.3
 	 */
 	protected void checkTypes(final ADQLQuery query, final UnresolvedIdentifiersException errors){
 		// Search all unknown types:
-		ISearchHandler sHandler = new SearchUnknownTypeHandler();
-		sHandler.search(query);
+		List<UnknownType> unknownTypes = search(new SearchUnknownTypeHandler(), query);
 
 		// Check whether their type matches the expected one:
-		UnknownType unknown;
-		for(ADQLObject result : sHandler){
-			unknown = (UnknownType)result;
+		checkTypes(unknownTypes, errors);
+	}
+
+	/**
+	 * <p>Check whether the type of all the given operands matches the type expected by the syntactic parser.</p>
+	 * 
+	 * <p>See {@link #checkTypes(ADQLQuery, UnresolvedIdentifiersException)} for more details.</p>
+	 * 
+	 * @param unknownTypes	All operands of the query to check whose the type was not known while checking the syntax.
+	 * @param errors		List of errors to complete in this function each time a types does not match to the expected one.
+	 * 
+	 * @since 1.3
+	 */
+	protected void checkTypes(final List<UnknownType> unknownTypes, final UnresolvedIdentifiersException errors){
+		for(UnknownType unknown : unknownTypes){
 			switch(unknown.getExpectedType()){
 				case 'G':
 				case 'g':
@@ -1194,9 +1373,26 @@ public class DBChecker implements QueryChecker {
 	 */
 	protected void checkSubQueries(final ADQLQuery query, Stack<SearchColumnList> fathersList, final SearchColumnList availableColumns, final UnresolvedIdentifiersException errors){
 		// Check sub-queries outside the clause FROM:
-		ISearchHandler sHandler = new SearchSubQueryHandler();
-		sHandler.search(query);
-		if (sHandler.getNbMatch() > 0){
+		List<ADQLQuery> subQueries = search(new SearchSubQueryHandler(), query);
+		checkSubQueries(subQueries, fathersList, availableColumns, errors);
+	}
+
+	/**
+	 * <p>Check all the given sub-queries using {@link #check(ADQLQuery, Stack)}.</p>
+	 * 
+	 * <p>See {@link #checkSubQueries(ADQLQuery, Stack, SearchColumnList, UnresolvedIdentifiersException)} for more details.</p>
+	 * 
+	 * @param subQueries		All sub-queries found in the query to check, except the ones of the clause FROM.
+	 * @param fathersList		List of all columns available in the father queries and that should be accessed in sub-queries.
+	 *                      	Each item of this stack is a list of columns available in each father-level query.
+	 *                   		<i>Note: this parameter is NULL if this function is called with the root/father query as parameter.</i>
+	 * @param availableColumns	List of all columns resolved in the query to check.
+	 * @param errors			List of errors to complete in this function each time a semantic error is encountered.
+	 * 
+	 * @since 1.3
+	 */
+	protected void checkSubQueries(final List<ADQLQuery> subQueries, Stack<SearchColumnList> fathersList, final SearchColumnList availableColumns, final UnresolvedIdentifiersException errors){
+		if (subQueries.size() > 0){
 
 			// Push the list of columns into the father columns stack:
 			if (fathersList == null)
@@ -1204,9 +1400,9 @@ public class DBChecker implements QueryChecker {
 			fathersList.push(availableColumns);
 
 			// Check each found sub-query:
-			for(ADQLObject result : sHandler){
+			for(ADQLQuery subQuery : subQueries){
 				try{
-					check((ADQLQuery)result, fathersList);
+					check(subQuery, fathersList);
 				}catch(UnresolvedIdentifiersException uie){
 					Iterator<ParseException> itPe = uie.getErrors();
 					while(itPe.hasNext())
@@ -1385,6 +1581,144 @@ public class DBChecker implements QueryChecker {
 
 	}
 
+	/**
+	 * Search all the objects matching the given handler inside the given ADQL object.
+	 * 
+	 * @param sHandler	The search handler to use.
+	 * @param root		The ADQL object in which the search must be done.
+	 * 
+	 * @return	The list of all matching objects.
+	 * 
+	 * @since 1.3
+	 */
+	@SuppressWarnings("unchecked")
+	private final static < T > List<T> search(final ISearchHandler sHandler, final ADQLObject root){
+		sHandler.search(root);
+		ArrayList<T> results = new ArrayList<T>(sHandler.getNbMatch());
+		for(ADQLObject result : sHandler)
+			results.add((T)result);
+		return results;
+	}
+
+	/* *********** */
+	/* QUERY ITEMS */
+	/* *********** */
+	/**
+	 * <p>All the items of an ADQL query that {@link DBChecker} must check, gathered in only one walk through the query.</p>
+	 * 
+	 * <p>
+	 * 	Each list contains exactly what the corresponding search handler of {@link DBChecker} would have found in the query.
+	 * 	Thus, as these handlers, this visitor does not go inside sub-queries, except the ones of the clause FROM for which only the
+	 * 	{@link ADQLTable} is kept.
+	 * </p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 1.3 (10/2014)
+	 * @since 1.3
+	 */
+	protected static class QueryItems extends ADQLVisitor {
+		/** All tables of the clause FROM (sub-queries included). */
+		public final List<ADQLTable> tables = new ArrayList<ADQLTable>();
+		/** All SELECT items of the form "{table}.*". */
+		public final List<SelectAllColumns> wildcards = new ArrayList<SelectAllColumns>();
+		/** All columns. */
+		public final List<ADQLColumn> columns = new ArrayList<ADQLColumn>();
+		/** All references to selected columns (i.e. items of ORDER BY and GROUP BY). */
+		public final List<ColumnReference> colRefs = new ArrayList<ColumnReference>();
+		/** All User Defined Functions. */
+		public final List<UserDefinedFunction> udfs = new ArrayList<UserDefinedFunction>();
+		/** All geometrical functions. */
+		public final List<GeometryFunction> geometries = new ArrayList<GeometryFunction>();
+		/** All explicit coordinate systems (i.e. {@link StringConstant}s given to POINT, BOX, CIRCLE or POLYGON). */
+		public final List<StringConstant> coordSys = new ArrayList<StringConstant>();
+		/** All REGION functions whose the parameter is a {@link StringConstant}. */
+		public final List<RegionFunction> regions = new ArrayList<RegionFunction>();
+		/** All operands whose the type is not yet known and for which a geometry, a string or a numeric is expected. */
+		public final List<UnknownType> unknownTypes = new ArrayList<UnknownType>();
+		/** All sub-queries outside the clause FROM. */
+		public final List<ADQLQuery> subQueries = new ArrayList<ADQLQuery>();
+
+		/** Indicate whether the clause FROM is currently visited. */
+		private boolean inFrom = false;
+		/** Indicate whether the clause SELECT is currently visited. */
+		private boolean inSelect = false;
+
+		/**
+		 * Walk through the given query and gather all items to check.
+		 * 
+		 * @param query	The query to walk through.
+		 */
+		public QueryItems(final ADQLQuery query){
+			ADQLIterator it = query.adqlIterator();
+			while(it.hasNext()){
+				ADQLObject clause = it.next();
+				inFrom = (clause == query.getFrom());
+				inSelect = (clause == query.getSelect());
+				traverse(clause);
+			}
+			inFrom = inSelect = false;
+		}
+
+		@Override
+		protected boolean dispatch(final ADQLObject obj){
+			if (obj instanceof UnknownType){
+				char expected = ((UnknownType)obj).getExpectedType();
+				if (expected == 'G' || expected == 'g' || expected == 'S' || expected == 's' || expected == 'N' || expected == 'n')
+					unknownTypes.add((UnknownType)obj);
+			}
+			return super.dispatch(obj);
+		}
+
+		@Override
+		protected boolean visit(final ADQLQuery query){
+			if (!inFrom)
+				subQueries.add(query);
+			return false;
+		}
+
+		@Override
+		protected boolean visit(final ADQLTable table){
+			if (inFrom)
+				tables.add(table);
+			return true;
+		}
+
+		@Override
+		protected boolean visit(final SelectAllColumns wildcard){
+			if (inSelect && wildcard.getAdqlTable() != null)
+				wildcards.add(wildcard);
+			return true;
+		}
+
+		@Override
+		protected boolean visit(final ColumnReference colRef){
+			colRefs.add(colRef);
+			return true;
+		}
+
+		@Override
+		protected boolean visit(final ADQLColumn column){
+			columns.add(column);
+			return true;
+		}
+
+		@Override
+		protected boolean visit(final UserDefinedFunction udf){
+			udfs.add(udf);
+			return true;
+		}
+
+		@Override
+		protected boolean visit(final GeometryFunction fct){
+			geometries.add(fct);
+			if ((fct instanceof PointFunction || fct instanceof BoxFunction || fct instanceof CircleFunction || fct instanceof PolygonFunction) && fct.getCoordinateSystem() instanceof StringConstant)
+				coordSys.add((StringConstant)fct.getCoordinateSystem());
+			else if (fct instanceof RegionFunction && ((RegionFunction)fct).getParameter(0) instanceof StringConstant)
+				regions.add((RegionFunction)fct);
+			return true;
+		}
+	}
+
 	/**
 	 * <p>Implement the binary search algorithm over a sorted array.</p>
 	 * 
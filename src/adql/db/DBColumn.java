@@ -67,6 +67,20 @@ public interface DBColumn {
 	 */
 	public DBTable getTable();
 
+	/**
+	 * <p>Tell whether this column is indexed in the "database".</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This information lets the translators write the SQL query so that the indexes can be used
+	 * 	(e.g. to choose the driving side of a positional join).
+	 * </i></p>
+	 * 
+	 * @return	<i>true</i> if this column is indexed, <i>false</i> otherwise (or if unknown).
+	 * 
+	 * @since 1.3
+	 */
+	public boolean isIndexed();
+
 	/**
 	 * Makes a copy of this instance of {@link DBColumn}.
 	 * 
@@ -127,6 +127,11 @@ public class DBCommonColumn implements DBColumn {
 		return null;
 	}
 
+	@Override
+	public final boolean isIndexed(){
+		return generalColumnDesc.isIndexed();
+	}
+
 	/**
 	 * Get an iterator over the list of all tables covered by this common column.
 	 * 
@@ -86,6 +86,27 @@ public interface DBTable extends Iterable<DBColumn> {
 	 */
 	public DBColumn getColumn(String colName, boolean adqlName);
 
+	/**
+	 * <p>Gets the number of rows of this table in the "database".</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This number does not have to be exact. It only lets the translators choose the driving side of a join
+	 * 	(e.g. the smaller table of a positional cross-match).
+	 * </i></p>
+	 * 
+	 * <p><b>Warning:</b>
+	 * 	This function is new in the version 1.3 of this interface. An implementation which can not estimate
+	 * 	its number of rows has just to return -1: the translators then keep the join as written in the query.
+	 * 	Implementations extending {@link DefaultDBTable} do not need any change: they return -1 until
+	 * 	{@link DefaultDBTable#setNbRows(long)} is called.
+	 * </p>
+	 * 
+	 * @return	Its (estimated) number of rows, or a negative value if unknown.
+	 * 
+	 * @since 1.3
+	 */
+	public long getNbRows();
+
 	/**
 	 * <p>Makes a copy of this instance of {@link DBTable}, with the possibility to change the DB and ADQL names.</p>
 	 * 
@@ -38,6 +38,9 @@ public class DefaultDBColumn implements DBColumn {
 	protected DBTable table;
 	/** Name that this column must have in ADQL queries. */
 	protected String adqlName = null;
+	/** Indicate whether this column is indexed in the "database".
+	 * @since 1.3 */
+	protected boolean indexed = false;
 
 	/**
 	 * Builds a default {@link DBColumn} with the given DB name and DB table.
@@ -150,6 +153,22 @@ public class DefaultDBColumn implements DBColumn {
 		this.type = type;
 	}
 
+	@Override
+	public final boolean isIndexed(){
+		return indexed;
+	}
+
+	/**
+	 * Set whether this column is indexed in the "database".
+	 * 
+	 * @param indexed	<i>true</i> if this column is indexed, <i>false</i> otherwise.
+	 * 
+	 * @since 1.3
+	 */
+	public final void setIndexed(final boolean indexed){
+		this.indexed = indexed;
+	}
+
 	@Override
 	public final String getDBName(){
 		return dbName;
@@ -166,7 +185,9 @@ public class DefaultDBColumn implements DBColumn {
 
 	@Override
 	public DBColumn copy(final String dbName, final String adqlName, final DBTable dbTable){
-		return new DefaultDBColumn(dbName, adqlName, type, dbTable);
+		DefaultDBColumn copy = new DefaultDBColumn(dbName, adqlName, type, dbTable);
+		copy.setIndexed(indexed);
+		return copy;
 	}
 
 }
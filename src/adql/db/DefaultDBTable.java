@@ -42,6 +42,10 @@ public class DefaultDBTable implements DBTable {
 
 	protected HashMap<String,DBColumn> columns = new HashMap<String,DBColumn>();
 
+	/** Number of rows of this table. A negative value means "unknown".
+	 * @since 1.3 */
+	protected long nbRows = -1;
+
 	/**
 	 * <p>Builds a default {@link DBTable} with the given DB name.</p>
 	 * 
@@ -289,6 +293,22 @@ public class DefaultDBTable implements DBTable {
 		return str.toString();
 	}
 
+	@Override
+	public long getNbRows(){
+		return nbRows;
+	}
+
+	/**
+	 * Set the number of rows of this table in the "database".
+	 * 
+	 * @param nbRows	Its (estimated) number of rows, or a negative value if unknown.
+	 * 
+	 * @since 1.3
+	 */
+	public final void setNbRows(final long nbRows){
+		this.nbRows = nbRows;
+	}
+
 	@Override
 	public DBTable copy(String dbName, String adqlName){
 		dbName = (dbName == null) ? joinTableName(new String[]{dbCatalogName,dbSchemaName,this.dbName}) : dbName;
@@ -300,6 +320,7 @@ public class DefaultDBTable implements DBTable {
 			else
 				copy.addColumn(col.copy(col.getDBName(), col.getADQLName(), copy));
 		}
+		copy.setNbRows(nbRows);
 		return copy;
 	}
 }
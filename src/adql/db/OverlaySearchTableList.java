@@ -0,0 +1,95 @@
+package adql.db;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * <p>A {@link SearchTableList} layered on top of another one, called "base".</p>
+ * 
+ * <p>
+ * 	All the search functions look for the matching {@link DBTable}s in the base list and then in this list.
+ * 	Thus, a big list of tables (e.g. all the tables published in a TAP service) can be indexed only once and
+ * 	shared by several {@link DBChecker}s, while each of them adds its own few tables (e.g. the uploaded ones)
+ * 	in a cheap overlay.
+ * </p>
+ * 
+ * <p><i><b>Warning:</b>
+ * 	As a {@link java.util.List}, this object contains only the tables of the overlay. The base list is never modified
+ * 	by this class ; it must not be modified by anybody else while it is shared.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ */
+public class OverlaySearchTableList extends SearchTableList {
+	private static final long serialVersionUID = 1L;
+
+	/** List of tables on top of which this list is layered. <i>MAY be NULL</i> */
+	protected final SearchTableList base;
+
+	/**
+	 * Build an empty overlay on top of the given list.
+	 * 
+	 * @param base	List of tables to search first. <i>MAY be NULL</i>
+	 */
+	public OverlaySearchTableList(final SearchTableList base){
+		super();
+		this.base = base;
+	}
+
+	/**
+	 * Build an overlay containing the given tables on top of the given list.
+	 * 
+	 * @param base		List of tables to search first. <i>MAY be NULL</i>
+	 * @param overlay	Tables to add in the overlay.
+	 */
+	public OverlaySearchTableList(final SearchTableList base, final Collection<? extends DBTable> overlay){
+		super(overlay);
+		this.base = base;
+	}
+
+	/**
+	 * Get the list of tables on top of which this list is layered.
+	 * 
+	 * @return	The base list. <i>MAY be NULL</i>
+	 */
+	public final SearchTableList getBase(){
+		return base;
+	}
+
+	/**
+	 * Searches all the tables having the given key, first in the base list and then in this overlay.
+	 * 
+	 * @see cds.utils.TextualSearchList#get(java.lang.String, boolean)
+	 */
+	@Override
+	public ArrayList<DBTable> get(final String key, final boolean caseSensitive){
+		if (base == null)
+			return super.get(key, caseSensitive);
+
+		ArrayList<DBTable> founds = base.get(key, caseSensitive);
+		founds.addAll(super.get(key, caseSensitive));
+		return founds;
+	}
+
+}
@@ -0,0 +1,94 @@
+package adql.parser;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.io.Reader;
+
+/**
+ * <p>{@link Reader} of the characters of a {@link CharSequence}.</p>
+ * 
+ * <p>
+ * 	Contrary to a {@link java.io.StringReader}, this reader can be reset with another sequence of characters
+ * 	(see {@link #reset(CharSequence)}). Thus, {@link ADQLParser} can lex all the queries it parses with the same
+ * 	reader, without converting them into bytes first.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	This reader is not thread-safe.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ */
+final class CharSequenceReader extends Reader {
+
+	/** Characters to read. <i>NULL if this reader is closed.</i> */
+	private CharSequence chars = null;
+
+	/** Index of the next character to read. */
+	private int pos = 0;
+
+	/**
+	 * Read from the beginning of the given sequence of characters.
+	 * 
+	 * @param chars	Characters to read. <i>If NULL, the reader is closed.</i>
+	 */
+	public void reset(final CharSequence chars){
+		this.chars = chars;
+		pos = 0;
+	}
+
+	@Override
+	public int read(final char[] cbuf, final int off, final int len){
+		if (chars == null || pos >= chars.length())
+			return -1;
+		else if (len <= 0)
+			return 0;
+
+		int nbRead = Math.min(len, chars.length() - pos);
+		if (chars instanceof String)
+			((String)chars).getChars(pos, pos + nbRead, cbuf, off);
+		else{
+			for(int i = 0; i < nbRead; i++)
+				cbuf[off + i] = chars.charAt(pos + i);
+		}
+		pos += nbRead;
+		return nbRead;
+	}
+
+	@Override
+	public int read(){
+		if (chars == null || pos >= chars.length())
+			return -1;
+		else
+			return chars.charAt(pos++);
+	}
+
+	/**
+	 * Forget the characters to read, but keep this reader reusable (see {@link #reset(CharSequence)}).
+	 */
+	@Override
+	public void close(){
+		chars = null;
+		pos = 0;
+	}
+
+}
@@ -0,0 +1,726 @@
+package adql.search;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.util.Stack;
+
+import adql.query.ADQLIterator;
+import adql.query.ADQLList;
+import adql.query.ADQLObject;
+import adql.query.ADQLOrder;
+import adql.query.ADQLQuery;
+import adql.query.ClauseADQL;
+import adql.query.ClauseConstraints;
+import adql.query.ClauseSelect;
+import adql.query.ColumnReference;
+import adql.query.SelectAllColumns;
+import adql.query.SelectItem;
+import adql.query.constraint.ADQLConstraint;
+import adql.query.constraint.Between;
+import adql.query.constraint.Comparison;
+import adql.query.constraint.ConstraintsGroup;
+import adql.query.constraint.Exists;
+import adql.query.constraint.In;
+import adql.query.constraint.IsNull;
+import adql.query.constraint.NotConstraint;
+import adql.query.from.ADQLJoin;
+import adql.query.from.ADQLTable;
+import adql.query.operand.ADQLColumn;
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.Concatenation;
+import adql.query.operand.NegativeOperand;
+import adql.query.operand.NumericConstant;
+import adql.query.operand.Operation;
+import adql.query.operand.StringConstant;
+import adql.query.operand.WrappedOperand;
+import adql.query.operand.function.ADQLFunction;
+import adql.query.operand.function.MathFunction;
+import adql.query.operand.function.SQLFunction;
+import adql.query.operand.function.UserDefinedFunction;
+import adql.query.operand.function.geometry.AreaFunction;
+import adql.query.operand.function.geometry.BoxFunction;
+import adql.query.operand.function.geometry.CentroidFunction;
+import adql.query.operand.function.geometry.CircleFunction;
+import adql.query.operand.function.geometry.ContainsFunction;
+import adql.query.operand.function.geometry.DistanceFunction;
+import adql.query.operand.function.geometry.ExtractCoord;
+import adql.query.operand.function.geometry.ExtractCoordSys;
+import adql.query.operand.function.geometry.GeometryFunction;
+import adql.query.operand.function.geometry.IntersectsFunction;
+import adql.query.operand.function.geometry.PointFunction;
+import adql.query.operand.function.geometry.PolygonFunction;
+import adql.query.operand.function.geometry.RegionFunction;
+
+/**
+ * <p>Visitor of an ADQL tree.</p>
+ * 
+ * <p>
+ * 	{@link #traverse(ADQLObject)} walks once through the given ADQL object and all its children (depth-first, in the order
+ * 	of their {@link ADQLIterator}). Each encountered object is given to the <code>visit</code> function corresponding to its class
+ * 	(see {@link #dispatch(ADQLObject)}). The value returned by this function tells whether the children of this object must be visited too.
+ * </p>
+ * 
+ * <p>
+ * 	By default, each <code>visit</code> function calls the one of the more general type (e.g. {@link #visit(PointFunction)} calls
+ * 	{@link #visit(GeometryFunction)}, which calls {@link #visit(ADQLFunction)}, which calls {@link #visit(ADQLOperand)}), until
+ * 	{@link #visit(ADQLObject)}, which just returns <i>true</i>. Thus, an extension of this class has to override only the functions
+ * 	of the types it is interested in.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	Contrary to the search handlers (see {@link ISearchHandler}), a visitor can gather several kinds of objects in only one walk through the tree.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ */
+public abstract class ADQLVisitor {
+
+	/**
+	 * <p>Visit the given ADQL object and then, if asked by its <code>visit</code> function, all its children, recursively.</p>
+	 * 
+	 * @param root	The ADQL object to visit first. <i>If NULL, nothing is done.</i>
+	 */
+	public void traverse(final ADQLObject root){
+		if (root == null || !dispatch(root))
+			return;
+
+		Stack<ADQLIterator> stackIt = new Stack<ADQLIterator>();
+		ADQLIterator it = root.adqlIterator();
+		while(true){
+			// Visit the next child of the current object:
+			if (it != null && it.hasNext()){
+				ADQLObject obj = it.next();
+				// ...and then, if asked, its own children:
+				if (obj != null && dispatch(obj)){
+					stackIt.push(it);
+					it = obj.adqlIterator();
+				}
+			}
+			// Or go back to the parent object, if any:
+			else if (!stackIt.isEmpty())
+				it = stackIt.pop();
+			else
+				return;
+		}
+	}
+
+	/**
+	 * <p>Call the <code>visit</code> function corresponding to the most specific type of the given object.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This function may be overridden in order to process all objects whatever is their type (e.g. to collect all objects implementing
+	 * 	a given interface). In this case, do not forget to call <code>super.dispatch(obj)</code>.
+	 * </i></p>
+	 * 
+	 * @param obj	The object to visit.
+	 * 
+	 * @return	<i>true</i> if the children of the given object must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean dispatch(final ADQLObject obj){
+		if (obj instanceof ADQLQuery)
+			return visit((ADQLQuery)obj);
+		else if (obj instanceof SelectAllColumns)
+			return visit((SelectAllColumns)obj);
+		else if (obj instanceof SelectItem)
+			return visit((SelectItem)obj);
+		else if (obj instanceof ADQLOrder)
+			return visit((ADQLOrder)obj);
+		else if (obj instanceof ColumnReference)
+			return visit((ColumnReference)obj);
+		else if (obj instanceof ADQLTable)
+			return visit((ADQLTable)obj);
+		else if (obj instanceof ADQLJoin)
+			return visit((ADQLJoin)obj);
+		else if (obj instanceof ADQLColumn)
+			return visit((ADQLColumn)obj);
+		else if (obj instanceof UserDefinedFunction)
+			return visit((UserDefinedFunction)obj);
+		else if (obj instanceof AreaFunction)
+			return visit((AreaFunction)obj);
+		else if (obj instanceof BoxFunction)
+			return visit((BoxFunction)obj);
+		else if (obj instanceof CentroidFunction)
+			return visit((CentroidFunction)obj);
+		else if (obj instanceof CircleFunction)
+			return visit((CircleFunction)obj);
+		else if (obj instanceof ContainsFunction)
+			return visit((ContainsFunction)obj);
+		else if (obj instanceof DistanceFunction)
+			return visit((DistanceFunction)obj);
+		else if (obj instanceof ExtractCoord)
+			return visit((ExtractCoord)obj);
+		else if (obj instanceof ExtractCoordSys)
+			return visit((ExtractCoordSys)obj);
+		else if (obj instanceof IntersectsFunction)
+			return visit((IntersectsFunction)obj);
+		else if (obj instanceof PointFunction)
+			return visit((PointFunction)obj);
+		else if (obj instanceof PolygonFunction)
+			return visit((PolygonFunction)obj);
+		else if (obj instanceof RegionFunction)
+			return visit((RegionFunction)obj);
+		else if (obj instanceof GeometryFunction)
+			return visit((GeometryFunction)obj);
+		else if (obj instanceof MathFunction)
+			return visit((MathFunction)obj);
+		else if (obj instanceof SQLFunction)
+			return visit((SQLFunction)obj);
+		else if (obj instanceof ADQLFunction)
+			return visit((ADQLFunction)obj);
+		else if (obj instanceof NumericConstant)
+			return visit((NumericConstant)obj);
+		else if (obj instanceof StringConstant)
+			return visit((StringConstant)obj);
+		else if (obj instanceof Concatenation)
+			return visit((Concatenation)obj);
+		else if (obj instanceof NegativeOperand)
+			return visit((NegativeOperand)obj);
+		else if (obj instanceof Operation)
+			return visit((Operation)obj);
+		else if (obj instanceof WrappedOperand)
+			return visit((WrappedOperand)obj);
+		else if (obj instanceof ADQLOperand)
+			return visit((ADQLOperand)obj);
+		else if (obj instanceof ConstraintsGroup)
+			return visit((ConstraintsGroup)obj);
+		else if (obj instanceof Comparison)
+			return visit((Comparison)obj);
+		else if (obj instanceof Between)
+			return visit((Between)obj);
+		else if (obj instanceof Exists)
+			return visit((Exists)obj);
+		else if (obj instanceof In)
+			return visit((In)obj);
+		else if (obj instanceof IsNull)
+			return visit((IsNull)obj);
+		else if (obj instanceof NotConstraint)
+			return visit((NotConstraint)obj);
+		else if (obj instanceof ADQLConstraint)
+			return visit((ADQLConstraint)obj);
+		else if (obj instanceof ClauseSelect)
+			return visit((ClauseSelect)obj);
+		else if (obj instanceof ClauseConstraints)
+			return visit((ClauseConstraints)obj);
+		else if (obj instanceof ClauseADQL)
+			return visit((ClauseADQL<?>)obj);
+		else if (obj instanceof ADQLList)
+			return visit((ADQLList<?>)obj);
+		else
+			return visit(obj);
+	}
+
+	/**
+	 * Visit a query (or a sub-query).
+	 * 
+	 * @param query	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLQuery query){
+		return visit((ADQLObject)query);
+	}
+
+	/**
+	 * Visit a joker (<code>*</code> or <code>{table}.*</code>) of the SELECT clause.
+	 * 
+	 * @param item	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final SelectAllColumns item){
+		return visit((SelectItem)item);
+	}
+
+	/**
+	 * Visit an item of the SELECT clause.
+	 * 
+	 * @param item	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final SelectItem item){
+		return visit((ADQLObject)item);
+	}
+
+	/**
+	 * Visit an item of the ORDER BY clause.
+	 * 
+	 * @param order	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLOrder order){
+		return visit((ColumnReference)order);
+	}
+
+	/**
+	 * Visit a reference to a selected column (GROUP BY and ORDER BY clauses).
+	 * 
+	 * @param colRef	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ColumnReference colRef){
+		return visit((ADQLObject)colRef);
+	}
+
+	/**
+	 * Visit a table reference (or a sub-query) of the FROM clause.
+	 * 
+	 * @param table	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLTable table){
+		return visit((ADQLObject)table);
+	}
+
+	/**
+	 * Visit a join of the FROM clause.
+	 * 
+	 * @param join	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLJoin join){
+		return visit((ADQLObject)join);
+	}
+
+	/**
+	 * Visit a column reference.
+	 * 
+	 * @param column	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLColumn column){
+		return visit((ADQLOperand)column);
+	}
+
+	/**
+	 * Visit a User Defined Function.
+	 * 
+	 * @param udf	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final UserDefinedFunction udf){
+		return visit((ADQLFunction)udf);
+	}
+
+	/**
+	 * Visit a call to the geometrical function AREA.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final AreaFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function BOX.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final BoxFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function CENTROID.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final CentroidFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function CIRCLE.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final CircleFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function CONTAINS.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ContainsFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function DISTANCE.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final DistanceFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function COORD1 or COORD2.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ExtractCoord fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function COORDSYS.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ExtractCoordSys fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function INTERSECTS.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final IntersectsFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function POINT.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final PointFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function POLYGON.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final PolygonFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a call to the geometrical function REGION.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final RegionFunction fct){
+		return visit((GeometryFunction)fct);
+	}
+
+	/**
+	 * Visit a geometrical function.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final GeometryFunction fct){
+		return visit((ADQLFunction)fct);
+	}
+
+	/**
+	 * Visit a mathematical function.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final MathFunction fct){
+		return visit((ADQLFunction)fct);
+	}
+
+	/**
+	 * Visit an SQL function (e.g. COUNT, MIN, MAX).
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final SQLFunction fct){
+		return visit((ADQLFunction)fct);
+	}
+
+	/**
+	 * Visit a function.
+	 * 
+	 * @param fct	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLFunction fct){
+		return visit((ADQLOperand)fct);
+	}
+
+	/**
+	 * Visit a numeric constant.
+	 * 
+	 * @param cst	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final NumericConstant cst){
+		return visit((ADQLOperand)cst);
+	}
+
+	/**
+	 * Visit a string constant.
+	 * 
+	 * @param cst	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final StringConstant cst){
+		return visit((ADQLOperand)cst);
+	}
+
+	/**
+	 * Visit a concatenation of strings.
+	 * 
+	 * @param concat	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final Concatenation concat){
+		return visit((ADQLOperand)concat);
+	}
+
+	/**
+	 * Visit a negative operand.
+	 * 
+	 * @param operand	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final NegativeOperand operand){
+		return visit((ADQLOperand)operand);
+	}
+
+	/**
+	 * Visit a numeric operation.
+	 * 
+	 * @param operation	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final Operation operation){
+		return visit((ADQLOperand)operation);
+	}
+
+	/**
+	 * Visit an operand between parenthesis.
+	 * 
+	 * @param operand	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final WrappedOperand operand){
+		return visit((ADQLOperand)operand);
+	}
+
+	/**
+	 * Visit an operand.
+	 * 
+	 * @param operand	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLOperand operand){
+		return visit((ADQLObject)operand);
+	}
+
+	/**
+	 * Visit a group of constraints (between parenthesis).
+	 * 
+	 * @param group	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ConstraintsGroup group){
+		return visit((ADQLConstraint)group);
+	}
+
+	/**
+	 * Visit a comparison.
+	 * 
+	 * @param comp	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final Comparison comp){
+		return visit((ADQLConstraint)comp);
+	}
+
+	/**
+	 * Visit a BETWEEN constraint.
+	 * 
+	 * @param between	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final Between between){
+		return visit((ADQLConstraint)between);
+	}
+
+	/**
+	 * Visit an EXISTS constraint.
+	 * 
+	 * @param exists	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final Exists exists){
+		return visit((ADQLConstraint)exists);
+	}
+
+	/**
+	 * Visit an IN constraint.
+	 * 
+	 * @param in	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final In in){
+		return visit((ADQLConstraint)in);
+	}
+
+	/**
+	 * Visit an IS NULL constraint.
+	 * 
+	 * @param isNull	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final IsNull isNull){
+		return visit((ADQLConstraint)isNull);
+	}
+
+	/**
+	 * Visit a NOT constraint.
+	 * 
+	 * @param not	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final NotConstraint not){
+		return visit((ADQLConstraint)not);
+	}
+
+	/**
+	 * Visit a constraint.
+	 * 
+	 * @param constraint	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLConstraint constraint){
+		return visit((ADQLObject)constraint);
+	}
+
+	/**
+	 * Visit the SELECT clause.
+	 * 
+	 * @param clause	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ClauseSelect clause){
+		return visit((ClauseADQL<?>)clause);
+	}
+
+	/**
+	 * Visit a clause of constraints (WHERE or HAVING).
+	 * 
+	 * @param clause	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ClauseConstraints clause){
+		return visit((ClauseADQL<?>)clause);
+	}
+
+	/**
+	 * Visit a clause (e.g. GROUP BY, ORDER BY).
+	 * 
+	 * @param clause	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ClauseADQL<?> clause){
+		return visit((ADQLList<?>)clause);
+	}
+
+	/**
+	 * Visit a list of ADQL objects.
+	 * 
+	 * @param list	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise.
+	 */
+	protected boolean visit(final ADQLList<?> list){
+		return visit((ADQLObject)list);
+	}
+
+	/**
+	 * Visit any ADQL object not matching any of the other <code>visit</code> functions.
+	 * 
+	 * @param obj	The object to visit.
+	 * 
+	 * @return	<i>true</i> if its children must be visited, <i>false</i> otherwise. <i>By default: true.</i>
+	 */
+	protected boolean visit(final ADQLObject obj){
+		return true;
+	}
+
+}
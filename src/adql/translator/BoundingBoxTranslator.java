@@ -0,0 +1,598 @@
+package adql.translator;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.math.BigDecimal;
+
+import adql.query.constraint.Comparison;
+import adql.query.constraint.ComparisonOperator;
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.function.geometry.BoxFunction;
+import adql.query.operand.function.geometry.CircleFunction;
+import adql.query.operand.function.geometry.ContainsFunction;
+import adql.query.operand.function.geometry.DistanceFunction;
+import adql.query.operand.function.geometry.GeometryFunction;
+import adql.query.operand.function.geometry.GeometryFunction.GeometryValue;
+import adql.query.operand.function.geometry.IntersectsFunction;
+import adql.query.operand.function.geometry.PointFunction;
+import adql.query.operand.function.geometry.PolygonFunction;
+
+/**
+ * <p>Translates all ADQL objects into SQL for a database without spatial extension (e.g. plain PostgreSQL or SQLite),
+ * in which positions are stored in two columns (e.g. ra and dec, in degrees) having an ordinary index (i.e. B-tree).</p>
+ * 
+ * <p>
+ * 	The positional predicates on a POINT function and a constant region are rewritten into a bounding box of the region,
+ * 	which can be evaluated with the indexes of the coordinates, followed by the exact spherical test:
+ * </p>
+ * <ul>
+ * 	<li><code>CONTAINS(POINT(...), CIRCLE(...)) = 1</code> and <code>DISTANCE(POINT(...), POINT(...)) &lt; r</code> (with a constant point)
+ * 		become <code>(dec BETWEEN ... AND ... AND ra BETWEEN ... AND ... AND <i>test</i>)</code>, where the test is the haversine
+ * 		of the distance compared with the one of the radius (see {@link #appendCircleTest(PointFunction, double, double, double, boolean, StringBuilder)}),</li>
+ * 	<li><code>CONTAINS(POINT(...), BOX(...)) = 1</code> becomes the ranges of the box (a BOX is a range of longitudes and latitudes, as in pgSphere),</li>
+ * 	<li><code>CONTAINS(POINT(...), POLYGON(...)) = 1</code> becomes the bounding box of the polygon followed by one half-space test per edge
+ * 		if the polygon is convex ; otherwise, the exact test is the ADQL function itself (which must then be defined in the database).</li>
+ * </ul>
+ * 
+ * <p>
+ * 	INTERSECTS between a POINT and one of these regions is translated like CONTAINS, as well as the comparisons with swapped operands
+ * 	and with <code>!=</code> 0. All the other geometrical expressions are translated as in {@link PostgreSQLTranslator}.
+ * </p>
+ * 
+ * <p>
+ * 	The bounding box deals with the wrap-around of the longitude (e.g. <code>(ra &gt;= 359.5 OR ra &lt;= 0.5)</code>) and with the poles
+ * 	(no constraint on the longitude if a pole is in the region). The longitudes are then expected between 0 and 360 degrees in the database.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	The exact tests use the SQL functions <code>radians</code>, <code>sin</code> and <code>cos</code>. They exist in PostgreSQL, but they must be
+ * 	registered in SQLite (e.g. with <code>org.sqlite.Function</code>). Another exact test (e.g. a user defined function) may be written by
+ * 	overwriting {@link #appendCircleTest(PointFunction, double, double, double, boolean, StringBuilder)} and
+ * 	{@link #appendPolygonTest(PointFunction, double[][], StringBuilder)}.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ * 
+ * @see PostgreSQLTranslator
+ */
+public class BoundingBoxTranslator extends PostgreSQLTranslator {
+
+	/**
+	 * Builds a BoundingBoxTranslator which always translates in SQL all identifiers (schema, table and column) in a case sensitive manner ;
+	 * in other words, schema, table and column names will be surrounded by double quotes in the SQL translation.
+	 * 
+	 * @see PostgreSQLTranslator#PostgreSQLTranslator()
+	 */
+	public BoundingBoxTranslator(){
+		super();
+	}
+
+	/**
+	 * Builds a BoundingBoxTranslator which always translates in SQL all identifiers (schema, table and column) in the specified case sensitivity ;
+	 * in other words, schema, table and column names will all be surrounded or not by double quotes in the SQL translation.
+	 * 
+	 * @param allCaseSensitive	<i>true</i> to translate all identifiers in a case sensitive manner (surrounded by double quotes), <i>false</i> for case insensitivity.
+	 * 
+	 * @see PostgreSQLTranslator#PostgreSQLTranslator(boolean)
+	 */
+	public BoundingBoxTranslator(boolean allCaseSensitive){
+		super(allCaseSensitive);
+	}
+
+	/**
+	 * Builds a BoundingBoxTranslator which will always translate in SQL identifiers with the defined case sensitivity.
+	 * 
+	 * @param catalog	<i>true</i> to translate catalog names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param schema	<i>true</i> to translate schema names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param table		<i>true</i> to translate table names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param column	<i>true</i> to translate column names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * 
+	 * @see PostgreSQLTranslator#PostgreSQLTranslator(boolean, boolean, boolean, boolean)
+	 */
+	public BoundingBoxTranslator(boolean catalog, boolean schema, boolean table, boolean column){
+		super(catalog, schema, table, column);
+	}
+
+	@Override
+	public void translate(Comparison comp, StringBuilder sql) throws TranslationException{
+		ADQLOperand left = comp.getLeftOperand(), right = comp.getRightOperand();
+		ComparisonOperator op = comp.getOperator();
+
+		// CONTAINS(POINT, CIRCLE|BOX|POLYGON) = 1, ...:
+		if (appendPredicate(left, op, right, sql) || appendPredicate(right, op, left, sql))
+			return;
+
+		// DISTANCE(POINT, POINT) < r, r > DISTANCE(POINT, POINT), ...:
+		if (left instanceof DistanceFunction && (op == ComparisonOperator.LESS_THAN || op == ComparisonOperator.LESS_OR_EQUAL)){
+			if (appendDistancePredicate((DistanceFunction)left, op == ComparisonOperator.LESS_OR_EQUAL, right, sql))
+				return;
+		}else if (right instanceof DistanceFunction && (op == ComparisonOperator.GREATER_THAN || op == ComparisonOperator.GREATER_OR_EQUAL)){
+			if (appendDistancePredicate((DistanceFunction)right, op == ComparisonOperator.GREATER_OR_EQUAL, left, sql))
+				return;
+		}
+
+		super.translate(comp, sql);
+	}
+
+	/**
+	 * Append the given CONTAINS or INTERSECTS function as a bounding box followed by the exact test, if it is expected to be true
+	 * (i.e. <code>= 1</code> or <code>!= 0</code>) and if it is applied on a POINT function and a constant CIRCLE, BOX or POLYGON.
+	 * 
+	 * @param fct	The operand which may be a CONTAINS or INTERSECTS function.
+	 * @param op	The comparison operator.
+	 * @param value	The operand compared to the function.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the comparison has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected boolean appendPredicate(final ADQLOperand fct, final ComparisonOperator op, final ADQLOperand value, final StringBuilder sql) throws TranslationException{
+		// Is the predicate expected to be true?
+		BigDecimal number = getNumericConstant(value);
+		if (number == null || !((op == ComparisonOperator.EQUAL && number.compareTo(BigDecimal.ONE) == 0) || (op == ComparisonOperator.NOT_EQUAL && number.signum() == 0)))
+			return false;
+
+		// Fetch the point and the region:
+		GeometryValue<GeometryFunction> param1, param2;
+		if (fct instanceof ContainsFunction){
+			param1 = ((ContainsFunction)fct).getLeftParam();
+			param2 = ((ContainsFunction)fct).getRightParam();
+		}else if (fct instanceof IntersectsFunction){
+			param1 = ((IntersectsFunction)fct).getLeftParam();
+			param2 = ((IntersectsFunction)fct).getRightParam();
+			if (!(param1.getValue() instanceof PointFunction)){
+				param1 = param2;
+				param2 = ((IntersectsFunction)fct).getLeftParam();
+			}
+		}else
+			return false;
+		if (!(param1.getValue() instanceof PointFunction))
+			return false;
+		PointFunction point = (PointFunction)param1.getValue();
+		ADQLOperand region = param2.getValue();
+
+		// CASE: CIRCLE:
+		if (region instanceof CircleFunction){
+			CircleFunction circle = (CircleFunction)region;
+			double[] params = getConstants(circle.getCoord1(), circle.getCoord2(), circle.getRadius());
+			if (params == null)
+				return false;
+			appendCone(point, params[0], params[1], params[2], true, sql);
+			return true;
+		}
+		// CASE: BOX:
+		else if (region instanceof BoxFunction){
+			BoxFunction box = (BoxFunction)region;
+			double[] params = getConstants(box.getCoord1(), box.getCoord2(), box.getWidth(), box.getHeight());
+			if (params == null || (params[2] >= 360 && params[3] >= 180))
+				return false;
+			sql.append('(');
+			appendBoundingBox(point, params[0] - params[2] / 2, params[0] + params[2] / 2, params[1] - params[3] / 2, params[1] + params[3] / 2, sql);
+			sql.append(')');
+			return true;
+		}
+		// CASE: POLYGON:
+		else if (region instanceof PolygonFunction){
+			PolygonFunction polygon = (PolygonFunction)region;
+			if (polygon.getNbParameters() < 7)
+				return false;
+			ADQLOperand[] coords = new ADQLOperand[polygon.getNbParameters() - 1];
+			for(int i = 0; i < coords.length; i++)
+				coords[i] = polygon.getParameter(i + 1);
+			double[] params = getConstants(coords);
+			if (params == null)
+				return false;
+			appendPolygon(fct, point, params, sql);
+			return true;
+		}else
+			return false;
+	}
+
+	/**
+	 * Append the comparison <code>DISTANCE(p1, p2) &lt; r</code> (or <code>&lt;=</code>) as a bounding box followed by the exact test,
+	 * if both points are POINT functions, if one of them is constant and if the maximum distance is a numeric constant.
+	 * 
+	 * @param fct		The DISTANCE function.
+	 * @param inclusive	<i>true</i> for <code>&lt;=</code>, <i>false</i> for <code>&lt;</code>.
+	 * @param threshold	The maximum distance (in degrees).
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the comparison has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected boolean appendDistancePredicate(final DistanceFunction fct, final boolean inclusive, final ADQLOperand threshold, final StringBuilder sql) throws TranslationException{
+		if (!(fct.getP1().getValue() instanceof PointFunction && fct.getP2().getValue() instanceof PointFunction))
+			return false;
+		PointFunction p1 = (PointFunction)fct.getP1().getValue(), p2 = (PointFunction)fct.getP2().getValue();
+
+		// Search for the constant center:
+		double[] center = getConstants(p2.getCoord1(), p2.getCoord2());
+		PointFunction point = p1;
+		if (center == null){
+			center = getConstants(p1.getCoord1(), p1.getCoord2());
+			point = p2;
+		}
+		double[] radius = getConstants(threshold);
+		if (center == null || radius == null)
+			return false;
+
+		appendCone(point, center[0], center[1], radius[0], inclusive, sql);
+		return true;
+	}
+
+	/**
+	 * Append the test of the given point against the given circle: its bounding box followed by the exact test.
+	 * 
+	 * @param point		The point to test.
+	 * @param ra0		Longitude of the center (in degrees).
+	 * @param dec0		Latitude of the center (in degrees).
+	 * @param radius	Radius of the circle (in degrees).
+	 * @param inclusive	<i>true</i> if the points at exactly the given distance are in the circle, <i>false</i> otherwise.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected void appendCone(final PointFunction point, final double ra0, final double dec0, final double radius, final boolean inclusive, final StringBuilder sql) throws TranslationException{
+		sql.append('(');
+
+		// Bounding box (none if the circle covers the whole sky):
+		if (radius < 180){
+			double decMin = dec0 - radius, decMax = dec0 + radius;
+			double raRadius = 360;
+			// no constraint on the longitude if a pole is in the circle:
+			if (decMin > -90 && decMax < 90){
+				double sinRa = Math.sin(Math.toRadians(radius)) / Math.cos(Math.toRadians(dec0));
+				if (sinRa < 1)
+					raRadius = Math.toDegrees(Math.asin(sinRa));
+			}
+			if (appendBoundingBox(point, ra0 - raRadius, ra0 + raRadius, decMin, decMax, sql))
+				sql.append(" AND ");
+		}
+
+		// Exact test:
+		appendCircleTest(point, ra0, dec0, radius, inclusive, sql);
+
+		sql.append(')');
+	}
+
+	/**
+	 * <p>Append the exact test of the given point against the given circle.</p>
+	 * 
+	 * <p>
+	 * 	By default, the haversine formula is used: the squared sine of the half distance between the point and the center is compared
+	 * 	with the squared sine of the half radius. The constants are computed here:
+	 * 	<code>sin(radians(dec - dec0)/2)&sup2; + cos(radians(dec))*cos(dec0)*sin(radians(ra - ra0)/2)&sup2; &lt;= sin(radius/2)&sup2;</code>.
+	 * 	Contrary to the comparison of the cosines, this test keeps its precision for very small radii (e.g. a few milliarcseconds),
+	 * 	and, since the half distance is always between 0 and 90 degrees, no arcsine and no square root are needed.
+	 * </p>
+	 * 
+	 * @param point		The point to test.
+	 * @param ra0		Longitude of the center (in degrees).
+	 * @param dec0		Latitude of the center (in degrees).
+	 * @param radius	Radius of the circle (in degrees). <i>note: a radius greater than 180 degrees is considered as equal to 180 degrees (i.e. the whole sphere).</i>
+	 * @param inclusive	<i>true</i> if the points at exactly the given distance are in the circle, <i>false</i> otherwise.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected void appendCircleTest(final PointFunction point, final double ra0, final double dec0, final double radius, final boolean inclusive, final StringBuilder sql) throws TranslationException{
+		// Beyond 180 degrees, sin(radius/2) decreases again ; but such circle covers anyway the whole sphere:
+		double sinHalfRadius = Math.sin(Math.toRadians(Math.min(radius, 180)) / 2);
+		appendHalfSineSquare(point.getCoord2(), dec0, sql);
+		sql.append(" + cos(radians(");
+		translate(point.getCoord2(), sql);
+		sql.append("))*").append(Math.cos(Math.toRadians(dec0))).append('*');
+		appendHalfSineSquare(point.getCoord1(), normalizeLongitude(ra0), sql);
+		sql.append(' ').append((inclusive || radius > 180) ? "<=" : "<").append(' ').append(sinHalfRadius * sinHalfRadius);
+	}
+
+	/**
+	 * Append the squared sine of the half difference between the given coordinate and the given constant:
+	 * <code>sin(radians(coord - value)/2)*sin(radians(coord - value)/2)</code>.
+	 * 
+	 * @param coord	The coordinate (in degrees).
+	 * @param value	The constant (in degrees).
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	private void appendHalfSineSquare(final ADQLOperand coord, final double value, final StringBuilder sql) throws TranslationException{
+		for(int i = 0; i < 2; i++){
+			if (i > 0)
+				sql.append('*');
+			sql.append("sin(radians(");
+			translate(coord, sql);
+			sql.append(" - ").append(value).append(")/2)");
+		}
+	}
+
+	/**
+	 * Append the test of the given point against the given polygon: its bounding box followed by the exact test.
+	 * 
+	 * @param fct		The CONTAINS or INTERSECTS function, used as exact test if the polygon is not convex.
+	 * @param point		The point to test.
+	 * @param coords	Coordinates (in degrees) of all the vertices of the polygon: <code>{ra1, dec1, ra2, dec2, ...}</code>.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected void appendPolygon(final ADQLOperand fct, final PointFunction point, final double[] coords, final StringBuilder sql) throws TranslationException{
+		final int nbVertices = coords.length / 2;
+
+		// Position of all the vertices on the unit sphere:
+		double[][] vertices = toVectors(coords);
+
+		// Range of latitudes: the ones of the vertices, and the extrema of the edges:
+		double decMin = 90, decMax = -90;
+		for(int i = 0; i < nbVertices; i++){
+			decMin = Math.min(decMin, coords[2 * i + 1]);
+			decMax = Math.max(decMax, coords[2 * i + 1]);
+			double[] a = vertices[i], b = vertices[(i + 1) % nbVertices], n = cross(a, b);
+			double norm2 = dot(n, n);
+			if (norm2 > 0){
+				// point of the great circle with the highest latitude:
+				double[] top = new double[]{-n[2] * n[0] / norm2,-n[2] * n[1] / norm2,1 - n[2] * n[2] / norm2};
+				double topNorm = Math.sqrt(dot(top, top));
+				if (topNorm > 0){
+					double topDec = Math.toDegrees(Math.asin(Math.min(1, top[2] / topNorm)));
+					if (dot(cross(a, top), n) > 0 && dot(cross(top, b), n) > 0)
+						decMax = Math.max(decMax, topDec);
+					if (dot(cross(a, top), n) < 0 && dot(cross(top, b), n) < 0)
+						decMin = Math.min(decMin, -topDec);
+				}
+			}
+		}
+
+		// Range of longitudes: accumulate the longitude differences along the edges ; a full turn means a pole is inside the polygon:
+		double ra = coords[0], raMin = ra, raMax = ra, zSum = 0;
+		for(int i = 1; i <= nbVertices; i++){
+			ra += normalizeDifference(coords[2 * (i % nbVertices)] - coords[2 * (i - 1)]);
+			raMin = Math.min(raMin, ra);
+			raMax = Math.max(raMax, ra);
+			zSum += vertices[i - 1][2];
+		}
+		if (Math.abs(ra - coords[0]) > 180){
+			raMin = 0;
+			raMax = 360;
+			if (zSum > 0)
+				decMax = 90;
+			else
+				decMin = -90;
+		}
+
+		sql.append('(');
+		if (appendBoundingBox(point, raMin, raMax, decMin, decMax, sql))
+			sql.append(" AND ");
+
+		// Exact test:
+		double[][] normals = getConvexNormals(vertices);
+		if (normals == null){
+			translate(fct, sql);
+			sql.append(" = 1");
+		}else
+			appendPolygonTest(point, normals, sql);
+		sql.append(')');
+	}
+
+	/**
+	 * Get the normals of the edges of the given polygon, if it is convex.
+	 * 
+	 * @param vertices	Position of all the vertices on the unit sphere (see {@link #toVectors(double[])}).
+	 * 
+	 * @return	The normal of each edge (i.e. of the plane of its great circle), oriented toward the inside of the polygon,
+	 *        	or NULL if the polygon is not convex.
+	 */
+	protected static double[][] getConvexNormals(final double[][] vertices){
+		// The polygon is convex if all the vertices are on the same side of each edge:
+		final int nbVertices = vertices.length;
+		double[][] normals = new double[nbVertices][];
+		int orientation = 0;
+		for(int i = 0; i < nbVertices; i++){
+			normals[i] = cross(vertices[i], vertices[(i + 1) % nbVertices]);
+			for(int j = 0; j < nbVertices; j++){
+				double side = dot(normals[i], vertices[j]);
+				if (j == i || j == (i + 1) % nbVertices || Math.abs(side) < 1e-12)
+					continue;
+				int sign = (side > 0) ? 1 : -1;
+				if (orientation == 0)
+					orientation = sign;
+				else if (orientation != sign)
+					return null;
+			}
+		}
+
+		// Orient the normals toward the inside:
+		if (orientation < 0){
+			for(double[] n : normals){
+				for(int k = 0; k < 3; k++)
+					n[k] = -n[k];
+			}
+		}
+		return normals;
+	}
+
+	/**
+	 * <p>Append the exact test of the given point against a convex polygon.</p>
+	 * 
+	 * <p>
+	 * 	The point is in the polygon if it is on the inner side of each edge, that's to say if the scalar product of the point with the normal
+	 * 	of each edge is positive: <code>cos(radians(dec))*(nx*cos(radians(ra)) + ny*sin(radians(ra))) + nz*sin(radians(dec)) &gt;= 0 AND ...</code>.
+	 * </p>
+	 * 
+	 * @param point		The point to test.
+	 * @param normals	The normal of each edge (i.e. of the plane of its great circle), oriented toward the inside of the polygon.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected void appendPolygonTest(final PointFunction point, final double[][] normals, final StringBuilder sql) throws TranslationException{
+		for(int i = 0; i < normals.length; i++){
+			if (i > 0)
+				sql.append(" AND ");
+			sql.append("cos(radians(");
+			translate(point.getCoord2(), sql);
+			sql.append("))*(").append(normals[i][0]).append("*cos(radians(");
+			translate(point.getCoord1(), sql);
+			sql.append(")) + ").append(normals[i][1]).append("*sin(radians(");
+			translate(point.getCoord1(), sql);
+			sql.append("))) + ").append(normals[i][2]).append("*sin(radians(");
+			translate(point.getCoord2(), sql);
+			sql.append(")) >= 0");
+		}
+	}
+
+	/**
+	 * <p>Append the constraints on the coordinates of the given point so that it is in the given ranges.</p>
+	 * 
+	 * <p>
+	 * 	The latitudes are limited to [-90;90] and the constraint on the latitude is <code>dec BETWEEN decMin AND decMax</code>.
+	 * 	The longitudes are normalized in [0;360[ and the constraint on the longitude is <code>ra BETWEEN raMin AND raMax</code>,
+	 * 	or <code>(ra &gt;= raMin OR ra &lt;= raMax)</code> if the range contains the longitude 0. No constraint is written for a full range.
+	 * </p>
+	 * 
+	 * @param point		The point whose the coordinates must be in the given ranges.
+	 * @param raMin		Minimum longitude (in degrees ; may be negative).
+	 * @param raMax		Maximum longitude (in degrees ; may be greater than 360).
+	 * @param decMin	Minimum latitude (in degrees).
+	 * @param decMax	Maximum latitude (in degrees).
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if at least one constraint has been appended, <i>false</i> otherwise.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected boolean appendBoundingBox(final PointFunction point, double raMin, double raMax, double decMin, double decMax, final StringBuilder sql) throws TranslationException{
+		boolean appended = false;
+
+		// Latitude:
+		decMin = Math.max(-90, decMin);
+		decMax = Math.min(90, decMax);
+		if (decMin > -90 || decMax < 90){
+			translate(point.getCoord2(), sql);
+			sql.append(" BETWEEN ").append(decMin).append(" AND ").append(decMax);
+			appended = true;
+		}
+
+		// Longitude:
+		if (raMax - raMin < 360){
+			raMin = normalizeLongitude(raMin);
+			raMax = normalizeLongitude(raMax);
+			if (appended)
+				sql.append(" AND ");
+			if (raMin <= raMax){
+				translate(point.getCoord1(), sql);
+				sql.append(" BETWEEN ").append(raMin).append(" AND ").append(raMax);
+			}else{
+				sql.append('(');
+				translate(point.getCoord1(), sql);
+				sql.append(" >= ").append(raMin).append(" OR ");
+				translate(point.getCoord1(), sql);
+				sql.append(" <= ").append(raMax).append(')');
+			}
+			appended = true;
+		}
+
+		return appended;
+	}
+
+	/**
+	 * Get the value of all the given operands.
+	 * 
+	 * @param operands	Operands which should be numeric constants.
+	 * 
+	 * @return	Their values, or NULL if at least one of them is not a numeric constant.
+	 */
+	protected static double[] getConstants(final ADQLOperand... operands){
+		double[] values = new double[operands.length];
+		for(int i = 0; i < operands.length; i++){
+			BigDecimal value = getNumericConstant(operands[i]);
+			if (value == null)
+				return null;
+			values[i] = value.doubleValue();
+		}
+		return values;
+	}
+
+	/**
+	 * Normalize the given longitude in [0;360[.
+	 * 
+	 * @param ra	A longitude (in degrees).
+	 * 
+	 * @return	The same longitude in [0;360[.
+	 */
+	protected static double normalizeLongitude(final double ra){
+		double normalized = ra % 360;
+		return (normalized < 0) ? normalized + 360 : normalized;
+	}
+
+	/**
+	 * Normalize the given difference of longitudes in ]-180;180].
+	 * 
+	 * @param diff	A difference of longitudes (in degrees).
+	 * 
+	 * @return	The same difference in ]-180;180].
+	 */
+	private static double normalizeDifference(final double diff){
+		double normalized = normalizeLongitude(diff);
+		return (normalized > 180) ? normalized - 360 : normalized;
+	}
+
+	/**
+	 * Get the position on the unit sphere of all the given vertices.
+	 * 
+	 * @param coords	Coordinates (in degrees) of all the vertices: <code>{ra1, dec1, ra2, dec2, ...}</code>.
+	 * 
+	 * @return	Cartesian coordinates of each vertex: <code>{{x1, y1, z1}, {x2, y2, z2}, ...}</code>.
+	 */
+	protected static double[][] toVectors(final double[] coords){
+		double[][] vertices = new double[coords.length / 2][];
+		for(int i = 0; i < vertices.length; i++)
+			vertices[i] = toVector(coords[2 * i], coords[2 * i + 1]);
+		return vertices;
+	}
+
+	/**
+	 * Get the position on the unit sphere of the given coordinates.
+	 * 
+	 * @param ra	Longitude (in degrees).
+	 * @param dec	Latitude (in degrees).
+	 * 
+	 * @return	Its cartesian coordinates: <code>{x, y, z}</code>.
+	 */
+	private static double[] toVector(final double ra, final double dec){
+		double raRad = Math.toRadians(ra), decRad = Math.toRadians(dec);
+		return new double[]{Math.cos(decRad) * Math.cos(raRad),Math.cos(decRad) * Math.sin(raRad),Math.sin(decRad)};
+	}
+
+	/** Cross product of two vectors. */
+	private static double[] cross(final double[] a, final double[] b){
+		return new double[]{a[1] * b[2] - a[2] * b[1],a[2] * b[0] - a[0] * b[2],a[0] * b[1] - a[1] * b[0]};
+	}
+
+	/** Scalar product of two vectors. */
+	private static double dot(final double[] a, final double[] b){
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+
+}
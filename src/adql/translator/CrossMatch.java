@@ -0,0 +1,463 @@
+package adql.translator;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.math.BigDecimal;
+
+import adql.db.DBColumn;
+import adql.db.DBTable;
+import adql.query.ADQLObject;
+import adql.query.constraint.Comparison;
+import adql.query.constraint.ComparisonOperator;
+import adql.query.from.ADQLTable;
+import adql.query.operand.ADQLColumn;
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.function.geometry.CircleFunction;
+import adql.query.operand.function.geometry.ContainsFunction;
+import adql.query.operand.function.geometry.DistanceFunction;
+import adql.query.operand.function.geometry.GeometryFunction;
+import adql.query.operand.function.geometry.GeometryFunction.GeometryValue;
+import adql.query.operand.function.geometry.IntersectsFunction;
+import adql.query.operand.function.geometry.PointFunction;
+import adql.search.SearchColumnHandler;
+
+/**
+ * <p>Positional cross-match between two tables, detected in a comparison of a join condition (<code>ON</code>) or of a <code>WHERE</code> clause.</p>
+ * 
+ * <p>The following comparisons are recognized as a cross-match (with swapped operands and <code>!=</code> 0 as well):</p>
+ * <ul>
+ * 	<li><code>CONTAINS(POINT(a), CIRCLE(b, r)) = 1</code> (or INTERSECTS, whatever is the order of its parameters),</li>
+ * 	<li><code>DISTANCE(a, b) &lt; r</code> (or <code>&lt;=</code>),</li>
+ * </ul>
+ * <p>
+ * 	where <code>a</code> and <code>b</code> are points of two different tables of the FROM clause: either a POINT function whose both
+ * 	coordinates are columns of the same table, or a column (e.g. a pgSphere <code>spoint</code>). The radius <code>r</code> may be
+ * 	any operand, as long as it does not use columns of both tables.
+ * </p>
+ * 
+ * <p>
+ * 	Such comparison is a join condition which can be evaluated with the spatial index of one table (the <b>probed</b> side): for each row
+ * 	of the other table (the <b>driving</b> side), the index is used to fetch all the rows close enough. The sides are chosen as follows:
+ * </p>
+ * <ol>
+ * 	<li>if the radius uses columns of one table, this table must drive,</li>
+ * 	<li>otherwise, if the position of only one table is indexed (see {@link DBColumn#isIndexed()}), this table is probed,</li>
+ * 	<li>otherwise, the smaller table drives (see {@link DBTable#getNbRows()} ; an unknown size is considered as bigger than any known size),</li>
+ * 	<li>otherwise, the order of the ADQL expression is kept: the first point (or the POINT of CONTAINS) is probed.</li>
+ * </ol>
+ * 
+ * <p>
+ * 	A translator can then write the cross-match with the form using the index of the probed side
+ * 	(see {@link PgSphereTranslator} and {@link Q3CTranslator}).
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	The FROM clause is never reordered: the DBMS planner chooses the join order by itself once the join condition can use an index,
+ * 	and reordering the tables would change the order of the columns returned by <code>SELECT *</code>.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ */
+public class CrossMatch {
+
+	/** Side of the cross-match whose each row is used to probe the other side. */
+	protected final Side driving;
+
+	/** Side of the cross-match whose the spatial index is used. */
+	protected final Side probed;
+
+	/** Maximum distance (in degrees) between two matching points. */
+	protected final ADQLOperand radius;
+
+	/** Comparison operator between the distance and the radius: {@link ComparisonOperator#LESS_THAN} or {@link ComparisonOperator#LESS_OR_EQUAL}
+	 * for a DISTANCE, NULL for a CONTAINS or an INTERSECTS. */
+	protected final ComparisonOperator operator;
+
+	/**
+	 * Builds a cross-match.
+	 * 
+	 * @param driving	Side whose each row is used to probe the other side.
+	 * @param probed	Side whose the spatial index is used.
+	 * @param radius	Maximum distance (in degrees).
+	 * @param operator	{@link ComparisonOperator#LESS_THAN} or {@link ComparisonOperator#LESS_OR_EQUAL} for a DISTANCE, NULL for a CONTAINS or an INTERSECTS.
+	 */
+	protected CrossMatch(final Side driving, final Side probed, final ADQLOperand radius, final ComparisonOperator operator){
+		this.driving = driving;
+		this.probed = probed;
+		this.radius = radius;
+		this.operator = operator;
+	}
+
+	/**
+	 * Gets the side of the cross-match whose each row is used to probe the other side.
+	 * 
+	 * @return	The driving side.
+	 */
+	public final Side getDriving(){
+		return driving;
+	}
+
+	/**
+	 * Gets the side of the cross-match whose the spatial index is used.
+	 * 
+	 * @return	The probed side.
+	 */
+	public final Side getProbed(){
+		return probed;
+	}
+
+	/**
+	 * Gets the maximum distance (in degrees) between two matching points.
+	 * 
+	 * @return	The radius.
+	 */
+	public final ADQLOperand getRadius(){
+		return radius;
+	}
+
+	/**
+	 * Gets the comparison operator between the distance and the radius.
+	 * 
+	 * @return	{@link ComparisonOperator#LESS_THAN} or {@link ComparisonOperator#LESS_OR_EQUAL} if the cross-match is expressed with DISTANCE,
+	 *        	NULL if it is expressed with CONTAINS or INTERSECTS.
+	 */
+	public final ComparisonOperator getOperator(){
+		return operator;
+	}
+
+	/**
+	 * Tell whether this cross-match is expressed with DISTANCE.
+	 * 
+	 * @return	<i>true</i> for DISTANCE, <i>false</i> for CONTAINS or INTERSECTS.
+	 */
+	public final boolean isDistance(){
+		return operator != null;
+	}
+
+	/**
+	 * Analyze the given comparison.
+	 * 
+	 * @param comp	A comparison (e.g. of a join condition or of a WHERE clause).
+	 * 
+	 * @return	The corresponding cross-match, or NULL if the comparison is not a positional join between two tables.
+	 */
+	public static CrossMatch analyze(final Comparison comp){
+		if (comp == null)
+			return null;
+
+		ADQLOperand left = comp.getLeftOperand(), right = comp.getRightOperand();
+		ComparisonOperator op = comp.getOperator();
+
+		// CONTAINS(...) = 1, 1 = INTERSECTS(...), ...:
+		if (op == ComparisonOperator.EQUAL || op == ComparisonOperator.NOT_EQUAL){
+			if (isTrue(op, right) && (left instanceof ContainsFunction || left instanceof IntersectsFunction))
+				return analyze((GeometryFunction)left);
+			else if (isTrue(op, left) && (right instanceof ContainsFunction || right instanceof IntersectsFunction))
+				return analyze((GeometryFunction)right);
+		}
+		// DISTANCE(...) < r, r > DISTANCE(...), ...:
+		else if (left instanceof DistanceFunction && (op == ComparisonOperator.LESS_THAN || op == ComparisonOperator.LESS_OR_EQUAL)){
+			DistanceFunction fct = (DistanceFunction)left;
+			return build(getSide(fct.getP1()), getSide(fct.getP2()), right, op);
+		}else if (right instanceof DistanceFunction && (op == ComparisonOperator.GREATER_THAN || op == ComparisonOperator.GREATER_OR_EQUAL)){
+			DistanceFunction fct = (DistanceFunction)right;
+			return build(getSide(fct.getP1()), getSide(fct.getP2()), left, (op == ComparisonOperator.GREATER_THAN) ? ComparisonOperator.LESS_THAN : ComparisonOperator.LESS_OR_EQUAL);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Analyze the given CONTAINS or INTERSECTS function, known to be expected as true.
+	 * 
+	 * @param fct	A CONTAINS or an INTERSECTS function.
+	 * 
+	 * @return	The corresponding cross-match, or NULL if it is not between a point and a circle of two different tables.
+	 */
+	protected static CrossMatch analyze(final GeometryFunction fct){
+		GeometryValue<GeometryFunction> param1, param2;
+		if (fct instanceof ContainsFunction){
+			param1 = ((ContainsFunction)fct).getLeftParam();
+			param2 = ((ContainsFunction)fct).getRightParam();
+		}else{
+			param1 = ((IntersectsFunction)fct).getLeftParam();
+			param2 = ((IntersectsFunction)fct).getRightParam();
+			if (param1.getValue() instanceof CircleFunction){
+				param1 = param2;
+				param2 = ((IntersectsFunction)fct).getLeftParam();
+			}
+		}
+
+		if (!(param2.getValue() instanceof CircleFunction))
+			return null;
+		CircleFunction circle = (CircleFunction)param2.getValue();
+
+		return build(getSide(param1), getSide(circle.getCoord1(), circle.getCoord2(), null), circle.getRadius(), null);
+	}
+
+	/**
+	 * Choose the driving and the probed sides of a cross-match.
+	 * 
+	 * @param first		The first point (the POINT of CONTAINS, or the first point of DISTANCE). <i>MAY be NULL</i>
+	 * @param second	The second point (the center of the CIRCLE, or the second point of DISTANCE). <i>MAY be NULL</i>
+	 * @param radius	The maximum distance.
+	 * @param operator	The comparison operator between the distance and the radius (NULL for CONTAINS and INTERSECTS).
+	 * 
+	 * @return	The cross-match, or NULL if one of the points is missing or if both points come from the same table.
+	 */
+	protected static CrossMatch build(final Side first, final Side second, final ADQLOperand radius, final ComparisonOperator operator){
+		if (first == null || second == null || first.sameTable(second) || radius == null)
+			return null;
+
+		// Which tables are used by the radius?
+		boolean radiusOfFirst = false, radiusOfSecond = false;
+		SearchColumnHandler sHandler = new SearchColumnHandler(true);
+		sHandler.search(radius);
+		for(ADQLObject col : sHandler){
+			Side colSide = getSide((ADQLColumn)col, null);
+			radiusOfFirst = radiusOfFirst || first.sameTable(colSide);
+			radiusOfSecond = radiusOfSecond || second.sameTable(colSide);
+		}
+
+		// Choose the probed side:
+		boolean probeSecond;
+		if (radiusOfFirst && radiusOfSecond)
+			return null;
+		else if (radiusOfFirst || radiusOfSecond)
+			probeSecond = radiusOfFirst;
+		else if (first.isIndexed() != second.isIndexed())
+			probeSecond = second.isIndexed();
+		else
+			probeSecond = isSmaller(first, second);
+
+		return probeSecond ? new CrossMatch(first, second, radius, operator) : new CrossMatch(second, first, radius, operator);
+	}
+
+	/**
+	 * Tell whether the first table is known to be smaller than the second one.
+	 * 
+	 * @param side1	A side.
+	 * @param side2	Another side.
+	 * 
+	 * @return	<i>true</i> if the size of the first table is known and is less than the size of the second one (or if the latter is unknown),
+	 *        	<i>false</i> otherwise.
+	 */
+	protected static boolean isSmaller(final Side side1, final Side side2){
+		long nbRows1 = side1.getNbRows(), nbRows2 = side2.getNbRows();
+		return nbRows1 >= 0 && (nbRows2 < 0 || nbRows1 < nbRows2);
+	}
+
+	/**
+	 * Tell whether the given operand compared with the given operator to CONTAINS or INTERSECTS means that the function is expected to be true.
+	 * 
+	 * @param op	{@link ComparisonOperator#EQUAL} or {@link ComparisonOperator#NOT_EQUAL}.
+	 * @param value	The operand compared to the function.
+	 * 
+	 * @return	<i>true</i> for <code>= 1</code> and <code>!= 0</code>, <i>false</i> otherwise.
+	 */
+	private static boolean isTrue(final ComparisonOperator op, final ADQLOperand value){
+		BigDecimal number = JDBCTranslator.getNumericConstant(value);
+		if (number == null)
+			return false;
+		else if (op == ComparisonOperator.EQUAL)
+			return number.compareTo(BigDecimal.ONE) == 0;
+		else
+			return number.signum() == 0;
+	}
+
+	/**
+	 * Get the side corresponding to the given point.
+	 * 
+	 * @param point	A POINT function or a column.
+	 * 
+	 * @return	The corresponding side, or NULL if the point does not come from exactly one table.
+	 */
+	protected static Side getSide(final GeometryValue<? extends GeometryFunction> point){
+		if (point == null)
+			return null;
+		else if (point.getValue() instanceof PointFunction){
+			PointFunction p = (PointFunction)point.getValue();
+			return getSide(p.getCoord1(), p.getCoord2(), p);
+		}else if (point.isColumn())
+			return getSide((ADQLColumn)point.getValue(), point.getValue());
+		else
+			return null;
+	}
+
+	/**
+	 * Get the side corresponding to the given pair of coordinates.
+	 * 
+	 * @param coord1	First coordinate.
+	 * @param coord2	Second coordinate.
+	 * @param point		The POINT function of these coordinates, or NULL if they are the center of a CIRCLE.
+	 * 
+	 * @return	The corresponding side, or NULL if both coordinates are not columns of the same table.
+	 */
+	protected static Side getSide(final ADQLOperand coord1, final ADQLOperand coord2, final PointFunction point){
+		if (!(coord1 instanceof ADQLColumn && coord2 instanceof ADQLColumn))
+			return null;
+		Side side1 = getSide((ADQLColumn)coord1, null), side2 = getSide((ADQLColumn)coord2, null);
+		if (side1 == null || !side1.sameTable(side2))
+			return null;
+		return new Side(point, coord1, coord2, side1.table, side1.dbTable, side1.indexed && side2.indexed);
+	}
+
+	/**
+	 * Get the side corresponding to the given column.
+	 * 
+	 * @param col	A column.
+	 * @param point	The point represented by this column, or NULL if the column is just a coordinate.
+	 * 
+	 * @return	The corresponding side, or NULL if the table of the column is unknown.
+	 */
+	protected static Side getSide(final ADQLColumn col, final ADQLOperand point){
+		DBColumn dbCol = col.getDBLink();
+		ADQLTable table = col.getAdqlTable();
+		DBTable dbTable = (dbCol != null) ? dbCol.getTable() : null;
+		if (table == null && dbTable == null)
+			return null;
+		return new Side(point, null, null, table, dbTable, dbCol != null && dbCol.isIndexed());
+	}
+
+	/**
+	 * <p>One side of a cross-match: a point of one table.</p>
+	 * 
+	 * <p>
+	 * 	The point is either a POINT function or a column (see {@link #getPoint()}), or the center of a CIRCLE.
+	 * 	In the two last cases, respectively {@link #getCoord1()} and {@link #getPoint()} return NULL.
+	 * </p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 1.3 (10/2014)
+	 * @since 1.3
+	 */
+	public static class Side {
+
+		/** The point: a POINT function or a column. <i>NULL for the center of a CIRCLE.</i> */
+		protected final ADQLOperand point;
+
+		/** First coordinate of the point. <i>NULL if the point is a column.</i> */
+		protected final ADQLOperand coord1;
+
+		/** Second coordinate of the point. <i>NULL if the point is a column.</i> */
+		protected final ADQLOperand coord2;
+
+		/** The table (of the FROM clause) of the point. <i>MAY be NULL</i> */
+		protected final ADQLTable table;
+
+		/** Description of the table of the point. <i>MAY be NULL</i> */
+		protected final DBTable dbTable;
+
+		/** Indicate whether the point is indexed. */
+		protected final boolean indexed;
+
+		/**
+		 * Builds a side of a cross-match.
+		 * 
+		 * @param point		The point (POINT function or column), or NULL for the center of a CIRCLE.
+		 * @param coord1	First coordinate, or NULL if the point is a column.
+		 * @param coord2	Second coordinate, or NULL if the point is a column.
+		 * @param table		The table of the FROM clause. <i>MAY be NULL</i>
+		 * @param dbTable	The description of this table. <i>MAY be NULL</i>
+		 * @param indexed	<i>true</i> if the point is indexed, <i>false</i> otherwise.
+		 */
+		protected Side(final ADQLOperand point, final ADQLOperand coord1, final ADQLOperand coord2, final ADQLTable table, final DBTable dbTable, final boolean indexed){
+			this.point = point;
+			this.coord1 = coord1;
+			this.coord2 = coord2;
+			this.table = table;
+			this.dbTable = dbTable;
+			this.indexed = indexed;
+		}
+
+		/**
+		 * Gets the point.
+		 * 
+		 * @return	A POINT function or a column, or NULL for the center of a CIRCLE.
+		 */
+		public final ADQLOperand getPoint(){
+			return point;
+		}
+
+		/**
+		 * Gets the first coordinate of the point.
+		 * 
+		 * @return	The first coordinate, or NULL if the point is a column.
+		 */
+		public final ADQLOperand getCoord1(){
+			return coord1;
+		}
+
+		/**
+		 * Gets the second coordinate of the point.
+		 * 
+		 * @return	The second coordinate, or NULL if the point is a column.
+		 */
+		public final ADQLOperand getCoord2(){
+			return coord2;
+		}
+
+		/**
+		 * Gets the description of the table of the point.
+		 * 
+		 * @return	The table description. <i>MAY be NULL</i>
+		 */
+		public final DBTable getDBTable(){
+			return dbTable;
+		}
+
+		/**
+		 * Tell whether the point is indexed (all its columns are indexed).
+		 * 
+		 * @return	<i>true</i> if indexed, <i>false</i> otherwise.
+		 */
+		public final boolean isIndexed(){
+			return indexed;
+		}
+
+		/**
+		 * Gets the number of rows of the table of the point.
+		 * 
+		 * @return	Its (estimated) number of rows, or a negative value if unknown.
+		 */
+		public final long getNbRows(){
+			return (dbTable == null) ? -1 : dbTable.getNbRows();
+		}
+
+		/**
+		 * Tell whether the given side comes from the same table of the FROM clause.
+		 * 
+		 * @param side	Another side. <i>MAY be NULL</i>
+		 * 
+		 * @return	<i>true</i> if both sides come from the same table, <i>false</i> otherwise.
+		 */
+		protected final boolean sameTable(final Side side){
+			if (side == null)
+				return false;
+			else if (table != null && side.table != null)
+				return table == side.table;
+			else
+				return dbTable != null && dbTable == side.dbTable;
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+package adql.translator;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import adql.db.DBColumn;
+import adql.db.DBTable;
+import adql.query.operand.ADQLColumn;
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.function.geometry.DistanceFunction;
+import adql.query.operand.function.geometry.PointFunction;
+import cds.utils.Healpix;
+
+/**
+ * <p>Translates all ADQL objects into SQL for a database without spatial extension (e.g. SQLite), in which each position
+ * has a HEALPix index column (i.e. an integer column, with an ordinary index, containing the index of the HEALPix cell of the position).</p>
+ * 
+ * <p>
+ * 	The HEALPix index column of a position <code>(ra, dec)</code> must be named <code>hpx&lt;order&gt;_ra_dec</code> (see {@link #getIndexColumnName(String, String, int)})
+ * 	and must be declared in the metadata of its table. It contains the index of the cell in the NESTED scheme at the order of this translator
+ * 	(see {@link #getOrder()}). For SQLite, it can be added by <code>tap.db.SQLiteHealpix.addIndexColumn(...)</code> (TAP library).
+ * </p>
+ * 
+ * <p>
+ * 	Then, the constraints on a circle and on a convex polygon (see {@link BoundingBoxTranslator}) are rewritten into the set of cells
+ * 	overlapping the region, followed by the exact test:
+ * 	<code>((hpx12_ra_dec BETWEEN a AND b OR hpx12_ra_dec BETWEEN c AND d OR ...) AND ang_distance(ra, dec, ra0, dec0) &lt;= r)</code>.
+ * 	The cells are listed at the order of the index, or at a lower order (i.e. bigger cells) for the big regions, so that there are no more than
+ * 	{@link #MAX_RANGES} ranges. If a position has no HEALPix index column, the bounding box of {@link BoundingBoxTranslator} is used instead.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	The exact tests use the SQL functions <code>ang_distance(ra1, dec1, ra2, dec2)</code> (distance in degrees), <code>radians</code>, <code>sin</code>
+ * 	and <code>cos</code>. For SQLite, they are registered by <code>tap.db.SQLiteHealpix.registerFunctions(...)</code> (TAP library).
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ * 
+ * @see BoundingBoxTranslator
+ * @see Healpix
+ */
+public class HealpixTranslator extends BoundingBoxTranslator {
+
+	/** Default order of the HEALPix index columns (cells of about 52 arcseconds). */
+	public final static int DEFAULT_ORDER = 12;
+
+	/** Maximum number of ranges of cells written for one region. */
+	public final static int MAX_RANGES = 64;
+
+	/** Name of the SQL function computing the distance (in degrees) between two positions: <code>ang_distance(ra1, dec1, ra2, dec2)</code>. */
+	public final static String DISTANCE_FUNCTION = "ang_distance";
+
+	/** Order of the HEALPix index columns. */
+	protected final int order;
+
+	/**
+	 * Builds a HealpixTranslator for the default HEALPix order ({@link #DEFAULT_ORDER}), which always translates in SQL all identifiers
+	 * (schema, table and column) in a case sensitive manner ; in other words, schema, table and column names will be surrounded by double quotes
+	 * in the SQL translation.
+	 * 
+	 * @see BoundingBoxTranslator#BoundingBoxTranslator()
+	 */
+	public HealpixTranslator(){
+		super();
+		order = DEFAULT_ORDER;
+	}
+
+	/**
+	 * Builds a HealpixTranslator which always translates in SQL all identifiers (schema, table and column) in the specified case sensitivity ;
+	 * in other words, schema, table and column names will all be surrounded or not by double quotes in the SQL translation.
+	 * 
+	 * @param order				Order of the HEALPix index columns (between 0 and {@link Healpix#MAX_ORDER}).
+	 * @param allCaseSensitive	<i>true</i> to translate all identifiers in a case sensitive manner (surrounded by double quotes), <i>false</i> for case insensitivity.
+	 * 
+	 * @throws IllegalArgumentException	If the given order is incorrect.
+	 * 
+	 * @see BoundingBoxTranslator#BoundingBoxTranslator(boolean)
+	 */
+	public HealpixTranslator(final int order, final boolean allCaseSensitive) throws IllegalArgumentException{
+		super(allCaseSensitive);
+		this.order = checkOrder(order);
+	}
+
+	/**
+	 * Builds a HealpixTranslator which will always translate in SQL identifiers with the defined case sensitivity.
+	 * 
+	 * @param order		Order of the HEALPix index columns (between 0 and {@link Healpix#MAX_ORDER}).
+	 * @param catalog	<i>true</i> to translate catalog names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param schema	<i>true</i> to translate schema names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param table		<i>true</i> to translate table names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param column	<i>true</i> to translate column names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * 
+	 * @throws IllegalArgumentException	If the given order is incorrect.
+	 * 
+	 * @see BoundingBoxTranslator#BoundingBoxTranslator(boolean, boolean, boolean, boolean)
+	 */
+	public HealpixTranslator(final int order, final boolean catalog, final boolean schema, final boolean table, final boolean column) throws IllegalArgumentException{
+		super(catalog, schema, table, column);
+		this.order = checkOrder(order);
+	}
+
+	/**
+	 * Check the given HEALPix order.
+	 * 
+	 * @param order	The order to check.
+	 * 
+	 * @return	The given order.
+	 * 
+	 * @throws IllegalArgumentException	If the order is not between 0 and {@link Healpix#MAX_ORDER}.
+	 */
+	private static int checkOrder(final int order) throws IllegalArgumentException{
+		if (order < 0 || order > Healpix.MAX_ORDER)
+			throw new IllegalArgumentException("Incorrect HEALPix order: " + order + "! It must be between 0 and " + Healpix.MAX_ORDER + ".");
+		return order;
+	}
+
+	/**
+	 * Get the order of the HEALPix index columns.
+	 * 
+	 * @return	The HEALPix order.
+	 */
+	public final int getOrder(){
+		return order;
+	}
+
+	/**
+	 * Get the DB name of the HEALPix index column of the given position: <code>hpx&lt;order&gt;_&lt;coord1&gt;_&lt;coord2&gt;</code>
+	 * (e.g. <code>hpx12_ra_dec</code>).
+	 * 
+	 * @param coord1	DB name of the first coordinate column (e.g. ra).
+	 * @param coord2	DB name of the second coordinate column (e.g. dec).
+	 * @param order		HEALPix order of the index.
+	 * 
+	 * @return	DB name of the HEALPix index column.
+	 */
+	public static String getIndexColumnName(final String coord1, final String coord2, final int order){
+		return "hpx" + order + "_" + coord1 + "_" + coord2;
+	}
+
+	/**
+	 * Get the HEALPix index column of the given point.
+	 * 
+	 * @param point	A POINT function.
+	 * 
+	 * @return	A column referencing the HEALPix index column of the point (with the same table prefix as its coordinates),
+	 *        	or NULL if the coordinates are not columns of the same table or if this table has no corresponding HEALPix index column.
+	 */
+	protected ADQLColumn getIndexColumn(final PointFunction point){
+		if (!(point.getCoord1() instanceof ADQLColumn && point.getCoord2() instanceof ADQLColumn))
+			return null;
+		ADQLColumn coord1 = (ADQLColumn)point.getCoord1();
+		DBColumn dbCoord1 = coord1.getDBLink(), dbCoord2 = ((ADQLColumn)point.getCoord2()).getDBLink();
+		if (dbCoord1 == null || dbCoord2 == null || dbCoord1.getTable() == null || dbCoord1.getTable() != dbCoord2.getTable())
+			return null;
+
+		DBTable table = dbCoord1.getTable();
+		DBColumn dbIndex = table.getColumn(getIndexColumnName(dbCoord1.getDBName(), dbCoord2.getDBName(), order), false);
+		if (dbIndex == null)
+			return null;
+
+		ADQLColumn index = new ADQLColumn(coord1);
+		index.setAdqlTable(coord1.getAdqlTable());
+		index.setDBLink(dbIndex);
+		return index;
+	}
+
+	/**
+	 * Get the order at which the cells of a region of the given size should be listed.
+	 * 
+	 * @param size	Radius of the region (in degrees).
+	 * 
+	 * @return	The order of this translator, or a lower order if the region is big.
+	 */
+	protected int getQueryOrder(final double size){
+		int queryOrder = order;
+		while(queryOrder > 0 && Math.toDegrees(Healpix.maxPixelRadius(queryOrder)) < size / 16)
+			queryOrder--;
+		return queryOrder;
+	}
+
+	@Override
+	protected void appendCone(final PointFunction point, final double ra0, final double dec0, final double radius, final boolean inclusive, final StringBuilder sql) throws TranslationException{
+		ADQLColumn index = getIndexColumn(point);
+		if (index == null || radius >= 180){
+			super.appendCone(point, ra0, dec0, radius, inclusive, sql);
+			return;
+		}
+
+		// List the cells overlapping the circle:
+		int queryOrder = getQueryOrder(radius);
+		long[] ranges;
+		do{
+			ranges = Healpix.queryDisc(queryOrder--, ra0, dec0, radius);
+		}while(ranges.length > 2 * MAX_RANGES && queryOrder >= 0);
+
+		sql.append('(');
+		appendRanges(index, Healpix.toOrder(ranges, queryOrder + 1, order), sql);
+		sql.append(" AND ");
+		appendCircleTest(point, ra0, dec0, radius, inclusive, sql);
+		sql.append(')');
+	}
+
+	/**
+	 * Append the exact test of the given point against the given circle: <code>ang_distance(ra, dec, ra0, dec0) &lt;= radius</code>.
+	 * 
+	 * @see adql.translator.BoundingBoxTranslator#appendCircleTest(adql.query.operand.function.geometry.PointFunction, double, double, double, boolean, java.lang.StringBuilder)
+	 * @see #DISTANCE_FUNCTION
+	 */
+	@Override
+	protected void appendCircleTest(final PointFunction point, final double ra0, final double dec0, final double radius, final boolean inclusive, final StringBuilder sql) throws TranslationException{
+		sql.append(DISTANCE_FUNCTION).append('(');
+		translate(point.getCoord1(), sql);
+		sql.append(", ");
+		translate(point.getCoord2(), sql);
+		sql.append(", ").append(ra0).append(", ").append(dec0).append(") ").append(inclusive ? "<=" : "<").append(' ').append(radius);
+	}
+
+	@Override
+	protected void appendPolygon(final ADQLOperand fct, final PointFunction point, final double[] coords, final StringBuilder sql) throws TranslationException{
+		ADQLColumn index = getIndexColumn(point);
+		double[][] vertices = toVectors(coords);
+		double[][] normals = (index == null) ? null : getConvexNormals(vertices);
+		if (normals == null){
+			super.appendPolygon(fct, point, coords, sql);
+			return;
+		}
+
+		// Size of the polygon: the biggest distance from its first vertex:
+		double size = 0;
+		for(double[] vertex : vertices)
+			size = Math.max(size, Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, vertices[0][0] * vertex[0] + vertices[0][1] * vertex[1] + vertices[0][2] * vertex[2])))));
+
+		// List the cells overlapping the polygon:
+		int queryOrder = getQueryOrder(size);
+		long[] ranges;
+		do{
+			ranges = Healpix.queryConvex(queryOrder--, normals);
+		}while(ranges.length > 2 * MAX_RANGES && queryOrder >= 0);
+
+		sql.append('(');
+		appendRanges(index, Healpix.toOrder(ranges, queryOrder + 1, order), sql);
+		sql.append(" AND ");
+		appendPolygonTest(point, normals, sql);
+		sql.append(')');
+	}
+
+	/**
+	 * Append the constraint on the given HEALPix index column so that it is in the given ranges:
+	 * <code>(index BETWEEN a AND b OR index = c OR ...)</code>.
+	 * 
+	 * @param index		The HEALPix index column.
+	 * @param ranges	Sorted ranges of cells: <code>{start1, end1, start2, end2, ...}</code>.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected void appendRanges(final ADQLColumn index, final long[] ranges, final StringBuilder sql) throws TranslationException{
+		sql.append('(');
+		if (ranges.length == 0)
+			sql.append("1 = 0");
+		for(int i = 0; i + 1 < ranges.length; i += 2){
+			if (i > 0)
+				sql.append(" OR ");
+			translate(index, sql);
+			if (ranges[i] == ranges[i + 1])
+				sql.append(" = ").append(ranges[i]);
+			else
+				sql.append(" BETWEEN ").append(ranges[i]).append(" AND ").append(ranges[i + 1]);
+		}
+		sql.append(')');
+	}
+
+	/**
+	 * Translate the distance between two POINT functions into <code>ang_distance(ra1, dec1, ra2, dec2)</code>.
+	 * 
+	 * @see adql.translator.PostgreSQLTranslator#translate(adql.query.operand.function.geometry.DistanceFunction, java.lang.StringBuilder)
+	 * @see #DISTANCE_FUNCTION
+	 */
+	@Override
+	public void translate(final DistanceFunction fct, final StringBuilder sql) throws TranslationException{
+		if (fct.getP1().getValue() instanceof PointFunction && fct.getP2().getValue() instanceof PointFunction){
+			PointFunction p1 = (PointFunction)fct.getP1().getValue(), p2 = (PointFunction)fct.getP2().getValue();
+			sql.append(DISTANCE_FUNCTION).append('(');
+			translate(p1.getCoord1(), sql);
+			sql.append(", ");
+			translate(p1.getCoord2(), sql);
+			sql.append(", ");
+			translate(p2.getCoord1(), sql);
+			sql.append(", ");
+			translate(p2.getCoord2(), sql);
+			sql.append(')');
+		}else
+			super.translate(fct, sql);
+	}
+
+}
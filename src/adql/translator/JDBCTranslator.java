@@ -19,6 +19,7 @@ package adql.translator;
  * Copyright 2014 - Astronomisches Rechen Institut (ARI)
  */
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -101,12 +102,27 @@ import adql.query.operand.function.geometry.RegionFunction;
  * 	{@link PostgreSQLTranslator} overwrites the translation of mathematical functions whose some have
  * 	a different name or signature. Besides, it is also implementing the translation of the geometrical
  * 	functions. However, it does not really translate them. It is just returning the ADQL expression
- * 	(by calling {@link #getDefaultADQLFunction(ADQLFunction)}).
+ * 	(by calling {@link #appendDefaultADQLFunction(ADQLFunction, StringBuilder)}).
  * 	And so, of course, the execution of a SQL query containing geometrical functions and translated
  * 	using this translator will not work. It is just a default implementation in case there is no interest
  * 	of these geometrical functions.
  * </p>
  * 
+ * <h3>Translation in one SQL buffer</h3>
+ * 
+ * <p>
+ * 	Each <code>translate(...)</code> function returning a {@link String} is a thin wrapper around the corresponding
+ * 	<code>translate(..., StringBuilder)</code> function. The latter appends the SQL translation of the given ADQL object
+ * 	and of all its sub-objects directly at the end of the given buffer. Thus, a whole query is translated in only one
+ * 	growable buffer, instead of building and concatenating one new string per node of the ADQL tree.
+ * </p>
+ * 
+ * <p><b>Important:</b>
+ * 	To customize the translation of an ADQL object, <b>the <code>translate(..., StringBuilder)</code> function must be
+ * 	overridden</b>. Overriding only the function returning a {@link String} would have no effect when this object
+ * 	is translated as part of a bigger ADQL object (e.g. a whole query).
+ * </p>
+ * 
  * <h3>SQL with or without case sensitivity?</h3>
  * 
  * <p>
@@ -123,22 +139,30 @@ import adql.query.operand.function.geometry.RegionFunction;
  * <p>
  * 	The default behavior of this translator is to translate the ADQL "TOP" into the SQL "LIMIT" at the end of the query.
  * 	This is ok for some DBMS, but not all. So, if your DBMS does not know the "LIMIT" keyword, you should override the function
- * 	translating the whole query: {@link #translate(ADQLQuery)}. Here is its current implementation: 
+ * 	translating the whole query: {@link #translate(ADQLQuery, StringBuilder)}. Here is its current implementation: 
  * </p>
  * <pre>
- * 	StringBuffer sql = new StringBuffer(translate(query.getSelect()));
- * 	sql.append("\nFROM ").append(translate(query.getFrom()));
- *	if (!query.getWhere().isEmpty())
- *		sql.append('\n').append(translate(query.getWhere()));
- *	if (!query.getGroupBy().isEmpty())
- *		sql.append('\n').append(translate(query.getGroupBy()));
- *	if (!query.getHaving().isEmpty())
- *		sql.append('\n').append(translate(query.getHaving()));
- *	if (!query.getOrderBy().isEmpty())
- *		sql.append('\n').append(translate(query.getOrderBy()));
+ * 	translate(query.getSelect(), sql);
+ * 	sql.append("\nFROM ");
+ * 	translate(query.getFrom(), sql);
+ *	if (!query.getWhere().isEmpty()){
+ *		sql.append('\n');
+ *		translate(query.getWhere(), sql);
+ *	}
+ *	if (!query.getGroupBy().isEmpty()){
+ *		sql.append('\n');
+ *		translate(query.getGroupBy(), sql);
+ *	}
+ *	if (!query.getHaving().isEmpty()){
+ *		sql.append('\n');
+ *		translate(query.getHaving(), sql);
+ *	}
+ *	if (!query.getOrderBy().isEmpty()){
+ *		sql.append('\n');
+ *		translate(query.getOrderBy(), sql);
+ *	}
  *	if (query.getSelect().hasLimit())
  *		sql.append("\nLimit ").append(query.getSelect().getLimit());
- *	return sql.toString();
  * </pre>
  * 
  * <h3>Translation of ADQL functions</h3>
@@ -162,7 +186,7 @@ import adql.query.operand.function.geometry.RegionFunction;
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (ARI)
- * @version 1.3 (09/2014)
+ * @version 1.3 (10/2014)
  * @since 2.0
  * 
  * @see PostgreSQLTranslator
@@ -205,7 +229,7 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 		if (table == null || table.getDBSchemaName() == null)
 			return "";
 
-		StringBuffer buf = new StringBuffer();
+		StringBuilder buf = new StringBuilder();
 
 		if (table.getDBCatalogName() != null)
 			appendIdentifier(buf, table.getDBCatalogName(), IdentifierField.CATALOG).append('.');
@@ -232,7 +256,7 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 		if (table == null)
 			return "";
 
-		StringBuffer buf = new StringBuffer(getQualifiedSchemaName(table));
+		StringBuilder buf = new StringBuilder(getQualifiedSchemaName(table));
 		if (buf.length() > 0)
 			buf.append('.');
 
@@ -260,7 +284,69 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	 *        	or an empty string if the given column is NULL.
 	 */
 	public String getColumnName(final DBColumn column){
-		return (column == null) ? "" : appendIdentifier(new StringBuffer(), column.getDBName(), IdentifierField.COLUMN).toString();
+		return (column == null) ? "" : appendIdentifier(new StringBuilder(), column.getDBName(), IdentifierField.COLUMN).toString();
+	}
+
+	/**
+	 * <p>Get the definition of a spatial index able to speed up the geometrical functions (CONTAINS, INTERSECTS, DISTANCE)
+	 * applied on a POINT built with the two given columns.</p>
+	 * 
+	 * <p>
+	 * 	The returned string is appended as such after <code>CREATE INDEX ... ON table</code>. So, it must contain at least
+	 * 	the indexed expression between parenthesis, and may start with the index method (e.g. <code>USING GIST (...)</code>).
+	 * 	The indexed expression must be the same as the translation of the corresponding POINT, so that the DBMS can use
+	 * 	the index when executing the translated query.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	By default, no spatial index is supported: NULL is returned.
+	 * </i></p>
+	 * 
+	 * @param coord1	Column containing the first coordinate of the POINT.
+	 * @param coord2	Column containing the second coordinate of the POINT.
+	 * 
+	 * @return	The index definition (without the index and table names),
+	 *        	or NULL if no spatial index can be created with this translator.
+	 * 
+	 * @since 1.3
+	 */
+	public String getPointIndex(final DBColumn coord1, final DBColumn coord2){
+		return null;
+	}
+
+	/**
+	 * <p>Get the value of the given operand if it is a numeric constant.</p>
+	 * 
+	 * <p>
+	 * 	A numeric constant may be negated (e.g. <code>-1.5</code>) or wrapped between parenthesis (e.g. <code>(2)</code>).
+	 * 	Any other operand (e.g. a column, an operation or a function) is not considered as a constant.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	This function lets the translators rewrite or pre-compute some expressions (e.g. geometries)
+	 * 	when all their parameters are known before the execution of the query.
+	 * </i></p>
+	 * 
+	 * @param op	The operand to evaluate. <i>MAY be NULL</i>
+	 * 
+	 * @return	The exact value of the given constant, or NULL if the given operand is not a numeric constant.
+	 * 
+	 * @since 1.3
+	 */
+	protected static BigDecimal getNumericConstant(final ADQLOperand op){
+		if (op instanceof NumericConstant){
+			try{
+				return new BigDecimal(((NumericConstant)op).getValue());
+			}catch(NumberFormatException nfe){
+				return null;
+			}
+		}else if (op instanceof NegativeOperand){
+			BigDecimal value = getNumericConstant(((NegativeOperand)op).getOperand());
+			return (value == null) ? null : value.negate();
+		}else if (op instanceof WrappedOperand)
+			return getNumericConstant(((WrappedOperand)op).getOperand());
+		else
+			return null;
 	}
 
 	/**
@@ -292,64 +378,62 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 			return str.append(id);
 	}
 
+	/**
+	 * Appends the given identifier in the given StringBuilder.
+	 * 
+	 * @param str		The string builder.
+	 * @param id		The identifier to append.
+	 * @param field		The type of identifier (column, table, schema, catalog or alias ?).
+	 * 
+	 * @return			The string builder + identifier.
+	 * 
+	 * @since 1.3
+	 */
+	public final StringBuilder appendIdentifier(final StringBuilder str, final String id, final IdentifierField field){
+		return appendIdentifier(str, id, isCaseSensitive(field));
+	}
+
+	/**
+	 * Appends the given identifier to the given StringBuilder.
+	 * 
+	 * @param str				The string builder.
+	 * @param id				The identifier to append.
+	 * @param caseSensitive		<i>true</i> to format the identifier so that preserving the case sensitivity, <i>false</i> otherwise.
+	 * 
+	 * @return					The string builder + identifier.
+	 * 
+	 * @since 1.3
+	 */
+	public static final StringBuilder appendIdentifier(final StringBuilder str, final String id, final boolean caseSensitive){
+		if (caseSensitive)
+			return str.append('"').append(id).append('"');
+		else
+			return str.append(id);
+	}
+
+	/* ******************************************* */
+	/* ****** TRANSLATION INTO A NEW STRING ****** */
+	/* ******************************************* */
+
 	@Override
-	@SuppressWarnings({"unchecked","rawtypes"})
 	public String translate(ADQLObject obj) throws TranslationException{
-		if (obj instanceof ADQLQuery)
-			return translate((ADQLQuery)obj);
-		else if (obj instanceof ADQLList)
-			return translate((ADQLList)obj);
-		else if (obj instanceof SelectItem)
-			return translate((SelectItem)obj);
-		else if (obj instanceof ColumnReference)
-			return translate((ColumnReference)obj);
-		else if (obj instanceof ADQLTable)
-			return translate((ADQLTable)obj);
-		else if (obj instanceof ADQLJoin)
-			return translate((ADQLJoin)obj);
-		else if (obj instanceof ADQLOperand)
-			return translate((ADQLOperand)obj);
-		else if (obj instanceof ADQLConstraint)
-			return translate((ADQLConstraint)obj);
-		else
-			return obj.toADQL();
+		StringBuilder sql = new StringBuilder();
+		translate(obj, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(ADQLQuery query) throws TranslationException{
-		StringBuffer sql = new StringBuffer(translate(query.getSelect()));
-
-		sql.append("\nFROM ").append(translate(query.getFrom()));
-
-		if (!query.getWhere().isEmpty())
-			sql.append('\n').append(translate(query.getWhere()));
-
-		if (!query.getGroupBy().isEmpty())
-			sql.append('\n').append(translate(query.getGroupBy()));
-
-		if (!query.getHaving().isEmpty())
-			sql.append('\n').append(translate(query.getHaving()));
-
-		if (!query.getOrderBy().isEmpty())
-			sql.append('\n').append(translate(query.getOrderBy()));
-
-		if (query.getSelect().hasLimit())
-			sql.append("\nLimit ").append(query.getSelect().getLimit());
-
+		StringBuilder sql = new StringBuilder(256);
+		translate(query, sql);
 		return sql.toString();
 	}
 
-	/* *************************** */
-	/* ****** LIST & CLAUSE ****** */
-	/* *************************** */
 	@Override
 	public String translate(ADQLList<? extends ADQLObject> list) throws TranslationException{
-		if (list instanceof ClauseSelect)
-			return translate((ClauseSelect)list);
-		else if (list instanceof ClauseConstraints)
-			return translate((ClauseConstraints)list);
-		else
-			return getDefaultADQLList(list);
+		StringBuilder sql = new StringBuilder();
+		translate(list, sql);
+		return sql.toString();
 	}
 
 	/**
@@ -360,113 +444,48 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	 * @return		The corresponding SQL.
 	 * 
 	 * @throws TranslationException If there is an error during the translation.
+	 * 
+	 * @see #appendDefaultADQLList(ADQLList, StringBuilder)
 	 */
 	protected String getDefaultADQLList(ADQLList<? extends ADQLObject> list) throws TranslationException{
-		String sql = (list.getName() == null) ? "" : (list.getName() + " ");
-
-		for(int i = 0; i < list.size(); i++)
-			sql += ((i == 0) ? "" : (" " + list.getSeparator(i) + " ")) + translate(list.get(i));
-
-		return sql;
+		StringBuilder sql = new StringBuilder();
+		appendDefaultADQLList(list, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(ClauseSelect clause) throws TranslationException{
-		String sql = null;
-
-		for(int i = 0; i < clause.size(); i++){
-			if (i == 0){
-				sql = clause.getName() + (clause.distinctColumns() ? " DISTINCT" : "");
-			}else
-				sql += " " + clause.getSeparator(i);
-
-			sql += " " + translate(clause.get(i));
-		}
-
-		return sql;
+		StringBuilder sql = new StringBuilder();
+		translate(clause, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(ClauseConstraints clause) throws TranslationException{
-		if (clause instanceof ConstraintsGroup)
-			return "(" + getDefaultADQLList(clause) + ")";
-		else
-			return getDefaultADQLList(clause);
+		StringBuilder sql = new StringBuilder();
+		translate(clause, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(SelectItem item) throws TranslationException{
-		if (item instanceof SelectAllColumns)
-			return translate((SelectAllColumns)item);
-
-		StringBuffer translation = new StringBuffer(translate(item.getOperand()));
-		if (item.hasAlias()){
-			translation.append(" AS ");
-			appendIdentifier(translation, item.getAlias(), item.isCaseSensitive());
-		}else{
-			translation.append(" AS ");
-			appendIdentifier(translation, item.getName(), true);
-		}
-
-		return translation.toString();
+		StringBuilder sql = new StringBuilder();
+		translate(item, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(SelectAllColumns item) throws TranslationException{
-		HashMap<String,String> mapAlias = new HashMap<String,String>();
-
-		// Fetch the full list of columns to display:
-		Iterable<DBColumn> dbCols = null;
-		if (item.getAdqlTable() != null && item.getAdqlTable().getDBLink() != null){
-			ADQLTable table = item.getAdqlTable();
-			dbCols = table.getDBLink();
-			if (table.hasAlias()){
-				String key = getQualifiedTableName(table.getDBLink());
-				mapAlias.put(key, table.isCaseSensitive(IdentifierField.ALIAS) ? ("\"" + table.getAlias() + "\"") : table.getAlias());
-			}
-		}else if (item.getQuery() != null){
-			try{
-				dbCols = item.getQuery().getFrom().getDBColumns();
-			}catch(UnresolvedJoin pe){
-				throw new TranslationException("Due to a join problem, the ADQL to SQL translation can not be completed!", pe);
-			}
-			ArrayList<ADQLTable> tables = item.getQuery().getFrom().getTables();
-			for(ADQLTable table : tables){
-				if (table.hasAlias()){
-					String key = getQualifiedTableName(table.getDBLink());
-					mapAlias.put(key, table.isCaseSensitive(IdentifierField.ALIAS) ? ("\"" + table.getAlias() + "\"") : table.getAlias());
-				}
-			}
-		}
-
-		// Write the DB name of all these columns:
-		if (dbCols != null){
-			StringBuffer cols = new StringBuffer();
-			for(DBColumn col : dbCols){
-				if (cols.length() > 0)
-					cols.append(',');
-				if (col.getTable() != null){
-					String fullDbName = getQualifiedTableName(col.getTable());
-					if (mapAlias.containsKey(fullDbName))
-						appendIdentifier(cols, mapAlias.get(fullDbName), false).append('.');
-					else
-						cols.append(fullDbName).append('.');
-				}
-				appendIdentifier(cols, col.getDBName(), IdentifierField.COLUMN);
-				cols.append(" AS \"").append(col.getADQLName()).append('\"');
-			}
-			return (cols.length() > 0) ? cols.toString() : item.toADQL();
-		}else{
-			return item.toADQL();
-		}
+		StringBuilder sql = new StringBuilder();
+		translate(item, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(ColumnReference ref) throws TranslationException{
-		if (ref instanceof ADQLOrder)
-			return translate((ADQLOrder)ref);
-		else
-			return getDefaultColumnReference(ref);
+		StringBuilder sql = new StringBuilder();
+		translate(ref, sql);
+		return sql.toString();
 	}
 
 	/**
@@ -477,329 +496,1293 @@ public abstract class JDBCTranslator implements ADQLTranslator {
 	 * @return		The corresponding SQL.
 	 * 
 	 * @throws TranslationException If there is an error during the translation.
+	 * 
+	 * @see #appendDefaultColumnReference(ColumnReference, StringBuilder)
 	 */
 	protected String getDefaultColumnReference(ColumnReference ref) throws TranslationException{
-		if (ref.isIndex()){
-			return "" + ref.getColumnIndex();
-		}else{
-			if (ref.getDBLink() == null){
-				return (ref.isCaseSensitive() ? ("\"" + ref.getColumnName() + "\"") : ref.getColumnName());
-			}else{
-				DBColumn dbCol = ref.getDBLink();
-				StringBuffer colName = new StringBuffer();
-				// Use the table alias if any:
-				if (ref.getAdqlTable() != null && ref.getAdqlTable().hasAlias())
-					appendIdentifier(colName, ref.getAdqlTable().getAlias(), ref.getAdqlTable().isCaseSensitive(IdentifierField.ALIAS)).append('.');
-
-				// Use the DBTable if any:
-				else if (dbCol.getTable() != null)
-					colName.append(getQualifiedTableName(dbCol.getTable())).append('.');
-
-				appendIdentifier(colName, dbCol.getDBName(), IdentifierField.COLUMN);
-
-				return colName.toString();
-			}
-		}
+		StringBuilder sql = new StringBuilder();
+		appendDefaultColumnReference(ref, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(ADQLOrder order) throws TranslationException{
-		return getDefaultColumnReference(order) + (order.isDescSorting() ? " DESC" : " ASC");
+		StringBuilder sql = new StringBuilder();
+		translate(order, sql);
+		return sql.toString();
 	}
 
-	/* ************************** */
-	/* ****** TABLE & JOIN ****** */
-	/* ************************** */
 	@Override
 	public String translate(FromContent content) throws TranslationException{
-		if (content instanceof ADQLTable)
-			return translate((ADQLTable)content);
-		else if (content instanceof ADQLJoin)
-			return translate((ADQLJoin)content);
-		else
-			return content.toADQL();
+		StringBuilder sql = new StringBuilder();
+		translate(content, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(ADQLTable table) throws TranslationException{
-		StringBuffer sql = new StringBuffer();
-
-		// CASE: SUB-QUERY:
-		if (table.isSubQuery())
-			sql.append('(').append(translate(table.getSubQuery())).append(')');
-
-		// CASE: TABLE REFERENCE:
-		else{
-			// Use the corresponding DB table, if known:
-			if (table.getDBLink() != null)
-				sql.append(getQualifiedTableName(table.getDBLink()));
-			// Otherwise, use the whole table name given in the ADQL query:
-			else
-				sql.append(table.getFullTableName());
-		}
-
-		// Add the table alias, if any:
-		if (table.hasAlias()){
-			sql.append(" AS ");
-			appendIdentifier(sql, table.getAlias(), table.isCaseSensitive(IdentifierField.ALIAS));
-		}
-
+		StringBuilder sql = new StringBuilder();
+		translate(table, sql);
 		return sql.toString();
 	}
 
 	@Override
 	public String translate(ADQLJoin join) throws TranslationException{
-		StringBuffer sql = new StringBuffer(translate(join.getLeftTable()));
-
-		if (join.isNatural())
-			sql.append(" NATURAL");
-
-		sql.append(' ').append(join.getJoinType()).append(' ').append(translate(join.getRightTable())).append(' ');
-
-		if (!join.isNatural()){
-			if (join.getJoinCondition() != null)
-				sql.append(translate(join.getJoinCondition()));
-			else if (join.hasJoinedColumns()){
-				StringBuffer cols = new StringBuffer();
-				Iterator<ADQLColumn> it = join.getJoinedColumns();
-				while(it.hasNext()){
-					ADQLColumn item = it.next();
-					if (cols.length() > 0)
-						cols.append(", ");
-					if (item.getDBLink() == null)
-						appendIdentifier(cols, item.getColumnName(), item.isCaseSensitive(IdentifierField.COLUMN));
-					else
-						appendIdentifier(cols, item.getDBLink().getDBName(), IdentifierField.COLUMN);
-				}
-				sql.append("USING (").append(cols).append(')');
-			}
-		}
-
+		StringBuilder sql = new StringBuilder();
+		translate(join, sql);
 		return sql.toString();
 	}
 
-	/* ********************* */
-	/* ****** OPERAND ****** */
-	/* ********************* */
 	@Override
 	public String translate(ADQLOperand op) throws TranslationException{
-		if (op instanceof ADQLColumn)
-			return translate((ADQLColumn)op);
-		else if (op instanceof Concatenation)
-			return translate((Concatenation)op);
-		else if (op instanceof NegativeOperand)
-			return translate((NegativeOperand)op);
-		else if (op instanceof NumericConstant)
-			return translate((NumericConstant)op);
-		else if (op instanceof StringConstant)
-			return translate((StringConstant)op);
-		else if (op instanceof WrappedOperand)
-			return translate((WrappedOperand)op);
-		else if (op instanceof Operation)
-			return translate((Operation)op);
-		else if (op instanceof ADQLFunction)
-			return translate((ADQLFunction)op);
-		else
-			return op.toADQL();
+		StringBuilder sql = new StringBuilder();
+		translate(op, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(ADQLColumn column) throws TranslationException{
-		// Use its DB name if known:
-		if (column.getDBLink() != null){
-			DBColumn dbCol = column.getDBLink();
-			StringBuffer colName = new StringBuffer();
-			// Use the table alias if any:
-			if (column.getAdqlTable() != null && column.getAdqlTable().hasAlias())
-				appendIdentifier(colName, column.getAdqlTable().getAlias(), column.getAdqlTable().isCaseSensitive(IdentifierField.ALIAS)).append('.');
-
-			// Use the DBTable if any:
-			else if (dbCol.getTable() != null && dbCol.getTable().getDBName() != null)
-				colName.append(getQualifiedTableName(dbCol.getTable())).append('.');
-
-			// Otherwise, use the prefix of the column given in the ADQL query:
-			else if (column.getTableName() != null)
-				colName = column.getFullColumnPrefix().append('.');
-
-			appendIdentifier(colName, dbCol.getDBName(), IdentifierField.COLUMN);
-
-			return colName.toString();
-		}
-		// Otherwise, use the whole name given in the ADQL query:
-		else
-			return column.getFullColumnName();
+		StringBuilder sql = new StringBuilder();
+		translate(column, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(Concatenation concat) throws TranslationException{
-		return translate((ADQLList<ADQLOperand>)concat);
+		StringBuilder sql = new StringBuilder();
+		translate(concat, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(NegativeOperand negOp) throws TranslationException{
-		return "-" + translate(negOp.getOperand());
+		StringBuilder sql = new StringBuilder();
+		translate(negOp, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(NumericConstant numConst) throws TranslationException{
-		return numConst.getValue();
+		StringBuilder sql = new StringBuilder();
+		translate(numConst, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(StringConstant strConst) throws TranslationException{
-		return "'" + strConst.getValue() + "'";
+		StringBuilder sql = new StringBuilder();
+		translate(strConst, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(WrappedOperand op) throws TranslationException{
-		return "(" + translate(op.getOperand()) + ")";
+		StringBuilder sql = new StringBuilder();
+		translate(op, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(Operation op) throws TranslationException{
-		return translate(op.getLeftOperand()) + op.getOperation().toADQL() + translate(op.getRightOperand());
+		StringBuilder sql = new StringBuilder();
+		translate(op, sql);
+		return sql.toString();
 	}
 
-	/* ************************ */
-	/* ****** CONSTRAINT ****** */
-	/* ************************ */
 	@Override
 	public String translate(ADQLConstraint cons) throws TranslationException{
-		if (cons instanceof Comparison)
-			return translate((Comparison)cons);
-		else if (cons instanceof Between)
-			return translate((Between)cons);
-		else if (cons instanceof Exists)
-			return translate((Exists)cons);
-		else if (cons instanceof In)
-			return translate((In)cons);
-		else if (cons instanceof IsNull)
-			return translate((IsNull)cons);
-		else if (cons instanceof NotConstraint)
-			return translate((NotConstraint)cons);
-		else
-			return cons.toADQL();
+		StringBuilder sql = new StringBuilder();
+		translate(cons, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(Comparison comp) throws TranslationException{
-		return translate(comp.getLeftOperand()) + " " + comp.getOperator().toADQL() + " " + translate(comp.getRightOperand());
+		StringBuilder sql = new StringBuilder();
+		translate(comp, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(Between comp) throws TranslationException{
-		return translate(comp.getLeftOperand()) + " " + comp.getName() + " " + translate(comp.getMinOperand()) + " AND " + translate(comp.getMaxOperand());
+		StringBuilder sql = new StringBuilder();
+		translate(comp, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(Exists exists) throws TranslationException{
-		return "EXISTS(" + translate(exists.getSubQuery()) + ")";
+		StringBuilder sql = new StringBuilder();
+		translate(exists, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(In in) throws TranslationException{
-		return translate(in.getOperand()) + " " + in.getName() + " (" + (in.hasSubQuery() ? translate(in.getSubQuery()) : translate(in.getValuesList())) + ")";
+		StringBuilder sql = new StringBuilder();
+		translate(in, sql);
+		return sql.toString();
 	}
 
 	@Override
 	public String translate(IsNull isNull) throws TranslationException{
-		return translate(isNull.getColumn()) + " " + isNull.getName();
+		StringBuilder sql = new StringBuilder();
+		translate(isNull, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(NotConstraint notCons) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(notCons, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(ADQLFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	/**
+	 * Gets the default SQL output for the given ADQL function.
+	 * 
+	 * @param fct	The ADQL function to format into SQL.
+	 * 
+	 * @return		The corresponding SQL.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @see #appendDefaultADQLFunction(ADQLFunction, StringBuilder)
+	 */
+	protected final String getDefaultADQLFunction(ADQLFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		appendDefaultADQLFunction(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(SQLFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(MathFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(UserDefinedFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(GeometryFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(GeometryValue<? extends GeometryFunction> geomValue) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(geomValue, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(ExtractCoord extractCoord) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(extractCoord, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(ExtractCoordSys extractCoordSys) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(extractCoordSys, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(AreaFunction areaFunction) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(areaFunction, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(CentroidFunction centroidFunction) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(centroidFunction, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(DistanceFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(ContainsFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(IntersectsFunction fct) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(fct, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(PointFunction point) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(point, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(CircleFunction circle) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(circle, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(BoxFunction box) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(box, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(PolygonFunction polygon) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(polygon, sql);
+		return sql.toString();
+	}
+
+	@Override
+	public String translate(RegionFunction region) throws TranslationException{
+		StringBuilder sql = new StringBuilder();
+		translate(region, sql);
+		return sql.toString();
+	}
+
+	/* ************************************************ */
+	/* ****** TRANSLATION INTO A GIVEN SQL BUFFER ****** */
+	/* ************************************************ */
+
+	/**
+	 * <p>Append the SQL translation of the given ADQL object at the end of the given buffer.</p>
+	 * 
+	 * <p>
+	 * 	All the other <code>translate(..., StringBuilder)</code> functions work in the same way: the translation of
+	 * 	each sub-object is directly appended in the same buffer, instead of being returned as a new string and then
+	 * 	concatenated by the caller.
+	 * </p>
+	 * 
+	 * @param obj	The ADQL object to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	@SuppressWarnings({"unchecked","rawtypes"})
+	public void translate(ADQLObject obj, StringBuilder sql) throws TranslationException{
+		if (obj instanceof ADQLQuery)
+			translate((ADQLQuery)obj, sql);
+		else if (obj instanceof ADQLList)
+			translate((ADQLList)obj, sql);
+		else if (obj instanceof SelectItem)
+			translate((SelectItem)obj, sql);
+		else if (obj instanceof ColumnReference)
+			translate((ColumnReference)obj, sql);
+		else if (obj instanceof ADQLTable)
+			translate((ADQLTable)obj, sql);
+		else if (obj instanceof ADQLJoin)
+			translate((ADQLJoin)obj, sql);
+		else if (obj instanceof ADQLOperand)
+			translate((ADQLOperand)obj, sql);
+		else if (obj instanceof ADQLConstraint)
+			translate((ADQLConstraint)obj, sql);
+		else
+			sql.append(obj.toADQL());
+	}
+
+	/**
+	 * Append the SQL translation of the given ADQL query at the end of the given buffer.
+	 * 
+	 * @param query	The ADQL query to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLQuery query, StringBuilder sql) throws TranslationException{
+		translate(query.getSelect(), sql);
+
+		sql.append("\nFROM ");
+		translate(query.getFrom(), sql);
+
+		if (!query.getWhere().isEmpty()){
+			sql.append('\n');
+			translate(query.getWhere(), sql);
+		}
+
+		if (!query.getGroupBy().isEmpty()){
+			sql.append('\n');
+			translate(query.getGroupBy(), sql);
+		}
+
+		if (!query.getHaving().isEmpty()){
+			sql.append('\n');
+			translate(query.getHaving(), sql);
+		}
+
+		if (!query.getOrderBy().isEmpty()){
+			sql.append('\n');
+			translate(query.getOrderBy(), sql);
+		}
+
+		if (query.getSelect().hasLimit())
+			sql.append("\nLimit ").append(query.getSelect().getLimit());
+	}
+
+	/* *************************** */
+	/* ****** LIST & CLAUSE ****** */
+	/* *************************** */
+
+	/**
+	 * Append the SQL translation of the given list at the end of the given buffer.
+	 * 
+	 * @param list	The list to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLList<? extends ADQLObject> list, StringBuilder sql) throws TranslationException{
+		if (list instanceof ClauseSelect)
+			translate((ClauseSelect)list, sql);
+		else if (list instanceof ClauseConstraints)
+			translate((ClauseConstraints)list, sql);
+		else
+			appendDefaultADQLList(list, sql);
+	}
+
+	/**
+	 * Appends the default SQL output for a list of ADQL objects.
+	 * 
+	 * @param list	List to format into SQL.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	protected void appendDefaultADQLList(ADQLList<? extends ADQLObject> list, StringBuilder sql) throws TranslationException{
+		if (list.getName() != null)
+			sql.append(list.getName()).append(' ');
+
+		for(int i = 0; i < list.size(); i++){
+			if (i > 0)
+				sql.append(' ').append(list.getSeparator(i)).append(' ');
+			translate(list.get(i), sql);
+		}
+	}
+
+	/**
+	 * Append the SQL translation of the given SELECT clause at the end of the given buffer.
+	 * 
+	 * @param clause	The SELECT clause to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ClauseSelect clause, StringBuilder sql) throws TranslationException{
+		for(int i = 0; i < clause.size(); i++){
+			if (i == 0){
+				sql.append(clause.getName());
+				if (clause.distinctColumns())
+					sql.append(" DISTINCT");
+			}else
+				sql.append(' ').append(clause.getSeparator(i));
+
+			sql.append(' ');
+			translate(clause.get(i), sql);
+		}
+	}
+
+	/**
+	 * Append the SQL translation of the given list of constraints at the end of the given buffer.
+	 * 
+	 * @param clause	The constraints to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ClauseConstraints clause, StringBuilder sql) throws TranslationException{
+		if (clause instanceof ConstraintsGroup){
+			sql.append('(');
+			appendDefaultADQLList(clause, sql);
+			sql.append(')');
+		}else
+			appendDefaultADQLList(clause, sql);
+	}
+
+	/**
+	 * Append the SQL translation of the given SELECT item at the end of the given buffer.
+	 * 
+	 * @param item	The SELECT item to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(SelectItem item, StringBuilder sql) throws TranslationException{
+		if (item instanceof SelectAllColumns){
+			translate((SelectAllColumns)item, sql);
+			return;
+		}
+
+		translate(item.getOperand(), sql);
+		if (item.hasAlias()){
+			sql.append(" AS ");
+			appendIdentifier(sql, item.getAlias(), item.isCaseSensitive());
+		}else{
+			sql.append(" AS ");
+			appendIdentifier(sql, item.getName(), true);
+		}
+	}
+
+	/**
+	 * Append the SQL translation of the given "*" (or "table.*") at the end of the given buffer.
+	 * 
+	 * @param item	The SELECT item to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(SelectAllColumns item, StringBuilder sql) throws TranslationException{
+		HashMap<String,String> mapAlias = new HashMap<String,String>();
+
+		// Fetch the full list of columns to display:
+		Iterable<DBColumn> dbCols = null;
+		if (item.getAdqlTable() != null && item.getAdqlTable().getDBLink() != null){
+			ADQLTable table = item.getAdqlTable();
+			dbCols = table.getDBLink();
+			if (table.hasAlias()){
+				String key = getQualifiedTableName(table.getDBLink());
+				mapAlias.put(key, table.isCaseSensitive(IdentifierField.ALIAS) ? ("\"" + table.getAlias() + "\"") : table.getAlias());
+			}
+		}else if (item.getQuery() != null){
+			try{
+				dbCols = item.getQuery().getFrom().getDBColumns();
+			}catch(UnresolvedJoin pe){
+				throw new TranslationException("Due to a join problem, the ADQL to SQL translation can not be completed!", pe);
+			}
+			ArrayList<ADQLTable> tables = item.getQuery().getFrom().getTables();
+			for(ADQLTable table : tables){
+				if (table.hasAlias()){
+					String key = getQualifiedTableName(table.getDBLink());
+					mapAlias.put(key, table.isCaseSensitive(IdentifierField.ALIAS) ? ("\"" + table.getAlias() + "\"") : table.getAlias());
+				}
+			}
+		}
+
+		// Write the DB name of all these columns:
+		final int start = sql.length();
+		if (dbCols != null){
+			for(DBColumn col : dbCols){
+				if (sql.length() > start)
+					sql.append(',');
+				if (col.getTable() != null){
+					String fullDbName = getQualifiedTableName(col.getTable());
+					if (mapAlias.containsKey(fullDbName))
+						appendIdentifier(sql, mapAlias.get(fullDbName), false).append('.');
+					else
+						sql.append(fullDbName).append('.');
+				}
+				appendIdentifier(sql, col.getDBName(), IdentifierField.COLUMN);
+				sql.append(" AS \"").append(col.getADQLName()).append('\"');
+			}
+		}
+
+		// If no column has been written, use the ADQL expression:
+		if (sql.length() == start)
+			sql.append(item.toADQL());
+	}
+
+	/**
+	 * Append the SQL translation of the given column reference at the end of the given buffer.
+	 * 
+	 * @param ref	The column reference to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ColumnReference ref, StringBuilder sql) throws TranslationException{
+		if (ref instanceof ADQLOrder)
+			translate((ADQLOrder)ref, sql);
+		else
+			appendDefaultColumnReference(ref, sql);
+	}
+
+	/**
+	 * Appends the default SQL output for a column reference.
+	 * 
+	 * @param ref	The column reference to format into SQL.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	protected void appendDefaultColumnReference(ColumnReference ref, StringBuilder sql) throws TranslationException{
+		if (ref.isIndex()){
+			sql.append(ref.getColumnIndex());
+		}else{
+			if (ref.getDBLink() == null){
+				appendIdentifier(sql, ref.getColumnName(), ref.isCaseSensitive());
+			}else{
+				DBColumn dbCol = ref.getDBLink();
+				// Use the table alias if any:
+				if (ref.getAdqlTable() != null && ref.getAdqlTable().hasAlias())
+					appendIdentifier(sql, ref.getAdqlTable().getAlias(), ref.getAdqlTable().isCaseSensitive(IdentifierField.ALIAS)).append('.');
+
+				// Use the DBTable if any:
+				else if (dbCol.getTable() != null)
+					sql.append(getQualifiedTableName(dbCol.getTable())).append('.');
+
+				appendIdentifier(sql, dbCol.getDBName(), IdentifierField.COLUMN);
+			}
+		}
+	}
+
+	/**
+	 * Append the SQL translation of the given ORDER BY item at the end of the given buffer.
+	 * 
+	 * @param order	The ORDER BY item to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLOrder order, StringBuilder sql) throws TranslationException{
+		appendDefaultColumnReference(order, sql);
+		sql.append(order.isDescSorting() ? " DESC" : " ASC");
+	}
+
+	/* ************************** */
+	/* ****** TABLE & JOIN ****** */
+	/* ************************** */
+
+	/**
+	 * Append the SQL translation of the given FROM item at the end of the given buffer.
+	 * 
+	 * @param content	The FROM item to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(FromContent content, StringBuilder sql) throws TranslationException{
+		if (content instanceof ADQLTable)
+			translate((ADQLTable)content, sql);
+		else if (content instanceof ADQLJoin)
+			translate((ADQLJoin)content, sql);
+		else
+			sql.append(content.toADQL());
+	}
+
+	/**
+	 * Append the SQL translation of the given table (or sub-query) at the end of the given buffer.
+	 * 
+	 * @param table	The table to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLTable table, StringBuilder sql) throws TranslationException{
+		// CASE: SUB-QUERY:
+		if (table.isSubQuery()){
+			sql.append('(');
+			translate(table.getSubQuery(), sql);
+			sql.append(')');
+		}
+
+		// CASE: TABLE REFERENCE:
+		else{
+			// Use the corresponding DB table, if known:
+			if (table.getDBLink() != null)
+				sql.append(getQualifiedTableName(table.getDBLink()));
+			// Otherwise, use the whole table name given in the ADQL query:
+			else
+				sql.append(table.getFullTableName());
+		}
+
+		// Add the table alias, if any:
+		if (table.hasAlias()){
+			sql.append(" AS ");
+			appendIdentifier(sql, table.getAlias(), table.isCaseSensitive(IdentifierField.ALIAS));
+		}
+	}
+
+	/**
+	 * Append the SQL translation of the given join at the end of the given buffer.
+	 * 
+	 * @param join	The join to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLJoin join, StringBuilder sql) throws TranslationException{
+		translate(join.getLeftTable(), sql);
+
+		if (join.isNatural())
+			sql.append(" NATURAL");
+
+		sql.append(' ').append(join.getJoinType()).append(' ');
+		translate(join.getRightTable(), sql);
+		sql.append(' ');
+
+		if (!join.isNatural()){
+			if (join.getJoinCondition() != null)
+				translate(join.getJoinCondition(), sql);
+			else if (join.hasJoinedColumns()){
+				sql.append("USING (");
+				Iterator<ADQLColumn> it = join.getJoinedColumns();
+				boolean first = true;
+				while(it.hasNext()){
+					ADQLColumn item = it.next();
+					if (!first)
+						sql.append(", ");
+					if (item.getDBLink() == null)
+						appendIdentifier(sql, item.getColumnName(), item.isCaseSensitive(IdentifierField.COLUMN));
+					else
+						appendIdentifier(sql, item.getDBLink().getDBName(), IdentifierField.COLUMN);
+					first = false;
+				}
+				sql.append(')');
+			}
+		}
+	}
+
+	/* ********************* */
+	/* ****** OPERAND ****** */
+	/* ********************* */
+
+	/**
+	 * Append the SQL translation of the given operand at the end of the given buffer.
+	 * 
+	 * @param op	The operand to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLOperand op, StringBuilder sql) throws TranslationException{
+		if (op instanceof ADQLColumn)
+			translate((ADQLColumn)op, sql);
+		else if (op instanceof Concatenation)
+			translate((Concatenation)op, sql);
+		else if (op instanceof NegativeOperand)
+			translate((NegativeOperand)op, sql);
+		else if (op instanceof NumericConstant)
+			translate((NumericConstant)op, sql);
+		else if (op instanceof StringConstant)
+			translate((StringConstant)op, sql);
+		else if (op instanceof WrappedOperand)
+			translate((WrappedOperand)op, sql);
+		else if (op instanceof Operation)
+			translate((Operation)op, sql);
+		else if (op instanceof ADQLFunction)
+			translate((ADQLFunction)op, sql);
+		else
+			sql.append(op.toADQL());
+	}
+
+	/**
+	 * Append the SQL translation of the given column at the end of the given buffer.
+	 * 
+	 * @param column	The column to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLColumn column, StringBuilder sql) throws TranslationException{
+		// Use its DB name if known:
+		if (column.getDBLink() != null){
+			DBColumn dbCol = column.getDBLink();
+			// Use the table alias if any:
+			if (column.getAdqlTable() != null && column.getAdqlTable().hasAlias())
+				appendIdentifier(sql, column.getAdqlTable().getAlias(), column.getAdqlTable().isCaseSensitive(IdentifierField.ALIAS)).append('.');
+
+			// Use the DBTable if any:
+			else if (dbCol.getTable() != null && dbCol.getTable().getDBName() != null)
+				sql.append(getQualifiedTableName(dbCol.getTable())).append('.');
+
+			// Otherwise, use the prefix of the column given in the ADQL query:
+			else if (column.getTableName() != null)
+				sql.append(column.getFullColumnPrefix()).append('.');
+
+			appendIdentifier(sql, dbCol.getDBName(), IdentifierField.COLUMN);
+		}
+		// Otherwise, use the whole name given in the ADQL query:
+		else
+			sql.append(column.getFullColumnName());
+	}
+
+	/**
+	 * Append the SQL translation of the given concatenation at the end of the given buffer.
+	 * 
+	 * @param concat	The concatenation to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(Concatenation concat, StringBuilder sql) throws TranslationException{
+		translate((ADQLList<ADQLOperand>)concat, sql);
 	}
 
-	@Override
-	public String translate(NotConstraint notCons) throws TranslationException{
-		return "NOT " + translate(notCons.getConstraint());
+	/**
+	 * Append the SQL translation of the given negative operand at the end of the given buffer.
+	 * 
+	 * @param negOp	The negative operand to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(NegativeOperand negOp, StringBuilder sql) throws TranslationException{
+		sql.append('-');
+		translate(negOp.getOperand(), sql);
+	}
+
+	/**
+	 * Append the SQL translation of the given numeric constant at the end of the given buffer.
+	 * 
+	 * @param numConst	The numeric constant to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(NumericConstant numConst, StringBuilder sql) throws TranslationException{
+		sql.append(numConst.getValue());
+	}
+
+	/**
+	 * Append the SQL translation of the given string constant at the end of the given buffer.
+	 * 
+	 * @param strConst	The string constant to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(StringConstant strConst, StringBuilder sql) throws TranslationException{
+		sql.append('\'').append(strConst.getValue()).append('\'');
+	}
+
+	/**
+	 * Append the SQL translation of the given operand between parenthesis at the end of the given buffer.
+	 * 
+	 * @param op	The wrapped operand to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(WrappedOperand op, StringBuilder sql) throws TranslationException{
+		sql.append('(');
+		translate(op.getOperand(), sql);
+		sql.append(')');
+	}
+
+	/**
+	 * Append the SQL translation of the given operation at the end of the given buffer.
+	 * 
+	 * @param op	The operation to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(Operation op, StringBuilder sql) throws TranslationException{
+		translate(op.getLeftOperand(), sql);
+		sql.append(op.getOperation().toADQL());
+		translate(op.getRightOperand(), sql);
+	}
+
+	/* ************************ */
+	/* ****** CONSTRAINT ****** */
+	/* ************************ */
+
+	/**
+	 * Append the SQL translation of the given constraint at the end of the given buffer.
+	 * 
+	 * @param cons	The constraint to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLConstraint cons, StringBuilder sql) throws TranslationException{
+		if (cons instanceof Comparison)
+			translate((Comparison)cons, sql);
+		else if (cons instanceof Between)
+			translate((Between)cons, sql);
+		else if (cons instanceof Exists)
+			translate((Exists)cons, sql);
+		else if (cons instanceof In)
+			translate((In)cons, sql);
+		else if (cons instanceof IsNull)
+			translate((IsNull)cons, sql);
+		else if (cons instanceof NotConstraint)
+			translate((NotConstraint)cons, sql);
+		else
+			sql.append(cons.toADQL());
+	}
+
+	/**
+	 * Append the SQL translation of the given comparison at the end of the given buffer.
+	 * 
+	 * @param comp	The comparison to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(Comparison comp, StringBuilder sql) throws TranslationException{
+		translate(comp.getLeftOperand(), sql);
+		sql.append(' ').append(comp.getOperator().toADQL()).append(' ');
+		translate(comp.getRightOperand(), sql);
+	}
+
+	/**
+	 * Append the SQL translation of the given BETWEEN constraint at the end of the given buffer.
+	 * 
+	 * @param comp	The BETWEEN constraint to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(Between comp, StringBuilder sql) throws TranslationException{
+		translate(comp.getLeftOperand(), sql);
+		sql.append(' ').append(comp.getName()).append(' ');
+		translate(comp.getMinOperand(), sql);
+		sql.append(" AND ");
+		translate(comp.getMaxOperand(), sql);
+	}
+
+	/**
+	 * Append the SQL translation of the given EXISTS constraint at the end of the given buffer.
+	 * 
+	 * @param exists	The EXISTS constraint to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(Exists exists, StringBuilder sql) throws TranslationException{
+		sql.append("EXISTS(");
+		translate(exists.getSubQuery(), sql);
+		sql.append(')');
+	}
+
+	/**
+	 * Append the SQL translation of the given IN constraint at the end of the given buffer.
+	 * 
+	 * @param in	The IN constraint to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(In in, StringBuilder sql) throws TranslationException{
+		translate(in.getOperand(), sql);
+		sql.append(' ').append(in.getName()).append(" (");
+		if (in.hasSubQuery())
+			translate(in.getSubQuery(), sql);
+		else
+			translate(in.getValuesList(), sql);
+		sql.append(')');
+	}
+
+	/**
+	 * Append the SQL translation of the given IS NULL constraint at the end of the given buffer.
+	 * 
+	 * @param isNull	The IS NULL constraint to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(IsNull isNull, StringBuilder sql) throws TranslationException{
+		translate(isNull.getColumn(), sql);
+		sql.append(' ').append(isNull.getName());
+	}
+
+	/**
+	 * Append the SQL translation of the given NOT constraint at the end of the given buffer.
+	 * 
+	 * @param notCons	The NOT constraint to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(NotConstraint notCons, StringBuilder sql) throws TranslationException{
+		sql.append("NOT ");
+		translate(notCons.getConstraint(), sql);
 	}
 
 	/* *********************** */
 	/* ****** FUNCTIONS ****** */
 	/* *********************** */
-	@Override
-	public String translate(ADQLFunction fct) throws TranslationException{
+
+	/**
+	 * Append the SQL translation of the given function at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(ADQLFunction fct, StringBuilder sql) throws TranslationException{
 		if (fct instanceof GeometryFunction)
-			return translate((GeometryFunction)fct);
+			translate((GeometryFunction)fct, sql);
 		else if (fct instanceof MathFunction)
-			return translate((MathFunction)fct);
+			translate((MathFunction)fct, sql);
 		else if (fct instanceof SQLFunction)
-			return translate((SQLFunction)fct);
+			translate((SQLFunction)fct, sql);
 		else if (fct instanceof UserDefinedFunction)
-			return translate((UserDefinedFunction)fct);
+			translate((UserDefinedFunction)fct, sql);
 		else
-			return getDefaultADQLFunction(fct);
+			appendDefaultADQLFunction(fct, sql);
 	}
 
 	/**
-	 * Gets the default SQL output for the given ADQL function.
+	 * Appends the default SQL output for the given ADQL function.
 	 * 
 	 * @param fct	The ADQL function to format into SQL.
-	 * 
-	 * @return		The corresponding SQL.
+	 * @param sql	The buffer in which the SQL translation must be appended.
 	 * 
 	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
 	 */
-	protected final String getDefaultADQLFunction(ADQLFunction fct) throws TranslationException{
-		String sql = fct.getName() + "(";
+	protected final void appendDefaultADQLFunction(ADQLFunction fct, StringBuilder sql) throws TranslationException{
+		sql.append(fct.getName()).append('(');
 
-		for(int i = 0; i < fct.getNbParameters(); i++)
-			sql += ((i == 0) ? "" : ", ") + translate(fct.getParameter(i));
+		for(int i = 0; i < fct.getNbParameters(); i++){
+			if (i > 0)
+				sql.append(", ");
+			translate(fct.getParameter(i), sql);
+		}
 
-		return sql + ")";
+		sql.append(')');
 	}
 
-	@Override
-	public String translate(SQLFunction fct) throws TranslationException{
+	/**
+	 * Append the SQL translation of the given SQL function (e.g. COUNT, AVG) at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(SQLFunction fct, StringBuilder sql) throws TranslationException{
 		if (fct.getType() == SQLFunctionType.COUNT_ALL)
-			return "COUNT(" + (fct.isDistinct() ? "DISTINCT " : "") + "*)";
-		else
-			return fct.getName() + "(" + (fct.isDistinct() ? "DISTINCT " : "") + translate(fct.getParameter(0)) + ")";
+			sql.append("COUNT(").append(fct.isDistinct() ? "DISTINCT " : "").append("*)");
+		else{
+			sql.append(fct.getName()).append('(').append(fct.isDistinct() ? "DISTINCT " : "");
+			translate(fct.getParameter(0), sql);
+			sql.append(')');
+		}
 	}
 
-	@Override
-	public String translate(MathFunction fct) throws TranslationException{
-		return getDefaultADQLFunction(fct);
+	/**
+	 * Append the SQL translation of the given mathematical function at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(MathFunction fct, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(fct, sql);
 	}
 
-	@Override
-	public String translate(UserDefinedFunction fct) throws TranslationException{
-		return getDefaultADQLFunction(fct);
+	/**
+	 * Append the SQL translation of the given user defined function at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(UserDefinedFunction fct, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(fct, sql);
 	}
 
 	/* *********************************** */
 	/* ****** GEOMETRICAL FUNCTIONS ****** */
 	/* *********************************** */
-	@Override
-	public String translate(GeometryFunction fct) throws TranslationException{
+
+	/**
+	 * Append the SQL translation of the given geometrical function at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(GeometryFunction fct, StringBuilder sql) throws TranslationException{
 		if (fct instanceof AreaFunction)
-			return translate((AreaFunction)fct);
+			translate((AreaFunction)fct, sql);
 		else if (fct instanceof BoxFunction)
-			return translate((BoxFunction)fct);
+			translate((BoxFunction)fct, sql);
 		else if (fct instanceof CentroidFunction)
-			return translate((CentroidFunction)fct);
+			translate((CentroidFunction)fct, sql);
 		else if (fct instanceof CircleFunction)
-			return translate((CircleFunction)fct);
+			translate((CircleFunction)fct, sql);
 		else if (fct instanceof ContainsFunction)
-			return translate((ContainsFunction)fct);
+			translate((ContainsFunction)fct, sql);
 		else if (fct instanceof DistanceFunction)
-			return translate((DistanceFunction)fct);
+			translate((DistanceFunction)fct, sql);
 		else if (fct instanceof ExtractCoord)
-			return translate((ExtractCoord)fct);
+			translate((ExtractCoord)fct, sql);
 		else if (fct instanceof ExtractCoordSys)
-			return translate((ExtractCoordSys)fct);
+			translate((ExtractCoordSys)fct, sql);
 		else if (fct instanceof IntersectsFunction)
-			return translate((IntersectsFunction)fct);
+			translate((IntersectsFunction)fct, sql);
 		else if (fct instanceof PointFunction)
-			return translate((PointFunction)fct);
+			translate((PointFunction)fct, sql);
 		else if (fct instanceof PolygonFunction)
-			return translate((PolygonFunction)fct);
+			translate((PolygonFunction)fct, sql);
 		else if (fct instanceof RegionFunction)
-			return translate((RegionFunction)fct);
+			translate((RegionFunction)fct, sql);
 		else
-			return getDefaultADQLFunction(fct);
+			appendDefaultADQLFunction(fct, sql);
 	}
 
-	@Override
-	public String translate(GeometryValue<? extends GeometryFunction> geomValue) throws TranslationException{
-		return translate(geomValue.getValue());
+	/**
+	 * Append the SQL translation of the given geometry parameter at the end of the given buffer.
+	 * 
+	 * @param geomValue	The geometry parameter to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public void translate(GeometryValue<? extends GeometryFunction> geomValue, StringBuilder sql) throws TranslationException{
+		translate(geomValue.getValue(), sql);
 	}
 
+	/**
+	 * Append the SQL translation of the given COORD1 or COORD2 function at the end of the given buffer.
+	 * 
+	 * @param extractCoord	The function to translate.
+	 * @param sql			The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(ExtractCoord extractCoord, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given COORDSYS function at the end of the given buffer.
+	 * 
+	 * @param extractCoordSys	The function to translate.
+	 * @param sql				The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(ExtractCoordSys extractCoordSys, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given AREA function at the end of the given buffer.
+	 * 
+	 * @param areaFunction	The function to translate.
+	 * @param sql			The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(AreaFunction areaFunction, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given CENTROID function at the end of the given buffer.
+	 * 
+	 * @param centroidFunction	The function to translate.
+	 * @param sql				The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(CentroidFunction centroidFunction, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given DISTANCE function at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(DistanceFunction fct, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given CONTAINS function at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(ContainsFunction fct, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given INTERSECTS function at the end of the given buffer.
+	 * 
+	 * @param fct	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(IntersectsFunction fct, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given POINT at the end of the given buffer.
+	 * 
+	 * @param point	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(PointFunction point, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given CIRCLE at the end of the given buffer.
+	 * 
+	 * @param circle	The function to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(CircleFunction circle, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given BOX at the end of the given buffer.
+	 * 
+	 * @param box	The function to translate.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(BoxFunction box, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given POLYGON at the end of the given buffer.
+	 * 
+	 * @param polygon	The function to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(PolygonFunction polygon, StringBuilder sql) throws TranslationException;
+
+	/**
+	 * Append the SQL translation of the given REGION at the end of the given buffer.
+	 * 
+	 * @param region	The function to translate.
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	public abstract void translate(RegionFunction region, StringBuilder sql) throws TranslationException;
+
 }
@@ -20,14 +20,19 @@ package adql.translator;
  *                       Astronomisches Rechen Institut (ARI)
  */
 
+import java.math.BigDecimal;
+
+import adql.db.DBColumn;
 import adql.query.constraint.Comparison;
 import adql.query.constraint.ComparisonOperator;
+import adql.query.operand.ADQLOperand;
 import adql.query.operand.function.geometry.AreaFunction;
 import adql.query.operand.function.geometry.BoxFunction;
 import adql.query.operand.function.geometry.CircleFunction;
 import adql.query.operand.function.geometry.ContainsFunction;
 import adql.query.operand.function.geometry.DistanceFunction;
 import adql.query.operand.function.geometry.ExtractCoord;
+import adql.query.operand.function.geometry.GeometryFunction.GeometryValue;
 import adql.query.operand.function.geometry.IntersectsFunction;
 import adql.query.operand.function.geometry.PointFunction;
 import adql.query.operand.function.geometry.PolygonFunction;
@@ -37,11 +42,23 @@ import adql.query.operand.function.geometry.PolygonFunction;
  * Actually only the geometrical functions are translated in this class.
  * The other functions are managed by {@link PostgreSQLTranslator}.</p>
  * 
+ * <p>
+ * 	The comparisons involving CONTAINS, INTERSECTS or DISTANCE are rewritten so that PostgreSQL can use
+ * 	the GiST indexes of the pgSphere columns (see {@link #translate(Comparison, StringBuilder)}). Besides,
+ * 	constant POLYGONs and BOXes are written as one pgSphere literal.
+ * </p>
+ * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.3 (08/2014)
+ * @version 1.3 (10/2014)
  */
 public class PgSphereTranslator extends PostgreSQLTranslator {
 
+	/** Maximum radius (in degrees) of a <code>scircle</code>. */
+	protected final static BigDecimal MAX_RADIUS = new BigDecimal(90);
+
+	/** Constant used to compute the corners of a constant BOX. */
+	private final static BigDecimal TWO = new BigDecimal(2);
+
 	/**
 	 * Builds a PgSphereTranslator which always translates in SQL all identifiers (schema, table and column) in a case sensitive manner ;
 	 * in other words, schema, table and column names will be surrounded by double quotes in the SQL translation.
@@ -78,54 +95,143 @@ public class PgSphereTranslator extends PostgreSQLTranslator {
 		super(catalog, schema, table, column);
 	}
 
+	/**
+	 * A GiST index on the <code>spoint</code> built exactly as in {@link #translate(PointFunction, StringBuilder)}.
+	 * 
+	 * @see adql.translator.JDBCTranslator#getPointIndex(adql.db.DBColumn, adql.db.DBColumn)
+	 */
 	@Override
-	public String translate(PointFunction point) throws TranslationException{
-		StringBuffer str = new StringBuffer("spoint(");
-		str.append("radians(").append(translate(point.getCoord1())).append("),");
-		str.append("radians(").append(translate(point.getCoord2())).append("))");
+	public String getPointIndex(final DBColumn coord1, final DBColumn coord2){
+		StringBuffer str = new StringBuffer("USING GIST (spoint(");
+		str.append("radians(").append(getColumnName(coord1)).append("),");
+		str.append("radians(").append(getColumnName(coord2)).append(")))");
 		return str.toString();
 	}
 
 	@Override
-	public String translate(CircleFunction circle) throws TranslationException{
-		StringBuffer str = new StringBuffer("scircle(");
-		str.append("spoint(radians(").append(translate(circle.getCoord1())).append("),");
-		str.append("radians(").append(translate(circle.getCoord2())).append(")),");
-		str.append("radians(").append(translate(circle.getRadius())).append("))");
-		return str.toString();
+	public void translate(PointFunction point, StringBuilder sql) throws TranslationException{
+		sql.append("spoint(radians(");
+		translate(point.getCoord1(), sql);
+		sql.append("),radians(");
+		translate(point.getCoord2(), sql);
+		sql.append("))");
 	}
 
 	@Override
-	public String translate(BoxFunction box) throws TranslationException{
-		StringBuffer str = new StringBuffer("sbox(");
+	public void translate(CircleFunction circle, StringBuilder sql) throws TranslationException{
+		sql.append("scircle(spoint(radians(");
+		translate(circle.getCoord1(), sql);
+		sql.append("),radians(");
+		translate(circle.getCoord2(), sql);
+		sql.append(")),radians(");
+		translate(circle.getRadius(), sql);
+		sql.append("))");
+	}
 
-		str.append("spoint(").append("radians(").append(translate(box.getCoord1())).append("+(").append(translate(box.getWidth())).append("/2.0)),");
-		str.append("radians(").append(translate(box.getCoord2())).append("+(").append(translate(box.getHeight())).append("/2.0))),");
+	/**
+	 * <p>Translate the given box into a <code>sbox</code>.</p>
+	 * 
+	 * <p>
+	 * 	If the center and the size of the box are all numeric constants, the corners are computed here and written
+	 * 	as one <code>sbox</code> literal (e.g. <code>sbox '((11d,22d),(9d,18d))'</code>). Otherwise, the box is
+	 * 	built at execution time with the functions <code>sbox</code>, <code>spoint</code> and <code>radians</code>.
+	 * </p>
+	 * 
+	 * @see adql.translator.JDBCTranslator#translate(adql.query.operand.function.geometry.BoxFunction, java.lang.StringBuilder)
+	 */
+	@Override
+	public void translate(BoxFunction box, StringBuilder sql) throws TranslationException{
+		BigDecimal coord1 = getNumericConstant(box.getCoord1()), coord2 = getNumericConstant(box.getCoord2()), width = getNumericConstant(box.getWidth()), height = getNumericConstant(box.getHeight());
+		if (coord1 != null && coord2 != null && width != null && height != null){
+			BigDecimal halfWidth = width.divide(TWO), halfHeight = height.divide(TWO);
+			sql.append("sbox '(");
+			appendPointLiteral(coord1.add(halfWidth), coord2.add(halfHeight), sql);
+			sql.append(',');
+			appendPointLiteral(coord1.subtract(halfWidth), coord2.subtract(halfHeight), sql);
+			sql.append(")'");
+			return;
+		}
 
-		str.append("spoint(").append("radians(").append(translate(box.getCoord1())).append("-(").append(translate(box.getWidth())).append("/2.0)),");
-		str.append("radians(").append(translate(box.getCoord2())).append("-(").append(translate(box.getHeight())).append("/2.0))))");
-		return str.toString();
+		sql.append("sbox(");
+		appendBoxCorner(box, '+', sql);
+		sql.append(',');
+		appendBoxCorner(box, '-', sql);
+		sql.append(')');
 	}
 
+	/**
+	 * Append the translation of a corner of the given box, as a <code>spoint</code>.
+	 * 
+	 * @param box	The box whose a corner must be translated.
+	 * @param sign	'+' for the upper corner, '-' for the lower one.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	private void appendBoxCorner(final BoxFunction box, final char sign, final StringBuilder sql) throws TranslationException{
+		sql.append("spoint(radians(");
+		translate(box.getCoord1(), sql);
+		sql.append(sign).append('(');
+		translate(box.getWidth(), sql);
+		sql.append("/2.0)),radians(");
+		translate(box.getCoord2(), sql);
+		sql.append(sign).append('(');
+		translate(box.getHeight(), sql);
+		sql.append("/2.0)))");
+	}
+
+	/**
+	 * <p>Translate the given polygon into a <code>spoly</code>.</p>
+	 * 
+	 * <p>
+	 * 	If all the vertices are numeric constants, the polygon is written as one <code>spoly</code> literal
+	 * 	(e.g. <code>spoly '{(1d,2d),(3d,4d),(5d,6d)}'</code>). Otherwise, the polygon is built at execution time
+	 * 	by concatenating the translation of all its vertices.
+	 * </p>
+	 * 
+	 * @see adql.translator.JDBCTranslator#translate(adql.query.operand.function.geometry.PolygonFunction, java.lang.StringBuilder)
+	 */
 	@Override
-	public String translate(PolygonFunction polygon) throws TranslationException{
+	public void translate(PolygonFunction polygon, StringBuilder sql) throws TranslationException{
+		// Constant polygon (at least 3 vertices):
+		if (polygon.getNbParameters() >= 7 && polygon.getNbParameters() % 2 == 1){
+			BigDecimal[] coords = new BigDecimal[polygon.getNbParameters() - 1];
+			for(int i = 0; coords != null && i < coords.length; i++){
+				coords[i] = getNumericConstant(polygon.getParameter(i + 1));
+				if (coords[i] == null)
+					coords = null;
+			}
+			if (coords != null){
+				sql.append("spoly '{");
+				for(int i = 0; i < coords.length; i += 2){
+					if (i > 0)
+						sql.append(',');
+					appendPointLiteral(coords[i], coords[i + 1], sql);
+				}
+				sql.append("}'");
+				return;
+			}
+		}
+
 		try{
-			StringBuffer str = new StringBuffer("spoly('{'");
+			sql.append("spoly('{'");
 
 			if (polygon.getNbParameters() > 2){
 				PointFunction point = new PointFunction(polygon.getCoordinateSystem(), polygon.getParameter(1), polygon.getParameter(2));
-				str.append(" || ").append(translate(point));
+				sql.append(" || ");
+				translate(point, sql);
 
 				for(int i = 3; i < polygon.getNbParameters() && i + 1 < polygon.getNbParameters(); i += 2){
 					point.setCoord1(polygon.getParameter(i));
 					point.setCoord2(polygon.getParameter(i + 1));
-					str.append(" || ',' || ").append(translate(point));
+					sql.append(" || ',' || ");
+					translate(point, sql);
 				}
 			}
 
-			str.append(" || '}')");
-
-			return str.toString();
+			sql.append(" || '}')");
 		}catch(Exception e){
 			e.printStackTrace();
 			throw new TranslationException(e);
@@ -133,52 +239,287 @@ public class PgSphereTranslator extends PostgreSQLTranslator {
 	}
 
 	@Override
-	public String translate(ExtractCoord extractCoord) throws TranslationException{
-		StringBuffer str = new StringBuffer("degrees(");
+	public void translate(ExtractCoord extractCoord, StringBuilder sql) throws TranslationException{
+		sql.append("degrees(");
 		if (extractCoord.getName().equalsIgnoreCase("COORD1"))
-			str.append("long(");
+			sql.append("long(");
 		else
-			str.append("lat(");
-		str.append(translate(extractCoord.getParameter(0))).append("))");
-		return str.toString();
+			sql.append("lat(");
+		translate(extractCoord.getParameter(0), sql);
+		sql.append("))");
 	}
 
 	@Override
-	public String translate(DistanceFunction fct) throws TranslationException{
-		StringBuffer str = new StringBuffer("degrees(");
-		str.append(translate(fct.getP1())).append(" <-> ").append(translate(fct.getP2())).append(")");
-		return str.toString();
+	public void translate(DistanceFunction fct, StringBuilder sql) throws TranslationException{
+		sql.append("degrees(");
+		translate(fct.getP1(), sql);
+		sql.append(" <-> ");
+		translate(fct.getP2(), sql);
+		sql.append(')');
 	}
 
 	@Override
-	public String translate(AreaFunction areaFunction) throws TranslationException{
-		StringBuffer str = new StringBuffer("degrees(area(");
-		str.append(translate(areaFunction.getParameter())).append("))");
-		return str.toString();
+	public void translate(AreaFunction areaFunction, StringBuilder sql) throws TranslationException{
+		sql.append("degrees(area(");
+		translate(areaFunction.getParameter(), sql);
+		sql.append("))");
 	}
 
 	@Override
-	public String translate(ContainsFunction fct) throws TranslationException{
-		StringBuffer str = new StringBuffer("(");
-		str.append(translate(fct.getLeftParam())).append(" @ ").append(translate(fct.getRightParam())).append(")");
-		return str.toString();
+	public void translate(ContainsFunction fct, StringBuilder sql) throws TranslationException{
+		sql.append('(');
+		translate(fct.getLeftParam(), sql);
+		sql.append(" @ ");
+		translate(fct.getRightParam(), sql);
+		sql.append(')');
 	}
 
 	@Override
-	public String translate(IntersectsFunction fct) throws TranslationException{
-		StringBuffer str = new StringBuffer("(");
-		str.append(translate(fct.getLeftParam())).append(" && ").append(translate(fct.getRightParam())).append(")");
-		return str.toString();
+	public void translate(IntersectsFunction fct, StringBuilder sql) throws TranslationException{
+		sql.append('(');
+		translate(fct.getLeftParam(), sql);
+		sql.append(" && ");
+		translate(fct.getRightParam(), sql);
+		sql.append(')');
 	}
 
+	/**
+	 * <p>Translate the given comparison, so that the DBMS can use the spatial indexes whenever possible.</p>
+	 * 
+	 * <p>The following comparisons are rewritten:</p>
+	 * <ul>
+	 * 	<li><code>CONTAINS(...) = 1</code> and <code>INTERSECTS(...) = 1</code> become a bare pgSphere operator:
+	 * 		<code>(a @ b)</code> and <code>(a &amp;&amp; b)</code>,</li>
+	 * 	<li><code>CONTAINS(...) = 0</code> and <code>INTERSECTS(...) = 0</code> become <code>NOT (a @ b)</code>
+	 * 		and <code>NOT (a &amp;&amp; b)</code>,</li>
+	 * 	<li><code>DISTANCE(p1, p2) &lt; r</code> (or <code>&lt;=</code>) becomes
+	 * 		<code>(p1 @ scircle(p2, radians(r)) AND degrees(p1 &lt;-&gt; p2) &lt; r)</code> ; the containment lets
+	 * 		use a spatial index, while the distance test keeps the exact meaning of the ADQL comparison.
+	 * 		This is done only if <code>r</code> is a numeric constant between 0 and 90 degrees (maximum radius of
+	 * 		a <code>scircle</code>). The center of the circle is a constant point if any, so that the spatial index
+	 * 		of the other point can be used.</li>
+	 * </ul>
+	 * 
+	 * <p>
+	 * 	The same comparisons with swapped operands (e.g. <code>1 = CONTAINS(...)</code> or <code>r &gt; DISTANCE(...)</code>)
+	 * 	and with the operator <code>!=</code> (for CONTAINS and INTERSECTS) are rewritten as well.
+	 * 	CONTAINS or INTERSECTS compared to any other number is still compared to a string: <code>(a @ b) = '2'</code>.
+	 * </p>
+	 * 
+	 * <p>
+	 * 	Before all, a positional cross-match between two tables is oriented so that the spatial index of the probed table is used
+	 * 	(see {@link CrossMatch} and {@link #appendCrossMatch(CrossMatch, StringBuilder)}).
+	 * </p>
+	 * 
+	 * @see adql.translator.JDBCTranslator#translate(adql.query.constraint.Comparison, java.lang.StringBuilder)
+	 */
 	@Override
-	public String translate(Comparison comp) throws TranslationException{
-		if ((comp.getLeftOperand() instanceof ContainsFunction || comp.getLeftOperand() instanceof IntersectsFunction) && (comp.getOperator() == ComparisonOperator.EQUAL || comp.getOperator() == ComparisonOperator.NOT_EQUAL) && comp.getRightOperand().isNumeric())
-			return translate(comp.getLeftOperand()) + " " + comp.getOperator().toADQL() + " '" + translate(comp.getRightOperand()) + "'";
-		else if ((comp.getRightOperand() instanceof ContainsFunction || comp.getRightOperand() instanceof IntersectsFunction) && (comp.getOperator() == ComparisonOperator.EQUAL || comp.getOperator() == ComparisonOperator.NOT_EQUAL) && comp.getLeftOperand().isNumeric())
-			return "'" + translate(comp.getLeftOperand()) + "' " + comp.getOperator().toADQL() + " " + translate(comp.getRightOperand());
-		else
-			return super.translate(comp);
+	public void translate(Comparison comp, StringBuilder sql) throws TranslationException{
+		ADQLOperand left = comp.getLeftOperand(), right = comp.getRightOperand();
+		ComparisonOperator op = comp.getOperator();
+
+		// Cross-match between two tables:
+		if (appendCrossMatch(CrossMatch.analyze(comp), sql))
+			return;
+
+		// CONTAINS(...) = 1, INTERSECTS(...) = 0, ...:
+		if (appendPredicate(left, op, right, sql) || appendPredicate(right, op, left, sql))
+			return;
+
+		// DISTANCE(...) < r, r > DISTANCE(...), ...:
+		if (left instanceof DistanceFunction && (op == ComparisonOperator.LESS_THAN || op == ComparisonOperator.LESS_OR_EQUAL)){
+			if (appendDistancePredicate((DistanceFunction)left, op, right, sql))
+				return;
+		}else if (right instanceof DistanceFunction && (op == ComparisonOperator.GREATER_THAN || op == ComparisonOperator.GREATER_OR_EQUAL)){
+			if (appendDistancePredicate((DistanceFunction)right, (op == ComparisonOperator.GREATER_THAN) ? ComparisonOperator.LESS_THAN : ComparisonOperator.LESS_OR_EQUAL, left, sql))
+				return;
+		}
+
+		if ((left instanceof ContainsFunction || left instanceof IntersectsFunction) && (op == ComparisonOperator.EQUAL || op == ComparisonOperator.NOT_EQUAL) && right.isNumeric()){
+			translate(left, sql);
+			sql.append(' ').append(op.toADQL()).append(" '");
+			translate(right, sql);
+			sql.append('\'');
+		}else if ((right instanceof ContainsFunction || right instanceof IntersectsFunction) && (op == ComparisonOperator.EQUAL || op == ComparisonOperator.NOT_EQUAL) && left.isNumeric()){
+			sql.append('\'');
+			translate(left, sql);
+			sql.append("' ").append(op.toADQL()).append(' ');
+			translate(right, sql);
+		}else
+			super.translate(comp, sql);
+	}
+
+	/**
+	 * <p>Append the given cross-match as the containment of the probed point in a circle centered on the driving point:
+	 * <code>(probed @ scircle(driving,radians(r)))</code>.</p>
+	 * 
+	 * <p>
+	 * 	For a DISTANCE, the distance test is added, so that the exact meaning of the ADQL comparison is kept:
+	 * 	<code>(probed @ scircle(driving,radians(r)) AND degrees(probed &lt;-&gt; driving) &lt; r)</code>.
+	 * 	This is done only if <code>r</code> is a numeric constant between 0 and 90 degrees (maximum radius of a <code>scircle</code>).
+	 * </p>
+	 * 
+	 * @param xmatch	The cross-match to translate. <i>MAY be NULL</i>
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the cross-match has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	protected boolean appendCrossMatch(final CrossMatch xmatch, final StringBuilder sql) throws TranslationException{
+		if (xmatch == null)
+			return false;
+
+		if (xmatch.isDistance()){
+			BigDecimal radius = getNumericConstant(xmatch.getRadius());
+			if (radius == null || radius.signum() < 0 || radius.compareTo(MAX_RADIUS) > 0)
+				return false;
+		}
+
+		sql.append('(');
+		appendPoint(xmatch.getProbed(), sql);
+		sql.append(" @ scircle(");
+		appendPoint(xmatch.getDriving(), sql);
+		sql.append(",radians(");
+		translate(xmatch.getRadius(), sql);
+		sql.append("))");
+		if (xmatch.isDistance()){
+			sql.append(" AND degrees(");
+			appendPoint(xmatch.getProbed(), sql);
+			sql.append(" <-> ");
+			appendPoint(xmatch.getDriving(), sql);
+			sql.append(") ").append(xmatch.getOperator().toADQL()).append(' ');
+			translate(xmatch.getRadius(), sql);
+		}
+		sql.append(')');
+		return true;
+	}
+
+	/**
+	 * Append the point of the given side of a cross-match: its POINT function or column,
+	 * or <code>spoint(radians(c1),radians(c2))</code> for the center of a CIRCLE.
+	 * 
+	 * @param side	A side of a cross-match.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	private void appendPoint(final CrossMatch.Side side, final StringBuilder sql) throws TranslationException{
+		if (side.getPoint() != null)
+			translate(side.getPoint(), sql);
+		else{
+			sql.append("spoint(radians(");
+			translate(side.getCoord1(), sql);
+			sql.append("),radians(");
+			translate(side.getCoord2(), sql);
+			sql.append("))");
+		}
+	}
+
+	/**
+	 * Append the given CONTAINS or INTERSECTS function as a bare pgSphere operator (or its negation),
+	 * if it is compared to 0 or 1.
+	 * 
+	 * @param fct	The operand which may be a CONTAINS or INTERSECTS function.
+	 * @param op	The comparison operator.
+	 * @param value	The operand compared to the function.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the comparison has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	protected boolean appendPredicate(final ADQLOperand fct, final ComparisonOperator op, final ADQLOperand value, final StringBuilder sql) throws TranslationException{
+		if (!(fct instanceof ContainsFunction || fct instanceof IntersectsFunction) || (op != ComparisonOperator.EQUAL && op != ComparisonOperator.NOT_EQUAL))
+			return false;
+
+		BigDecimal number = getNumericConstant(value);
+		if (number == null || (number.compareTo(BigDecimal.ONE) != 0 && number.signum() != 0))
+			return false;
+
+		// Is the predicate expected to be true or false?
+		boolean expected = (number.signum() != 0);
+		if (op == ComparisonOperator.NOT_EQUAL)
+			expected = !expected;
+
+		if (!expected)
+			sql.append("NOT ");
+		translate(fct, sql);
+		return true;
+	}
+
+	/**
+	 * Append the comparison <code>DISTANCE(p1, p2) &lt; r</code> (or <code>&lt;=</code>) as a containment in a circle,
+	 * if the distance threshold is a numeric constant between 0 and 90 degrees.
+	 * 
+	 * @param fct		The DISTANCE function.
+	 * @param op		{@link ComparisonOperator#LESS_THAN} or {@link ComparisonOperator#LESS_OR_EQUAL}.
+	 * @param threshold	The maximum distance (in degrees).
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the comparison has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 * 
+	 * @since 1.3
+	 */
+	protected boolean appendDistancePredicate(final DistanceFunction fct, final ComparisonOperator op, final ADQLOperand threshold, final StringBuilder sql) throws TranslationException{
+		BigDecimal radius = getNumericConstant(threshold);
+		if (radius == null || radius.signum() < 0 || radius.compareTo(MAX_RADIUS) > 0)
+			return false;
+
+		// Center the circle on the constant point, if any:
+		GeometryValue<PointFunction> point = fct.getP1(), center = fct.getP2();
+		if (isConstantPoint(point) && !isConstantPoint(center)){
+			point = fct.getP2();
+			center = fct.getP1();
+		}
+
+		sql.append('(');
+		translate(point, sql);
+		sql.append(" @ scircle(");
+		translate(center, sql);
+		sql.append(",radians(");
+		translate(threshold, sql);
+		sql.append(")) AND ");
+		translate(fct, sql);
+		sql.append(' ').append(op.toADQL()).append(' ');
+		translate(threshold, sql);
+		sql.append(')');
+		return true;
+	}
+
+	/**
+	 * Tell whether the given point is a POINT function whose both coordinates are numeric constants.
+	 * 
+	 * @param point	The point to test.
+	 * 
+	 * @return	<i>true</i> if the given point is constant, <i>false</i> otherwise (e.g. a column).
+	 * 
+	 * @since 1.3
+	 */
+	protected static boolean isConstantPoint(final GeometryValue<PointFunction> point){
+		if (point == null || !(point.getValue() instanceof PointFunction))
+			return false;
+		PointFunction p = (PointFunction)point.getValue();
+		return getNumericConstant(p.getCoord1()) != null && getNumericConstant(p.getCoord2()) != null;
+	}
+
+	/**
+	 * Append the given coordinates (in degrees) as a point of a pgSphere literal: <code>(c1d,c2d)</code>.
+	 * 
+	 * @param coord1	First coordinate (in degrees).
+	 * @param coord2	Second coordinate (in degrees).
+	 * @param sql		The buffer in which the point must be appended.
+	 * 
+	 * @since 1.3
+	 */
+	protected static void appendPointLiteral(final BigDecimal coord1, final BigDecimal coord2, final StringBuilder sql){
+		sql.append('(').append(coord1.toPlainString()).append("d,").append(coord2.toPlainString()).append("d)");
 	}
 
 }
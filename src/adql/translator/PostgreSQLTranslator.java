@@ -42,10 +42,11 @@ import adql.query.operand.function.geometry.RegionFunction;
  * 	The geometrical functions are translated exactly as in ADQL.
  * 	You will probably need to extend this translator to correctly manage the geometrical functions.
  * 	An extension is already available for PgSphere: {@link PgSphereTranslator}.
+ * 	Without spatial extension, {@link BoundingBoxTranslator} lets use the ordinary indexes of the coordinates.
  * </i></p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 1.3 (08/2014)
+ * @version 1.3 (10/2014)
  * 
  * @see PgSphereTranslator
  */
@@ -99,79 +100,95 @@ public class PostgreSQLTranslator extends JDBCTranslator {
 	}
 
 	@Override
-	public String translate(MathFunction fct) throws TranslationException{
+	public void translate(MathFunction fct, StringBuilder sql) throws TranslationException{
 		switch(fct.getType()){
 			case LOG:
-				return "ln(" + ((fct.getNbParameters() >= 1) ? translate(fct.getParameter(0)) : "") + ")";
+				sql.append("ln(");
+				if (fct.getNbParameters() >= 1)
+					translate(fct.getParameter(0), sql);
+				sql.append(')');
+				break;
 			case LOG10:
-				return "log(10, " + ((fct.getNbParameters() >= 1) ? translate(fct.getParameter(0)) : "") + ")";
+				sql.append("log(10, ");
+				if (fct.getNbParameters() >= 1)
+					translate(fct.getParameter(0), sql);
+				sql.append(')');
+				break;
 			case RAND:
-				return "random()";
+				sql.append("random()");
+				break;
 			case TRUNCATE:
-				return "trunc(" + ((fct.getNbParameters() >= 2) ? (translate(fct.getParameter(0)) + ", " + translate(fct.getParameter(1))) : "") + ")";
+				sql.append("trunc(");
+				if (fct.getNbParameters() >= 2){
+					translate(fct.getParameter(0), sql);
+					sql.append(", ");
+					translate(fct.getParameter(1), sql);
+				}
+				sql.append(')');
+				break;
 			default:
-				return getDefaultADQLFunction(fct);
+				appendDefaultADQLFunction(fct, sql);
 		}
 	}
 
 	@Override
-	public String translate(ExtractCoord extractCoord) throws TranslationException{
-		return getDefaultADQLFunction(extractCoord);
+	public void translate(ExtractCoord extractCoord, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(extractCoord, sql);
 	}
 
 	@Override
-	public String translate(ExtractCoordSys extractCoordSys) throws TranslationException{
-		return getDefaultADQLFunction(extractCoordSys);
+	public void translate(ExtractCoordSys extractCoordSys, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(extractCoordSys, sql);
 	}
 
 	@Override
-	public String translate(AreaFunction areaFunction) throws TranslationException{
-		return getDefaultADQLFunction(areaFunction);
+	public void translate(AreaFunction areaFunction, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(areaFunction, sql);
 	}
 
 	@Override
-	public String translate(CentroidFunction centroidFunction) throws TranslationException{
-		return getDefaultADQLFunction(centroidFunction);
+	public void translate(CentroidFunction centroidFunction, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(centroidFunction, sql);
 	}
 
 	@Override
-	public String translate(DistanceFunction fct) throws TranslationException{
-		return getDefaultADQLFunction(fct);
+	public void translate(DistanceFunction fct, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(fct, sql);
 	}
 
 	@Override
-	public String translate(ContainsFunction fct) throws TranslationException{
-		return getDefaultADQLFunction(fct);
+	public void translate(ContainsFunction fct, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(fct, sql);
 	}
 
 	@Override
-	public String translate(IntersectsFunction fct) throws TranslationException{
-		return getDefaultADQLFunction(fct);
+	public void translate(IntersectsFunction fct, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(fct, sql);
 	}
 
 	@Override
-	public String translate(BoxFunction box) throws TranslationException{
-		return getDefaultADQLFunction(box);
+	public void translate(BoxFunction box, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(box, sql);
 	}
 
 	@Override
-	public String translate(CircleFunction circle) throws TranslationException{
-		return getDefaultADQLFunction(circle);
+	public void translate(CircleFunction circle, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(circle, sql);
 	}
 
 	@Override
-	public String translate(PointFunction point) throws TranslationException{
-		return getDefaultADQLFunction(point);
+	public void translate(PointFunction point, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(point, sql);
 	}
 
 	@Override
-	public String translate(PolygonFunction polygon) throws TranslationException{
-		return getDefaultADQLFunction(polygon);
+	public void translate(PolygonFunction polygon, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(polygon, sql);
 	}
 
 	@Override
-	public String translate(RegionFunction region) throws TranslationException{
-		return getDefaultADQLFunction(region);
+	public void translate(RegionFunction region, StringBuilder sql) throws TranslationException{
+		appendDefaultADQLFunction(region, sql);
 	}
 
 }
@@ -0,0 +1,405 @@
+package adql.translator;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.math.BigDecimal;
+
+import adql.db.DBColumn;
+import adql.query.constraint.Comparison;
+import adql.query.constraint.ComparisonOperator;
+import adql.query.operand.ADQLColumn;
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.function.geometry.CircleFunction;
+import adql.query.operand.function.geometry.ContainsFunction;
+import adql.query.operand.function.geometry.DistanceFunction;
+import adql.query.operand.function.geometry.GeometryFunction;
+import adql.query.operand.function.geometry.GeometryFunction.GeometryValue;
+import adql.query.operand.function.geometry.IntersectsFunction;
+import adql.query.operand.function.geometry.PointFunction;
+import adql.query.operand.function.geometry.PolygonFunction;
+
+/**
+ * <p>Translates all ADQL objects into the SQL adaptation of Postgres+Q3C.</p>
+ * 
+ * <p>
+ * 	Q3C has no geometrical type: a position is stored in two columns (e.g. ra and dec, in degrees) and indexed with
+ * 	<code>CREATE INDEX ... ON table (q3c_ang2ipix(ra, dec))</code> (see {@link #getPointIndex(DBColumn, DBColumn)}).
+ * 	So, only the positional predicates whose points are POINT functions (i.e. <code>POINT('...', ra, dec)</code>)
+ * 	are translated, so that the Q3C index can be used:
+ * </p>
+ * <ul>
+ * 	<li><code>CONTAINS(POINT(...), CIRCLE(...)) = 1</code> becomes <code>q3c_radial_query(ra, dec, ra0, dec0, radius)</code>,</li>
+ * 	<li><code>CONTAINS(POINT(...), POLYGON(...)) = 1</code> becomes <code>q3c_poly_query(ra, dec, ARRAY[ra1, dec1, ...])</code>,</li>
+ * 	<li><code>DISTANCE(POINT(...), POINT(...)) &lt; r</code> becomes <code>q3c_join(ra1, dec1, ra2, dec2, r)</code>
+ * 		(or <code>q3c_radial_query</code> if one of the points is constant),</li>
+ * 	<li>any other <code>DISTANCE(POINT(...), POINT(...))</code> becomes <code>q3c_dist(ra1, dec1, ra2, dec2)</code>.</li>
+ * </ul>
+ * 
+ * <p>
+ * 	INTERSECTS between a POINT and a CIRCLE or a POLYGON is translated like CONTAINS, and a comparison to 0 (instead of 1)
+ * 	is translated into the negation of the same function (e.g. <code>NOT q3c_radial_query(...)</code>).
+ * 	All the other geometrical functions are not translated (see {@link PostgreSQLTranslator}).
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	The Q3C functions used above look for the index of their first pair of coordinates (or of their second pair for
+ * 	<code>q3c_join</code>). Since the distance between two points is symmetric, the pair of coordinates whose the columns
+ * 	are indexed (see {@link #isIndexed(ADQLOperand, ADQLOperand)}) is always written at this place, whatever is their order in ADQL.
+ * 	Thus, the indexed table is the one scanned with its index, while the other one is the driving side of the join.
+ * 	Besides, any cross-match between two tables (DISTANCE, CONTAINS or INTERSECTS with a CIRCLE) is written with <code>q3c_join</code>
+ * 	and, if both or none of the tables are indexed, the smaller table drives (see {@link CrossMatch}).
+ * </i></p>
+ * 
+ * <p><i>Note:
+ * 	The Q3C functions consider that a point is in a circle if its distance to the center is strictly less than the radius.
+ * 	So, with <code>&lt;=</code>, the points lying exactly at the given distance may be not selected.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ * 
+ * @see PostgreSQLTranslator
+ */
+public class Q3CTranslator extends PostgreSQLTranslator {
+
+	/**
+	 * Builds a Q3CTranslator which always translates in SQL all identifiers (schema, table and column) in a case sensitive manner ;
+	 * in other words, schema, table and column names will be surrounded by double quotes in the SQL translation.
+	 * 
+	 * @see PostgreSQLTranslator#PostgreSQLTranslator()
+	 */
+	public Q3CTranslator(){
+		super();
+	}
+
+	/**
+	 * Builds a Q3CTranslator which always translates in SQL all identifiers (schema, table and column) in the specified case sensitivity ;
+	 * in other words, schema, table and column names will all be surrounded or not by double quotes in the SQL translation.
+	 * 
+	 * @param allCaseSensitive	<i>true</i> to translate all identifiers in a case sensitive manner (surrounded by double quotes), <i>false</i> for case insensitivity.
+	 * 
+	 * @see PostgreSQLTranslator#PostgreSQLTranslator(boolean)
+	 */
+	public Q3CTranslator(boolean allCaseSensitive){
+		super(allCaseSensitive);
+	}
+
+	/**
+	 * Builds a Q3CTranslator which will always translate in SQL identifiers with the defined case sensitivity.
+	 * 
+	 * @param catalog	<i>true</i> to translate catalog names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param schema	<i>true</i> to translate schema names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param table		<i>true</i> to translate table names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * @param column	<i>true</i> to translate column names with double quotes (case sensitive in the DBMS), <i>false</i> otherwise.
+	 * 
+	 * @see PostgreSQLTranslator#PostgreSQLTranslator(boolean, boolean, boolean, boolean)
+	 */
+	public Q3CTranslator(boolean catalog, boolean schema, boolean table, boolean column){
+		super(catalog, schema, table, column);
+	}
+
+	/**
+	 * The Q3C index of the given coordinates: <code>(q3c_ang2ipix(coord1, coord2))</code>.
+	 * 
+	 * @see adql.translator.JDBCTranslator#getPointIndex(adql.db.DBColumn, adql.db.DBColumn)
+	 */
+	@Override
+	public String getPointIndex(final DBColumn coord1, final DBColumn coord2){
+		return "(q3c_ang2ipix(" + getColumnName(coord1) + ", " + getColumnName(coord2) + "))";
+	}
+
+	/**
+	 * <p>Tell whether the given coordinates are indexed.</p>
+	 * 
+	 * <p>
+	 * 	By default, they are considered as indexed if both coordinates are columns whose the metadata say they are indexed
+	 * 	(see {@link DBColumn#isIndexed()} ; for a TAP service, it is the column "indexed" of TAP_SCHEMA.columns).
+	 * </p>
+	 * 
+	 * @param coord1	First coordinate (e.g. ra).
+	 * @param coord2	Second coordinate (e.g. dec).
+	 * 
+	 * @return	<i>true</i> if both given coordinates are indexed columns, <i>false</i> otherwise.
+	 */
+	protected boolean isIndexed(final ADQLOperand coord1, final ADQLOperand coord2){
+		return isIndexed(coord1) && isIndexed(coord2);
+	}
+
+	/**
+	 * Tell whether the given operand is an indexed column.
+	 * 
+	 * @param op	The operand to test.
+	 * 
+	 * @return	<i>true</i> if the given operand is a column whose the metadata say it is indexed, <i>false</i> otherwise.
+	 */
+	private static boolean isIndexed(final ADQLOperand op){
+		if (!(op instanceof ADQLColumn))
+			return false;
+		DBColumn dbCol = ((ADQLColumn)op).getDBLink();
+		return dbCol != null && dbCol.isIndexed();
+	}
+
+	/**
+	 * Tell whether both coordinates of the given point are numeric constants.
+	 * 
+	 * @param point	The point to test.
+	 * 
+	 * @return	<i>true</i> if the given point is constant, <i>false</i> otherwise.
+	 */
+	private static boolean isConstant(final PointFunction point){
+		return getNumericConstant(point.getCoord1()) != null && getNumericConstant(point.getCoord2()) != null;
+	}
+
+	/**
+	 * Get the POINT function of the given geometry parameter.
+	 * 
+	 * @param geom	A geometry parameter.
+	 * 
+	 * @return	The POINT function, or NULL if the given parameter is not a POINT function (e.g. a column).
+	 */
+	private static PointFunction getPoint(final GeometryValue<? extends GeometryFunction> geom){
+		return (geom != null && geom.getValue() instanceof PointFunction) ? (PointFunction)geom.getValue() : null;
+	}
+
+	/**
+	 * Append the given coordinates, separated by a comma.
+	 * 
+	 * @param coord1	First coordinate (e.g. ra).
+	 * @param coord2	Second coordinate (e.g. dec).
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected void appendCoordinates(final ADQLOperand coord1, final ADQLOperand coord2, final StringBuilder sql) throws TranslationException{
+		translate(coord1, sql);
+		sql.append(", ");
+		translate(coord2, sql);
+	}
+
+	/**
+	 * Append the coordinates of the given point, separated by a comma.
+	 * 
+	 * @param point	The point whose the coordinates must be appended.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	private void appendCoordinates(final PointFunction point, final StringBuilder sql) throws TranslationException{
+		appendCoordinates(point.getCoord1(), point.getCoord2(), sql);
+	}
+
+	@Override
+	public void translate(DistanceFunction fct, StringBuilder sql) throws TranslationException{
+		PointFunction p1 = getPoint(fct.getP1()), p2 = getPoint(fct.getP2());
+		if (p1 != null && p2 != null){
+			sql.append("q3c_dist(");
+			appendCoordinates(p1, sql);
+			sql.append(", ");
+			appendCoordinates(p2, sql);
+			sql.append(')');
+		}else
+			super.translate(fct, sql);
+	}
+
+	@Override
+	public void translate(Comparison comp, StringBuilder sql) throws TranslationException{
+		ADQLOperand left = comp.getLeftOperand(), right = comp.getRightOperand();
+		ComparisonOperator op = comp.getOperator();
+
+		// Cross-match between two tables:
+		if (appendCrossMatch(CrossMatch.analyze(comp), sql))
+			return;
+
+		// CONTAINS(POINT, CIRCLE|POLYGON) = 1, ...:
+		if (appendPredicate(left, op, right, sql) || appendPredicate(right, op, left, sql))
+			return;
+
+		// DISTANCE(POINT, POINT) < r, r > DISTANCE(POINT, POINT), ...:
+		if (left instanceof DistanceFunction && (op == ComparisonOperator.LESS_THAN || op == ComparisonOperator.LESS_OR_EQUAL)){
+			if (appendDistancePredicate((DistanceFunction)left, right, sql))
+				return;
+		}else if (right instanceof DistanceFunction && (op == ComparisonOperator.GREATER_THAN || op == ComparisonOperator.GREATER_OR_EQUAL)){
+			if (appendDistancePredicate((DistanceFunction)right, left, sql))
+				return;
+		}
+
+		super.translate(comp, sql);
+	}
+
+	/**
+	 * <p>Append the given cross-match as <code>q3c_join(driving_ra, driving_dec, probed_ra, probed_dec, r)</code>,
+	 * if both points are POINT functions or CIRCLE centers.</p>
+	 * 
+	 * <p>
+	 * 	Q3C uses the index of the second pair of coordinates of <code>q3c_join</code>: the probed side of the cross-match
+	 * 	is then always written at this place (see {@link CrossMatch}).
+	 * </p>
+	 * 
+	 * @param xmatch	The cross-match to translate. <i>MAY be NULL</i>
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the cross-match has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected boolean appendCrossMatch(final CrossMatch xmatch, final StringBuilder sql) throws TranslationException{
+		if (xmatch == null || xmatch.getDriving().getCoord1() == null || xmatch.getProbed().getCoord1() == null)
+			return false;
+
+		sql.append("q3c_join(");
+		appendCoordinates(xmatch.getDriving().getCoord1(), xmatch.getDriving().getCoord2(), sql);
+		sql.append(", ");
+		appendCoordinates(xmatch.getProbed().getCoord1(), xmatch.getProbed().getCoord2(), sql);
+		sql.append(", ");
+		translate(xmatch.getRadius(), sql);
+		sql.append(')');
+		return true;
+	}
+
+	/**
+	 * Append the given CONTAINS or INTERSECTS function as a Q3C function (or its negation), if it is compared to 0 or 1
+	 * and if it is applied on a POINT and a CIRCLE or a POLYGON.
+	 * 
+	 * @param fct	The operand which may be a CONTAINS or INTERSECTS function.
+	 * @param op	The comparison operator.
+	 * @param value	The operand compared to the function.
+	 * @param sql	The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the comparison has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected boolean appendPredicate(final ADQLOperand fct, final ComparisonOperator op, final ADQLOperand value, final StringBuilder sql) throws TranslationException{
+		if (op != ComparisonOperator.EQUAL && op != ComparisonOperator.NOT_EQUAL)
+			return false;
+
+		// Fetch the point and the region:
+		PointFunction point;
+		ADQLOperand region;
+		if (fct instanceof ContainsFunction){
+			point = getPoint(((ContainsFunction)fct).getLeftParam());
+			region = ((ContainsFunction)fct).getRightParam().getValue();
+		}else if (fct instanceof IntersectsFunction){
+			IntersectsFunction intersects = (IntersectsFunction)fct;
+			point = getPoint(intersects.getLeftParam());
+			region = intersects.getRightParam().getValue();
+			if (point == null){
+				point = getPoint(intersects.getRightParam());
+				region = intersects.getLeftParam().getValue();
+			}
+		}else
+			return false;
+		if (point == null || !(region instanceof CircleFunction || (region instanceof PolygonFunction && ((PolygonFunction)region).getNbParameters() >= 7)))
+			return false;
+
+		// Is the predicate expected to be true or false?
+		BigDecimal number = getNumericConstant(value);
+		if (number == null || (number.compareTo(BigDecimal.ONE) != 0 && number.signum() != 0))
+			return false;
+		boolean expected = (number.signum() != 0);
+		if (op == ComparisonOperator.NOT_EQUAL)
+			expected = !expected;
+
+		if (!expected)
+			sql.append("NOT ");
+
+		// CASE: CIRCLE => q3c_radial_query(indexed_ra, indexed_dec, other_ra, other_dec, radius):
+		if (region instanceof CircleFunction){
+			CircleFunction circle = (CircleFunction)region;
+			sql.append("q3c_radial_query(");
+			if (!isIndexed(point.getCoord1(), point.getCoord2()) && isIndexed(circle.getCoord1(), circle.getCoord2())){
+				appendCoordinates(circle.getCoord1(), circle.getCoord2(), sql);
+				sql.append(", ");
+				appendCoordinates(point, sql);
+			}else{
+				appendCoordinates(point, sql);
+				sql.append(", ");
+				appendCoordinates(circle.getCoord1(), circle.getCoord2(), sql);
+			}
+			sql.append(", ");
+			translate(circle.getRadius(), sql);
+			sql.append(')');
+		}
+		// CASE: POLYGON => q3c_poly_query(ra, dec, ARRAY[ra1, dec1, ...]):
+		else{
+			PolygonFunction polygon = (PolygonFunction)region;
+			sql.append("q3c_poly_query(");
+			appendCoordinates(point, sql);
+			sql.append(", ARRAY[");
+			for(int i = 1; i + 1 < polygon.getNbParameters(); i += 2){
+				if (i > 1)
+					sql.append(", ");
+				translate(polygon.getParameter(i), sql);
+				sql.append(", ");
+				translate(polygon.getParameter(i + 1), sql);
+			}
+			sql.append("]::double precision[])");
+		}
+
+		return true;
+	}
+
+	/**
+	 * <p>Append the comparison <code>DISTANCE(p1, p2) &lt; r</code> (or <code>&lt;=</code>) as a Q3C function,
+	 * if both points are POINT functions.</p>
+	 * 
+	 * <p>
+	 * 	If one of the points is constant, <code>q3c_radial_query(ra, dec, ra0, dec0, r)</code> is used (cone search).
+	 * 	Otherwise, <code>q3c_join(ra1, dec1, ra2, dec2, r)</code> is used (cross-match), with the indexed point as second pair
+	 * 	of coordinates.
+	 * </p>
+	 * 
+	 * @param fct		The DISTANCE function.
+	 * @param threshold	The maximum distance (in degrees).
+	 * @param sql		The buffer in which the SQL translation must be appended.
+	 * 
+	 * @return	<i>true</i> if the comparison has been translated, <i>false</i> otherwise (nothing has been appended).
+	 * 
+	 * @throws TranslationException	If there is an error during the translation.
+	 */
+	protected boolean appendDistancePredicate(final DistanceFunction fct, final ADQLOperand threshold, final StringBuilder sql) throws TranslationException{
+		PointFunction p1 = getPoint(fct.getP1()), p2 = getPoint(fct.getP2());
+		if (p1 == null || p2 == null)
+			return false;
+
+		// CASE: CONE SEARCH:
+		if (isConstant(p1) || isConstant(p2)){
+			sql.append("q3c_radial_query(");
+			appendCoordinates(isConstant(p1) ? p2 : p1, sql);
+			sql.append(", ");
+			appendCoordinates(isConstant(p1) ? p1 : p2, sql);
+		}
+		// CASE: CROSS-MATCH:
+		else{
+			boolean swap = isIndexed(p1.getCoord1(), p1.getCoord2()) && !isIndexed(p2.getCoord1(), p2.getCoord2());
+			sql.append("q3c_join(");
+			appendCoordinates(swap ? p2 : p1, sql);
+			sql.append(", ");
+			appendCoordinates(swap ? p1 : p2, sql);
+		}
+		sql.append(", ");
+		translate(threshold, sql);
+		sql.append(')');
+
+		return true;
+	}
+
+}
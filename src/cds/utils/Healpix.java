@@ -0,0 +1,438 @@
+package cds.utils;
+
+/*
+ * This file is part of ADQLLibrary.
+ * 
+ * ADQLLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ADQLLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ADQLLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.util.Arrays;
+
+/**
+ * <p>Minimal implementation of the HEALPix tessellation of the sphere, in the NESTED scheme.</p>
+ * 
+ * <p>
+ * 	It lets compute the index of the cell containing a position ({@link #ang2pix(int, double, double)}) and list the cells
+ * 	which may overlap a circle ({@link #queryDisc(int, double, double, double)}) or a convex polygon ({@link #queryConvex(int, double[][])}).
+ * 	In the NESTED scheme, the 4 sub-cells of a cell at the order <code>k</code> are the 4 consecutive cells <code>4*ipix</code> to
+ * 	<code>4*ipix+3</code> at the order <code>k+1</code>. So, a region is a small set of ranges of cell indexes, which can be searched
+ * 	with an ordinary index (i.e. B-tree) of a database column.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	The queries are conservative: all the cells overlapping the region are listed, but some cells just close to the region may be listed too.
+ * 	They must then be followed by an exact test.
+ * </i></p>
+ * 
+ * <p><i>Note:
+ * 	All coordinates are in degrees. The algorithms are the ones of the reference HEALPix library (Górski et al. 2005).
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 1.3 (10/2014)
+ * @since 1.3
+ */
+public final class Healpix {
+
+	/** Maximum order (the number of cells at an order <code>k</code> is <code>12*4^k</code>, and the indexes must fit in a long). */
+	public final static int MAX_ORDER = 29;
+
+	/** Ring of the southern vertex of each base cell. */
+	private final static int[] JRLL = new int[]{2,2,2,2,3,3,3,3,4,4,4,4};
+
+	/** Longitude index of the southern vertex of each base cell. */
+	private final static int[] JPLL = new int[]{1,3,5,7,0,2,4,6,1,3,5,7};
+
+	/** Result of the comparison between a cell and a region: the cell is out of the region. */
+	private final static int OUTSIDE = 0;
+	/** Result of the comparison between a cell and a region: the cell may overlap the region. */
+	private final static int OVERLAP = 1;
+	/** Result of the comparison between a cell and a region: the cell is entirely in the region. */
+	private final static int INSIDE = 2;
+
+	private Healpix(){}
+
+	/**
+	 * Get the index of the cell containing the given position.
+	 * 
+	 * @param order	Order of the tessellation (between 0 and {@link #MAX_ORDER}).
+	 * @param ra	Longitude (in degrees).
+	 * @param dec	Latitude (in degrees).
+	 * 
+	 * @return	Index of the cell in the NESTED scheme.
+	 * 
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static long ang2pix(final int order, final double ra, final double dec) throws IllegalArgumentException{
+		checkOrder(order);
+		final long nside = 1L << order;
+		final double z = Math.sin(Math.toRadians(dec)), za = Math.abs(z);
+		double tt = (ra % 360) / 90;
+		if (tt < 0)
+			tt += 4;
+		if (tt >= 4)
+			tt = 0;
+
+		final long ix, iy;
+		final int face;
+		// CASE: equatorial region:
+		if (za <= 2. / 3){
+			double temp1 = nside * (0.5 + tt), temp2 = nside * (z * 0.75);
+			long jp = (long)(temp1 - temp2), jm = (long)(temp1 + temp2);
+			long ifp = jp >> order, ifm = jm >> order;
+			face = (int)((ifp == ifm) ? (ifp | 4) : ((ifp < ifm) ? ifp : (ifm + 8)));
+			ix = jm & (nside - 1);
+			iy = nside - (jp & (nside - 1)) - 1;
+		}
+		// CASE: polar caps:
+		else{
+			int ntt = Math.min(3, (int)tt);
+			double tp = tt - ntt, tmp = nside * Math.sqrt(3 * (1 - za));
+			long jp = Math.min((long)(tp * tmp), nside - 1), jm = Math.min((long)((1 - tp) * tmp), nside - 1);
+			if (z >= 0){
+				face = ntt;
+				ix = nside - jm - 1;
+				iy = nside - jp - 1;
+			}else{
+				face = ntt + 8;
+				ix = jp;
+				iy = jm;
+			}
+		}
+
+		return ((long)face << (2 * order)) + spread(ix) + (spread(iy) << 1);
+	}
+
+	/**
+	 * Get the position of the center of the given cell.
+	 * 
+	 * @param order	Order of the tessellation (between 0 and {@link #MAX_ORDER}).
+	 * @param ipix	Index of the cell in the NESTED scheme.
+	 * 
+	 * @return	Cartesian coordinates of the center on the unit sphere: <code>{x, y, z}</code>.
+	 * 
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static double[] pix2vec(final int order, final long ipix) throws IllegalArgumentException{
+		checkOrder(order);
+		final long nside = 1L << order;
+		final int face = (int)(ipix >> (2 * order));
+		final long pix = ipix & ((1L << (2 * order)) - 1);
+		final long ix = compress(pix), iy = compress(pix >> 1);
+
+		final long jr = ((long)JRLL[face] << order) - ix - iy - 1;
+		final long nr;
+		final double z;
+		final int kshift;
+		if (jr < nside){
+			nr = jr;
+			z = 1 - (nr * nr) / (3. * nside * nside);
+			kshift = 0;
+		}else if (jr > 3 * nside){
+			nr = 4 * nside - jr;
+			z = (nr * nr) / (3. * nside * nside) - 1;
+			kshift = 0;
+		}else{
+			nr = nside;
+			z = (2 * nside - jr) * 2. / (3 * nside);
+			kshift = (int)((jr - nside) & 1);
+		}
+
+		long jp = (JPLL[face] * nr + ix - iy + 1 + kshift) / 2;
+		if (jp > 4 * nside)
+			jp -= 4 * nside;
+		if (jp < 1)
+			jp += 4 * nside;
+		final double phi = (jp - (kshift + 1) * 0.5) * (Math.PI / 2 / nr);
+
+		final double sinTheta = Math.sqrt((1 - z) * (1 + z));
+		return new double[]{sinTheta * Math.cos(phi),sinTheta * Math.sin(phi),z};
+	}
+
+	/**
+	 * Get the maximum angular distance between the center of a cell and any of its points.
+	 * 
+	 * @param order	Order of the tessellation (between 0 and {@link #MAX_ORDER}).
+	 * 
+	 * @return	The maximum radius of a cell (in radians).
+	 * 
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static double maxPixelRadius(final int order) throws IllegalArgumentException{
+		checkOrder(order);
+		final long nside = 1L << order;
+		double t1 = 1 - 1. / nside;
+		t1 *= t1;
+		return angle(toVector(2. / 3, Math.PI / (4 * nside)), toVector(1 - t1 / 3, 0));
+	}
+
+	/**
+	 * Get the cells which may overlap the given circle.
+	 * 
+	 * @param order		Order of the tessellation (between 0 and {@link #MAX_ORDER}).
+	 * @param ra		Longitude of the center (in degrees).
+	 * @param dec		Latitude of the center (in degrees).
+	 * @param radius	Radius (in degrees).
+	 * 
+	 * @return	Sorted ranges of cell indexes: <code>{start1, end1, start2, end2, ...}</code> (both bounds included).
+	 * 
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static long[] queryDisc(final int order, final double ra, final double dec, final double radius) throws IllegalArgumentException{
+		checkOrder(order);
+		final double raRad = Math.toRadians(ra), decRad = Math.toRadians(dec);
+		final double[] center = new double[]{Math.cos(decRad) * Math.cos(raRad),Math.cos(decRad) * Math.sin(raRad),Math.sin(decRad)};
+		final double radiusRad = Math.toRadians(radius);
+		return query(order, new Region(){
+			@Override
+			public int compare(final double[] cellCenter, final double cellRadius){
+				double distance = angle(center, cellCenter);
+				if (distance > radiusRad + cellRadius)
+					return OUTSIDE;
+				else if (distance + cellRadius <= radiusRad)
+					return INSIDE;
+				else
+					return OVERLAP;
+			}
+		});
+	}
+
+	/**
+	 * Get the cells which may overlap the given convex polygon.
+	 * 
+	 * @param order		Order of the tessellation (between 0 and {@link #MAX_ORDER}).
+	 * @param normals	The normal of each edge of the polygon (i.e. of the plane of its great circle), oriented toward the inside of the polygon,
+	 *               	and listed in the order of the edges.
+	 * 
+	 * @return	Sorted ranges of cell indexes: <code>{start1, end1, start2, end2, ...}</code> (both bounds included).
+	 * 
+	 * @throws IllegalArgumentException	If the order is incorrect.
+	 */
+	public static long[] queryConvex(final int order, final double[][] normals) throws IllegalArgumentException{
+		checkOrder(order);
+		final double[][] units = new double[normals.length][];
+		for(int i = 0; i < normals.length; i++){
+			double norm = Math.sqrt(dot(normals[i], normals[i]));
+			units[i] = new double[]{normals[i][0] / norm,normals[i][1] / norm,normals[i][2] / norm};
+		}
+
+		/* The cap containing the polygon (around the mean of its vertices) excludes the cells on the other side of the sphere,
+		 * which are close to the great circles of all the edges when the polygon is small: */
+		final int nbEdges = units.length;
+		final double[] center = new double[3];
+		double[][] vertices = new double[nbEdges][];
+		for(int i = 0; i < nbEdges; i++){
+			// the vertex between 2 consecutive edges is on both great circles, and on the inner side of the other edges:
+			double[] n1 = units[i], n2 = units[(i + 1) % nbEdges];
+			double[] v = new double[]{n1[1] * n2[2] - n1[2] * n2[1],n1[2] * n2[0] - n1[0] * n2[2],n1[0] * n2[1] - n1[1] * n2[0]};
+			double norm = Math.sqrt(dot(v, v)), side = 0;
+			if (norm < 1e-15)
+				continue;
+			for(int j = 0; j < nbEdges; j++){
+				if (j != i && j != (i + 1) % nbEdges)
+					side += dot(units[j], v);
+			}
+			for(int k = 0; k < 3; k++){
+				v[k] = ((side < 0) ? -v[k] : v[k]) / norm;
+				center[k] += v[k];
+			}
+			vertices[i] = v;
+		}
+		double norm = Math.sqrt(dot(center, center)), capRadius = -1;
+		if (nbEdges > 2 && norm > 1e-9){
+			for(int k = 0; k < 3; k++)
+				center[k] /= norm;
+			for(double[] v : vertices){
+				if (v != null)
+					capRadius = Math.max(capRadius, angle(center, v));
+			}
+		}
+		final double maxDistance = capRadius;
+
+		return query(order, new Region(){
+			@Override
+			public int compare(final double[] cellCenter, final double cellRadius){
+				if (maxDistance >= 0 && angle(center, cellCenter) > maxDistance + cellRadius)
+					return OUTSIDE;
+				int result = INSIDE;
+				for(double[] n : units){
+					// angular distance between the cell center and the great circle of the edge (positive inside):
+					double distance = Math.asin(Math.max(-1, Math.min(1, dot(n, cellCenter))));
+					if (distance < -cellRadius)
+						return OUTSIDE;
+					else if (distance < cellRadius)
+						result = OVERLAP;
+				}
+				return result;
+			}
+		});
+	}
+
+	/**
+	 * Express the given ranges of cells at a deeper order.
+	 * 
+	 * @param ranges	Ranges of cell indexes: <code>{start1, end1, start2, end2, ...}</code>.
+	 * @param order		Order of the given ranges.
+	 * @param newOrder	Order of the returned ranges (greater or equal to the order of the given ranges).
+	 * 
+	 * @return	The same ranges at the new order.
+	 * 
+	 * @throws IllegalArgumentException	If one of the orders is incorrect.
+	 */
+	public static long[] toOrder(final long[] ranges, final int order, final int newOrder) throws IllegalArgumentException{
+		checkOrder(order);
+		checkOrder(newOrder);
+		if (newOrder < order)
+			throw new IllegalArgumentException("Impossible to express cells of the order " + order + " at the lower order " + newOrder + "!");
+		final int shift = 2 * (newOrder - order);
+		long[] converted = new long[ranges.length];
+		for(int i = 0; i + 1 < ranges.length; i += 2){
+			converted[i] = ranges[i] << shift;
+			converted[i + 1] = ((ranges[i + 1] + 1) << shift) - 1;
+		}
+		return converted;
+	}
+
+	/**
+	 * List all the cells of the given order which may overlap the given region.
+	 * 
+	 * @param order		Order of the tessellation.
+	 * @param region	The region.
+	 * 
+	 * @return	Sorted ranges of cell indexes.
+	 */
+	private static long[] query(final int order, final Region region){
+		Ranges ranges = new Ranges();
+		for(int face = 0; face < 12; face++)
+			query(0, face, order, region, ranges);
+		return ranges.toArray();
+	}
+
+	/**
+	 * Compare the given cell with the given region, and go through its sub-cells if it overlaps partially the region.
+	 * 
+	 * @param cellOrder	Order of the cell.
+	 * @param cell		Index of the cell.
+	 * @param order		Order of the returned cells.
+	 * @param region	The region.
+	 * @param ranges	The ranges of the cells found so far.
+	 */
+	private static void query(final int cellOrder, final long cell, final int order, final Region region, final Ranges ranges){
+		int result = region.compare(pix2vec(cellOrder, cell), maxPixelRadius(cellOrder));
+		if (result == OUTSIDE)
+			return;
+		else if (result == INSIDE || cellOrder == order){
+			int shift = 2 * (order - cellOrder);
+			ranges.add(cell << shift, ((cell + 1) << shift) - 1);
+		}else{
+			for(int i = 0; i < 4; i++)
+				query(cellOrder + 1, 4 * cell + i, order, region, ranges);
+		}
+	}
+
+	/**
+	 * Check the given order.
+	 * 
+	 * @param order	The order to check.
+	 * 
+	 * @throws IllegalArgumentException	If the order is not between 0 and {@link #MAX_ORDER}.
+	 */
+	private static void checkOrder(final int order) throws IllegalArgumentException{
+		if (order < 0 || order > MAX_ORDER)
+			throw new IllegalArgumentException("Incorrect HEALPix order: " + order + "! It must be between 0 and " + MAX_ORDER + ".");
+	}
+
+	/** Spread the bits of the given value on the even bits of the result. */
+	private static long spread(final long value){
+		long result = 0;
+		for(int i = 0; i < 32; i++)
+			result |= ((value >> i) & 1L) << (2 * i);
+		return result;
+	}
+
+	/** Gather the even bits of the given value (inverse of {@link #spread(long)}). */
+	private static long compress(final long value){
+		long result = 0;
+		for(int i = 0; i < 32; i++)
+			result |= ((value >> (2 * i)) & 1L) << i;
+		return result;
+	}
+
+	/** Cartesian coordinates of the given position on the unit sphere. */
+	private static double[] toVector(final double z, final double phi){
+		final double sinTheta = Math.sqrt((1 - z) * (1 + z));
+		return new double[]{sinTheta * Math.cos(phi),sinTheta * Math.sin(phi),z};
+	}
+
+	/** Angle (in radians) between two vectors. */
+	private static double angle(final double[] a, final double[] b){
+		double cx = a[1] * b[2] - a[2] * b[1], cy = a[2] * b[0] - a[0] * b[2], cz = a[0] * b[1] - a[1] * b[0];
+		return Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), dot(a, b));
+	}
+
+	/** Scalar product of two vectors. */
+	private static double dot(final double[] a, final double[] b){
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+
+	/**
+	 * Region to compare with the HEALPix cells.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 1.3 (10/2014)
+	 * @since 1.3
+	 */
+	private static interface Region {
+		/**
+		 * Compare the given cell with this region.
+		 * 
+		 * @param cellCenter	Center of the cell on the unit sphere.
+		 * @param cellRadius	Maximum radius of the cell (in radians).
+		 * 
+		 * @return	{@link Healpix#OUTSIDE}, {@link Healpix#OVERLAP} or {@link Healpix#INSIDE}.
+		 */
+		public int compare(final double[] cellCenter, final double cellRadius);
+	}
+
+	/**
+	 * Sorted list of ranges, in which the contiguous ranges are merged.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 1.3 (10/2014)
+	 * @since 1.3
+	 */
+	private static final class Ranges {
+		private long[] bounds = new long[16];
+		private int size = 0;
+
+		/** Append the given range, expected after all the ranges already added. */
+		public void add(final long start, final long end){
+			if (size > 0 && bounds[size - 1] + 1 >= start)
+				bounds[size - 1] = Math.max(bounds[size - 1], end);
+			else{
+				if (size + 2 > bounds.length)
+					bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+				bounds[size++] = start;
+				bounds[size++] = end;
+			}
+		}
+
+		public long[] toArray(){
+			return Arrays.copyOf(bounds, size);
+		}
+	}
+
+}
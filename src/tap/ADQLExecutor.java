@@ -22,6 +22,11 @@ package tap;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -29,22 +34,33 @@ import tap.data.DataReadException;
 import tap.data.TableIterator;
 import tap.db.DBConnection;
 import tap.db.DBException;
+import tap.db.UploadProgressListener;
 import tap.formatter.OutputFormat;
 import tap.log.TAPLog;
+import tap.metadata.TAPColumn;
 import tap.metadata.TAPSchema;
 import tap.metadata.TAPTable;
 import tap.parameters.TAPParameters;
 import tap.upload.TableLoader;
+import tap.upload.UploadCache;
 import tap.upload.Uploader;
 import uws.UWSException;
 import uws.job.JobThread;
 import uws.job.Result;
 import uws.service.log.UWSLog.LogLevel;
+import adql.db.DBColumn;
+import adql.db.DBCommonColumn;
+import adql.db.DBTable;
 import adql.parser.ADQLParser;
-import adql.parser.ADQLQueryFactory;
 import adql.parser.ParseException;
-import adql.parser.QueryChecker;
+import adql.query.ADQLObject;
 import adql.query.ADQLQuery;
+import adql.query.from.ADQLJoin;
+import adql.query.operand.ADQLColumn;
+import adql.query.operand.ADQLOperand;
+import adql.query.operand.function.geometry.PointFunction;
+import adql.search.ISearchHandler;
+import adql.search.SimpleSearchHandler;
 
 /**
  * <p>Let process completely an ADQL query.</p>
@@ -129,7 +145,11 @@ public class ADQLExecutor {
 
 	/** Connection to the "database".
 	 * <i>Note: This attribute is NULL before and after the query processing (= call of a start(...) function).</i> */
-	private DBConnection dbConn = null;
+	private volatile DBConnection dbConn = null;
+	/** Object loading the uploaded tables into the "database".
+	 * <i>Note: This attribute is NULL except while the uploaded tables are loaded.</i>
+	 * @since 2.0 */
+	private volatile Uploader uploader = null;
 	/** ID of the current query processing step (uploading, parsing, execution, writing result, ...).
 	 * <i>Note: This attribute is NULL before and after the query processing (= call of a start(...) function).</i> */
 	private ExecutionProgression progression = null;
@@ -329,6 +349,10 @@ public class ADQLExecutor {
 
 			// 3. EXECUTE THE ADQL QUERY:
 			startStep(ExecutionProgression.EXECUTING_ADQL);
+			// Limit the query execution in the database to the remaining execution duration of the job:
+			dbConn.setQueryTimeout(getRemainingDuration(start));
+			// Index the uploaded tables used in the query conditions, if any:
+			indexUploadedTables(adqlQuery);
 			queryResult = executeADQL(adqlQuery);
 			endStep();
 
@@ -364,8 +388,13 @@ public class ADQLExecutor {
 
 			// Free the connection (so that giving it back to a pool, if any, otherwise, just free resources):
 			if (dbConn != null){
-				service.getFactory().freeConnection(dbConn);
-				dbConn = null;
+				DBConnection conn;
+				// note: synchronized in order to never cancel a query of the connection once given back (see cancelQuery()):
+				synchronized(this){
+					conn = dbConn;
+					dbConn = null;
+				}
+				service.getFactory().freeConnection(conn);
 			}
 
 			// Set the total duration in the report:
@@ -376,6 +405,55 @@ public class ADQLExecutor {
 		}
 	}
 
+	/**
+	 * <p>Cancel the query currently executed in the database, if any.</p>
+	 * 
+	 * <p>
+	 * 	This function is called by the thread executing this executor (see {@link AsyncThread#interrupt()} and
+	 * 	{@link TAPSyncJob.SyncThread#interrupt()}) when it is interrupted (by the user or a time-out). Indeed, interrupting
+	 * 	a thread does not stop a query running in the database. Thus, the database resources (connection, CPU, ...)
+	 * 	are released as soon as possible instead of when the query ends by itself.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the uploaded tables are being loaded, all the connections loading them are canceled (see {@link Uploader#cancel()}).
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	If no query is running, nothing is done. This function never throws any exception.
+	 * </i></p>
+	 * 
+	 * @see DBConnection#cancel()
+	 */
+	public final synchronized void cancelQuery(){
+		Uploader upl = uploader;
+		if (upl != null){
+			logger.logTAP(LogLevel.INFO, report, "CANCEL_QUERY", "Cancelling the upload of tables in the database.", null);
+			upl.cancel();
+		}else if (dbConn != null){
+			logger.logTAP(LogLevel.INFO, report, "CANCEL_QUERY", "Cancelling the query execution in the database.", null);
+			dbConn.cancel();
+		}
+	}
+
+	/**
+	 * <p>Get the remaining execution duration of the job, in seconds.</p>
+	 * 
+	 * <p>It is the maximum time the database may spend on the query execution (see {@link DBConnection#setQueryTimeout(int)}).</p>
+	 * 
+	 * @param start	Date/Time (in ms) at which the query processing has started.
+	 * 
+	 * @return	The remaining duration (at least 1 second),
+	 *        	or 0 if the execution duration is unlimited.
+	 */
+	private int getRemainingDuration(final long start){
+		long duration = tapParams.getExecutionDuration();
+		if (duration <= 0)
+			return 0;
+		long remaining = duration - (System.currentTimeMillis() - start) / 1000;
+		return (int)Math.max(1, Math.min(remaining, Integer.MAX_VALUE));
+	}
+
 	/**
 	 * <p>Memorize the time at which the step starts, the step ID and update the job parameter "progression"
 	 * (to notify the user about the progression of the query processing).</p>
@@ -450,8 +528,21 @@ public class ADQLExecutor {
 		if (tables.length > 0){
 			logger.logTAP(LogLevel.INFO, report, "UPLOADING", "Loading uploaded tables (" + tables.length + ")", null);
 			try{
-				uploadSchema = service.getFactory().createUploader(dbConn).upload(tables);
+				Uploader upl = service.getFactory().createUploader(dbConn);
+				// Report the number of loaded rows while uploading (possibly from several threads):
+				upl.setUploadProgressListener(new UploadProgressListener(){
+					@Override
+					public void rowsLoaded(final TAPTable table, final int nbRows){
+						synchronized(report){
+							report.nbUploadedRows += nbRows;
+						}
+					}
+				});
+				// Make the upload cancelable (see cancelQuery()):
+				uploader = upl;
+				uploadSchema = upl.upload(tables);
 			}finally{
+				uploader = null;
 				TAPParameters.deleteUploadedTables(tables);
 			}
 		}
@@ -460,7 +551,7 @@ public class ADQLExecutor {
 	/**
 	 * <p>Parse the ADQL query provided in the parameters by the user.</p>
 	 * 
-	 * <p>The query factory and the query checker are got from the TAP factory.</p>
+	 * <p>The parser (with its query factory and its query checker) is got from the TAP factory, and given back to it once the query parsed.</p>
 	 * 
 	 * <p>
 	 * 	The configuration of this TAP service list all allowed coordinate systems. These are got here and provided to the query checker
@@ -474,6 +565,13 @@ public class ADQLExecutor {
 	 * 	The "+1" aims to detect overflows.
 	 * </p>
 	 * 
+	 * <p><i>Note:
+	 * 	If the TAP factory provides a query cache (see {@link TAPFactory#getQueryCache()}), the query is first searched in it.
+	 * 	If found, the cached object is returned as such: it is shared with other jobs and must not be modified.
+	 * 	Otherwise, the parsed query is added in the cache. A query using uploaded tables is cached only if these tables
+	 * 	are shared with the other jobs through the upload cache (see {@link #areUploadedTablesShared()}).
+	 * </i></p>
+	 * 
 	 * @return	The object representation of the ADQL query.
 	 * 
 	 * @throws ParseException			If the given ADQL query can not be parsed or if the construction of the object representation has failed.
@@ -484,37 +582,248 @@ public class ADQLExecutor {
 		// Log the start of the parsing:
 		logger.logTAP(LogLevel.INFO, report, "PARSING", "Parsing ADQL: " + tapParams.getQuery().replaceAll("(\t|\r?\n)+", " "), null);
 
-		// Get the ADQL factory:
-		ADQLQueryFactory queryFactory = service.getFactory().createQueryFactory();
+		// Search the query among the queries already parsed and checked, if any:
+		final Integer maxRec = tapParams.getMaxRec();
+		QueryCache queryCache = areUploadedTablesShared() ? service.getFactory().getQueryCache() : null;
+		String cacheKey = null;
+		if (queryCache != null){
+			cacheKey = queryCache.getKey(tapParams.getQuery(), uploadSchema, maxRec);
+			ADQLQuery cachedQuery = queryCache.get(cacheKey);
+			if (cachedQuery != null){
+				logger.logTAP(LogLevel.INFO, report, "PARSING", "ADQL query found in the query cache.", null);
+				return cachedQuery;
+			}
+		}
 
-		// Get the query checker:
-		QueryChecker queryChecker = service.getFactory().createQueryChecker(uploadSchema);
+		// Get a parser (with the ADQL factory and the query checker):
+		ADQLParser parser = service.getFactory().getADQLParser(uploadSchema);
 
 		// Parse the ADQL query:
-		ADQLParser parser;
-		if (queryFactory == null)
-			parser = new ADQLParser(queryChecker);
-		else
-			parser = new ADQLParser(queryChecker, queryFactory);
-		ADQLQuery query = parser.parseQuery(tapParams.getQuery());
+		ADQLQuery query;
+		try{
+			query = parser.parseQuery(tapParams.getQuery());
+		}finally{
+			service.getFactory().freeADQLParser(parser);
+		}
 
 		// Set or check the row limit:
 		final int limit = query.getSelect().getLimit();
-		final Integer maxRec = tapParams.getMaxRec();
 		if (maxRec != null && maxRec > -1){
 			if (limit <= -1 || limit > maxRec)
 				query.getSelect().setLimit(maxRec + 1);
 		}
 
+		// Cache the query (MAXREC is part of the key, so the adjusted row limit is valid for all the next identical queries):
+		if (queryCache != null)
+			queryCache.put(cacheKey, query);
+
 		return query;
 	}
 
+	/**
+	 * <p>Tell whether all the tables uploaded by the user are shared with the other jobs through the upload cache
+	 * (see {@link TAPFactory#getUploadCache()}).</p>
+	 * 
+	 * <p>
+	 * 	Otherwise, the DB name of an uploaded table is unique to this job. So, the key of the query in the query cache
+	 * 	(see {@link QueryCache#getKey(String, TAPSchema, Integer)}) would be unique too: caching the query would just evict
+	 * 	useful queries and keep alive the metadata of this job.
+	 * </p>
+	 * 
+	 * @return	<i>true</i> if no table has been uploaded or if all of them are in the upload cache, <i>false</i> otherwise.
+	 * 
+	 * @since 2.0
+	 */
+	protected boolean areUploadedTablesShared(){
+		if (uploadSchema == null || uploadSchema.getNbTables() == 0)
+			return true;
+		UploadCache uploadCache = service.getFactory().getUploadCache();
+		if (uploadCache == null)
+			return false;
+		for(TAPTable table : uploadSchema){
+			if (!uploadCache.contains(table))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * <p>Index the uploaded tables whose columns are used in the conditions of the given query.</p>
+	 * 
+	 * <p>
+	 * 	The uploaded columns used in the WHERE clauses and in the join conditions (ON or USING) of the query and of its sub-queries
+	 * 	are listed, as well as the pairs of uploaded columns used as coordinates of a POINT (typically inside CONTAINS, INTERSECTS
+	 * 	or DISTANCE). Then, {@link DBConnection#indexUploadedTable(TAPTable, TAPColumn[], TAPColumn[][])} is called for each
+	 * 	concerned uploaded table. The connection decides whether the table is worth indexing (e.g. in function of its number of rows).
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	The given query must have been checked (see {@link #parseADQL()}): all its columns must be linked to their metadata.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	Indexing is just an optimization: if it fails, a WARNING is logged and the query is executed anyway.
+	 * </i></p>
+	 * 
+	 * @param adql	The object representation of the ADQL query about to be executed.
+	 * 
+	 * @since 2.0
+	 */
+	protected void indexUploadedTables(final ADQLQuery adql){
+		if (uploadSchema == null || uploadSchema.getNbTables() == 0)
+			return;
+
+		// 1. List all the conditions of the query and of its sub-queries:
+		ArrayList<ADQLObject> conditions = new ArrayList<ADQLObject>();
+		ISearchHandler sHandler = new SimpleSearchHandler(true){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return (obj instanceof ADQLQuery || obj instanceof ADQLJoin);
+			}
+		};
+		sHandler.search(adql);
+		for(ADQLObject obj : sHandler){
+			if (obj instanceof ADQLQuery)
+				conditions.add(((ADQLQuery)obj).getWhere());
+			else{
+				ADQLJoin join = (ADQLJoin)obj;
+				if (join.getJoinCondition() != null)
+					conditions.add(join.getJoinCondition());
+				Iterator<ADQLColumn> itJoinedCols = join.getJoinedColumns();
+				while(itJoinedCols.hasNext())
+					conditions.add(itJoinedCols.next());
+			}
+		}
+
+		// 2. List the uploaded columns and points used in these conditions:
+		Map<TAPTable,ArrayList<TAPColumn>> columns = new HashMap<TAPTable,ArrayList<TAPColumn>>();
+		Map<TAPTable,ArrayList<TAPColumn[]>> points = new HashMap<TAPTable,ArrayList<TAPColumn[]>>();
+		ISearchHandler cHandler = new SimpleSearchHandler(false){
+			@Override
+			protected boolean match(final ADQLObject obj){
+				return (obj instanceof ADQLColumn || obj instanceof PointFunction);
+			}
+
+			@Override
+			protected boolean goInto(final ADQLObject obj){
+				// note: the columns of a POINT are indexed together, not individually:
+				return super.goInto(obj) && !(obj instanceof PointFunction);
+			}
+		};
+		ArrayList<TAPColumn> found = new ArrayList<TAPColumn>(2);
+		for(ADQLObject cond : conditions){
+			cHandler.search(cond);
+			for(ADQLObject obj : cHandler){
+				// case: POINT(..., col1, col2)
+				if (obj instanceof PointFunction){
+					PointFunction point = (PointFunction)obj;
+					found.clear();
+					if (getUploadedColumns(point.getCoord1(), found) && getUploadedColumns(point.getCoord2(), found) && found.size() == 2 && found.get(0).getTable() == found.get(1).getTable()){
+						TAPTable table = (TAPTable)found.get(0).getTable();
+						if (!points.containsKey(table))
+							points.put(table, new ArrayList<TAPColumn[]>());
+						points.get(table).add(new TAPColumn[]{found.get(0),found.get(1)});
+					}
+				}
+				// case: column
+				else{
+					found.clear();
+					getUploadedColumns((ADQLColumn)obj, found);
+					for(TAPColumn col : found){
+						TAPTable table = (TAPTable)col.getTable();
+						if (!columns.containsKey(table))
+							columns.put(table, new ArrayList<TAPColumn>());
+						columns.get(table).add(col);
+					}
+				}
+			}
+		}
+
+		// 3. Index the concerned uploaded tables:
+		for(TAPTable table : uploadSchema){
+			ArrayList<TAPColumn> tableCols = columns.get(table);
+			ArrayList<TAPColumn[]> tablePoints = points.get(table);
+			if (tableCols == null && tablePoints == null)
+				continue;
+			try{
+				dbConn.indexUploadedTable(table, (tableCols == null) ? null : tableCols.toArray(new TAPColumn[tableCols.size()]), (tablePoints == null) ? null : tablePoints.toArray(new TAPColumn[tablePoints.size()][]));
+			}catch(DBException de){
+				logger.logTAP(LogLevel.WARNING, report, "INDEXING", "Impossible to index the uploaded table \"" + table.getADQLName() + "\"! The query will be executed without index on this table.", de);
+			}
+		}
+	}
+
+	/**
+	 * <p>Get the uploaded columns referenced by the given operand.</p>
+	 * 
+	 * <p>
+	 * 	If the given operand is not a column or is a column of a table which has not been uploaded, nothing is found.
+	 * 	If it is a column common to several tables (i.e. a column of a join with USING or NATURAL), the columns of all
+	 * 	the joined uploaded tables are found.
+	 * </p>
+	 * 
+	 * @param op	An ADQL operand.
+	 * @param found	List in which the found uploaded columns must be added.
+	 * 
+	 * @return	<i>true</i> if at least one uploaded column has been found, <i>false</i> otherwise.
+	 * 
+	 * @since 2.0
+	 */
+	private boolean getUploadedColumns(final ADQLOperand op, final List<TAPColumn> found){
+		if (!(op instanceof ADQLColumn) || ((ADQLColumn)op).getDBLink() == null)
+			return false;
+
+		DBColumn dbCol = ((ADQLColumn)op).getDBLink();
+		int nbFound = found.size();
+		if (dbCol instanceof DBCommonColumn){
+			Iterator<DBTable> itTables = ((DBCommonColumn)dbCol).getCoveredTables();
+			while(itTables.hasNext()){
+				TAPTable table = getUploadedTable(itTables.next());
+				if (table != null && table.getColumn(dbCol.getADQLName()) != null)
+					found.add(table.getColumn(dbCol.getADQLName()));
+			}
+		}else{
+			TAPTable table = getUploadedTable(dbCol.getTable());
+			if (table != null && table.getColumn(dbCol.getDBName(), false) != null)
+				found.add((TAPColumn)table.getColumn(dbCol.getDBName(), false));
+		}
+		return (found.size() > nbFound);
+	}
+
+	/**
+	 * <p>Get the uploaded table corresponding to the given table metadata.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The metadata of a table having an alias in the query is a copy of the original metadata.
+	 * 	That's why the uploaded table is searched by DB name.
+	 * </i></p>
+	 * 
+	 * @param dbTable	Metadata of a table referenced in the query.
+	 * 
+	 * @return	The corresponding uploaded table, or NULL if the given table has not been uploaded.
+	 * 
+	 * @since 2.0
+	 */
+	private TAPTable getUploadedTable(final DBTable dbTable){
+		if (dbTable == null || !(dbTable instanceof TAPTable) || ((TAPTable)dbTable).getSchema() != uploadSchema)
+			return null;
+		for(TAPTable table : uploadSchema){
+			if (table.getDBName().equals(dbTable.getDBName()))
+				return table;
+		}
+		return null;
+	}
+
 	/**
 	 * <p>Execute in "database" the given object representation of an ADQL query.</p>
 	 * 
 	 * <p>By default, this function is just calling {@link DBConnection#executeQuery(ADQLQuery)} and then it returns the value returned by this call.</p>
 	 * 
 	 * <p><i>Note:
+	 * 	If the query execution fails because it has been canceled (see {@link #cancelQuery()}), an {@link InterruptedException} is thrown.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
 	 * 	An INFO message is logged at the end of the query execution in order to report the result status (success or error)
 	 * 	and the execution duration.
 	 * </i></p>
@@ -534,7 +843,16 @@ public class ADQLExecutor {
 		logger.logTAP(LogLevel.INFO, report, "EXECUTING", "Executing ADQL: " + adql.toADQL().replaceAll("(\t|\r?\n)+", " "), null);
 
 		// Execute the ADQL query:
-		TableIterator result = dbConn.executeQuery(adql);
+		TableIterator result;
+		try{
+			result = dbConn.executeQuery(adql);
+		}catch(DBException de){
+			// if the query has been canceled because of an interruption, report the interruption:
+			if (thread.isInterrupted())
+				throw new InterruptedException();
+			else
+				throw de;
+		}
 
 		// Log the success or failure:
 		if (result == null)
@@ -632,6 +950,11 @@ public class ADQLExecutor {
 	 * <p>Drop all tables uploaded by the user from the database.</p>
 	 * 
 	 * <p><i>Note:
+	 * 	The tables managed by the upload cache of the TAP factory, if any, are not dropped but released
+	 * 	(see {@link UploadCache#release(TAPTable, DBConnection)}): they may be reused by the next jobs.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
 	 * 	By default, if an error occurs while dropping a table from the database, the error will just be logged ; it won't be thrown/propagated.
 	 * </i></p>
 	 * 
@@ -639,10 +962,12 @@ public class ADQLExecutor {
 	 */
 	protected void dropUploadedTables() throws TAPException{
 		if (uploadSchema != null){
-			// Drop all uploaded tables:
+			UploadCache cache = service.getFactory().getUploadCache();
+			// Drop all uploaded tables (except the cached ones, which are just released):
 			for(TAPTable t : uploadSchema){
 				try{
-					dbConn.dropUploadedTable(t);
+					if (cache == null || !cache.release(t, dbConn))
+						dbConn.dropUploadedTable(t);
 				}catch(DBException dbe){
 					logger.logTAP(LogLevel.ERROR, report, "DROP_UPLOAD", "Can not drop the uploaded table \"" + t.getDBName() + "\" (in adql \"" + t.getADQLName() + "\") from the database!", dbe);
 				}
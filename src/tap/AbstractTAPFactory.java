@@ -22,18 +22,22 @@ package tap;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Stack;
 
 import javax.servlet.http.HttpServletRequest;
 
 import tap.db.DBConnection;
+import tap.db.JDBCConnection;
 import tap.error.DefaultTAPErrorWriter;
 import tap.metadata.TAPMetadata;
 import tap.metadata.TAPSchema;
 import tap.metadata.TAPTable;
 import tap.parameters.TAPParameters;
+import tap.upload.UploadCache;
 import tap.upload.Uploader;
 import uws.UWSException;
 import uws.job.ErrorSummary;
@@ -42,7 +46,12 @@ import uws.job.user.JobOwner;
 import uws.service.UWSService;
 import uws.service.backup.UWSBackupManager;
 import uws.service.error.ServiceErrorWriter;
+import uws.service.log.UWSLog.LogLevel;
 import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.OverlaySearchTableList;
+import adql.db.SearchTableList;
+import adql.parser.ADQLParser;
 import adql.parser.ADQLQueryFactory;
 import adql.parser.ParseException;
 import adql.parser.QueryChecker;
@@ -60,6 +69,30 @@ public abstract class AbstractTAPFactory extends TAPFactory {
 	/** The error writer to use when any error occurs while executing a resource or to format an error occurring while executing an asynchronous job. */
 	protected final ServiceErrorWriter errorWriter;
 
+	/** Maximum number of uploaded tables loaded at the same time by one job. <i>1 means that tables are loaded one after the other.</i>
+	 * @since 2.0 */
+	protected int maxParallelUploads = 1;
+
+	/** Cache of the uploaded tables shared by all jobs. <i>NULL if uploaded tables are not cached.</i>
+	 * @since 2.0 */
+	protected UploadCache uploadCache = null;
+
+	/** Index of all the tables published in this TAP service, shared by all query checkers. <i>Replaced in one shot when the TAP metadata are replaced or modified.</i>
+	 * @since 2.0 */
+	private volatile PublishedTables publishedTables = null;
+
+	/** Cache of the ADQL queries already parsed, checked and translated. <i>NULL if queries are not cached.</i>
+	 * @since 2.0 */
+	protected QueryCache queryCache = null;
+
+	/** Maximum number of freed ADQL parsers kept for reuse. <i>0 means that parsers are never reused.</i>
+	 * @since 2.0 */
+	protected int maxPooledParsers = 10;
+
+	/** ADQL parsers freed and ready to be reused. The last freed is the first reused.
+	 * @since 2.0 */
+	private final Stack<ADQLParser> parserPool = new Stack<ADQLParser>();
+
 	/**
 	 * Build a basic TAPFactory.
 	 * Nothing is done except setting the service connection.
@@ -131,23 +164,19 @@ public abstract class AbstractTAPFactory extends TAPFactory {
 	 * </p>
 	 * 
 	 * <p><i>Note:
+	 * 	The published tables are indexed only once and this index is shared by all query checkers
+	 * 	(see {@link #refreshPublishedTables()}). The uploaded tables are just added in an overlay on top of it
+	 * 	(see {@link OverlaySearchTableList}).
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
 	 * 	This function can not be overridded, but {@link #createQueryChecker(Collection)} can be.
 	 * </i></p>
 	 */
 	@Override
 	public final QueryChecker createQueryChecker(final TAPSchema uploadSchema) throws TAPException{
-		// Get all tables published in this TAP service:
-		TAPMetadata meta = service.getTAPMetadata();
-
-		// Build a list in order to gather all these with the uploaded ones:
-		ArrayList<TAPTable> tables = new ArrayList<TAPTable>(meta.getNbTables());
-
-		// Add all tables published in TAP:
-		Iterator<TAPTable> it = meta.getTables();
-		while(it.hasNext())
-			tables.add(it.next());
-
-		// Add all tables uploaded by the user:
+		// Get the index of all tables published in this TAP service, and add on top of it all tables uploaded by the user:
+		OverlaySearchTableList tables = new OverlaySearchTableList(getPublishedIndex().tables);
 		if (uploadSchema != null){
 			for(TAPTable table : uploadSchema)
 				tables.add(table);
@@ -157,6 +186,100 @@ public abstract class AbstractTAPFactory extends TAPFactory {
 		return createQueryChecker(tables);
 	}
 
+	/**
+	 * <p>Get all tables published in this TAP service.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The returned list can not be modified. It is a view of the index shared by all query checkers (see {@link #refreshPublishedTables()}).
+	 * </i></p>
+	 * 
+	 * @return	All published tables.
+	 * 
+	 * @since 2.0
+	 */
+	protected final List<DBTable> getPublishedTables(){
+		return getPublishedIndex().getTables();
+	}
+
+	/**
+	 * <p>Get the index of all tables published in this TAP service, after having rebuilt it if the TAP metadata
+	 * have been replaced or modified since its creation.</p>
+	 * 
+	 * <p>
+	 * 	The TAP metadata are considered as modified when {@link ServiceConnection#getTAPMetadata()} returns another object,
+	 * 	or when the modification count of this object has changed (see {@link TAPMetadata#getModificationCount()}).
+	 * </p>
+	 * 
+	 * @return	An up-to-date index of all published tables.
+	 * 
+	 * @since 2.0
+	 */
+	private PublishedTables getPublishedIndex(){
+		TAPMetadata meta = service.getTAPMetadata();
+		PublishedTables published = publishedTables;
+		if (published == null || !published.isUpToDate(meta))
+			published = refreshPublishedTables();
+		return published;
+	}
+
+	/**
+	 * <p>Rebuild the index of all tables published in this TAP service, and clear the query cache (if any).</p>
+	 * 
+	 * <p>
+	 * 	This index is built only once and then shared by all query checkers. It is rebuilt automatically when the TAP metadata
+	 * 	are replaced or modified (e.g. a table added or removed, or a column modified ; see {@link TAPMetadata#getModificationCount()}).
+	 * 	So, this function has to be called explicitly only after a modification which can not be detected
+	 * 	(e.g. a modification of the {@link TAPMetadata} object returned by an overridden {@link ServiceConnection#getTAPMetadata()}
+	 * 	which does not increment the modification count).
+	 * </p>
+	 * 
+	 * @return	The new index.
+	 * 
+	 * @since 2.0
+	 */
+	public final PublishedTables refreshPublishedTables(){
+		PublishedTables published = new PublishedTables(service.getTAPMetadata());
+		publishedTables = published;
+
+		// The cached queries are linked to the former metadata:
+		if (queryCache != null)
+			queryCache.clear();
+
+		return published;
+	}
+
+	/**
+	 * <p>Get the cache of the ADQL queries already parsed, checked and translated, if any.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Before returning the cache, this function checks whether the TAP metadata have been replaced or modified (see {@link #refreshPublishedTables()}).
+	 * 	If so, the cache is cleared.
+	 * </i></p>
+	 * 
+	 * @see tap.TAPFactory#getQueryCache()
+	 */
+	@Override
+	public final QueryCache getQueryCache(){
+		if (queryCache != null)
+			getPublishedIndex();
+		return queryCache;
+	}
+
+	/**
+	 * <p>Set the cache of the ADQL queries already parsed, checked and translated.</p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	See {@link QueryCache} for the restrictions on the cached queries.
+	 * </i></p>
+	 * 
+	 * @param cache	The query cache to use. <i>NULL to not cache queries.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final void setQueryCache(final QueryCache cache){
+		queryCache = cache;
+	}
+
 	/**
 	 * <p>Create an object able to check the consistency between the ADQL query and the database.
 	 * That's to say, it checks whether the tables and columns used in the query really exist
@@ -166,13 +289,18 @@ public abstract class AbstractTAPFactory extends TAPFactory {
 	 * 	This implementation just create a {@link DBChecker} instance with the list given in parameter.
 	 * </i></p>
 	 * 
+	 * <p><i>Note:
+	 * 	The given list is a {@link SearchTableList} sharing the index of all published tables:
+	 * 	it must be used as provided and not copied (as done by {@link DBChecker}).
+	 * </i></p>
+	 * 
 	 * @param tables	List of all available tables (and indirectly, columns).
 	 * 
 	 * @return	A new ADQL query checker.
 	 * 
 	 * @throws TAPException	If any error occurs while creating the query checker.
 	 */
-	protected QueryChecker createQueryChecker(final Collection<TAPTable> tables) throws TAPException{
+	protected QueryChecker createQueryChecker(final Collection<? extends DBTable> tables) throws TAPException{
 		try{
 			return new DBChecker(tables, service.getUDFs(), service.getGeometries(), service.getCoordinateSystems());
 		}catch(ParseException e){
@@ -180,12 +308,158 @@ public abstract class AbstractTAPFactory extends TAPFactory {
 		}
 	}
 
+	/**
+	 * <p>This implementation reuses, if any, a parser freed before by {@link #freeADQLParser(ADQLParser)}: only its query checker
+	 * and its query factory are replaced. Otherwise, a new parser is created.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Reusing a parser avoids the allocation of its buffers for each query, which matters for the many short synchronous queries.
+	 * </i></p>
+	 */
+	@Override
+	public ADQLParser getADQLParser(final TAPSchema uploadSchema) throws TAPException{
+		ADQLParser parser = null;
+		synchronized(parserPool){
+			if (!parserPool.isEmpty())
+				parser = parserPool.pop();
+		}
+
+		if (parser == null)
+			return super.getADQLParser(uploadSchema);
+
+		parser.setQueryChecker(createQueryChecker(uploadSchema));
+		parser.setQueryFactory(createQueryFactory());
+		return parser;
+	}
+
+	/**
+	 * <p>This implementation keeps the given parser for a next query, unless {@link #getMaxPooledParsers()} parsers are already kept.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The query checker of the given parser is removed, so that the uploaded tables of the job are not kept in memory.
+	 * </i></p>
+	 */
+	@Override
+	public void freeADQLParser(final ADQLParser parser){
+		if (parser == null)
+			return;
+
+		parser.setQueryChecker(null);
+		synchronized(parserPool){
+			if (parserPool.size() < maxPooledParsers)
+				parserPool.push(parser);
+		}
+	}
+
+	/**
+	 * Get the maximum number of freed ADQL parsers kept for reuse.
+	 * 
+	 * @return	Maximum number of pooled parsers.
+	 * 
+	 * @since 2.0
+	 */
+	public final int getMaxPooledParsers(){
+		return maxPooledParsers;
+	}
+
+	/**
+	 * <p>Set the maximum number of freed ADQL parsers kept for reuse.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This limit should be about the number of queries parsed at the same time.
+	 * </i></p>
+	 * 
+	 * @param max	Maximum number of pooled parsers. <i>note: if negative, 0 will be set.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final void setMaxPooledParsers(final int max){
+		maxPooledParsers = Math.max(0, max);
+		synchronized(parserPool){
+			while(parserPool.size() > maxPooledParsers)
+				parserPool.pop();
+		}
+	}
+
+	/**
+	 * <p>Immutable index of all tables published in a TAP service.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The index itself is never exposed: {@link #getTables()} returns an unmodifiable view of it.
+	 * </i></p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	public static final class PublishedTables {
+		/** TAP metadata from which the index has been built. <i>MAY be NULL</i> */
+		private final TAPMetadata metadata;
+		/** Modification count of the TAP metadata when the index has been built (see {@link TAPMetadata#getModificationCount()}). */
+		private final long modificationCount;
+		/** Index of all published tables. */
+		private final SearchTableList tables;
+		/** Unmodifiable view of the index. */
+		private final List<DBTable> view;
+
+		/**
+		 * Index all tables of the given TAP metadata.
+		 * 
+		 * @param meta	TAP metadata. <i>MAY be NULL</i>
+		 */
+		private PublishedTables(final TAPMetadata meta){
+			metadata = meta;
+			// The count must be read before indexing, so that a modification done meanwhile triggers a new rebuild:
+			modificationCount = (meta == null) ? 0 : meta.getModificationCount();
+			if (meta == null){
+				tables = new SearchTableList(0);
+			}else{
+				ArrayList<TAPTable> lst = new ArrayList<TAPTable>(meta.getNbTables());
+				Iterator<TAPTable> it = meta.getTables();
+				while(it.hasNext())
+					lst.add(it.next());
+				tables = new SearchTableList(lst);
+			}
+			view = Collections.unmodifiableList(tables);
+		}
+
+		/**
+		 * Tell whether this index still corresponds to the given TAP metadata.
+		 * 
+		 * @param meta	The current TAP metadata. <i>MAY be NULL</i>
+		 * 
+		 * @return	<i>true</i> if the index has been built from this object and if it has not been modified since, <i>false</i> otherwise.
+		 */
+		public boolean isUpToDate(final TAPMetadata meta){
+			return metadata == meta && (meta == null || meta.getModificationCount() == modificationCount);
+		}
+
+		/**
+		 * Get all published tables.
+		 * 
+		 * @return	An unmodifiable view of the index.
+		 */
+		public List<DBTable> getTables(){
+			return view;
+		}
+	}
+
 	/* ****** */
 	/* UPLOAD */
 	/* ****** */
 
 	/**
-	 * <p>This implementation just create an {@link Uploader} instance with the given database connection.</p>
+	 * <p>This implementation just create an {@link Uploader} instance with the given database connection,
+	 * the maximum number of parallel uploads (see {@link #setMaxParallelUploads(int)}) and the upload cache
+	 * (see {@link #setUploadCache(UploadCache)}).</p>
+	 * 
+	 * <p><i>Note:
+	 * 	With a {@link JDBCConnection}, the parallel upload is disabled if the database is SQLite or if the upload tables are temporary
+	 * 	(see {@link JDBCConnection#getUploadTableType()}). Indeed, SQLite locks the whole database while a table is loaded, and
+	 * 	a temporary table loaded by an additional connection would not be visible from the connection executing the query.
+	 * 	For the same reason, the upload cache is disabled with temporary upload tables and with a database not supporting schemas
+	 * 	(see {@link UploadCache}): a cached table would not be visible from the connections of the next jobs.
+	 * </i></p>
 	 * 
 	 * <p><i>Note:
 	 * 	This function should be overrided if you need to change the DB name of the TAP_UPLOAD schema.
@@ -196,7 +470,101 @@ public abstract class AbstractTAPFactory extends TAPFactory {
 	 */
 	@Override
 	public Uploader createUploader(final DBConnection dbConn) throws TAPException{
-		return new Uploader(service, dbConn);
+		Uploader uploader = new Uploader(service, dbConn);
+		uploader.setMaxParallelUploads(maxParallelUploads);
+		uploader.setUploadCache(uploadCache);
+		if (dbConn instanceof JDBCConnection){
+			JDBCConnection jdbcConn = (JDBCConnection)dbConn;
+			boolean temporary = (jdbcConn.getUploadTableType() == JDBCConnection.UploadTableType.TEMPORARY);
+			if ("sqlite".equals(jdbcConn.getDBMSFeatures().dbms) || temporary)
+				uploader.setMaxParallelUploads(1);
+			if (!jdbcConn.getDBMSFeatures().supportsSchema || temporary)
+				uploader.setUploadCache(null);
+		}
+		return uploader;
+	}
+
+	/**
+	 * Get the maximum number of uploaded tables loaded at the same time by one job.
+	 * 
+	 * @return	Maximum number of concurrent table loadings per job.
+	 * 
+	 * @see Uploader#getMaxParallelUploads()
+	 * 
+	 * @since 2.0
+	 */
+	public final int getMaxParallelUploads(){
+		return maxParallelUploads;
+	}
+
+	/**
+	 * <p>Set the maximum number of uploaded tables loaded at the same time by one job.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Each concurrent loading (except the first one) uses an additional connection (see {@link #getConnection(String)}).
+	 * 	So, this limit should be small compared to the number of available connections.
+	 * </i></p>
+	 * 
+	 * @param max	Maximum number of concurrent table loadings per job. <i>note: if less than 1, 1 will be set.</i>
+	 * 
+	 * @see Uploader#setMaxParallelUploads(int)
+	 * 
+	 * @since 2.0
+	 */
+	public final void setMaxParallelUploads(final int max){
+		maxParallelUploads = Math.max(1, max);
+	}
+
+	@Override
+	public final UploadCache getUploadCache(){
+		return uploadCache;
+	}
+
+	/**
+	 * <p>Set the cache of the uploaded tables shared by all jobs.</p>
+	 * 
+	 * <p>
+	 * 	With a cache, a content uploaded several times (e.g. the same VOTable for several queries) is loaded only once in the database.
+	 * 	The cached tables which are still in the database when the service is stopped are dropped by {@link #destroy()}.
+	 * </p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	See {@link UploadCache} for the restrictions on the uploaded tables.
+	 * </i></p>
+	 * 
+	 * @param cache	The upload cache to use. <i>NULL to not cache uploaded tables.</i>
+	 * 
+	 * @see Uploader#setUploadCache(UploadCache)
+	 * 
+	 * @since 2.0
+	 */
+	public final void setUploadCache(final UploadCache cache){
+		uploadCache = cache;
+	}
+
+	/**
+	 * <p>Drop all the tables of the upload cache, if any (see {@link UploadCache#clear(DBConnection)}).</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This function should be called by any extension of this class overriding it.
+	 * </i></p>
+	 * 
+	 * @see tap.TAPFactory#destroy()
+	 */
+	@Override
+	public void destroy(){
+		if (uploadCache != null){
+			DBConnection conn = null;
+			try{
+				conn = getConnection("UPLOAD_CACHE");
+				uploadCache.clear(conn);
+			}catch(TAPException te){
+				if (service.getLogger() != null) service.getLogger().logTAP(LogLevel.ERROR, this, "UPLOAD_CACHE", "Can not drop the cached uploaded tables: no database connection available!", te);
+			}finally{
+				if (conn != null)
+					freeConnection(conn);
+			}
+		}
 	}
 
 	/* ************** */
@@ -64,6 +64,22 @@ public class AsyncThread extends JobThread {
 		}
 	}
 
+	/**
+	 * <p>Interrupt this thread and cancel the query the executor may be running in the database.</p>
+	 * 
+	 * <p>
+	 * 	Interrupting the thread is not enough to stop a query running in the database. That's why {@link ADQLExecutor#cancelQuery()}
+	 * 	is also called, so that the database resources are released as soon as possible when the job is aborted (by the user or a time-out).
+	 * </p>
+	 * 
+	 * @see ADQLExecutor#cancelQuery()
+	 */
+	@Override
+	public void interrupt(){
+		super.interrupt();
+		executor.cancelQuery();
+	}
+
 	/**
 	 * Get the description of the job that this thread is executing.
 	 * 
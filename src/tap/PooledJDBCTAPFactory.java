@@ -0,0 +1,735 @@
+package tap;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import tap.db.DBConnection;
+import tap.db.DBException;
+import tap.db.DBMSFeatures;
+import tap.db.JDBCConnection;
+import tap.error.DefaultTAPErrorWriter;
+import tap.log.TAPLog;
+import uws.UWSException;
+import uws.service.error.ServiceErrorWriter;
+import uws.service.log.UWSLog.LogLevel;
+import adql.translator.JDBCTranslator;
+
+/**
+ * <p>{@link TAPFactory} managing its own pool of JDBC connections.</p>
+ * 
+ * <p>
+ * 	All the SQL connections of the pool are opened with the same JDBC driver, URL, user and password.
+ * 	They are wrapped in a {@link JDBCConnection} each time they are borrowed with {@link #getConnection(String)}.
+ * 	Since the features of the DBMS are detected only once (at the creation of this factory - see {@link DBMSFeatures}),
+ * 	and since the same {@link JDBCTranslator} is shared by all connections, this wrapping is cheap: no database request
+ * 	is done on the query hot path, except the validation of the borrowed connection.
+ * </p>
+ * 
+ * <h3>Pool size</h3>
+ * <p>
+ * 	At its creation, this factory opens <i>minSize</i> connections. More connections are opened on demand,
+ * 	up to <i>maxSize</i>. Connections given back with {@link #freeConnection(DBConnection)} are kept open for a next use.
+ * </p>
+ * 
+ * <h3>Fair waiting</h3>
+ * <p>
+ * 	When all connections are in use, {@link #getConnection(String)} waits until one is freed. The waiting threads get
+ * 	a connection in their arrival order. If no connection is freed before the wait timeout (see {@link #setWaitTimeout(long)}),
+ * 	a {@link TAPException} with the HTTP code 503 (Service Unavailable) is thrown.
+ * </p>
+ * 
+ * <h3>Validation</h3>
+ * <p>
+ * 	A connection is validated (see {@link Connection#isValid(int)}) each time it is borrowed. An invalid connection is closed
+ * 	and replaced by a new one.
+ * </p>
+ * 
+ * <h3>Leak detection</h3>
+ * <p>
+ * 	A connection held for longer than the leak timeout (see {@link #setLeakTimeout(long)}) is reported as a warning in the logs.
+ * 	By default, this timeout is the maximum execution duration of a job (see {@link ServiceConnection#getExecutionDuration()})
+ * 	increased by {@link #LEAK_MARGIN}.
+ * </p>
+ * 
+ * <h3>Metrics</h3>
+ * <p>
+ * 	The state of the pool can be monitored thanks to {@link #getActiveCount()}, {@link #getIdleCount()}, {@link #getWaitingCount()},
+ * 	{@link #getPeakActiveCount()}, {@link #getBorrowCount()}, {@link #getWaitTimeoutCount()}, {@link #getCreatedCount()},
+ * 	{@link #getDiscardedCount()} and {@link #getSaturation()}.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	All connections are closed by {@link #destroy()}.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public class PooledJDBCTAPFactory extends AbstractTAPFactory {
+
+	/** Default time (in milliseconds) to wait for a free connection. */
+	public final static long DEFAULT_WAIT_TIMEOUT = 30000;
+
+	/** Time (in seconds) given to a connection to answer to its validation. */
+	public final static int DEFAULT_VALIDATION_TIMEOUT = 5;
+
+	/** Time (in milliseconds) added to the maximum execution duration of a job in order to get the default leak timeout. */
+	public final static long LEAK_MARGIN = 60000;
+
+	/** Full class name of the JDBC driver. */
+	protected final String driverPath;
+	/** JDBC URL of the database. */
+	protected final String dbUrl;
+	/** Name of the database user. */
+	protected final String dbUser;
+	/** Password of the database user. */
+	protected final String dbPassword;
+
+	/** Translator shared by all connections of this pool. */
+	protected final JDBCTranslator translator;
+
+	/** Features of the DBMS, detected only once at the creation of this factory. */
+	protected final DBMSFeatures features;
+
+	/** Minimum number of connections kept open. */
+	protected final int minSize;
+	/** Maximum number of connections opened at the same time. */
+	protected final int maxSize;
+
+	/** Permits to borrow a connection. There are as many permits as the maximum number of connections. The waiting threads are served in arrival order. */
+	private final Semaphore permits;
+
+	/** Opened connections not currently in use. The last freed connection is the first to be borrowed. */
+	private final LinkedList<Connection> idle = new LinkedList<Connection>();
+
+	/** Connections currently in use, with the description of their borrowing. */
+	private final Map<DBConnection,Borrowing> borrowed = new IdentityHashMap<DBConnection,Borrowing>();
+
+	/** Time (in milliseconds) to wait for a free connection. */
+	protected long waitTimeout = DEFAULT_WAIT_TIMEOUT;
+
+	/** Time (in seconds) given to a connection to answer to its validation. <i>note: if negative or null, connections are not validated on borrow.</i> */
+	protected int validationTimeout = DEFAULT_VALIDATION_TIMEOUT;
+
+	/** Time (in milliseconds) after which a connection not freed is considered as leaked. <i>note: if negative or null, no leak detection is done.</i> */
+	protected long leakTimeout;
+
+	/** Timer checking periodically whether any connection is leaked. NULL if the leak detection is disabled. */
+	private Timer leakDetector = null;
+
+	/** Indicate whether the JDBC driver implements correctly {@link Connection#isValid(int)}. If not, connections are just checked to be still open. */
+	private volatile boolean supportsIsValid = true;
+
+	/** Indicate whether this pool has been destroyed. */
+	private boolean destroyed = false;
+
+	/* METRICS */
+	private int peakActive = 0;
+	private long nbBorrows = 0;
+	private long nbWaitTimeouts = 0;
+	private long nbCreated = 0;
+	private long nbDiscarded = 0;
+
+	/**
+	 * Build a pooled TAP factory.
+	 * 
+	 * @param service		Configuration of the TAP service. <i>MUST NOT be NULL</i>
+	 * @param driverPath	Full class name of the JDBC driver.
+	 * @param dbUrl			URL to the database. <i><u>note</u> This URL may not be prefixed by "jdbc:". If not, the prefix will be automatically added.</i>
+	 * @param dbUser		Name of the database user.
+	 * @param dbPassword	Password of the given database user.
+	 * @param translator	{@link JDBCTranslator} to use in all connections of this pool. <i>MUST NOT be NULL</i>
+	 * @param minSize		Minimum number of connections to keep open. <i>note: if negative, 0 will be used.</i>
+	 * @param maxSize		Maximum number of connections opened at the same time. <i>MUST be greater or equal to 1 and to minSize.</i>
+	 * 
+	 * @throws NullPointerException	If the given {@link ServiceConnection} or {@link JDBCTranslator} is NULL.
+	 * @throws TAPException			If the pool sizes are incorrect, or if the first connection can not be opened.
+	 * 
+	 * @see #PooledJDBCTAPFactory(ServiceConnection, ServiceErrorWriter, String, String, String, String, JDBCTranslator, int, int)
+	 */
+	public PooledJDBCTAPFactory(final ServiceConnection service, final String driverPath, final String dbUrl, final String dbUser, final String dbPassword, final JDBCTranslator translator, final int minSize, final int maxSize) throws NullPointerException, TAPException{
+		this(service, null, driverPath, dbUrl, dbUser, dbPassword, translator, minSize, maxSize);
+	}
+
+	/**
+	 * Build a pooled TAP factory with a custom error writer.
+	 * 
+	 * @param service		Configuration of the TAP service. <i>MUST NOT be NULL</i>
+	 * @param errorWriter	Object to use to format and write the errors for the user. <i>note: if NULL, a {@link DefaultTAPErrorWriter} will be used.</i>
+	 * @param driverPath	Full class name of the JDBC driver.
+	 * @param dbUrl			URL to the database. <i><u>note</u> This URL may not be prefixed by "jdbc:". If not, the prefix will be automatically added.</i>
+	 * @param dbUser		Name of the database user.
+	 * @param dbPassword	Password of the given database user.
+	 * @param translator	{@link JDBCTranslator} to use in all connections of this pool. <i>MUST NOT be NULL</i>
+	 * @param minSize		Minimum number of connections to keep open. <i>note: if negative, 0 will be used.</i>
+	 * @param maxSize		Maximum number of connections opened at the same time. <i>MUST be greater or equal to 1 and to minSize.</i>
+	 * 
+	 * @throws NullPointerException	If the given {@link ServiceConnection} or {@link JDBCTranslator} is NULL.
+	 * @throws TAPException			If the pool sizes are incorrect, or if the first connection can not be opened.
+	 */
+	public PooledJDBCTAPFactory(final ServiceConnection service, final ServiceErrorWriter errorWriter, final String driverPath, final String dbUrl, final String dbUser, final String dbPassword, final JDBCTranslator translator, final int minSize, final int maxSize) throws NullPointerException, TAPException{
+		super(service, (errorWriter == null) ? new DefaultTAPErrorWriter(service) : errorWriter);
+
+		if (translator == null)
+			throw new NullPointerException("Missing ADQL translator! => can not create a PooledJDBCTAPFactory.");
+		if (maxSize < 1)
+			throw new TAPException("Incorrect maximum size of the connection pool: " + maxSize + "! It must be greater or equal to 1.");
+		if (minSize > maxSize)
+			throw new TAPException("Incorrect minimum size of the connection pool: " + minSize + "! It must be less or equal to the maximum size (" + maxSize + ").");
+
+		this.driverPath = driverPath;
+		this.dbUrl = dbUrl;
+		this.dbUser = dbUser;
+		this.dbPassword = dbPassword;
+		this.translator = translator;
+		this.minSize = Math.max(0, minSize);
+		this.maxSize = maxSize;
+		this.permits = new Semaphore(maxSize, true);
+
+		// Open the first connection and detect the DBMS features with it:
+		Connection first = openConnection();
+		try{
+			features = new DBMSFeatures(first);
+		}catch(DBException de){
+			closeQuietly(first);
+			throw de;
+		}
+		idle.add(first);
+
+		/* Some old JDBC drivers (e.g. SQLite) declare as invalid any connection ; in such case,
+		 * it is then just checked that the connection is still open: */
+		supportsIsValid = isValid(first);
+
+		// Fill the pool up to its minimum size:
+		try{
+			while(idle.size() < this.minSize)
+				idle.add(openConnection());
+		}catch(TAPException te){
+			for(Connection conn : idle)
+				closeQuietly(conn);
+			idle.clear();
+			throw te;
+		}
+
+		// Start the leak detection:
+		int[] duration = service.getExecutionDuration();
+		if (duration != null && duration.length > 1 && duration[1] > 0)
+			setLeakTimeout(duration[1] * 1000L + LEAK_MARGIN);
+		else
+			setLeakTimeout(0);
+	}
+
+	/* ******************* */
+	/* DATABASE CONNECTION */
+	/* ******************* */
+
+	/**
+	 * <p>Get a free connection of this pool.</p>
+	 * 
+	 * <p>
+	 * 	If all the connections are in use, this function waits until one is freed or until the wait timeout is reached
+	 * 	(see {@link #setWaitTimeout(long)}).
+	 * </p>
+	 * 
+	 * @throws TAPException	If no connection has been freed before the wait timeout (HTTP code 503),
+	 *                     	if the current thread has been interrupted while waiting,
+	 *                     	or if a new connection can not be opened.
+	 * 
+	 * @see tap.TAPFactory#getConnection(java.lang.String)
+	 */
+	@Override
+	public DBConnection getConnection(final String jobID) throws TAPException{
+		if (destroyed)
+			throw new TAPException("The connection pool has been destroyed! No more connection can be provided.", UWSException.SERVICE_UNAVAILABLE);
+
+		// Wait for a free connection:
+		try{
+			if (!permits.tryAcquire(waitTimeout, TimeUnit.MILLISECONDS)){
+				synchronized(this){
+					nbWaitTimeouts++;
+				}
+				throw new TAPException("No database connection available after " + waitTimeout + "ms (all the " + maxSize + " connections are in use)! Please try again later.", UWSException.SERVICE_UNAVAILABLE);
+			}
+		}catch(InterruptedException ie){
+			Thread.currentThread().interrupt();
+			throw new TAPException("Interrupted while waiting for a free database connection!", ie);
+		}
+
+		// Get a valid connection (from the idle ones or a new one):
+		try{
+			Connection conn = null;
+			while(conn == null){
+				synchronized(this){
+					conn = idle.poll();
+				}
+				if (conn == null)
+					conn = openConnection();
+				else if (!isValid(conn)){
+					closeQuietly(conn);
+					synchronized(this){
+						nbDiscarded++;
+					}
+					conn = null;
+				}
+			}
+
+			// Wrap it (cheap since the DBMS features are already known):
+			JDBCConnection dbConn = new JDBCConnection(conn, translator, jobID, service.getLogger(), features);
+			// ...and share the SQL translations of the cached queries (all connections use the same translator):
+			dbConn.setQueryCache(getQueryCache());
+
+			synchronized(this){
+				borrowed.put(dbConn, new Borrowing(conn, jobID));
+				nbBorrows++;
+				if (borrowed.size() > peakActive)
+					peakActive = borrowed.size();
+			}
+			return dbConn;
+		}catch(TAPException te){
+			permits.release();
+			throw te;
+		}catch(RuntimeException re){
+			permits.release();
+			throw re;
+		}
+	}
+
+	/**
+	 * <p>Give back the given connection to this pool.</p>
+	 * 
+	 * <p>
+	 * 	Any pending transaction is rolled back and the auto-commit and read-only modes are restored.
+	 * 	If it fails, the connection is closed and discarded.
+	 * </p>
+	 * 
+	 * @see tap.TAPFactory#freeConnection(tap.db.DBConnection)
+	 */
+	@Override
+	public void freeConnection(final DBConnection conn){
+		if (conn == null)
+			return;
+
+		Borrowing b;
+		synchronized(this){
+			b = borrowed.remove(conn);
+		}
+		if (b == null){
+			log(LogLevel.WARNING, "FREE_CONNECTION", "Attempt to free a connection (ID: " + conn.getID() + ") which does not belong to this pool or which has already been freed!", null);
+			return;
+		}
+
+		try{
+			boolean reusable = !destroyed && reset(b.connection);
+			synchronized(this){
+				if (reusable && !destroyed)
+					idle.push(b.connection);
+				else{
+					closeQuietly(b.connection);
+					if (!destroyed)
+						nbDiscarded++;
+				}
+			}
+		}finally{
+			permits.release();
+		}
+	}
+
+	/**
+	 * <p>Count the number of connections which can be borrowed without waiting.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Idle connections, as well as connections which can still be opened, are counted.
+	 * </i></p>
+	 * 
+	 * @see tap.TAPFactory#countFreeConnections()
+	 */
+	@Override
+	public int countFreeConnections(){
+		return destroyed ? 0 : permits.availablePermits();
+	}
+
+	/**
+	 * Drop the cached uploaded tables (see {@link AbstractTAPFactory#destroy()}), stop the leak detection
+	 * and close all the connections of this pool (even those still in use).
+	 * 
+	 * @see tap.TAPFactory#destroy()
+	 */
+	@Override
+	public void destroy(){
+		synchronized(this){
+			if (destroyed)
+				return;
+		}
+		super.destroy();
+
+		List<Connection> toClose = new ArrayList<Connection>();
+		synchronized(this){
+			if (destroyed)
+				return;
+			destroyed = true;
+			if (leakDetector != null){
+				leakDetector.cancel();
+				leakDetector = null;
+			}
+			toClose.addAll(idle);
+			idle.clear();
+			for(Borrowing b : borrowed.values())
+				toClose.add(b.connection);
+			borrowed.clear();
+		}
+		for(Connection conn : toClose)
+			closeQuietly(conn);
+	}
+
+	/**
+	 * Open a new SQL connection to the database.
+	 * 
+	 * @return	The new connection.
+	 * 
+	 * @throws DBException	If the connection can not be opened.
+	 */
+	protected Connection openConnection() throws DBException{
+		Connection conn = JDBCConnection.createConnection(driverPath, dbUrl, dbUser, dbPassword);
+		synchronized(this){
+			nbCreated++;
+		}
+		return conn;
+	}
+
+	/**
+	 * <p>Tell whether the given connection can still be used.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the JDBC driver does not implement {@link Connection#isValid(int)} (or declares invalid a just opened connection),
+	 * 	only {@link Connection#isClosed()} is checked.
+	 * </i></p>
+	 * 
+	 * @param conn	The connection to validate.
+	 * 
+	 * @return	<i>true</i> if the connection is valid, <i>false</i> otherwise.
+	 */
+	protected boolean isValid(final Connection conn){
+		try{
+			if (validationTimeout <= 0 || !supportsIsValid)
+				return !conn.isClosed();
+			try{
+				return conn.isValid(validationTimeout);
+			}catch(AbstractMethodError ame){
+				// isValid(int) not implemented by the driver:
+				supportsIsValid = false;
+				return !conn.isClosed();
+			}catch(SQLException se){
+				// isValid(int) not supported by the driver:
+				supportsIsValid = false;
+				return !conn.isClosed();
+			}
+		}catch(SQLException se){
+			return false;
+		}
+	}
+
+	/**
+	 * Prepare the given connection for a next use: any pending transaction is rolled back and the auto-commit and read-only modes are restored.
+	 * 
+	 * @param conn	The connection to reset.
+	 * 
+	 * @return	<i>true</i> if the connection can be used again, <i>false</i> otherwise.
+	 */
+	protected boolean reset(final Connection conn){
+		try{
+			if (conn.isClosed())
+				return false;
+			if (!conn.getAutoCommit()){
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+			if (conn.isReadOnly())
+				conn.setReadOnly(false);
+			conn.clearWarnings();
+			return true;
+		}catch(SQLException se){
+			log(LogLevel.WARNING, "FREE_CONNECTION", "Impossible to reset a freed connection! It will be closed and discarded.", se);
+			return false;
+		}
+	}
+
+	/**
+	 * Close the given connection, ignoring any error.
+	 * 
+	 * @param conn	The connection to close.
+	 */
+	private final void closeQuietly(final Connection conn){
+		try{
+			conn.close();
+		}catch(SQLException se){}
+	}
+
+	/**
+	 * Log the given message and/or error, if a logger is available.
+	 */
+	private final void log(final LogLevel level, final String event, final String message, final Throwable error){
+		TAPLog logger = service.getLogger();
+		if (logger != null)
+			logger.logTAP(level, this, event, message, error);
+	}
+
+	/* ************** */
+	/* POOL SETTINGS  */
+	/* ************** */
+
+	/**
+	 * Get the time to wait for a free connection.
+	 * 
+	 * @return	Wait timeout (in milliseconds).
+	 */
+	public final long getWaitTimeout(){
+		return waitTimeout;
+	}
+
+	/**
+	 * Set the time to wait for a free connection.
+	 * 
+	 * @param timeout	Wait timeout (in milliseconds). <i>note: if negative, 0 will be set ; the borrowing will then fail immediately if no connection is free.</i>
+	 */
+	public final void setWaitTimeout(final long timeout){
+		waitTimeout = Math.max(0, timeout);
+	}
+
+	/**
+	 * Get the time given to a connection to answer to its validation.
+	 * 
+	 * @return	Validation timeout (in seconds). <i>note: if negative or null, connections are not validated on borrow.</i>
+	 */
+	public final int getValidationTimeout(){
+		return validationTimeout;
+	}
+
+	/**
+	 * Set the time given to a connection to answer to its validation.
+	 * 
+	 * @param timeout	Validation timeout (in seconds). <i>note: if negative or null, connections will be just checked to be still open.</i>
+	 */
+	public final void setValidationTimeout(final int timeout){
+		validationTimeout = timeout;
+	}
+
+	/**
+	 * Get the time after which a connection not freed is considered as leaked.
+	 * 
+	 * @return	Leak timeout (in milliseconds). <i>note: if negative or null, no leak detection is done.</i>
+	 */
+	public final long getLeakTimeout(){
+		return leakTimeout;
+	}
+
+	/**
+	 * <p>Set the time after which a connection not freed is considered as leaked.</p>
+	 * 
+	 * <p>
+	 * 	Leaked connections are not closed nor given back to the pool ; they are just reported in the logs
+	 * 	(with the level WARNING and the event "CONNECTION_LEAK"), once per borrowing.
+	 * </p>
+	 * 
+	 * @param timeout	Leak timeout (in milliseconds). <i>note: if negative or null, the leak detection is disabled.</i>
+	 */
+	public final synchronized void setLeakTimeout(final long timeout){
+		leakTimeout = timeout;
+		if (leakDetector != null){
+			leakDetector.cancel();
+			leakDetector = null;
+		}
+		if (timeout > 0 && !destroyed){
+			long period = Math.max(1000, Math.min(timeout / 2, 60000));
+			leakDetector = new Timer("TAP connection pool leak detector", true);
+			leakDetector.schedule(new LeakDetection(), period, period);
+		}
+	}
+
+	/**
+	 * Get the features of the DBMS, shared by all connections of this pool.
+	 * 
+	 * @return	The DBMS features.
+	 */
+	public final DBMSFeatures getDBMSFeatures(){
+		return features;
+	}
+
+	/**
+	 * Get the minimum number of connections kept open.
+	 * 
+	 * @return	Minimum pool size.
+	 */
+	public final int getMinSize(){
+		return minSize;
+	}
+
+	/**
+	 * Get the maximum number of connections opened at the same time.
+	 * 
+	 * @return	Maximum pool size.
+	 */
+	public final int getMaxSize(){
+		return maxSize;
+	}
+
+	/* ************ */
+	/* POOL METRICS */
+	/* ************ */
+
+	/**
+	 * Get the number of connections currently in use.
+	 * 
+	 * @return	Number of borrowed connections.
+	 */
+	public final synchronized int getActiveCount(){
+		return borrowed.size();
+	}
+
+	/**
+	 * Get the number of connections opened but not currently in use.
+	 * 
+	 * @return	Number of idle connections.
+	 */
+	public final synchronized int getIdleCount(){
+		return idle.size();
+	}
+
+	/**
+	 * Get the (estimated) number of threads currently waiting for a free connection.
+	 * 
+	 * @return	Number of waiting threads.
+	 */
+	public final int getWaitingCount(){
+		return permits.getQueueLength();
+	}
+
+	/**
+	 * Get the maximum number of connections used at the same time since the creation of this pool.
+	 * 
+	 * @return	Peak of borrowed connections.
+	 */
+	public final synchronized int getPeakActiveCount(){
+		return peakActive;
+	}
+
+	/**
+	 * Get the number of connections successfully borrowed since the creation of this pool.
+	 * 
+	 * @return	Number of borrowings.
+	 */
+	public final synchronized long getBorrowCount(){
+		return nbBorrows;
+	}
+
+	/**
+	 * Get the number of borrowings which failed because no connection was freed before the wait timeout.
+	 * 
+	 * @return	Number of wait timeouts.
+	 */
+	public final synchronized long getWaitTimeoutCount(){
+		return nbWaitTimeouts;
+	}
+
+	/**
+	 * Get the number of SQL connections opened since the creation of this pool.
+	 * 
+	 * @return	Number of created connections.
+	 */
+	public final synchronized long getCreatedCount(){
+		return nbCreated;
+	}
+
+	/**
+	 * Get the number of SQL connections closed because invalid or impossible to reset.
+	 * 
+	 * @return	Number of discarded connections.
+	 */
+	public final synchronized long getDiscardedCount(){
+		return nbDiscarded;
+	}
+
+	/**
+	 * Get the saturation of this pool: the ratio between the number of connections in use and the maximum pool size.
+	 * 
+	 * @return	A value between 0 (no connection in use) and 1 (all connections in use).
+	 */
+	public final synchronized double getSaturation(){
+		return borrowed.size() / (double)maxSize;
+	}
+
+	/**
+	 * Description of a borrowed connection.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 */
+	private final static class Borrowing {
+		/** The borrowed SQL connection. */
+		final Connection connection;
+		/** ID of the job which has borrowed the connection. */
+		final String jobID;
+		/** Time (in milliseconds) at which the connection has been borrowed. */
+		final long since = System.currentTimeMillis();
+		/** Indicate whether this borrowing has already been reported as a leak. */
+		boolean reported = false;
+
+		Borrowing(final Connection conn, final String jobID){
+			this.connection = conn;
+			this.jobID = jobID;
+		}
+	}
+
+	/**
+	 * Task reporting in the logs all connections held for longer than the leak timeout.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 */
+	private final class LeakDetection extends TimerTask {
+		@Override
+		public void run(){
+			List<String> leaks = new ArrayList<String>();
+			synchronized(PooledJDBCTAPFactory.this){
+				long now = System.currentTimeMillis();
+				for(Borrowing b : borrowed.values()){
+					if (!b.reported && leakTimeout > 0 && now - b.since > leakTimeout){
+						b.reported = true;
+						leaks.add("The database connection borrowed by the job \"" + b.jobID + "\" has not been freed since " + ((now - b.since) / 1000) + "s! It may be leaked.");
+					}
+				}
+			}
+			for(String msg : leaks)
+				log(LogLevel.WARNING, "CONNECTION_LEAK", msg, null);
+		}
+	}
+
+}
@@ -0,0 +1,332 @@
+package tap;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.io.StringReader;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPSchema;
+import tap.metadata.TAPTable;
+import adql.parser.ADQLParserConstants;
+import adql.parser.ADQLParserTokenManager;
+import adql.parser.SimpleCharStream;
+import adql.parser.Token;
+import adql.parser.TokenMgrError;
+import adql.query.ADQLQuery;
+
+/**
+ * <p>Cache of the ADQL queries already parsed and checked, and of their SQL translation.</p>
+ * 
+ * <p>
+ * 	Portals and scripts send many times exactly the same ADQL query. Thanks to this cache, such query is parsed, checked
+ * 	and translated only once. A query is identified by a key (see {@link #getKey(String, TAPSchema, Integer)}) built from:
+ * </p>
+ * <ul>
+ * 	<li>the normalized ADQL query (see {@link #normalize(String)}),</li>
+ * 	<li>the description of the uploaded tables (ADQL and DB names, columns and their type),</li>
+ * 	<li>and MAXREC, since the row limit of the query is adjusted in function of it (see {@link ADQLExecutor#parseADQL()}).</li>
+ * </ul>
+ * 
+ * <p><i>Note:
+ * 	The DB name of an uploaded table is unique to the job which has loaded it, unless this table is shared through the
+ * 	{@link tap.upload.UploadCache}. That's why {@link ADQLExecutor} caches a query using uploaded tables only if all of them are
+ * 	in the upload cache: any other such query would never be found again.
+ * </i></p>
+ * 
+ * <p>
+ * 	When full, the least recently used query is removed. The whole cache must be cleared when the TAP metadata change
+ * 	(see {@link #clear()}): {@link AbstractTAPFactory} does it automatically.
+ * </p>
+ * 
+ * <p><i><b>Warning:</b>
+ * 	The cached {@link ADQLQuery} objects are shared by all jobs running the same query. So, they must not be modified.
+ * 	Besides, the SQL translation is cached without any information about the translator: all database connections
+ * 	using this cache must use the same translator.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public class QueryCache {
+
+	/** Default maximum number of cached queries: 1000. */
+	public final static int DEFAULT_MAX_SIZE = 1000;
+
+	/** Maximum number of cached queries. */
+	protected int maxSize;
+
+	/** All cached queries, from the least to the most recently used one. */
+	private final LinkedHashMap<String,Entry> entries;
+
+	/** Index of the cached queries by {@link ADQLQuery} instance, used to retrieve their SQL translation. */
+	private final Map<ADQLQuery,Entry> queries = new IdentityHashMap<ADQLQuery,Entry>();
+
+	/** Number of queries found in this cache. */
+	private long nbHits = 0;
+
+	/** Number of queries not found in this cache. */
+	private long nbMisses = 0;
+
+	/**
+	 * Build a query cache of {@link #DEFAULT_MAX_SIZE} queries.
+	 */
+	public QueryCache(){
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Build a query cache.
+	 * 
+	 * @param maxSize	Maximum number of cached queries. <i>note: if less than 1, 1 will be set.</i>
+	 */
+	public QueryCache(final int maxSize){
+		this.maxSize = Math.max(1, maxSize);
+		entries = new LinkedHashMap<String,Entry>(16, 0.75f, true);
+	}
+
+	/**
+	 * Get the maximum number of cached queries.
+	 * 
+	 * @return	Maximum number of cached queries.
+	 */
+	public final synchronized int getMaxSize(){
+		return maxSize;
+	}
+
+	/**
+	 * Set the maximum number of cached queries. The least recently used queries are removed if there are too many.
+	 * 
+	 * @param maxSize	Maximum number of cached queries. <i>note: if less than 1, 1 will be set.</i>
+	 */
+	public final synchronized void setMaxSize(final int maxSize){
+		this.maxSize = Math.max(1, maxSize);
+		evict();
+	}
+
+	/**
+	 * Get the number of cached queries.
+	 * 
+	 * @return	Number of cached queries.
+	 */
+	public final synchronized int getSize(){
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of queries found in this cache (see {@link #get(String)}).
+	 * 
+	 * @return	Number of hits.
+	 */
+	public final synchronized long getNbHits(){
+		return nbHits;
+	}
+
+	/**
+	 * Get the number of queries not found in this cache (see {@link #get(String)}).
+	 * 
+	 * @return	Number of misses.
+	 */
+	public final synchronized long getNbMisses(){
+		return nbMisses;
+	}
+
+	/**
+	 * <p>Build the key of the given query.</p>
+	 * 
+	 * @param adql			The ADQL query, as provided by the user.
+	 * @param uploadSchema	The schema of the tables uploaded by the user. <i>MAY be NULL</i>
+	 * @param maxRec		The MAXREC parameter. <i>MAY be NULL</i>
+	 * 
+	 * @return	The key of the given query, or NULL if the query can not be normalized (i.e. lexical error ; the query can not be cached).
+	 * 
+	 * @see #normalize(String)
+	 */
+	public String getKey(final String adql, final TAPSchema uploadSchema, final Integer maxRec){
+		String normalized = normalize(adql);
+		if (normalized == null)
+			return null;
+
+		StringBuffer key = new StringBuffer(normalized);
+
+		// Description of the uploaded tables:
+		if (uploadSchema != null){
+			for(TAPTable table : uploadSchema){
+				key.append('\n').append(table.getADQLName()).append('=').append(table.getDBName()).append('(');
+				Iterator<TAPColumn> itCols = table.getColumns();
+				while(itCols.hasNext()){
+					TAPColumn col = itCols.next();
+					key.append(col.getADQLName()).append('=').append(col.getDBName()).append(' ').append(col.getDatatype()).append(',');
+				}
+				key.append(')');
+			}
+		}
+
+		// MAXREC:
+		key.append("\nMAXREC=").append(maxRec);
+
+		return key.toString();
+	}
+
+	/**
+	 * <p>Normalize the given ADQL query, so that a same query written in several ways has only one key.</p>
+	 * 
+	 * <p>
+	 * 	The query is split in tokens by the lexer of the ADQL parser. Comments are removed, all tokens are separated by exactly one space
+	 * 	and all reserved words (e.g. SELECT, TOP, CONTAINS, ABS) are written in upper case. Identifiers and string constants are kept
+	 * 	as written, since their case may be significant.
+	 * </p>
+	 * 
+	 * @param adql	The ADQL query to normalize.
+	 * 
+	 * @return	The normalized query, or NULL if the given query is NULL or contains a lexical error.
+	 */
+	public static String normalize(final String adql){
+		if (adql == null)
+			return null;
+
+		StringBuffer buf = new StringBuffer(adql.length());
+		try{
+			ADQLParserTokenManager lexer = new ADQLParserTokenManager(new SimpleCharStream(new StringReader(adql)));
+			Token t = lexer.getNextToken();
+			while(t.kind != ADQLParserConstants.EOF && t.kind != ADQLParserConstants.EOQ){
+				if (buf.length() > 0)
+					buf.append(' ');
+				if (t.kind >= ADQLParserConstants.SELECT && t.kind <= ADQLParserConstants.TAN)
+					buf.append(t.image.toUpperCase());
+				else
+					buf.append(t.image);
+				t = lexer.getNextToken();
+			}
+		}catch(TokenMgrError tme){
+			return null;
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * Get the parsed and checked query corresponding to the given key.
+	 * 
+	 * @param key	Key of the query (see {@link #getKey(String, TAPSchema, Integer)}). <i>MAY be NULL</i>
+	 * 
+	 * @return	The cached query (<i>which must not be modified</i>), or NULL if not in this cache.
+	 */
+	public synchronized ADQLQuery get(final String key){
+		Entry entry = (key == null) ? null : entries.get(key);
+		if (entry == null){
+			nbMisses++;
+			return null;
+		}else{
+			nbHits++;
+			return entry.query;
+		}
+	}
+
+	/**
+	 * Add a parsed and checked query in this cache. The least recently used query is removed if the cache is full.
+	 * 
+	 * @param key	Key of the query (see {@link #getKey(String, TAPSchema, Integer)}). <i>If NULL, nothing is done.</i>
+	 * @param query	The query to cache. <i>It must not be modified afterwards. If NULL, nothing is done.</i>
+	 */
+	public synchronized void put(final String key, final ADQLQuery query){
+		if (key == null || query == null)
+			return;
+
+		Entry entry = new Entry(query);
+		Entry old = entries.put(key, entry);
+		if (old != null)
+			queries.remove(old.query);
+		queries.put(query, entry);
+		evict();
+	}
+
+	/**
+	 * Get the SQL translation of the given cached query.
+	 * 
+	 * @param query	A query got from this cache.
+	 * 
+	 * @return	Its SQL translation, or NULL if the given query is not in this cache or has not yet been translated.
+	 */
+	public synchronized String getSQL(final ADQLQuery query){
+		Entry entry = queries.get(query);
+		return (entry == null) ? null : entry.sql;
+	}
+
+	/**
+	 * Set the SQL translation of the given cached query. If this query is not in this cache, nothing is done.
+	 * 
+	 * @param query	A query got from this cache.
+	 * @param sql	Its SQL translation.
+	 */
+	public synchronized void putSQL(final ADQLQuery query, final String sql){
+		Entry entry = queries.get(query);
+		if (entry != null)
+			entry.sql = sql;
+	}
+
+	/**
+	 * <p>Remove all cached queries.</p>
+	 * 
+	 * <p>This function must be called each time the TAP metadata change ({@link AbstractTAPFactory} does it automatically).</p>
+	 */
+	public synchronized void clear(){
+		entries.clear();
+		queries.clear();
+	}
+
+	/**
+	 * Remove the least recently used queries until there are not more than {@link #getMaxSize()} queries.
+	 */
+	private void evict(){
+		Iterator<Entry> it = entries.values().iterator();
+		while(entries.size() > maxSize && it.hasNext()){
+			queries.remove(it.next().query);
+			it.remove();
+		}
+	}
+
+	/**
+	 * A cached query.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	protected static final class Entry {
+		/** The parsed and checked query. */
+		public final ADQLQuery query;
+		/** Its SQL translation. <i>NULL until the first execution.</i> */
+		public String sql = null;
+
+		/**
+		 * Build a cache entry.
+		 * 
+		 * @param query	The parsed and checked query.
+		 */
+		public Entry(final ADQLQuery query){
+			this.query = query;
+		}
+	}
+
+}
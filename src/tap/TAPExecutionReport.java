@@ -50,6 +50,10 @@ public class TAPExecutionReport {
 	/** Duration of all execution steps. <i>For the moment only 4 steps (in the order): uploading, parsing, executing and writing.</i> */
 	protected final long[] durations = new long[]{-1,-1,-1,-1};
 
+	/** Number of uploaded rows already loaded in the database. <i>It is updated while uploading, so it can be read to follow the upload progression.</i>
+	 * @since 2.0 */
+	public volatile long nbUploadedRows = 0;
+
 	/** Total duration of the job execution. */
 	protected long totalDuration = -1;
 
@@ -29,6 +29,7 @@ import javax.servlet.http.HttpServletResponse;
 import tap.db.DBConnection;
 import tap.metadata.TAPSchema;
 import tap.parameters.TAPParameters;
+import tap.upload.UploadCache;
 import tap.upload.Uploader;
 import uws.UWSException;
 import uws.job.ErrorSummary;
@@ -41,6 +42,7 @@ import uws.service.AbstractUWSFactory;
 import uws.service.UWSService;
 import uws.service.backup.UWSBackupManager;
 import uws.service.error.ServiceErrorWriter;
+import adql.parser.ADQLParser;
 import adql.parser.ADQLQueryFactory;
 import adql.parser.QueryChecker;
 import adql.query.ADQLQuery;
@@ -58,6 +60,13 @@ import adql.query.ADQLQuery;
  * 	<li>how to check ADQL queries? <i>({@link QueryChecker})</i></li>
  * </ul>
  * 
+ * <p><i><b>Warning:</b>
+ * 	An implementation may index the published tables and cache the checked queries (see {@link #getQueryCache()}),
+ * 	as {@link AbstractTAPFactory} does. The factory must then be aware of any modification of the TAP metadata
+ * 	(see {@link ServiceConnection#getTAPMetadata()}). {@link AbstractTAPFactory} detects automatically their replacement
+ * 	by another object and their modification (see {@link tap.metadata.TAPMetadata#getModificationCount()}).
+ * </i></p>
+ * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
  * @version 2.0 (09/2014)
  */
@@ -164,6 +173,64 @@ public abstract class TAPFactory extends AbstractUWSFactory {
 	 */
 	public abstract int countFreeConnections();
 
+	/**
+	 * <p>Free all the resources (i.e. database connections) used by this factory.</p>
+	 * 
+	 * <p>This function is called by the library just once: when the TAP service is destroyed (see {@link tap.resource.TAP#destroy()}).</p>
+	 * 
+	 * <p><i>Note:
+	 * 	By default, this function does nothing. It should be overwritten if this factory manages a pool of connections.
+	 * </i></p>
+	 * 
+	 * @since 2.0
+	 */
+	public void destroy(){}
+
+	/**
+	 * <p>Get the cache of the uploaded tables shared by all jobs, if any.</p>
+	 * 
+	 * <p>
+	 * 	It is used at the end of each job execution: the uploaded tables managed by this cache are released
+	 * 	(see {@link UploadCache#release(tap.metadata.TAPTable, DBConnection)}) instead of being dropped.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	By default, there is no upload cache: NULL is returned.
+	 * </i></p>
+	 * 
+	 * @return	The upload cache, or NULL if uploaded tables are not cached.
+	 * 
+	 * @since 2.0
+	 */
+	public UploadCache getUploadCache(){
+		return null;
+	}
+
+	/**
+	 * <p>Get the cache of the ADQL queries already parsed, checked and translated, if any.</p>
+	 * 
+	 * <p>
+	 * 	It is used by {@link ADQLExecutor#parseADQL()} to avoid parsing and checking again a query already run,
+	 * 	and possibly by the database connection to avoid translating it again.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	By default, there is no query cache: NULL is returned.
+	 * </i></p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	The cached queries have been checked against the TAP metadata. So, the cache must be cleared whenever these metadata are modified
+	 * 	({@link AbstractTAPFactory} does it automatically ; see {@link AbstractTAPFactory#refreshPublishedTables()}).
+	 * </i></p>
+	 * 
+	 * @return	The query cache, or NULL if queries are not cached.
+	 * 
+	 * @since 2.0
+	 */
+	public QueryCache getQueryCache(){
+		return null;
+	}
+
 	/* *************** */
 	/* ADQL MANAGEMENT */
 	/* *************** */
@@ -211,6 +278,44 @@ public abstract class TAPFactory extends AbstractUWSFactory {
 	 */
 	public abstract QueryChecker createQueryChecker(final TAPSchema uploadSchema) throws TAPException;
 
+	/**
+	 * <p>Get an ADQL parser ready to parse the query of a job.</p>
+	 * 
+	 * <p>
+	 * 	Its query checker is created by {@link #createQueryChecker(TAPSchema)} with the given upload schema,
+	 * 	and its query factory by {@link #createQueryFactory()}. Once the query parsed, the parser must be given back
+	 * 	to this factory with {@link #freeADQLParser(ADQLParser)}.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	By default, a new parser is created each time. {@link AbstractTAPFactory} reuses the freed parsers.
+	 * </i></p>
+	 * 
+	 * @param uploadSchema	ADQL schema containing the description of all uploaded tables.
+	 * 
+	 * @return	An ADQL parser.
+	 * 
+	 * @throws TAPException	If any error occurs while creating the query checker or the query factory.
+	 * 
+	 * @since 2.0
+	 */
+	public ADQLParser getADQLParser(final TAPSchema uploadSchema) throws TAPException{
+		return new ADQLParser(createQueryChecker(uploadSchema), createQueryFactory());
+	}
+
+	/**
+	 * <p>Give back an ADQL parser got with {@link #getADQLParser(TAPSchema)}. It must not be used anymore by the caller.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	By default, this function does nothing.
+	 * </i></p>
+	 * 
+	 * @param parser	The parser to free.
+	 * 
+	 * @since 2.0
+	 */
+	public void freeADQLParser(final ADQLParser parser){}
+
 	/* ****** */
 	/* UPLOAD */
 	/* ****** */
@@ -309,7 +414,7 @@ public abstract class TAPFactory extends AbstractUWSFactory {
 	 * 	This implementation just call {@link #createTAPJob(String, JobOwner, TAPParameters, long, long, long, List, ErrorSummary)}
 	 * 	with the given parameters, in order to ensure that the returned object is always a {@link TAPJob}.
 	 * </p>
-	 *
+	 * 
 	 * <p><i>Note 1:
 	 * 	This function is mainly used to restore a UWS job at the UWS initialization.
 	 * </i></p>
@@ -443,7 +548,7 @@ public abstract class TAPFactory extends AbstractUWSFactory {
 	 * @param params	Map containing all parameters.
 	 * 
 	 * @return	An object gathering all successfully identified TAP parameters.
-	 *
+	 * 
 	 * @throws TAPException	If any error occurs while creating the {@link TAPParameters} object.
 	 */
 	public abstract TAPParameters createTAPParameters(final Map<String,Object> params) throws TAPException;
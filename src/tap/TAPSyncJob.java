@@ -323,6 +323,22 @@ public class TAPSyncJob {
 			return report;
 		}
 
+		/**
+		 * <p>Interrupt this thread and cancel the query the executor may be running in the database.</p>
+		 * 
+		 * <p>
+		 * 	Interrupting the thread is not enough to stop a query running in the database. That's why {@link ADQLExecutor#cancelQuery()}
+		 * 	is also called, so that the database resources are released as soon as possible after a time-out.
+		 * </p>
+		 * 
+		 * @see ADQLExecutor#cancelQuery()
+		 */
+		@Override
+		public void interrupt(){
+			super.interrupt();
+			executor.cancelQuery();
+		}
+
 		@Override
 		public void run(){
 			// Log the start of this thread:
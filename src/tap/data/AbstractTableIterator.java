@@ -0,0 +1,232 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.NoSuchElementException;
+
+import uws.ISO8601Format;
+
+/**
+ * <p>Default implementation of the typed accessors of a {@link TableIterator}.</p>
+ * 
+ * <p>
+ * 	Each typed accessor reads the next column with {@link #nextCol()} and converts the returned object into the asked primitive type
+ * 	(see {@link #toLong(Object)}, {@link #toDouble(Object)}, {@link #toBoolean(Object)} and {@link #toTimestamp(Object)}).
+ * 	An iterator able to read directly primitive values (e.g. from a {@link java.sql.ResultSet}) should overwrite them.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	{@link #nextCol()} must set {@link #lastNull} so that {@link #wasNull()} is also correct after a call to {@link #nextCol()}.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public abstract class AbstractTableIterator implements TableIterator {
+
+	/** Indicate whether the last read column value was NULL. */
+	protected boolean lastNull = false;
+
+	@Override
+	public int nextInt() throws NoSuchElementException, IllegalStateException, DataReadException{
+		long value = nextLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw new DataReadException("Integer overflow: the value " + value + " of the " + getColumnLabel() + " can not be read as an integer!");
+		return (int)value;
+	}
+
+	@Override
+	public long nextLong() throws NoSuchElementException, IllegalStateException, DataReadException{
+		Object value = nextCol();
+		try{
+			return (value == null) ? 0 : toLong(value);
+		}catch(DataReadException dre){
+			throw new DataReadException(dre.getMessage() + " (" + getColumnLabel() + ")", dre.getCause());
+		}
+	}
+
+	@Override
+	public double nextDouble() throws NoSuchElementException, IllegalStateException, DataReadException{
+		Object value = nextCol();
+		try{
+			return (value == null) ? 0 : toDouble(value);
+		}catch(DataReadException dre){
+			throw new DataReadException(dre.getMessage() + " (" + getColumnLabel() + ")", dre.getCause());
+		}
+	}
+
+	@Override
+	public boolean nextBoolean() throws NoSuchElementException, IllegalStateException, DataReadException{
+		Object value = nextCol();
+		try{
+			return (value == null) ? false : toBoolean(value);
+		}catch(DataReadException dre){
+			throw new DataReadException(dre.getMessage() + " (" + getColumnLabel() + ")", dre.getCause());
+		}
+	}
+
+	@Override
+	public long nextTimestamp() throws NoSuchElementException, IllegalStateException, DataReadException{
+		Object value = nextCol();
+		try{
+			return (value == null) ? 0 : toTimestamp(value);
+		}catch(DataReadException dre){
+			throw new DataReadException(dre.getMessage() + " (" + getColumnLabel() + ")", dre.getCause());
+		}
+	}
+
+	@Override
+	public boolean wasNull() throws IllegalStateException{
+		if (getColIndex() <= 0)
+			throw new IllegalStateException("No column has yet been read!");
+		return lastNull;
+	}
+
+	/**
+	 * Get a label identifying the last read column, for the error messages.
+	 * 
+	 * @return	Label of the last read column (e.g. "column "ra"").
+	 */
+	protected final String getColumnLabel(){
+		try{
+			int index = getColIndex();
+			if (getMetadata() != null && index > 0 && index <= getMetadata().length && getMetadata()[index - 1] != null)
+				return "column \"" + getMetadata()[index - 1].getADQLName() + "\"";
+			else
+				return index + "-th column";
+		}catch(Exception ex){
+			return "last read column";
+		}
+	}
+
+	/**
+	 * Get the index (starting from 1) of the last read column.
+	 * 
+	 * @return	Index of the last read column, or 0 if no column has been read in the current row.
+	 */
+	protected abstract int getColIndex();
+
+	/**
+	 * Convert a column value into a long integer.
+	 * 
+	 * @param value	A column value (not NULL).
+	 * 
+	 * @return	The value as a long.
+	 * 
+	 * @throws DataReadException	If the value is not an integer number (a floating number without decimal part is accepted), a boolean or a string representing one of them.
+	 */
+	protected static long toLong(final Object value) throws DataReadException{
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+			return ((Number)value).longValue();
+		else if (value instanceof Number){
+			double d = ((Number)value).doubleValue();
+			if (d != Math.rint(d) || Double.isInfinite(d))
+				throw new DataReadException("Incorrect integer value: " + value + "!");
+			return (long)d;
+		}else if (value instanceof Boolean)
+			return ((Boolean)value) ? 1 : 0;
+		else if (value instanceof String){
+			try{
+				return Long.parseLong(((String)value).trim());
+			}catch(NumberFormatException nfe){
+				throw new DataReadException("Incorrect integer value: \"" + value + "\"!", nfe);
+			}
+		}else
+			throw new DataReadException("Impossible to read a " + value.getClass().getSimpleName() + " value as an integer!");
+	}
+
+	/**
+	 * Convert a column value into a double.
+	 * 
+	 * @param value	A column value (not NULL).
+	 * 
+	 * @return	The value as a double.
+	 * 
+	 * @throws DataReadException	If the value is not a number, a boolean or a string representing one of them.
+	 */
+	protected static double toDouble(final Object value) throws DataReadException{
+		if (value instanceof Number)
+			return ((Number)value).doubleValue();
+		else if (value instanceof Boolean)
+			return ((Boolean)value) ? 1 : 0;
+		else if (value instanceof String){
+			try{
+				return Double.parseDouble(((String)value).trim());
+			}catch(NumberFormatException nfe){
+				throw new DataReadException("Incorrect numeric value: \"" + value + "\"!", nfe);
+			}
+		}else
+			throw new DataReadException("Impossible to read a " + value.getClass().getSimpleName() + " value as a double!");
+	}
+
+	/**
+	 * Convert a column value into a boolean.
+	 * 
+	 * @param value	A column value (not NULL).
+	 * 
+	 * @return	The value as a boolean: <i>true</i> for any non-zero number and for the strings "true", "t" and "1" (case insensitive).
+	 * 
+	 * @throws DataReadException	If the value is not a boolean, a number or a string representing one of them.
+	 */
+	protected static boolean toBoolean(final Object value) throws DataReadException{
+		if (value instanceof Boolean)
+			return (Boolean)value;
+		else if (value instanceof Number)
+			return ((Number)value).doubleValue() != 0;
+		else if (value instanceof String){
+			String str = ((String)value).trim().toLowerCase();
+			if (str.equals("true") || str.equals("t") || str.equals("1"))
+				return true;
+			else if (str.equals("false") || str.equals("f") || str.equals("0"))
+				return false;
+			else
+				throw new DataReadException("Incorrect boolean value: \"" + value + "\"!");
+		}else
+			throw new DataReadException("Impossible to read a " + value.getClass().getSimpleName() + " value as a boolean!");
+	}
+
+	/**
+	 * Convert a column value into a timestamp.
+	 * 
+	 * @param value	A column value (not NULL).
+	 * 
+	 * @return	The number of milliseconds since January 1, 1970, 00:00:00 GMT.
+	 * 
+	 * @throws DataReadException	If the value is not a date, a number of milliseconds or an ISO8601 string.
+	 */
+	protected static long toTimestamp(final Object value) throws DataReadException{
+		if (value instanceof Date)
+			return ((Date)value).getTime();
+		else if (value instanceof Number)
+			return toLong(value);
+		else if (value instanceof String){
+			try{
+				return ISO8601Format.parse(((String)value).trim());
+			}catch(ParseException pe){
+				throw new DataReadException("Incorrect ISO8601 date: \"" + value + "\"!", pe);
+			}
+		}else
+			throw new DataReadException("Impossible to read a " + value.getClass().getSimpleName() + " value as a timestamp!");
+	}
+
+}
@@ -0,0 +1,100 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import tap.metadata.TAPColumn;
+
+/**
+ * <p>Let's iterate over a table dataset by blocks of rows, stored column by column in a {@link ColumnBatch}.</p>
+ * 
+ * <p>
+ * 	Contrary to {@link TableIterator}, which reads one value at a time, this iterator fills a whole block of rows with one call.
+ * 	Then, the reader can process each column of the block in a tight loop over primitive arrays.
+ * </p>
+ * 
+ * <p>Example of an expected usage:</p>
+ * <pre>
+ * 	BatchTableIterator it = ...;
+ * 	try{
+ * 		ColumnBatch batch = new ColumnBatch(it.getMetadata(), 1024);
+ * 		while(it.nextBatch(batch) &gt; 0){
+ * 			for(int c = 0; c &lt; batch.getNbColumns(); c++){
+ * 				...
+ * 			}
+ * 		}
+ * 	}catch(DataReadException dre){
+ * 		...
+ * 	}finally{
+ * 		try{
+ * 			it.close();
+ * 		}catch(DataReadException dre){ ... }
+ * 	}
+ * </pre>
+ * 
+ * <p><i>Note:
+ * 	An existing {@link TableIterator} can be read by batches thanks to {@link TableIteratorBatchAdapter},
+ * 	and a {@link BatchTableIterator} can be given to any function expecting a {@link TableIterator} thanks to {@link BatchTableIteratorAdapter}.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ * 
+ * @see ColumnBatch
+ */
+public interface BatchTableIterator {
+
+	/**
+	 * <p>Get the metadata of all columns.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Contrary to {@link TableIterator#getMetadata()}, these metadata are required, because they are needed to create a {@link ColumnBatch}.
+	 * </i></p>
+	 * 
+	 * @return	An array of {@link TAPColumn} objects (each for a column of any row).
+	 */
+	public TAPColumn[] getMetadata();
+
+	/**
+	 * <p>Read the next rows and store them in the given batch.</p>
+	 * 
+	 * <p>
+	 * 	The batch is first emptied. Then, it is filled with as many rows as possible, up to its capacity.
+	 * 	The number of rows stored in the batch is returned (and set in the batch: see {@link ColumnBatch#getSize()}).
+	 * </p>
+	 * 
+	 * @param batch	The batch to fill. It must have been created with the metadata of this iterator.
+	 * 
+	 * @return	The number of rows read, or 0 if the end of the table dataset has been reached.
+	 * 
+	 * @throws NullPointerException		If the given batch is NULL.
+	 * @throws IllegalArgumentException	If the given batch has not the same number of columns as this iterator.
+	 * @throws DataReadException		If an error occurs while reading the table dataset.
+	 */
+	public int nextBatch(final ColumnBatch batch) throws NullPointerException, IllegalArgumentException, DataReadException;
+
+	/**
+	 * Close the stream or input over which this class iterates.
+	 * 
+	 * @throws DataReadException	If any error occurs while closing it.
+	 */
+	public void close() throws DataReadException;
+
+}
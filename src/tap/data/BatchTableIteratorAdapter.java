@@ -0,0 +1,251 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.util.NoSuchElementException;
+
+import tap.data.ColumnBatch.VectorType;
+import tap.metadata.TAPColumn;
+import uws.ISO8601Format;
+import adql.db.DBType;
+
+/**
+ * <p>{@link TableIterator} reading the rows of any {@link BatchTableIterator}.</p>
+ * 
+ * <p>
+ * 	The rows are read by blocks in one {@link ColumnBatch}, reused for the whole iteration. Then, the values are returned one by one.
+ * 	The typed accessors (e.g. {@link #nextDouble()}) read them directly in the primitive vectors when the column type matches.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	As {@link ResultSetTableIterator#nextCol()}, {@link #nextCol()} returns the values of a TIMESTAMP column formatted in ISO8601.
+ * 	{@link #nextTimestamp()} returns the raw time.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ * 
+ * @see TableIteratorBatchAdapter
+ */
+public class BatchTableIteratorAdapter extends AbstractTableIterator {
+
+	/** Default number of rows read at once. */
+	public final static int DEFAULT_BATCH_SIZE = 1024;
+
+	/** The iterator to read row by row. */
+	private final BatchTableIterator innerIt;
+
+	/** Block of rows currently read. */
+	private final ColumnBatch batch;
+
+	/** Number of columns to read. */
+	private final int nbColumns;
+
+	/** Index of the current row in the batch (-1 before the first row). */
+	private int rowIndex = -1;
+
+	/** Indicate whether the row iteration has already started. */
+	private boolean iterationStarted = false;
+	/** Indicate whether the last row has already been reached. */
+	private boolean endReached = false;
+	/** Index of the last read column (=0 just after {@link #nextRow()} and before {@link #nextCol()}, ={@link #nbColumns} after the last column has been read). */
+	private int colIndex;
+
+	/**
+	 * Build a {@link TableIterator} reading the given {@link BatchTableIterator} by blocks of {@link #DEFAULT_BATCH_SIZE} rows.
+	 * 
+	 * @param it	The iterator to read row by row.
+	 * 
+	 * @throws NullPointerException	If NULL is given in parameter.
+	 * 
+	 * @see #BatchTableIteratorAdapter(BatchTableIterator, int)
+	 */
+	public BatchTableIteratorAdapter(final BatchTableIterator it) throws NullPointerException{
+		this(it, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Build a {@link TableIterator} reading the given {@link BatchTableIterator} by blocks of the given number of rows.
+	 * 
+	 * @param it		The iterator to read row by row.
+	 * @param batchSize	Number of rows to read at once.
+	 * 
+	 * @throws NullPointerException		If NULL is given in parameter.
+	 * @throws IllegalArgumentException	If the given batch size is less than 1.
+	 */
+	public BatchTableIteratorAdapter(final BatchTableIterator it, final int batchSize) throws NullPointerException, IllegalArgumentException{
+		if (it == null)
+			throw new NullPointerException("Missing BatchTableIterator to read row by row!");
+		innerIt = it;
+		batch = new ColumnBatch(it.getMetadata(), batchSize);
+		nbColumns = batch.getNbColumns();
+	}
+
+	/**
+	 * Get the wrapped iterator.
+	 * 
+	 * @return	The iterator read row by row.
+	 */
+	public final BatchTableIterator getIterator(){
+		return innerIt;
+	}
+
+	@Override
+	public TAPColumn[] getMetadata(){
+		return batch.getMetadata();
+	}
+
+	@Override
+	public boolean nextRow() throws DataReadException{
+		iterationStarted = true;
+		if (endReached)
+			return false;
+
+		// read the next block of rows, if the current one has been entirely read:
+		if (++rowIndex >= batch.getSize()){
+			rowIndex = 0;
+			endReached = (innerIt.nextBatch(batch) == 0);
+		}
+
+		// prepare the iteration over its columns:
+		colIndex = 0;
+		return !endReached;
+	}
+
+	/**
+	 * <p>Check the row iteration state. That's to say whether:</p>
+	 * <ul>
+	 * 	<li>the row iteration has started = the first row has been read = a first call of {@link #nextRow()} has been done</li>
+	 * 	<li>AND the row iteration is not finished = the last row has been read.</li>
+	 * </ul>
+	 * 
+	 * @throws IllegalStateException
+	 */
+	private void checkReadState() throws IllegalStateException{
+		if (!iterationStarted)
+			throw new IllegalStateException("No row has yet been read!");
+		else if (endReached)
+			throw new IllegalStateException("End of the table already reached!");
+	}
+
+	@Override
+	public boolean hasNextCol() throws IllegalStateException, DataReadException{
+		// Check the read state:
+		checkReadState();
+
+		// Determine whether the last column has been reached or not:
+		return (colIndex < nbColumns);
+	}
+
+	/**
+	 * Go to the next column.
+	 * 
+	 * @return	Index (starting from 0) of the column to read in the batch.
+	 * 
+	 * @throws NoSuchElementException	If no more column value is available.
+	 * @throws IllegalStateException	If {@link #nextRow()} has not yet been called.
+	 * @throws DataReadException	If an error occurs while reading the table dataset.
+	 */
+	private int nextIndex() throws NoSuchElementException, IllegalStateException, DataReadException{
+		if (!hasNextCol())
+			throw new NoSuchElementException("No more column to read!");
+		int col = colIndex++;
+		lastNull = batch.isNull(col, rowIndex);
+		return col;
+	}
+
+	@Override
+	public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int col = nextIndex();
+		if (!lastNull && batch.getType(col) == VectorType.TIMESTAMP)
+			return ISO8601Format.format(batch.getLongs(col)[rowIndex]);
+		else
+			return batch.getValue(col, rowIndex);
+	}
+
+	@Override
+	public long nextLong() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int col = nextIndex();
+		if (lastNull)
+			return 0;
+		else if (batch.getType(col) == VectorType.LONG)
+			return batch.getLongs(col)[rowIndex];
+		else
+			return toLong(batch.getValue(col, rowIndex));
+	}
+
+	@Override
+	public double nextDouble() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int col = nextIndex();
+		if (lastNull)
+			return 0;
+		else if (batch.getType(col) == VectorType.DOUBLE)
+			return batch.getDoubles(col)[rowIndex];
+		else if (batch.getType(col) == VectorType.LONG)
+			return batch.getLongs(col)[rowIndex];
+		else
+			return toDouble(batch.getValue(col, rowIndex));
+	}
+
+	@Override
+	public boolean nextBoolean() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int col = nextIndex();
+		return lastNull ? false : toBoolean(batch.getValue(col, rowIndex));
+	}
+
+	@Override
+	public long nextTimestamp() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int col = nextIndex();
+		if (lastNull)
+			return 0;
+		else if (batch.getType(col) == VectorType.TIMESTAMP)
+			return batch.getLongs(col)[rowIndex];
+		else
+			return toTimestamp(batch.getValue(col, rowIndex));
+	}
+
+	@Override
+	protected int getColIndex(){
+		return colIndex;
+	}
+
+	@Override
+	public DBType getColType() throws IllegalStateException, DataReadException{
+		// Basically check the read state (for rows iteration):
+		checkReadState();
+
+		// Check deeper the read state (for columns iteration):
+		if (colIndex <= 0)
+			throw new IllegalStateException("No column has yet been read!");
+		else if (colIndex > nbColumns)
+			throw new IllegalStateException("All columns have already been read!");
+
+		// Return the column type:
+		TAPColumn col = batch.getMetadata()[colIndex - 1];
+		return (col == null) ? null : col.getDatatype();
+	}
+
+	@Override
+	public void close() throws DataReadException{
+		innerIt.close();
+	}
+
+}
@@ -0,0 +1,386 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import tap.metadata.TAPColumn;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+
+/**
+ * <p>Block of rows stored column by column, filled by a {@link BatchTableIterator}.</p>
+ * 
+ * <p>
+ * 	Each column is stored in a vector whose type depends on the column datatype (see {@link VectorType}):
+ * 	a <code>long[]</code> for the integer and TIMESTAMP columns (the timestamps are in milliseconds since January 1, 1970, 00:00:00 GMT),
+ * 	a <code>double[]</code> for the floating point columns, a <code>String[]</code> for the character columns
+ * 	and an <code>Object[]</code> for all the others (e.g. <code>byte[]</code> for the binary columns).
+ * 	A <code>boolean[]</code> tells for each column which values are NULL.
+ * </p>
+ * 
+ * <p>
+ * 	All vectors are allocated once, with the capacity of the batch, and are reused for each block of rows.
+ * 	Only the first {@link #getSize()} items of each vector are meaningful.
+ * </p>
+ * 
+ * <p>Example of an expected usage:</p>
+ * <pre>
+ * 	ColumnBatch batch = new ColumnBatch(it.getMetadata(), 1024);
+ * 	while(it.nextBatch(batch) &gt; 0){
+ * 		double[] ra = batch.getDoubles(0);
+ * 		boolean[] raNulls = batch.getNulls(0);
+ * 		for(int r = 0; r &lt; batch.getSize(); r++){
+ * 			if (!raNulls[r])
+ * 				... ra[r] ...
+ * 		}
+ * 	}
+ * </pre>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ * 
+ * @see BatchTableIterator
+ */
+public class ColumnBatch {
+
+	/**
+	 * Type of the vector storing the values of a column.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	public static enum VectorType{
+		/** SMALLINT, INTEGER and BIGINT columns: <code>long[]</code>. */
+		LONG,
+		/** REAL and DOUBLE columns: <code>double[]</code>. */
+		DOUBLE,
+		/** TIMESTAMP columns: <code>long[]</code> (milliseconds since January 1, 1970, 00:00:00 GMT). */
+		TIMESTAMP,
+		/** CHAR, VARCHAR and CLOB columns: <code>String[]</code>. */
+		STRING,
+		/** All other columns (binaries, geometries, unknown type): <code>Object[]</code>. */
+		OBJECT;
+	}
+
+	/** Metadata of all columns. */
+	private final TAPColumn[] columns;
+
+	/** Type of vector of each column. */
+	private final VectorType[] types;
+
+	/** Maximum number of rows of this batch. */
+	private final int capacity;
+
+	/** Number of rows currently stored in this batch. */
+	private int size = 0;
+
+	/** Vector of each LONG and TIMESTAMP column (NULL for the other columns). */
+	private final long[][] longs;
+
+	/** Vector of each DOUBLE column (NULL for the other columns). */
+	private final double[][] doubles;
+
+	/** Vector of each STRING and OBJECT column (NULL for the other columns). */
+	private final Object[][] objects;
+
+	/** NULL flags of each column. */
+	private final boolean[][] nulls;
+
+	/**
+	 * Build an empty batch able to store the given number of rows of a table having the given columns.
+	 * 
+	 * @param columns	Metadata of all the columns (the datatype of each column is used to choose the type of its vector).
+	 * @param capacity	Maximum number of rows of this batch.
+	 * 
+	 * @throws NullPointerException		If the given metadata are NULL.
+	 * @throws IllegalArgumentException	If the given capacity is less than 1.
+	 */
+	public ColumnBatch(final TAPColumn[] columns, final int capacity) throws NullPointerException, IllegalArgumentException{
+		if (columns == null)
+			throw new NullPointerException("Missing column metadata! A batch of rows can not be created without them.");
+		if (capacity < 1)
+			throw new IllegalArgumentException("Incorrect batch capacity: " + capacity + "! It must be at least 1.");
+
+		this.columns = columns;
+		this.capacity = capacity;
+
+		final int nbColumns = columns.length;
+		types = new VectorType[nbColumns];
+		longs = new long[nbColumns][];
+		doubles = new double[nbColumns][];
+		objects = new Object[nbColumns][];
+		nulls = new boolean[nbColumns][];
+		for(int c = 0; c < nbColumns; c++){
+			types[c] = getVectorType((columns[c] == null) ? null : columns[c].getDatatype());
+			switch(types[c]){
+				case LONG:
+				case TIMESTAMP:
+					longs[c] = new long[capacity];
+					break;
+				case DOUBLE:
+					doubles[c] = new double[capacity];
+					break;
+				case STRING:
+					objects[c] = new String[capacity];
+					break;
+				default:
+					objects[c] = new Object[capacity];
+					break;
+			}
+			nulls[c] = new boolean[capacity];
+		}
+	}
+
+	/**
+	 * Get the type of vector to use for the given column datatype.
+	 * 
+	 * @param datatype	A column datatype. <i>MAY be NULL</i>
+	 * 
+	 * @return	The corresponding vector type ({@link VectorType#OBJECT} if the datatype is NULL).
+	 */
+	public static VectorType getVectorType(final DBType datatype){
+		if (datatype == null)
+			return VectorType.OBJECT;
+		switch(datatype.type){
+			case SMALLINT:
+			case INTEGER:
+			case BIGINT:
+				return VectorType.LONG;
+			case REAL:
+			case DOUBLE:
+				return VectorType.DOUBLE;
+			case TIMESTAMP:
+				return VectorType.TIMESTAMP;
+			case CHAR:
+			case VARCHAR:
+			case CLOB:
+				return VectorType.STRING;
+			default:
+				return VectorType.OBJECT;
+		}
+	}
+
+	/**
+	 * Get the metadata of all columns.
+	 * 
+	 * @return	Metadata of all columns.
+	 */
+	public final TAPColumn[] getMetadata(){
+		return columns;
+	}
+
+	/**
+	 * Get the number of columns.
+	 * 
+	 * @return	Number of columns.
+	 */
+	public final int getNbColumns(){
+		return columns.length;
+	}
+
+	/**
+	 * Get the maximum number of rows of this batch.
+	 * 
+	 * @return	Capacity of this batch.
+	 */
+	public final int getCapacity(){
+		return capacity;
+	}
+
+	/**
+	 * Get the number of rows currently stored in this batch.
+	 * 
+	 * @return	Number of rows (between 0 and {@link #getCapacity()}).
+	 */
+	public final int getSize(){
+		return size;
+	}
+
+	/**
+	 * <p>Set the number of rows currently stored in this batch.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This function should be called only by the {@link BatchTableIterator} filling this batch.
+	 * </i></p>
+	 * 
+	 * @param size	Number of rows (between 0 and {@link #getCapacity()}).
+	 * 
+	 * @throws IllegalArgumentException	If the given size is negative or bigger than the capacity.
+	 */
+	public final void setSize(final int size) throws IllegalArgumentException{
+		if (size < 0 || size > capacity)
+			throw new IllegalArgumentException("Incorrect batch size: " + size + "! It must be between 0 and " + capacity + ".");
+		this.size = size;
+	}
+
+	/**
+	 * Get the type of vector of the specified column.
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * 
+	 * @return	Type of its vector.
+	 */
+	public final VectorType getType(final int col){
+		return types[col];
+	}
+
+	/**
+	 * Get the vector of a {@link VectorType#LONG} or {@link VectorType#TIMESTAMP} column.
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * 
+	 * @return	Its vector, or NULL if the column is of another type.
+	 */
+	public final long[] getLongs(final int col){
+		return longs[col];
+	}
+
+	/**
+	 * Get the vector of a {@link VectorType#DOUBLE} column.
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * 
+	 * @return	Its vector, or NULL if the column is of another type.
+	 */
+	public final double[] getDoubles(final int col){
+		return doubles[col];
+	}
+
+	/**
+	 * Get the vector of a {@link VectorType#STRING} column.
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * 
+	 * @return	Its vector, or NULL if the column is of another type.
+	 */
+	public final String[] getStrings(final int col){
+		return (types[col] == VectorType.STRING) ? (String[])objects[col] : null;
+	}
+
+	/**
+	 * Get the vector of a {@link VectorType#STRING} or {@link VectorType#OBJECT} column.
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * 
+	 * @return	Its vector, or NULL if the column is of another type.
+	 */
+	public final Object[] getObjects(final int col){
+		return objects[col];
+	}
+
+	/**
+	 * Get the NULL flags of the specified column.
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * 
+	 * @return	Its NULL flags: <i>true</i> for each NULL value.
+	 */
+	public final boolean[] getNulls(final int col){
+		return nulls[col];
+	}
+
+	/**
+	 * Tell whether the specified value is NULL.
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * @param row	Index of the row in this batch (starting from 0).
+	 * 
+	 * @return	<i>true</i> if the value is NULL, <i>false</i> otherwise.
+	 */
+	public final boolean isNull(final int col, final int row){
+		return nulls[col][row];
+	}
+
+	/**
+	 * <p>Get the specified value as an object.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The primitive values are boxed in function of the column datatype: {@link Short} for SMALLINT, {@link Integer} for INTEGER,
+	 * 	{@link Long} for BIGINT and TIMESTAMP, {@link Float} for REAL and {@link Double} for DOUBLE. A loop over many values should rather use the vectors.
+	 * </i></p>
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * @param row	Index of the row in this batch (starting from 0).
+	 * 
+	 * @return	The value, or NULL if it is NULL.
+	 */
+	public final Object getValue(final int col, final int row){
+		if (nulls[col][row])
+			return null;
+		switch(types[col]){
+			case LONG:
+				switch(columns[col].getDatatype().type){
+					case SMALLINT:
+						return (short)longs[col][row];
+					case INTEGER:
+						return (int)longs[col][row];
+					default:
+						return longs[col][row];
+				}
+			case TIMESTAMP:
+				return longs[col][row];
+			case DOUBLE:
+				if (columns[col].getDatatype().type == DBDatatype.REAL)
+					return (float)doubles[col][row];
+				else
+					return doubles[col][row];
+			default:
+				return objects[col][row];
+		}
+	}
+
+	/**
+	 * <p>Set the specified value from an object.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The given value is converted into the type of the column vector (see {@link AbstractTableIterator#toLong(Object)},
+	 * 	{@link AbstractTableIterator#toDouble(Object)} and {@link AbstractTableIterator#toTimestamp(Object)}).
+	 * 	Any non-string value of a {@link VectorType#STRING} column is stored as its string representation.
+	 * </i></p>
+	 * 
+	 * @param col	Index of the column (starting from 0).
+	 * @param row	Index of the row in this batch (starting from 0).
+	 * @param value	The value to set. <i>MAY be NULL</i>
+	 * 
+	 * @throws DataReadException	If the given value can not be converted into the type of the column vector.
+	 */
+	public final void setValue(final int col, final int row, final Object value) throws DataReadException{
+		nulls[col][row] = (value == null);
+		switch(types[col]){
+			case LONG:
+				longs[col][row] = (value == null) ? 0 : AbstractTableIterator.toLong(value);
+				break;
+			case TIMESTAMP:
+				longs[col][row] = (value == null) ? 0 : AbstractTableIterator.toTimestamp(value);
+				break;
+			case DOUBLE:
+				doubles[col][row] = (value == null) ? 0 : AbstractTableIterator.toDouble(value);
+				break;
+			case STRING:
+				objects[col][row] = (value == null || value instanceof String) ? value : value.toString();
+				break;
+			default:
+				objects[col][row] = value;
+				break;
+		}
+	}
+
+}
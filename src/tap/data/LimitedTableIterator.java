@@ -55,7 +55,7 @@ import com.oreilly.servlet.multipart.ExceededSizeException;
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (ARI)
- * @version 2.0 (08/2014)
+ * @version 2.0 (10/2014)
  * @since 2.0
  */
 public class LimitedTableIterator implements TableIterator {
@@ -218,6 +218,42 @@ public class LimitedTableIterator implements TableIterator {
 		return innerIt.nextCol();
 	}
 
+	@Override
+	public int nextInt() throws NoSuchElementException, IllegalStateException, DataReadException{
+		testOverflow();
+		return innerIt.nextInt();
+	}
+
+	@Override
+	public long nextLong() throws NoSuchElementException, IllegalStateException, DataReadException{
+		testOverflow();
+		return innerIt.nextLong();
+	}
+
+	@Override
+	public double nextDouble() throws NoSuchElementException, IllegalStateException, DataReadException{
+		testOverflow();
+		return innerIt.nextDouble();
+	}
+
+	@Override
+	public boolean nextBoolean() throws NoSuchElementException, IllegalStateException, DataReadException{
+		testOverflow();
+		return innerIt.nextBoolean();
+	}
+
+	@Override
+	public long nextTimestamp() throws NoSuchElementException, IllegalStateException, DataReadException{
+		testOverflow();
+		return innerIt.nextTimestamp();
+	}
+
+	@Override
+	public boolean wasNull() throws IllegalStateException{
+		testOverflow();
+		return innerIt.wasNull();
+	}
+
 	@Override
 	public DBType getColType() throws IllegalStateException, DataReadException{
 		testOverflow();
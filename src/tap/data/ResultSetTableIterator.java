@@ -38,11 +38,23 @@ import adql.db.DBType.DBDatatype;
  * 	{@link #getColType()} will return a TAP type based on the one declared in the {@link ResultSetMetaData} object.
  * </i></p>
  * 
+ * <p><i>Note:
+ * 	The typed accessors ({@link #nextLong()}, {@link #nextDouble()}, ...) read the values with the corresponding primitive getter of the
+ * 	{@link ResultSet} (e.g. {@link ResultSet#getDouble(int)}) when the column type is numeric (or TIMESTAMP for {@link #nextTimestamp()}),
+ * 	so that no object is created for each value. Otherwise, the value returned by {@link ResultSet#getObject(int)} is converted.
+ * </i></p>
+ * 
+ * <p><i>Note:
+ * 	This iterator can also be read by blocks of rows (see {@link #nextBatch(ColumnBatch)}), in which case each column vector is filled
+ * 	with the primitive getters of the {@link ResultSet}. The row iteration ({@link #nextRow()}) and the batch iteration
+ * 	should not be mixed: the rows already read by one are not returned by the other.
+ * </i></p>
+ * 
  * @author Gr&eacute;gory Mantelet (ARI)
- * @version 2.0 (08/2014)
+ * @version 2.0 (10/2014)
  * @since 2.0
  */
-public class ResultSetTableIterator implements TableIterator {
+public class ResultSetTableIterator extends AbstractTableIterator implements BatchTableIterator {
 
 	/** ResultSet/Dataset to read. */
 	private final ResultSet data;
@@ -274,6 +286,7 @@ public class ResultSetTableIterator implements TableIterator {
 		// Get the column value:
 		try{
 			Object o = data.getObject(++colIndex);
+			lastNull = (o == null);
 			// if the column value is a Timestamp object, format it in ISO8601:
 			if (o != null && o instanceof Timestamp)
 				o = ISO8601Format.format(((Timestamp)o).getTime());
@@ -283,6 +296,202 @@ public class ResultSetTableIterator implements TableIterator {
 		}
 	}
 
+	@Override
+	protected int getColIndex(){
+		return colIndex;
+	}
+
+	/**
+	 * Go to the next column.
+	 * 
+	 * @return	Index (starting from 1) of the column to read.
+	 * 
+	 * @throws NoSuchElementException	If no more column value is available.
+	 * @throws IllegalStateException	If {@link #nextRow()} has not yet been called.
+	 * @throws DataReadException	If an error occurs while reading the table dataset.
+	 */
+	private int nextIndex() throws NoSuchElementException, IllegalStateException, DataReadException{
+		if (!hasNextCol())
+			throw new NoSuchElementException("No more column to read!");
+		return ++colIndex;
+	}
+
+	/**
+	 * Tell whether the values of the specified column can be read with {@link ResultSet#getLong(int)} without any loss
+	 * (i.e. whether its type is SMALLINT, INTEGER or BIGINT).
+	 * 
+	 * @param index	Index (starting from 1) of the column.
+	 * 
+	 * @return	<i>true</i> if the column type is an integer type, <i>false</i> otherwise.
+	 */
+	private boolean isInteger(final int index){
+		DBType type = colMeta[index - 1].getDatatype();
+		if (type == null)
+			return false;
+		switch(type.type){
+			case SMALLINT:
+			case INTEGER:
+			case BIGINT:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Tell whether the values of the specified column can be read with the primitive getters of {@link ResultSet}
+	 * (i.e. whether its type is SMALLINT, INTEGER, BIGINT, REAL or DOUBLE).
+	 * 
+	 * @param index	Index (starting from 1) of the column.
+	 * 
+	 * @return	<i>true</i> if the column type is numeric, <i>false</i> otherwise.
+	 */
+	private boolean isPrimitive(final int index){
+		DBType type = colMeta[index - 1].getDatatype();
+		if (type == null)
+			return false;
+		switch(type.type){
+			case SMALLINT:
+			case INTEGER:
+			case BIGINT:
+			case REAL:
+			case DOUBLE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * <p><i>Note:
+	 * 	Only the values of an integer column (SMALLINT, INTEGER or BIGINT) are read with {@link ResultSet#getLong(int)}.
+	 * 	The other ones (and particularly the floating numbers) are converted with {@link #toLong(Object)}, so that
+	 * 	a value with a decimal part is rejected as by any other {@link TableIterator}, instead of being truncated.
+	 * </i></p>
+	 * 
+	 * @see tap.data.AbstractTableIterator#nextLong()
+	 */
+	@Override
+	public long nextLong() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int index = nextIndex();
+		try{
+			if (isInteger(index)){
+				long value = data.getLong(index);
+				lastNull = data.wasNull();
+				return value;
+			}else{
+				Object value = data.getObject(index);
+				lastNull = (value == null);
+				return lastNull ? 0 : toLong(value);
+			}
+		}catch(DataReadException dre){
+			throw new DataReadException(dre.getMessage() + " (" + getColumnLabel() + ")", dre.getCause());
+		}catch(SQLException se){
+			throw new DataReadException("Can not read the value of the " + index + "-th column as a long!", se);
+		}
+	}
+
+	@Override
+	public double nextDouble() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int index = nextIndex();
+		try{
+			if (isPrimitive(index)){
+				double value = data.getDouble(index);
+				lastNull = data.wasNull();
+				return value;
+			}else{
+				Object value = data.getObject(index);
+				lastNull = (value == null);
+				return lastNull ? 0 : toDouble(value);
+			}
+		}catch(SQLException se){
+			throw new DataReadException("Can not read the value of the " + index + "-th column as a double!", se);
+		}
+	}
+
+	@Override
+	public boolean nextBoolean() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int index = nextIndex();
+		try{
+			boolean value = data.getBoolean(index);
+			lastNull = data.wasNull();
+			return value;
+		}catch(SQLException se){
+			throw new DataReadException("Can not read the value of the " + index + "-th column as a boolean!", se);
+		}
+	}
+
+	@Override
+	public long nextTimestamp() throws NoSuchElementException, IllegalStateException, DataReadException{
+		int index = nextIndex();
+		try{
+			DBType type = colMeta[index - 1].getDatatype();
+			if (type != null && type.type == DBDatatype.TIMESTAMP){
+				Timestamp value = data.getTimestamp(index);
+				lastNull = (value == null);
+				return lastNull ? 0 : value.getTime();
+			}else{
+				Object value = data.getObject(index);
+				lastNull = (value == null);
+				return lastNull ? 0 : toTimestamp(value);
+			}
+		}catch(SQLException se){
+			throw new DataReadException("Can not read the value of the " + index + "-th column as a timestamp!", se);
+		}
+	}
+
+	@Override
+	public int nextBatch(final ColumnBatch batch) throws NullPointerException, IllegalArgumentException, DataReadException{
+		if (batch.getNbColumns() != nbColumns)
+			throw new IllegalArgumentException("Incorrect batch: " + batch.getNbColumns() + " columns instead of " + nbColumns + "!");
+
+		final int capacity = batch.getCapacity();
+		int row = 0;
+		try{
+			iterationStarted = true;
+			while(row < capacity && !endReached){
+				// go to the next row:
+				if (!data.next()){
+					endReached = true;
+					break;
+				}
+
+				// read all its columns:
+				for(int col = 0; col < nbColumns; col++){
+					final int index = col + 1;
+					final boolean[] nulls = batch.getNulls(col);
+					switch(batch.getType(col)){
+						case LONG:
+							batch.getLongs(col)[row] = data.getLong(index);
+							nulls[row] = data.wasNull();
+							break;
+						case DOUBLE:
+							batch.getDoubles(col)[row] = data.getDouble(index);
+							nulls[row] = data.wasNull();
+							break;
+						case TIMESTAMP:
+							Timestamp ts = data.getTimestamp(index);
+							batch.getLongs(col)[row] = (ts == null) ? 0 : ts.getTime();
+							nulls[row] = (ts == null);
+							break;
+						default:
+							batch.setValue(col, row, data.getObject(index));
+							break;
+					}
+				}
+				row++;
+			}
+		}catch(SQLException se){
+			throw new DataReadException("Unable to read a block of result set rows!", se);
+		}
+
+		// no column of a "current" row can be read anymore with nextCol():
+		colIndex = nbColumns;
+
+		batch.setSize(row);
+		return row;
+	}
+
 	@Override
 	public DBType getColType() throws IllegalStateException, DataReadException{
 		// Basically check the read state (for rows iteration):
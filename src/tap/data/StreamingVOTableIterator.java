@@ -0,0 +1,1218 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import tap.TAPException;
+import tap.metadata.TAPColumn;
+import tap.metadata.VotType;
+import tap.metadata.VotType.VotDatatype;
+import adql.db.DBType;
+
+/**
+ * <p>{@link TableIterator} which lets iterate over a VOTable input stream by parsing it directly with a pull parser (StAX).</p>
+ * 
+ * <p>
+ * 	Contrary to {@link VOTableIterator}, no other thread is used to read the VOTable: rows are parsed in the calling thread,
+ * 	only when {@link #nextRow()} is called. The buffers used to decode the rows are allocated once and reused for all rows.
+ * </p>
+ * 
+ * <p>
+ * 	Only the first TABLE of the VOTable document is read. Its rows may be serialized in TABLEDATA, BINARY or BINARY2.
+ * 	The BINARY and BINARY2 streams must be embedded in the document and encoded in base64.
+ * 	The FITS serialization, the remote streams (attribute <code>href</code> of STREAM), the other STREAM encodings
+ * 	and the multi-dimensional arrays (e.g. <code>arraysize="2x3"</code>) are not supported: an {@link UnsupportedFeatureException}
+ * 	is then thrown by the constructor, and {@link VOTableIterator} must be used instead.
+ * </p>
+ * 
+ * <p>The returned values have the following Java types:</p>
+ * <ul>
+ * 	<li><b>boolean, bit</b>: {@link Boolean} (or <code>boolean[]</code> for an array)</li>
+ * 	<li><b>unsignedByte, short</b>: {@link Short} (or <code>short[]</code>)</li>
+ * 	<li><b>int</b>: {@link Integer} (or <code>int[]</code>)</li>
+ * 	<li><b>long</b>: {@link Long} (or <code>long[]</code>)</li>
+ * 	<li><b>float</b>: {@link Float} (or <code>float[]</code> for an array or a complex)</li>
+ * 	<li><b>double</b>: {@link Double} (or <code>double[]</code> for an array or a complex)</li>
+ * 	<li><b>char, unicodeChar</b>: {@link String} (even for a single character, contrary to {@link VOTableIterator} which returns a {@link Character})</li>
+ * </ul>
+ * <p>
+ * 	A scalar value equal to the null value declared in the VALUES element of its FIELD, an empty value and a NaN scalar
+ * 	floating point value are returned as NULL.
+ * </p>
+ * 
+ * <p>{@link #getColType()} will return TAP type based on the type declared in the VOTable metadata part.</p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public class StreamingVOTableIterator extends AbstractTableIterator {
+
+	/** Factory of all StAX readers used by this class. */
+	private static XMLInputFactory xmlFactory = null;
+
+	/** Parser of the VOTable document. */
+	private final XMLStreamReader reader;
+
+	/** Metadata of all columns identified before the iteration. */
+	private final TAPColumn[] colMeta;
+	/** Description of the VOTable fields, in the same order as {@link #colMeta}. */
+	private final Field[] fields;
+	/** Number of columns to read. */
+	private final int nbColumns;
+	/** Reader of the rows, depending on the serialization. <i>NULL if the table has no DATA.</i> */
+	private final RowReader rowReader;
+	/** Values of the current row. <i>This array is reused for all rows.</i> */
+	private final Object[] row;
+
+	/** Indicate whether the row iteration has already started. */
+	private boolean iterationStarted = false;
+	/** Indicate whether the last row has already been reached. */
+	private boolean endReached = false;
+	/** Index of the last read column (=0 just after {@link #nextRow()} and before {@link #nextCol()}, ={@link #nbColumns} after the last column has been read). */
+	private int colIndex;
+
+	/**
+	 * Build a TableIterator able to read rows and columns inside the given VOTable input stream.
+	 * 
+	 * @param input	Input stream over a VOTable document.
+	 * 
+	 * @throws NullPointerException			If NULL is given in parameter.
+	 * @throws UnsupportedFeatureException	If the given VOTable uses a feature not supported by this iterator (see {@link UnsupportedFeatureException}).
+	 * @throws DataReadException			If the given VOTable can not be parsed.
+	 */
+	public StreamingVOTableIterator(final InputStream input) throws DataReadException{
+		// An input stream MUST BE provided:
+		if (input == null)
+			throw new NullPointerException("Missing VOTable document input stream over which to iterate!");
+
+		try{
+			reader = getXMLFactory().createXMLStreamReader(input);
+
+			// Go to the first TABLE:
+			if (!goToElement("TABLE"))
+				throw new DataReadException("No TABLE found in the given VOTable document!");
+
+			// Read the metadata of all fields, until the DATA element (or the end of the TABLE):
+			ArrayList<Field> lstFields = new ArrayList<Field>();
+			RowReader rowReader = null;
+			boolean stop = false;
+			while(!stop && reader.hasNext()){
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT){
+					String name = reader.getLocalName();
+					if (name.equals("FIELD"))
+						lstFields.add(readField(lstFields.size()));
+					else if (name.equals("DATA")){
+						rowReader = openData(lstFields.size());
+						stop = true;
+					}else
+						skipElement();
+				}else if (event == XMLStreamConstants.END_ELEMENT)
+					stop = true;
+			}
+
+			// Convert the fields into TAPColumn objects:
+			fields = lstFields.toArray(new Field[lstFields.size()]);
+			nbColumns = fields.length;
+			colMeta = new TAPColumn[nbColumns];
+			for(int i = 0; i < nbColumns; i++)
+				colMeta[i] = fields[i].column;
+
+			this.rowReader = rowReader;
+			row = new Object[nbColumns];
+
+		}catch(TAPException te){
+			if (te instanceof DataReadException)
+				throw (DataReadException)te;
+			throw new DataReadException("Unexpected field datatype: " + te.getMessage(), te);
+		}catch(XMLStreamException xse){
+			throw new DataReadException("Unable to parse/read the given VOTable input stream!", getCause(xse));
+		}
+	}
+
+	/**
+	 * Get the factory to use to create StAX readers.
+	 * 
+	 * @return	The StAX factory.
+	 */
+	private static synchronized XMLInputFactory getXMLFactory(){
+		if (xmlFactory == null){
+			xmlFactory = XMLInputFactory.newInstance();
+			xmlFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+			xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			xmlFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		}
+		return xmlFactory;
+	}
+
+	/**
+	 * <p>Get the exception at the origin of the given StAX exception.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	StAX embeds the I/O errors in {@link XMLStreamException} without always setting them as cause.
+	 * 	The original error must be kept so that {@link LimitedTableIterator} can detect a bytes limit overflow.
+	 * </i></p>
+	 * 
+	 * @param xse	A StAX exception.
+	 * 
+	 * @return	The embedded exception, or the given one if none.
+	 */
+	private static Throwable getCause(final XMLStreamException xse){
+		return (xse.getNestedException() != null) ? xse.getNestedException() : xse;
+	}
+
+	/**
+	 * Go forward in the document until the start of the first element having the given name.
+	 * 
+	 * @param name	Local name of the element to reach.
+	 * 
+	 * @return	<i>true</i> if the element has been found, <i>false</i> if the end of the document has been reached.
+	 * 
+	 * @throws XMLStreamException	If the document can not be parsed.
+	 */
+	private boolean goToElement(final String name) throws XMLStreamException{
+		while(reader.hasNext()){
+			if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Skip the current element and all its content. The reader is then on the end of this element.
+	 * 
+	 * @throws XMLStreamException	If the document can not be parsed.
+	 */
+	private void skipElement() throws XMLStreamException{
+		int depth = 1;
+		while(depth > 0 && reader.hasNext()){
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if (event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	/**
+	 * Read the FIELD element on which the reader currently is.
+	 * 
+	 * @param index	Index of this field in the table (starting from 0).
+	 * 
+	 * @return	The description of the field.
+	 * 
+	 * @throws XMLStreamException			If the document can not be parsed.
+	 * @throws UnsupportedFeatureException	If the field is a multi-dimensional array.
+	 * @throws TAPException					If the datatype of the field can not be resolved.
+	 */
+	private Field readField(final int index) throws XMLStreamException, TAPException{
+		// Get the attributes:
+		String name = reader.getAttributeValue(null, "name");
+		if (name == null || name.trim().length() == 0)
+			name = reader.getAttributeValue(null, "ID");
+		if (name == null || name.trim().length() == 0)
+			name = "col" + (index + 1);
+		String datatype = reader.getAttributeValue(null, "datatype");
+		String arraysize = reader.getAttributeValue(null, "arraysize");
+		String xtype = reader.getAttributeValue(null, "xtype");
+		String unit = reader.getAttributeValue(null, "unit");
+		String ucd = reader.getAttributeValue(null, "ucd");
+		String utype = reader.getAttributeValue(null, "utype");
+
+		// Get the description and the null value:
+		String description = null, nullValue = null;
+		int depth = 1;
+		while(depth > 0 && reader.hasNext()){
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT){
+				if (depth == 1 && reader.getLocalName().equals("DESCRIPTION"))
+					description = reader.getElementText().trim();
+				else{
+					if (depth == 1 && reader.getLocalName().equals("VALUES"))
+						nullValue = reader.getAttributeValue(null, "null");
+					depth++;
+				}
+			}else if (event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+
+		// Multi-dimensional arrays are not decoded here:
+		if (arraysize != null && arraysize.indexOf('x') >= 0)
+			throw new UnsupportedFeatureException("Multi-dimensional arrays are not supported: arraysize=\"" + arraysize + "\" (field \"" + name + "\")!");
+
+		// Resolve the field type:
+		VotType votType = resolveVotType(datatype, arraysize, xtype);
+		DBType type = votType.toTAPType();
+
+		// build the TAPColumn object:
+		TAPColumn col = new TAPColumn(name, type, description, unit, ucd, utype);
+		col.setPrincipal(false);
+		col.setIndexed(false);
+		col.setStd(false);
+
+		return new Field(col, votType, nullValue);
+	}
+
+	/**
+	 * Resolve a VOTable field type by using the datatype, arraysize and xtype strings as specified in a VOTable document.
+	 * 
+	 * @param datatype		Attribute value of VOTable corresponding to the datatype.
+	 * @param arraysize		Attribute value of VOTable corresponding to the arraysize.
+	 * @param xtype			Attribute value of VOTable corresponding to the xtype.
+	 * 
+	 * @return	The resolved VOTable field type, or a CHAR(*) type if no datatype is specified.
+	 * 
+	 * @throws TAPException	If a field datatype is unknown.
+	 */
+	private static VotType resolveVotType(final String datatype, final String arraysize, final String xtype) throws TAPException{
+		// If no datatype is specified, return immediately a CHAR(*) type:
+		if (datatype == null || datatype.trim().length() == 0)
+			return new VotType(VotDatatype.CHAR, "*");
+
+		// Identify the specified datatype:
+		for(VotDatatype votdatatype : VotDatatype.values()){
+			if (votdatatype.toString().equalsIgnoreCase(datatype.trim()))
+				return new VotType(votdatatype, arraysize, xtype);
+		}
+		throw new TAPException("unknown field datatype: \"" + datatype + "\"");
+	}
+
+	/**
+	 * Prepare the reading of the rows inside the DATA element on which the reader currently is.
+	 * 
+	 * @param nbFields	Number of fields of the table.
+	 * 
+	 * @return	The reader of rows to use, or NULL if the DATA element is empty.
+	 * 
+	 * @throws XMLStreamException	If the document can not be parsed.
+	 * @throws UnsupportedFeatureException	If the serialization is not supported.
+	 * @throws DataReadException			If the DATA element is incorrect.
+	 */
+	private RowReader openData(final int nbFields) throws XMLStreamException, DataReadException{
+		while(reader.hasNext()){
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT){
+				String name = reader.getLocalName();
+				if (name.equals("TABLEDATA"))
+					return new TableDataReader();
+				else if (name.equals("BINARY") || name.equals("BINARY2")){
+					boolean binary2 = name.equals("BINARY2");
+					if (!goToElement("STREAM"))
+						throw new DataReadException("Missing STREAM inside the " + name + " element!");
+					if (reader.getAttributeValue(null, "href") != null)
+						throw new UnsupportedFeatureException("Remote streams (STREAM with an href attribute) are not supported!");
+					String encoding = reader.getAttributeValue(null, "encoding");
+					if (encoding == null || !encoding.trim().equalsIgnoreCase("base64"))
+						throw new UnsupportedFeatureException("Unsupported STREAM encoding: \"" + encoding + "\"! Only base64 is supported.");
+					return new BinaryReader(binary2, nbFields);
+				}else
+					throw new UnsupportedFeatureException("Unsupported VOTable serialization: " + name + "!");
+			}else if (event == XMLStreamConstants.END_ELEMENT)
+				return null;
+		}
+		return null;
+	}
+
+	/**
+	 * <p>Check the row iteration state. That's to say whether:</p>
+	 * <ul>
+	 * 	<li>the row iteration has started = the first row has been read = a first call of {@link #nextRow()} has been done</li>
+	 * 	<li>AND the row iteration is not finished = the last row has been read.</li>
+	 * </ul>
+	 * @throws IllegalStateException
+	 */
+	private void checkReadState() throws IllegalStateException{
+		if (!iterationStarted)
+			throw new IllegalStateException("No row has yet been read!");
+		else if (endReached)
+			throw new IllegalStateException("End of VOTable file already reached!");
+	}
+
+	@Override
+	public void close() throws DataReadException{
+		endReached = true;
+		try{
+			reader.close();
+		}catch(XMLStreamException xse){
+			throw new DataReadException("Can not close the iterated VOTable!", getCause(xse));
+		}
+	}
+
+	@Override
+	public TAPColumn[] getMetadata(){
+		return colMeta;
+	}
+
+	@Override
+	public boolean nextRow() throws DataReadException{
+		// stop immediately if the end has already been reached:
+		if (endReached)
+			return false;
+
+		// go to the next row:
+		boolean rowFetched;
+		try{
+			rowFetched = (rowReader != null) && rowReader.next(row);
+		}catch(XMLStreamException xse){
+			throw new DataReadException("Unable to read the next VOTable row!", getCause(xse));
+		}catch(IOException ioe){
+			throw new DataReadException("Unable to read the next VOTable row!", ioe);
+		}
+		endReached = !rowFetched;
+
+		// prepare the iteration over its columns:
+		colIndex = 0;
+		iterationStarted = true;
+		return rowFetched;
+	}
+
+	@Override
+	public boolean hasNextCol() throws IllegalStateException, DataReadException{
+		// Check the read state:
+		checkReadState();
+
+		// Determine whether the last column has been reached or not:
+		return (colIndex < nbColumns);
+	}
+
+	@Override
+	public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+		// Check the read state and ensure there is still at least one column to read:
+		if (!hasNextCol())
+			throw new NoSuchElementException("No more field to read!");
+
+		// Get the column value:
+		Object value = row[colIndex++];
+		lastNull = (value == null);
+		return value;
+	}
+
+	@Override
+	protected int getColIndex(){
+		return colIndex;
+	}
+
+	@Override
+	public DBType getColType() throws IllegalStateException, DataReadException{
+		// Basically check the read state (for rows iteration):
+		checkReadState();
+
+		// Check deeper the read state (for columns iteration):
+		if (colIndex <= 0)
+			throw new IllegalStateException("No field has yet been read!");
+		else if (colIndex > nbColumns)
+			throw new IllegalStateException("All fields have already been read!");
+
+		// Return the column type:
+		return colMeta[colIndex - 1].getDatatype();
+	}
+
+	/**
+	 * <p>Exception thrown by {@link StreamingVOTableIterator} when the VOTable to read is valid but uses a feature
+	 * not supported by this iterator: the FITS serialization, a remote or not base64 encoded STREAM,
+	 * or a multi-dimensional array.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	It is always thrown by the constructor, before any row is read. So, the same VOTable can still be read
+	 * 	with a {@link VOTableIterator}.
+	 * </i></p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	public static class UnsupportedFeatureException extends DataReadException {
+		private static final long serialVersionUID = 1L;
+
+		public UnsupportedFeatureException(final String message){
+			super(message);
+		}
+	}
+
+	/* ******************* */
+	/* FIELD DESCRIPTION   */
+	/* ******************* */
+
+	/**
+	 * Description of a VOTable field, as needed to decode its values.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static final class Field {
+		/** Corresponding TAP column. */
+		final TAPColumn column;
+		/** VOTable datatype. */
+		final VotDatatype datatype;
+		/** Whether the values are arrays. */
+		final boolean isArray;
+		/** Number of items of each value. <i>-1 if variable.</i> */
+		final int arraysize;
+		/** Null value declared in VALUES. <i>MAY be NULL</i> */
+		final String nullValue;
+		/** Null value declared in VALUES, parsed as an integer. <i>NULL if none or if the field is not an integer.</i> */
+		final Long nullInteger;
+
+		/**
+		 * Build the description of a field.
+		 * 
+		 * @param column	Corresponding TAP column.
+		 * @param type		VOTable type.
+		 * @param nullValue	Null value declared in VALUES. <i>MAY be NULL</i>
+		 * 
+		 * @throws TAPException	If the arraysize is incorrect.
+		 */
+		Field(final TAPColumn column, final VotType type, final String nullValue) throws TAPException{
+			this.column = column;
+			this.datatype = type.datatype;
+			this.nullValue = nullValue;
+
+			// Resolve the arraysize:
+			if (type.arraysize == null){
+				isArray = false;
+				arraysize = 1;
+			}else if (type.arraysize.endsWith("*")){
+				isArray = true;
+				arraysize = -1;
+			}else{
+				try{
+					arraysize = Integer.parseInt(type.arraysize);
+				}catch(NumberFormatException nfe){
+					throw new TAPException("incorrect arraysize: \"" + type.arraysize + "\"");
+				}
+				isArray = (arraysize != 1 || datatype == VotDatatype.CHAR || datatype == VotDatatype.UNICODE_CHAR);
+			}
+
+			// Parse the null value of integer fields:
+			Long nullInt = null;
+			if (nullValue != null && (datatype == VotDatatype.UNSIGNED_BYTE || datatype == VotDatatype.SHORT || datatype == VotDatatype.INT || datatype == VotDatatype.LONG)){
+				try{
+					nullInt = parseInteger(nullValue.trim());
+				}catch(NumberFormatException nfe){}
+			}
+			nullInteger = nullInt;
+		}
+	}
+
+	/**
+	 * Parse an integer value serialized in TABLEDATA (in decimal or in hexadecimal with the prefix 0x).
+	 * 
+	 * @param str	The value to parse.
+	 * 
+	 * @return	The parsed integer.
+	 * 
+	 * @throws NumberFormatException	If the given value is not an integer.
+	 */
+	private static long parseInteger(final String str) throws NumberFormatException{
+		if (str.startsWith("0x") || str.startsWith("0X"))
+			return Long.parseLong(str.substring(2), 16);
+		else if (str.startsWith("+"))
+			return Long.parseLong(str.substring(1));
+		else
+			return Long.parseLong(str);
+	}
+
+	/**
+	 * Parse an integer value serialized in TABLEDATA and check it fits in the given range.
+	 * 
+	 * @param str	The value to parse.
+	 * @param min	Minimum allowed value (included).
+	 * @param max	Maximum allowed value (included).
+	 * 
+	 * @return	The parsed integer.
+	 * 
+	 * @throws NumberFormatException	If the given value is not an integer or is out of range.
+	 * 
+	 * @see #parseInteger(String)
+	 */
+	private static long parseInteger(final String str, final long min, final long max) throws NumberFormatException{
+		long val = parseInteger(str);
+		if (val < min || val > max)
+			throw new NumberFormatException("Value out of range [" + min + ";" + max + "]: " + val);
+		return val;
+	}
+
+	/**
+	 * Parse a floating point value serialized in TABLEDATA (including NaN and +/-Inf).
+	 * 
+	 * @param str	The value to parse.
+	 * 
+	 * @return	The parsed value.
+	 * 
+	 * @throws NumberFormatException	If the given value is not a number.
+	 */
+	private static double parseDouble(final String str) throws NumberFormatException{
+		if (str.equalsIgnoreCase("NaN"))
+			return Double.NaN;
+		else if (str.equalsIgnoreCase("Inf") || str.equalsIgnoreCase("+Inf"))
+			return Double.POSITIVE_INFINITY;
+		else if (str.equalsIgnoreCase("-Inf"))
+			return Double.NEGATIVE_INFINITY;
+		else
+			return Double.parseDouble(str);
+	}
+
+	/* ******************* */
+	/* ROWS READERS        */
+	/* ******************* */
+
+	/**
+	 * Reader of the rows of a table, depending on its serialization.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static abstract class RowReader {
+		/**
+		 * Read the next row.
+		 * 
+		 * @param row	Array in which the values of the row must be written.
+		 * 
+		 * @return	<i>true</i> if a row has been read, <i>false</i> if there is no more row.
+		 * 
+		 * @throws XMLStreamException	If the document can not be parsed.
+		 * @throws IOException			If the document can not be read.
+		 * @throws DataReadException	If a value is incorrect.
+		 */
+		abstract boolean next(final Object[] row) throws XMLStreamException, IOException, DataReadException;
+	}
+
+	/**
+	 * Reader of rows serialized in TABLEDATA.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private final class TableDataReader extends RowReader {
+		/** Index of the current row (starting from 0). */
+		private int rowIndex = -1;
+
+		@Override
+		boolean next(final Object[] row) throws XMLStreamException, DataReadException{
+			// Go to the next TR:
+			if (!goToRow())
+				return false;
+			rowIndex++;
+
+			// Read all its TD:
+			int c = 0;
+			while(reader.hasNext()){
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT){
+					if (reader.getLocalName().equals("TD") && c < nbColumns){
+						row[c] = parse(fields[c], reader.getElementText(), c);
+						c++;
+					}else
+						skipElement();
+				}else if (event == XMLStreamConstants.END_ELEMENT)
+					break;
+			}
+
+			// Missing TD are NULL:
+			for(; c < nbColumns; c++)
+				row[c] = null;
+
+			return true;
+		}
+
+		/**
+		 * Go to the start of the next TR.
+		 * 
+		 * @return	<i>true</i> if a TR has been found, <i>false</i> if the end of the TABLEDATA has been reached.
+		 * 
+		 * @throws XMLStreamException	If the document can not be parsed.
+		 */
+		private boolean goToRow() throws XMLStreamException{
+			while(reader.hasNext()){
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT){
+					if (reader.getLocalName().equals("TR"))
+						return true;
+					else
+						skipElement();
+				}else if (event == XMLStreamConstants.END_ELEMENT)
+					return false;
+			}
+			return false;
+		}
+
+		/**
+		 * Parse the given TD content.
+		 * 
+		 * @param field	Description of the field.
+		 * @param text	Content of the TD.
+		 * @param col	Index of the column (starting from 0).
+		 * 
+		 * @return	The parsed value.
+		 * 
+		 * @throws DataReadException	If the value is incorrect.
+		 */
+		private Object parse(final Field field, final String text, final int col) throws DataReadException{
+			// Character strings are kept as they are:
+			if (field.datatype == VotDatatype.CHAR || field.datatype == VotDatatype.UNICODE_CHAR)
+				return (text.length() == 0 || (field.nullValue != null && text.equals(field.nullValue))) ? null : text;
+
+			// Empty or NULL values:
+			String str = text.trim();
+			if (str.length() == 0 || (field.nullValue != null && !field.isArray && str.equals(field.nullValue)))
+				return null;
+
+			try{
+				switch(field.datatype){
+					case BOOLEAN:
+						if (!field.isArray)
+							return parseBoolean(str.charAt(0));
+						else{
+							String[] items = split(str);
+							boolean[] array = new boolean[items.length];
+							for(int i = 0; i < items.length; i++)
+								array[i] = (parseBoolean(items[i].charAt(0)) == Boolean.TRUE);
+							return array;
+						}
+
+					case BIT:
+						if (!field.isArray)
+							return (str.charAt(0) == '1');
+						else{
+							int nb = 0;
+							for(int i = 0; i < str.length(); i++){
+								if (str.charAt(i) == '0' || str.charAt(i) == '1')
+									nb++;
+							}
+							boolean[] array = new boolean[nb];
+							nb = 0;
+							for(int i = 0; i < str.length(); i++){
+								if (str.charAt(i) == '0' || str.charAt(i) == '1')
+									array[nb++] = (str.charAt(i) == '1');
+							}
+							return array;
+						}
+
+					case UNSIGNED_BYTE:
+					case SHORT:
+						long min = (field.datatype == VotDatatype.UNSIGNED_BYTE) ? 0 : Short.MIN_VALUE,
+						max = (field.datatype == VotDatatype.UNSIGNED_BYTE) ? 255 : Short.MAX_VALUE;
+						if (!field.isArray)
+							return (short)parseInteger(str, min, max);
+						else{
+							String[] items = split(str);
+							short[] array = new short[items.length];
+							for(int i = 0; i < items.length; i++)
+								array[i] = (short)parseInteger(items[i], min, max);
+							return array;
+						}
+
+					case INT:
+						if (!field.isArray)
+							return (int)parseInteger(str, Integer.MIN_VALUE, Integer.MAX_VALUE);
+						else{
+							String[] items = split(str);
+							int[] array = new int[items.length];
+							for(int i = 0; i < items.length; i++)
+								array[i] = (int)parseInteger(items[i], Integer.MIN_VALUE, Integer.MAX_VALUE);
+							return array;
+						}
+
+					case LONG:
+						if (!field.isArray)
+							return parseInteger(str);
+						else{
+							String[] items = split(str);
+							long[] array = new long[items.length];
+							for(int i = 0; i < items.length; i++)
+								array[i] = parseInteger(items[i]);
+							return array;
+						}
+
+					case FLOAT:
+					case FLOAT_COMPLEX:
+						if (!field.isArray && field.datatype == VotDatatype.FLOAT){
+							float val = (float)parseDouble(str);
+							return Float.isNaN(val) ? null : val;
+						}else{
+							String[] items = split(str);
+							float[] array = new float[items.length];
+							for(int i = 0; i < items.length; i++)
+								array[i] = (float)parseDouble(items[i]);
+							return array;
+						}
+
+					case DOUBLE:
+					case DOUBLE_COMPLEX:
+					default:
+						if (!field.isArray && field.datatype == VotDatatype.DOUBLE){
+							double val = parseDouble(str);
+							return Double.isNaN(val) ? null : val;
+						}else{
+							String[] items = split(str);
+							double[] array = new double[items.length];
+							for(int i = 0; i < items.length; i++)
+								array[i] = parseDouble(items[i]);
+							return array;
+						}
+				}
+			}catch(NumberFormatException nfe){
+				throw new DataReadException("Incorrect value for the " + (col + 1) + "-th field (" + field.datatype + ") of the " + (rowIndex + 1) + "-th row: \"" + str + "\"!", nfe);
+			}
+		}
+
+		/**
+		 * Parse a boolean value serialized in TABLEDATA.
+		 * 
+		 * @param c	First character of the value.
+		 * 
+		 * @return	The boolean value, or NULL if unknown.
+		 */
+		private Boolean parseBoolean(final char c){
+			switch(c){
+				case 'T':
+				case 't':
+				case '1':
+					return Boolean.TRUE;
+				case 'F':
+				case 'f':
+				case '0':
+					return Boolean.FALSE;
+				default:
+					return null;
+			}
+		}
+
+		/**
+		 * Split the given array value on its white spaces.
+		 * 
+		 * @param str	The array value. <i>It must be already trimmed.</i>
+		 * 
+		 * @return	All items.
+		 */
+		private String[] split(final String str){
+			// Count the items:
+			int nb = 0;
+			boolean inItem = false;
+			for(int i = 0; i < str.length(); i++){
+				boolean space = Character.isWhitespace(str.charAt(i));
+				if (!space && !inItem)
+					nb++;
+				inItem = !space;
+			}
+
+			// Extract them:
+			String[] items = new String[nb];
+			nb = 0;
+			int start = -1;
+			for(int i = 0; i <= str.length(); i++){
+				boolean space = (i == str.length()) || Character.isWhitespace(str.charAt(i));
+				if (!space && start < 0)
+					start = i;
+				else if (space && start >= 0){
+					items[nb++] = str.substring(start, i);
+					start = -1;
+				}
+			}
+			return items;
+		}
+	}
+
+	/**
+	 * Reader of rows serialized in BINARY or BINARY2.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private final class BinaryReader extends RowReader {
+		/** Whether the serialization is BINARY2 (with a null flag per field). */
+		private final boolean binary2;
+		/** Decoded stream. */
+		private final Base64StreamInput stream;
+		/** Reader of the primitive values from the decoded stream. */
+		private final DataInputStream data;
+		/** Null flags of the current row (only for BINARY2). */
+		private final byte[] nullFlags;
+		/** Buffer used to read bytes and characters. <i>Reallocated only when it is too small.</i> */
+		private byte[] buffer = new byte[256];
+		/** Buffer used to build character strings. <i>Reallocated only when it is too small.</i> */
+		private char[] chars = new char[256];
+
+		/**
+		 * Build a reader of BINARY or BINARY2 rows.
+		 * 
+		 * @param binary2	<i>true</i> for BINARY2, <i>false</i> for BINARY.
+		 * @param nbFields	Number of fields.
+		 */
+		BinaryReader(final boolean binary2, final int nbFields){
+			this.binary2 = binary2;
+			stream = new Base64StreamInput();
+			data = new DataInputStream(stream);
+			nullFlags = binary2 ? new byte[(nbFields + 7) / 8] : null;
+		}
+
+		@Override
+		boolean next(final Object[] row) throws IOException, DataReadException{
+			// Detect the end of the stream:
+			if (nbColumns == 0 || stream.isEnd())
+				return false;
+
+			// Read the null flags:
+			if (binary2)
+				data.readFully(nullFlags);
+
+			// Read all fields:
+			for(int c = 0; c < nbColumns; c++){
+				Object val = read(fields[c]);
+				row[c] = (binary2 && (nullFlags[c / 8] & (0x80 >> (c % 8))) != 0) ? null : val;
+			}
+
+			return true;
+		}
+
+		/**
+		 * Ensure the buffer of bytes has at least the given size.
+		 * 
+		 * @param size	Required size.
+		 */
+		private void ensureBuffer(final int size){
+			if (buffer.length < size)
+				buffer = new byte[Math.max(size, buffer.length * 2)];
+			if (chars.length < size)
+				chars = new char[Math.max(size, chars.length * 2)];
+		}
+
+		/**
+		 * Read the next value of the given field.
+		 * 
+		 * @param field	Description of the field.
+		 * 
+		 * @return	The read value.
+		 * 
+		 * @throws IOException			If the stream can not be read or is truncated.
+		 * @throws DataReadException	If a variable array size is negative.
+		 */
+		private Object read(final Field field) throws IOException, DataReadException{
+			// Get the number of items:
+			int nb = field.arraysize;
+			if (nb < 0){
+				nb = data.readInt();
+				if (nb < 0)
+					throw new DataReadException("Incorrect array size in the BINARY stream: " + nb + "!");
+			}
+
+			switch(field.datatype){
+				case BOOLEAN:{
+					ensureBuffer(nb);
+					data.readFully(buffer, 0, nb);
+					if (!field.isArray)
+						return (buffer[0] == 'T' || buffer[0] == 't' || buffer[0] == '1') ? Boolean.TRUE : ((buffer[0] == 'F' || buffer[0] == 'f' || buffer[0] == '0') ? Boolean.FALSE : null);
+					boolean[] array = new boolean[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = (buffer[i] == 'T' || buffer[i] == 't' || buffer[i] == '1');
+					return array;
+				}
+
+				case BIT:{
+					int nbBytes = (nb + 7) / 8;
+					ensureBuffer(nbBytes);
+					data.readFully(buffer, 0, nbBytes);
+					if (!field.isArray)
+						return (buffer[0] & 0x80) != 0;
+					boolean[] array = new boolean[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = (buffer[i / 8] & (0x80 >> (i % 8))) != 0;
+					return array;
+				}
+
+				case UNSIGNED_BYTE:{
+					ensureBuffer(nb);
+					data.readFully(buffer, 0, nb);
+					if (!field.isArray){
+						short val = (short)(buffer[0] & 0xff);
+						return (field.nullInteger != null && field.nullInteger == val) ? null : val;
+					}
+					short[] array = new short[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = (short)(buffer[i] & 0xff);
+					return array;
+				}
+
+				case SHORT:{
+					if (!field.isArray){
+						short val = data.readShort();
+						return (field.nullInteger != null && field.nullInteger == val) ? null : val;
+					}
+					short[] array = new short[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = data.readShort();
+					return array;
+				}
+
+				case INT:{
+					if (!field.isArray){
+						int val = data.readInt();
+						return (field.nullInteger != null && field.nullInteger == val) ? null : val;
+					}
+					int[] array = new int[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = data.readInt();
+					return array;
+				}
+
+				case LONG:{
+					if (!field.isArray){
+						long val = data.readLong();
+						return (field.nullInteger != null && field.nullInteger == val) ? null : val;
+					}
+					long[] array = new long[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = data.readLong();
+					return array;
+				}
+
+				case FLOAT:
+				case FLOAT_COMPLEX:{
+					if (field.datatype == VotDatatype.FLOAT_COMPLEX)
+						nb *= 2;
+					else if (!field.isArray){
+						float val = data.readFloat();
+						return Float.isNaN(val) ? null : val;
+					}
+					float[] array = new float[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = data.readFloat();
+					return array;
+				}
+
+				case DOUBLE:
+				case DOUBLE_COMPLEX:{
+					if (field.datatype == VotDatatype.DOUBLE_COMPLEX)
+						nb *= 2;
+					else if (!field.isArray){
+						double val = data.readDouble();
+						return Double.isNaN(val) ? null : val;
+					}
+					double[] array = new double[nb];
+					for(int i = 0; i < nb; i++)
+						array[i] = data.readDouble();
+					return array;
+				}
+
+				case UNICODE_CHAR:{
+					ensureBuffer(nb * 2);
+					data.readFully(buffer, 0, nb * 2);
+					int len = 0;
+					while(len < nb && (buffer[2 * len] != 0 || buffer[2 * len + 1] != 0)){
+						chars[len] = (char)(((buffer[2 * len] & 0xff) << 8) | (buffer[2 * len + 1] & 0xff));
+						len++;
+					}
+					return toString(field, len);
+				}
+
+				case CHAR:
+				default:{
+					ensureBuffer(nb);
+					data.readFully(buffer, 0, nb);
+					int len = 0;
+					while(len < nb && buffer[len] != 0){
+						chars[len] = (char)(buffer[len] & 0xff);
+						len++;
+					}
+					return toString(field, len);
+				}
+			}
+		}
+
+		/**
+		 * Build the character string read in {@link #chars}.
+		 * 
+		 * @param field	Description of the field.
+		 * @param len	Number of characters.
+		 * 
+		 * @return	The string, or NULL if empty or equal to the null value of the field.
+		 */
+		private String toString(final Field field, final int len){
+			if (len == 0)
+				return null;
+			String str = new String(chars, 0, len);
+			return (field.nullValue != null && str.equals(field.nullValue)) ? null : str;
+		}
+	}
+
+	/**
+	 * <p>Input stream decoding the base64 content of the STREAM element on which the reader currently is.</p>
+	 * 
+	 * <p>
+	 * 	The characters are pulled from the StAX reader by chunks, into a buffer which is reused for the whole stream.
+	 * 	The end of this stream is reached with the end of the STREAM element.
+	 * </p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private final class Base64StreamInput extends InputStream {
+		/** Value of each base64 character. <i>-1 for a character to ignore.</i> */
+		private final byte[] decodeTable = new byte[128];
+		/** Characters read from the document. */
+		private final char[] charBuffer = new char[8192];
+		/** Decoded bytes. */
+		private final byte[] byteBuffer = new byte[(charBuffer.length / 4) * 3 + 3];
+		/** Number of decoded bytes in {@link #byteBuffer}. */
+		private int nbBytes = 0;
+		/** Position of the next byte to read in {@link #byteBuffer}. */
+		private int bytePos = 0;
+		/** Position of the next character to get from the current text event. */
+		private int textPos = 0;
+		/** Whether the reader is on a text event from which characters can still be got. */
+		private boolean inText = false;
+		/** Whether the end of the STREAM element has been reached. */
+		private boolean eos = false;
+		/** Bits of the base64 quantum being decoded. */
+		private int quantum = 0;
+		/** Number of characters in {@link #quantum}. */
+		private int nbQuantum = 0;
+
+		/**
+		 * Build the stream.
+		 */
+		Base64StreamInput(){
+			for(int i = 0; i < decodeTable.length; i++)
+				decodeTable[i] = -1;
+			String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+			for(int i = 0; i < alphabet.length(); i++)
+				decodeTable[alphabet.charAt(i)] = (byte)i;
+		}
+
+		/**
+		 * Tell whether all bytes of the stream have been read.
+		 * 
+		 * @return	<i>true</i> if there is no more byte to read, <i>false</i> otherwise.
+		 * 
+		 * @throws IOException	If the document can not be read.
+		 */
+		boolean isEnd() throws IOException{
+			return (bytePos >= nbBytes) && !fill();
+		}
+
+		@Override
+		public int read() throws IOException{
+			if (bytePos >= nbBytes && !fill())
+				return -1;
+			return byteBuffer[bytePos++] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException{
+			if (len == 0)
+				return 0;
+			if (bytePos >= nbBytes && !fill())
+				return -1;
+			int nb = Math.min(len, nbBytes - bytePos);
+			System.arraycopy(byteBuffer, bytePos, b, off, nb);
+			bytePos += nb;
+			return nb;
+		}
+
+		/**
+		 * Decode the next characters of the STREAM element.
+		 * 
+		 * @return	<i>true</i> if some bytes have been decoded, <i>false</i> if the end of the stream has been reached.
+		 * 
+		 * @throws IOException	If the document can not be read.
+		 */
+		private boolean fill() throws IOException{
+			nbBytes = 0;
+			bytePos = 0;
+			try{
+				while(nbBytes == 0 && !eos){
+					// Go to the next text event, if needed:
+					if (!inText){
+						int event = reader.next();
+						if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE){
+							inText = true;
+							textPos = 0;
+						}else if (event == XMLStreamConstants.END_ELEMENT || event == XMLStreamConstants.END_DOCUMENT){
+							eos = true;
+							flushQuantum();
+						}
+						continue;
+					}
+
+					// Get the next characters:
+					int nbChars = reader.getTextCharacters(textPos, charBuffer, 0, charBuffer.length);
+					if (nbChars <= 0){
+						inText = false;
+						continue;
+					}
+					textPos += nbChars;
+
+					// Decode them:
+					for(int i = 0; i < nbChars; i++){
+						char c = charBuffer[i];
+						if (c >= 128 || decodeTable[c] < 0)
+							continue;
+						quantum = (quantum << 6) | decodeTable[c];
+						if (++nbQuantum == 4){
+							byteBuffer[nbBytes++] = (byte)(quantum >> 16);
+							byteBuffer[nbBytes++] = (byte)(quantum >> 8);
+							byteBuffer[nbBytes++] = (byte)quantum;
+							quantum = 0;
+							nbQuantum = 0;
+						}
+					}
+				}
+			}catch(XMLStreamException xse){
+				Throwable cause = getCause(xse);
+				if (cause instanceof IOException)
+					throw (IOException)cause;
+				else
+					throw new IOException("Unable to read the BINARY stream: " + xse.getMessage(), xse);
+			}
+			return nbBytes > 0;
+		}
+
+		/**
+		 * Decode the last incomplete quantum (i.e. the one followed by a padding '=').
+		 */
+		private void flushQuantum(){
+			if (nbQuantum == 2)
+				byteBuffer[nbBytes++] = (byte)(quantum >> 4);
+			else if (nbQuantum == 3){
+				byteBuffer[nbBytes++] = (byte)(quantum >> 10);
+				byteBuffer[nbBytes++] = (byte)(quantum >> 2);
+			}
+			quantum = 0;
+			nbQuantum = 0;
+		}
+	}
+
+}
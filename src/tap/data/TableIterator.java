@@ -50,8 +50,33 @@ import tap.metadata.TAPColumn;
  * 	}
  * </pre>
  * 
+ * <h3>Typed accessors</h3>
+ * 
+ * <p>
+ * 	Instead of {@link #nextCol()}, the value of the next column may be read with a typed accessor: {@link #nextInt()}, {@link #nextLong()},
+ * 	{@link #nextDouble()}, {@link #nextBoolean()} or {@link #nextTimestamp()}. They return a primitive value, so that a formatter writing
+ * 	numbers does not have to box and unbox each of them. As in JDBC, a NULL value is returned as 0 (or <i>false</i>) by these functions:
+ * 	{@link #wasNull()} must then be called to know whether it was a NULL value.
+ * </p>
+ * 
+ * <p>Example of an expected usage:</p>
+ * <pre>
+ * 	while(it.nextRow()){
+ * 		double ra = it.nextDouble();
+ * 		if (it.wasNull())
+ * 			...
+ * 	}
+ * </pre>
+ * 
+ * <p><i>Note:
+ * 	The typed accessor to use should be chosen in function of the column type (see {@link #getMetadata()}).
+ * 	For instance, {@link #nextLong()} for a SMALLINT, INTEGER or BIGINT column, {@link #nextDouble()} for a REAL or DOUBLE column
+ * 	and {@link #nextTimestamp()} for a TIMESTAMP column. Any value which can not be converted into the asked type
+ * 	makes the accessor throw a {@link DataReadException}.
+ * </i></p>
+ * 
  * @author Gr&eacute;gory Mantelet (ARI) - gmantele@ari.uni-heidelberg.de
- * @version 2.0 (08/2014)
+ * @version 2.0 (10/2014)
  * @since 2.0
  */
 public interface TableIterator {
@@ -109,6 +134,107 @@ public interface TableIterator {
 	 */
 	public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException;
 
+	/**
+	 * <p>Return the value of the next column as an integer.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	A NULL value is returned as 0. {@link #wasNull()} tells whether the value was NULL.
+	 * </i></p>
+	 * 
+	 * @return	Get the value of the next column.
+	 * 
+	 * @throws NoSuchElementException	If no more column value is available.
+	 * @throws IllegalStateException	If {@link #nextRow()} has not yet been called.
+	 * @throws DataReadException	If an error occurs while reading the table dataset or if the value can not be converted into an integer.
+	 * 
+	 * @since 2.0
+	 */
+	public int nextInt() throws NoSuchElementException, IllegalStateException, DataReadException;
+
+	/**
+	 * <p>Return the value of the next column as a long integer.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	A NULL value is returned as 0. {@link #wasNull()} tells whether the value was NULL.
+	 * </i></p>
+	 * 
+	 * @return	Get the value of the next column.
+	 * 
+	 * @throws NoSuchElementException	If no more column value is available.
+	 * @throws IllegalStateException	If {@link #nextRow()} has not yet been called.
+	 * @throws DataReadException	If an error occurs while reading the table dataset or if the value can not be converted into a long integer.
+	 * 
+	 * @since 2.0
+	 */
+	public long nextLong() throws NoSuchElementException, IllegalStateException, DataReadException;
+
+	/**
+	 * <p>Return the value of the next column as a double.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	A NULL value is returned as 0. {@link #wasNull()} tells whether the value was NULL.
+	 * </i></p>
+	 * 
+	 * @return	Get the value of the next column.
+	 * 
+	 * @throws NoSuchElementException	If no more column value is available.
+	 * @throws IllegalStateException	If {@link #nextRow()} has not yet been called.
+	 * @throws DataReadException	If an error occurs while reading the table dataset or if the value can not be converted into a double.
+	 * 
+	 * @since 2.0
+	 */
+	public double nextDouble() throws NoSuchElementException, IllegalStateException, DataReadException;
+
+	/**
+	 * <p>Return the value of the next column as a boolean.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	A NULL value is returned as <i>false</i>. {@link #wasNull()} tells whether the value was NULL.
+	 * </i></p>
+	 * 
+	 * @return	Get the value of the next column.
+	 * 
+	 * @throws NoSuchElementException	If no more column value is available.
+	 * @throws IllegalStateException	If {@link #nextRow()} has not yet been called.
+	 * @throws DataReadException	If an error occurs while reading the table dataset or if the value can not be converted into a boolean.
+	 * 
+	 * @since 2.0
+	 */
+	public boolean nextBoolean() throws NoSuchElementException, IllegalStateException, DataReadException;
+
+	/**
+	 * <p>Return the value of the next column as a timestamp: the number of milliseconds since January 1, 1970, 00:00:00 GMT.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	A NULL value is returned as 0. {@link #wasNull()} tells whether the value was NULL.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	Contrary to {@link #nextCol()}, which may return a timestamp already formatted in ISO8601, this function returns the raw time
+	 * 	so that the formatter can write it as it wants.
+	 * </i></p>
+	 * 
+	 * @return	Get the value of the next column.
+	 * 
+	 * @throws NoSuchElementException	If no more column value is available.
+	 * @throws IllegalStateException	If {@link #nextRow()} has not yet been called.
+	 * @throws DataReadException	If an error occurs while reading the table dataset or if the value can not be converted into a timestamp.
+	 * 
+	 * @since 2.0
+	 */
+	public long nextTimestamp() throws NoSuchElementException, IllegalStateException, DataReadException;
+
+	/**
+	 * Tell whether the value of the last read column (by {@link #nextCol()} or by any typed accessor) was NULL.
+	 * 
+	 * @return	<i>true</i> if the last read value was NULL, <i>false</i> otherwise.
+	 * 
+	 * @throws IllegalStateException	If {@link #nextCol()} or a typed accessor has not yet been called.
+	 * 
+	 * @since 2.0
+	 */
+	public boolean wasNull() throws IllegalStateException;
+
 	/**
 	 * <p>Get the type of the current column value.</p>
 	 * 
@@ -0,0 +1,133 @@
+package tap.data;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import tap.metadata.TAPColumn;
+
+/**
+ * <p>{@link BatchTableIterator} reading the rows of any {@link TableIterator}.</p>
+ * 
+ * <p>
+ * 	Each value is read with the typed accessor of the wrapped iterator matching the type of the column vector
+ * 	(e.g. {@link TableIterator#nextDouble()} for a {@link ColumnBatch.VectorType#DOUBLE} column), so that the primitive values are not boxed
+ * 	if the wrapped iterator can read them directly.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	If a row has less values than columns, the missing values are set to NULL. The extra values are ignored.
+ * </i></p>
+ * 
+ * <p><i>Note:
+ * 	If the wrapped iterator is already a {@link BatchTableIterator} (e.g. {@link ResultSetTableIterator}),
+ * 	it should rather be used directly.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ * 
+ * @see BatchTableIteratorAdapter
+ */
+public class TableIteratorBatchAdapter implements BatchTableIterator {
+
+	/** The iterator to read by batches. */
+	private final TableIterator innerIt;
+
+	/** Metadata of all columns. */
+	private final TAPColumn[] colMeta;
+
+	/**
+	 * Build a {@link BatchTableIterator} reading the given {@link TableIterator}.
+	 * 
+	 * @param it	The iterator to read by batches.
+	 * 
+	 * @throws NullPointerException	If NULL is given in parameter.
+	 * @throws DataReadException	If the given iterator does not provide the column metadata.
+	 */
+	public TableIteratorBatchAdapter(final TableIterator it) throws NullPointerException, DataReadException{
+		if (it == null)
+			throw new NullPointerException("Missing TableIterator to read by batches!");
+		innerIt = it;
+		colMeta = it.getMetadata();
+		if (colMeta == null)
+			throw new DataReadException("Impossible to read a table by batches without its column metadata!");
+	}
+
+	/**
+	 * Get the wrapped iterator.
+	 * 
+	 * @return	The iterator read by batches.
+	 */
+	public final TableIterator getIterator(){
+		return innerIt;
+	}
+
+	@Override
+	public TAPColumn[] getMetadata(){
+		return colMeta;
+	}
+
+	@Override
+	public int nextBatch(final ColumnBatch batch) throws NullPointerException, IllegalArgumentException, DataReadException{
+		final int nbColumns = batch.getNbColumns();
+		if (nbColumns != colMeta.length)
+			throw new IllegalArgumentException("Incorrect batch: " + nbColumns + " columns instead of " + colMeta.length + "!");
+
+		final int capacity = batch.getCapacity();
+		int row = 0;
+		while(row < capacity && innerIt.nextRow()){
+			int col = 0;
+			while(col < nbColumns && innerIt.hasNextCol()){
+				boolean[] nulls = batch.getNulls(col);
+				switch(batch.getType(col)){
+					case LONG:
+						batch.getLongs(col)[row] = innerIt.nextLong();
+						nulls[row] = innerIt.wasNull();
+						break;
+					case TIMESTAMP:
+						batch.getLongs(col)[row] = innerIt.nextTimestamp();
+						nulls[row] = innerIt.wasNull();
+						break;
+					case DOUBLE:
+						batch.getDoubles(col)[row] = innerIt.nextDouble();
+						nulls[row] = innerIt.wasNull();
+						break;
+					default:
+						batch.setValue(col, row, innerIt.nextCol());
+						break;
+				}
+				col++;
+			}
+			// missing values => NULL:
+			for(; col < nbColumns; col++)
+				batch.setValue(col, row, null);
+			row++;
+		}
+
+		batch.setSize(row);
+		return row;
+	}
+
+	@Override
+	public void close() throws DataReadException{
+		innerIt.close();
+	}
+
+}
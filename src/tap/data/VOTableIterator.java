@@ -42,10 +42,10 @@ import uk.ac.starlink.table.TableBuilder;
  * <p>{@link #getColType()} will return TAP type based on the type declared in the VOTable metadata part.</p>
  * 
  * @author Gr&eacute;gory Mantelet (ARI)
- * @version 2.0 (07/2014)
+ * @version 2.0 (10/2014)
  * @since 2.0
  */
-public class VOTableIterator implements TableIterator {
+public class VOTableIterator extends AbstractTableIterator {
 
 	/** Metadata of all columns identified before the iteration. */
 	private final TAPColumn[] colMeta;
@@ -248,12 +248,19 @@ public class VOTableIterator implements TableIterator {
 
 		// Get the column value:
 		try{
-			return rowSeq.getCell(colIndex++);
+			Object value = rowSeq.getCell(colIndex++);
+			lastNull = (value == null);
+			return value;
 		}catch(IOException se){
 			throw new DataReadException("Can not read the value of the " + colIndex + "-th field!", se);
 		}
 	}
 
+	@Override
+	protected int getColIndex(){
+		return colIndex;
+	}
+
 	@Override
 	public DBType getColType() throws IllegalStateException, DataReadException{
 		// Basically check the read state (for rows iteration):
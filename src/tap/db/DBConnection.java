@@ -42,8 +42,16 @@ import adql.translator.ADQLTranslator;
  * 	a close() function.
  * </p>
  * 
+ * <p><b>Warning:</b>
+ * 	The functions {@link #indexUploadedTable(TAPTable, TAPColumn[], TAPColumn[][])}, {@link #setQueryTimeout(int)},
+ * 	{@link #cancel()} and {@link #setUploadProgressListener(UploadProgressListener)} have been added in the version 2.0
+ * 	of this interface. They are only optimizations: an implementation which does not support them can implement
+ * 	them as functions doing nothing (and returning <i>false</i> for {@link #indexUploadedTable(TAPTable, TAPColumn[], TAPColumn[][])}).
+ * 	{@link JDBCConnection} implements all of them.
+ * </p>
+ * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (09/2014)
+ * @version 2.0 (10/2014)
  */
 public interface DBConnection {
 
@@ -217,6 +225,27 @@ public interface DBConnection {
 	 */
 	public boolean dropUploadedTable(final TAPTable tableDef) throws DBException;
 
+	/**
+	 * <p>Prepare the specified uploaded table for the query about to be executed: index the given columns
+	 * and update the statistics of the table, so that the DBMS can choose an efficient execution plan.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Whether the table is really indexed (e.g. only if it is big enough) and which kind of index is created
+	 * 	is implementation-dependent. An implementation may even never do anything ; in this case, it has just to return <i>false</i>.
+	 * </i></p>
+	 * 
+	 * @param tableDef	Definition of the uploaded table to index (as given to {@link #addUploadedTable(TAPTable, TableIterator)}).
+	 * @param columns	Columns of this table used in the join or WHERE conditions of the query. <i>May be NULL or empty.</i>
+	 * @param points	Pairs of columns of this table used as coordinates of a POINT in a geometrical function. <i>May be NULL or empty.</i>
+	 * 
+	 * @return	<i>true</i> if the table has been indexed and/or analyzed, <i>false</i> if nothing has been done.
+	 * 
+	 * @throws DBException	If any error occurs while accessing the specified uploaded table.
+	 * 
+	 * @since 2.0
+	 */
+	public boolean indexUploadedTable(final TAPTable tableDef, final TAPColumn[] columns, final TAPColumn[][] points) throws DBException;
+
 	/**
 	 * <p>Let executing the given ADQL query.</p>
 	 * 
@@ -235,4 +264,57 @@ public interface DBConnection {
 	 */
 	public TableIterator executeQuery(final ADQLQuery adqlQuery) throws DBException;
 
+	/**
+	 * <p>Set the maximum time the database may spend on the execution of the next queries (see {@link #executeQuery(ADQLQuery)}).</p>
+	 * 
+	 * <p>
+	 * 	Once this time elapsed, the query should be stopped by the database itself (and so, a {@link DBException} should be thrown
+	 * 	by {@link #executeQuery(ADQLQuery)} or by the returned {@link TableIterator}). Thus, a query can never use database resources
+	 * 	longer than the execution duration of its job.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	How this timeout is applied is implementation-dependent. If the database does not support it, this function may do nothing.
+	 * </i></p>
+	 * 
+	 * @param seconds	Maximum execution time (in seconds). <i>A negative or null value means no limit.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public void setQueryTimeout(final int seconds);
+
+	/**
+	 * <p>Cancel the query currently executed in the database by this connection, if any.</p>
+	 * 
+	 * <p>
+	 * 	This function is expected to be called by another thread than the one executing the query ; typically, by the thread
+	 * 	aborting the job (because of a user request or of a time-out). After this call, {@link #executeQuery(ADQLQuery)}
+	 * 	or the {@link TableIterator} it has returned should stop as soon as possible by throwing a {@link DBException},
+	 * 	and the database resources used by the query should be released. The same applies to a running
+	 * 	{@link #addUploadedTable(TAPTable, TableIterator)}.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	If no query is running, nothing should be done. This function should never throw any exception ;
+	 * 	errors should be just logged.
+	 * </i></p>
+	 * 
+	 * @since 2.0
+	 */
+	public void cancel();
+
+	/**
+	 * <p>Set the object to notify of the progression of the next uploads (see {@link #addUploadedTable(TAPTable, TableIterator)}).</p>
+	 * 
+	 * <p><i>Note:
+	 * 	How often the listener is notified is implementation-dependent. An implementation may even never notify it ; in this case,
+	 * 	this function may do nothing.
+	 * </i></p>
+	 * 
+	 * @param listener	The listener to notify. <i>NULL to stop notifying.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public void setUploadProgressListener(final UploadProgressListener listener);
+
 }
@@ -0,0 +1,108 @@
+package tap.db;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import adql.translator.JDBCTranslator;
+import tap.log.TAPLog;
+
+/**
+ * <p>Features of a DBMS, as declared by the {@link DatabaseMetaData} of a JDBC connection.</p>
+ * 
+ * <p>
+ * 	These features are used by {@link JDBCConnection} in order to adapt its behavior to the DBMS (see the documentation
+ * 	of {@link JDBCConnection} for more details). Since detecting them requires several requests to the database, they can be
+ * 	detected once and then shared by all the {@link JDBCConnection}s to the same database
+ * 	(see {@link JDBCConnection#JDBCConnection(Connection, JDBCTranslator, String, TAPLog, DBMSFeatures)}).
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	An instance of this class is immutable and so can be safely shared between threads.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public final class DBMSFeatures {
+
+	/** Name (in lower-case) of the DBMS, as written in the JDBC URL. */
+	public final String dbms;
+
+	/** Indicate whether the DBMS supports transactions. */
+	public final boolean supportsTransaction;
+	/** Indicate whether the DBMS supports batch updates. */
+	public final boolean supportsBatchUpdates;
+	/** Indicate whether the DBMS supports the definition and manipulation of data inside transactions. */
+	public final boolean supportsDataDefinition;
+	/** Indicate whether the DBMS has the notion of SCHEMA. */
+	public final boolean supportsSchema;
+
+	/** Indicate whether unquoted identifiers are stored in lower case. */
+	public final boolean lowerCaseUnquoted;
+	/** Indicate whether unquoted identifiers are stored in upper case. */
+	public final boolean upperCaseUnquoted;
+	/** Indicate whether unquoted identifiers are case sensitive and stored in mixed case. */
+	public final boolean supportsMixedCaseUnquotedIdentifier;
+	/** Indicate whether quoted identifiers are stored in lower case. */
+	public final boolean lowerCaseQuoted;
+	/** Indicate whether quoted identifiers are stored in mixed case. */
+	public final boolean mixedCaseQuoted;
+	/** Indicate whether quoted identifiers are stored in upper case. */
+	public final boolean upperCaseQuoted;
+	/** Indicate whether quoted identifiers are case sensitive and stored in mixed case. */
+	public final boolean supportsMixedCaseQuotedIdentifier;
+
+	/**
+	 * Detect the features of the DBMS to which the given connection is linked.
+	 * 
+	 * @param conn	An opened JDBC connection.
+	 * 
+	 * @throws NullPointerException	If the given connection is NULL.
+	 * @throws DBException			If one or several DB metadata can not be fetched,
+	 *                    			or if the DBMS name can not be extracted from the database URL.
+	 */
+	public DBMSFeatures(final Connection conn) throws NullPointerException, DBException{
+		if (conn == null)
+			throw new NullPointerException("Missing SQL connection! => can not detect the DBMS features.");
+
+		try{
+			DatabaseMetaData dbMeta = conn.getMetaData();
+			dbms = JDBCConnection.getDBMSName(dbMeta.getURL());
+			supportsTransaction = dbMeta.supportsTransactions();
+			supportsBatchUpdates = dbMeta.supportsBatchUpdates();
+			supportsDataDefinition = dbMeta.supportsDataDefinitionAndDataManipulationTransactions();
+			supportsSchema = dbMeta.supportsSchemasInTableDefinitions();
+			lowerCaseUnquoted = dbMeta.storesLowerCaseIdentifiers();
+			upperCaseUnquoted = dbMeta.storesUpperCaseIdentifiers();
+			supportsMixedCaseUnquotedIdentifier = dbMeta.supportsMixedCaseIdentifiers();
+			lowerCaseQuoted = dbMeta.storesLowerCaseQuotedIdentifiers();
+			mixedCaseQuoted = dbMeta.storesMixedCaseQuotedIdentifiers();
+			upperCaseQuoted = dbMeta.storesUpperCaseQuotedIdentifiers();
+			supportsMixedCaseQuotedIdentifier = dbMeta.supportsMixedCaseQuotedIdentifiers();
+		}catch(SQLException se){
+			throw new DBException("Unable to access to one or several DB metadata (url, supportsTransaction, supportsBatchUpdates, supportsDataDefinitionAndDataManipulationTransactions, supportsSchemasInTableDefinitions, storesLowerCaseIdentifiers, storesUpperCaseIdentifiers, supportsMixedCaseIdentifiers, storesLowerCaseQuotedIdentifiers, storesMixedCaseQuotedIdentifiers, storesUpperCaseQuotedIdentifiers and supportsMixedCaseQuotedIdentifiers) from the given Connection!");
+		}
+	}
+
+}
@@ -20,21 +20,32 @@ package tap.db;
  *                       Astronomisches Rechen Institut (ARI)
  */
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
+import tap.QueryCache;
 import tap.data.DataReadException;
 import tap.data.ResultSetTableIterator;
 import tap.data.TableIterator;
@@ -49,6 +60,7 @@ import tap.metadata.TAPTable;
 import tap.metadata.TAPTable.TableType;
 import uws.ISO8601Format;
 import uws.service.log.UWSLog.LogLevel;
+import adql.db.DBColumn;
 import adql.db.DBType;
 import adql.db.DBType.DBDatatype;
 import adql.query.ADQLQuery;
@@ -92,9 +104,38 @@ import adql.translator.TranslationException;
  * </ul>
  * 
  * <p><i><b>Warning</b>:
- * 	All these features have no impact at all on ADQL query executions ({@link #executeQuery(ADQLQuery)}).
+ * 	All these features have no impact at all on ADQL query executions ({@link #executeQuery(ADQLQuery)}),
+ * 	except transactions which are needed to stream the query result (see below).
  * </i></p>
  * 
+ * <h3>Query result streaming</h3>
+ * 
+ * <p>
+ * 	By default, some JDBC drivers (like the PostgreSQL one) load the whole query result in memory before giving the first row.
+ * 	To avoid that, {@link #executeQuery(ADQLQuery)} executes the query with a forward-only and read-only cursor,
+ * 	inside a read-only transaction (i.e. with AutoCommit turned off) and with a fetch size (see {@link #setFetchSize(int)}).
+ * 	Thus, only {@link #getFetchSize()} rows are kept in memory at a time, whatever is the number of rows to read.
+ * 	The transaction is ended when the returned {@link TableIterator} is closed.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	If transactions are not supported, or if the fetch size is negative or null, the query result is read in the default JDBC driver way.
+ * </i></p>
+ * 
+ * <h3>Upload bulk loading</h3>
+ * 
+ * <p>
+ * 	With PostgreSQL, uploaded tables are filled using the COPY protocol of the JDBC driver (see {@link #copyUploadedTable(Object, TAPTable, TableIterator)}):
+ * 	rows are encoded in CSV and streamed to the database while being read from the given {@link TableIterator}, without any round trip per row.
+ * 	For all other DBMS, or if the COPY protocol is not available, rows are inserted with a {@link PreparedStatement} (batched if possible).
+ * </p>
+ * 
+ * <p>
+ * 	The kind of table created for uploads (regular, unlogged or temporary) is chosen in function of the DBMS (see {@link #getDefaultUploadTableType()}),
+ * 	but can be changed with {@link #setUploadTableType(UploadTableType)}. Besides, the existence of the upload schema is checked only once
+ * 	per connection (see {@link #ensureUploadSchema(TAPTable)}).
+ * </p>
+ * 
  * <h3>Datatypes</h3>
  * 
  * <p>Column types are converted from DBMS to TAP types with {@link #getTAPType(String)} and from TAP to DBMS types with {@link #getDBMSDatatype(DBType)}.</p>
@@ -154,6 +195,9 @@ public class JDBCConnection implements DBConnection {
 
 	/* DBMS SUPPORTED FEATURES */
 
+	/** Features of the DBMS as detected at the creation of this connection (or as given to the constructor). <i>note: the flags below are initialized with these features, but they may change afterwards in case of failure.</i> */
+	protected final DBMSFeatures features;
+
 	/** Indicate whether the DBMS supports transactions (start, commit, rollback and end). <i>note: If no transaction is possible, no transaction will be used, but then, it will never possible to cancel modifications in case of error.</i> */
 	protected boolean supportsTransaction;
 
@@ -163,9 +207,102 @@ public class JDBCConnection implements DBConnection {
 	/** Indicate whether the DBMS supports several updates in once (using {@link Statement#addBatch(String)} and {@link Statement#executeBatch()}). <i>note: If not supported, every updates will be done one by one. So it is not really a problem, but just a loss of optimization.</i> */
 	protected boolean supportsBatchUpdates;
 
+	/** Indicate whether the connection can be set in read-only mode while executing a query (see {@link Connection#setReadOnly(boolean)}). <i>note: If not supported, queries are streamed without setting the read-only flag ; it is then up to the DB user permissions to forbid any modification.</i> */
+	protected boolean supportsReadOnly = true;
+
+	/** Indicate whether the DBMS supports the fetch size hint (see {@link Statement#setFetchSize(int)}). <i>note: If not supported, the whole query result may be loaded in memory by the JDBC driver.</i> */
+	protected boolean supportsFetchSize = true;
+
+	/** Indicate whether the COPY protocol of the PostgreSQL JDBC driver can be used to fill uploaded tables. <i>note: If not supported, rows are inserted with a {@link PreparedStatement} ; it is just a loss of optimization.</i> */
+	protected boolean supportsCopy;
+
 	/** Indicate whether the DBMS has the notion of SCHEMA. Most of the DBMS has it, but not SQLite for instance. <i>note: If not supported, the DB table name will be prefixed by the DB schema name followed by the character "_". Nevertheless, if the DB schema name is NULL, the DB table name will never be prefixed.</i> */
 	protected boolean supportsSchema;
 
+	/* QUERY RESULT STREAMING */
+
+	/** Default number of rows fetched at once from the database while reading a query result. */
+	public final static int DEFAULT_FETCH_SIZE = 10000;
+
+	/** Number of rows to fetch at once from the database while reading a query result.
+	 * <i>note: If negative or null, the query result will not be streamed (see {@link #executeQuery(ADQLQuery)}).</i> */
+	protected int fetchSize = DEFAULT_FETCH_SIZE;
+
+	/* QUERY EXECUTION CONTROL */
+
+	/** Maximum time (in seconds) the database may spend on the execution of a query. <i>note: If negative or null, there is no limit.</i> */
+	protected int queryTimeout = 0;
+
+	/** Statement of the query currently executed (or whose the result is currently read), or of the table currently uploaded. It is the statement canceled by {@link #cancel()}.
+	 * <i>note: NULL if no query is running.</i> */
+	private volatile Statement runningStatement = null;
+
+	/** Cache in which the SQL translation of the cached ADQL queries is kept. <i>note: NULL if translations must not be cached.</i>
+	 * @since 2.0 */
+	protected QueryCache queryCache = null;
+
+	/* UPLOAD BATCHES */
+
+	/** Default maximum number of rows inserted in one batch while filling an uploaded table. */
+	public final static int DEFAULT_UPLOAD_BATCH_ROWS = 1000;
+
+	/** Default maximum (estimated) size, in bytes, of the rows inserted in one batch while filling an uploaded table. */
+	public final static long DEFAULT_UPLOAD_BATCH_BYTES = 4 * 1024 * 1024;
+
+	/** Maximum number of rows inserted in one batch while filling an uploaded table. <i>note: it is also the number of rows between two progress notifications.</i> */
+	protected int uploadBatchRows = DEFAULT_UPLOAD_BATCH_ROWS;
+
+	/** Maximum (estimated) size, in bytes, of the rows inserted in one batch while filling an uploaded table. <i>note: if negative or null, only {@link #uploadBatchRows} is considered.</i> */
+	protected long uploadBatchBytes = DEFAULT_UPLOAD_BATCH_BYTES;
+
+	/** Indicate whether savepoints can be set to recover from a failed upload batch. <i>note: If not supported, a failed batch makes the whole upload fail.</i> */
+	protected boolean supportsSavepoints = true;
+
+	/** Object to notify of the upload progression. <i>note: NULL if no notification must be sent.</i> */
+	protected UploadProgressListener uploadListener = null;
+
+	/* UPLOAD STORAGE */
+
+	/**
+	 * Kind of table created in the database for the tables uploaded by users.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	public static enum UploadTableType{
+		/** Ordinary table. */
+		REGULAR,
+		/** Table whose the modifications are not written in the transaction log (PostgreSQL only). It is not crash-safe, but much faster to fill. */
+		UNLOGGED,
+		/** Table visible only from the connection which has created it. It is automatically dropped when this connection is closed. */
+		TEMPORARY;
+	}
+
+	/** Name of the temporary schema of a PostgreSQL session. */
+	protected final static String PG_TEMP_SCHEMA = "pg_temp";
+
+	/** Kind of table created for the tables uploaded by users. <i>note: by default, it is chosen in function of the DBMS (see {@link #getDefaultUploadTableType()}).</i> */
+	protected UploadTableType uploadTableType;
+
+	/** DB name of the upload schema known to exist, for each wrapped {@link Connection}. <i>note: entries are removed when the connection is garbage collected.</i> */
+	private final static Map<Connection,String> knownUploadSchemas = Collections.synchronizedMap(new WeakHashMap<Connection,String>());
+
+	/* UPLOAD INDEXING */
+
+	/** Default minimum number of rows an uploaded table must have to be indexed before the query execution. */
+	public final static int DEFAULT_UPLOAD_INDEX_THRESHOLD = 10000;
+
+	/** Minimum number of rows an uploaded table must have to be indexed before the query execution. <i>note: if negative, uploaded tables are never indexed.</i> */
+	protected int uploadIndexThreshold = DEFAULT_UPLOAD_INDEX_THRESHOLD;
+
+	/** Number of rows inserted in each table uploaded with this connection. <i>note: an entry is removed when the table is dropped.</i> */
+	protected final Map<TAPTable,Integer> uploadedRows = new HashMap<TAPTable,Integer>();
+
+	/** Definition of the indexes already created on each uploaded table (key: qualified DB name of the table), whatever is the connection which has created them.
+	 * <i>note: an entry is removed when the table is dropped.</i> */
+	private final static Map<String,Set<String>> knownUploadIndexes = new HashMap<String,Set<String>>();
+
 	/* CASE SENSITIVITY SUPPORT */
 
 	/** Indicate whether UNquoted identifiers will be considered as case INsensitive and stored in mixed case by the DBMS. <i>note: If FALSE, unquoted identifiers will still be considered as case insensitive for the researches, but will be stored in lower or upper case (in function of {@link #lowerCaseUnquoted} and {@link #upperCaseUnquoted}). If none of these two flags is TRUE, the storage case will be though considered as mixed.</i> */
@@ -213,12 +350,40 @@ public class JDBCConnection implements DBConnection {
 	/**
 	 * Create a JDBC connection by wrapping the given connection.
 	 * 
+	 * <p><i>Note:
+	 * 	The features of the DBMS are detected with the {@link DatabaseMetaData} of the given connection. To avoid this detection,
+	 * 	use {@link #JDBCConnection(Connection, JDBCTranslator, String, TAPLog, DBMSFeatures)} with already detected features.
+	 * </i></p>
+	 * 
 	 * @param conn			Connection to wrap.
 	 * @param translator	{@link ADQLTranslator} to use in order to get SQL from an ADQL query and to get qualified DB table names.
 	 * @param connID		ID of this connection. <i>note: may be NULL ; but in this case, logs concerning this connection will be more difficult to localize.</i>
 	 * @param logger		Logger to use in case of need. <i>note: may be NULL ; in this case, error will never be logged, but sometimes DBException may be raised.</i>
 	 */
 	public JDBCConnection(final Connection conn, final JDBCTranslator translator, final String connID, final TAPLog logger) throws DBException{
+		this(conn, translator, connID, logger, null);
+	}
+
+	/**
+	 * <p>Create a JDBC connection by wrapping the given connection and by using the given DBMS features.</p>
+	 * 
+	 * <p>
+	 * 	Detecting the DBMS features requires several requests to the database. So, when several connections to the same database are created
+	 * 	(i.e. by a pool of connections), the features should be detected only once (see {@link DBMSFeatures#DBMSFeatures(Connection)}
+	 * 	or {@link #getDBMSFeatures()}) and given to this constructor.
+	 * </p>
+	 * 
+	 * @param conn			Connection to wrap.
+	 * @param translator	{@link ADQLTranslator} to use in order to get SQL from an ADQL query and to get qualified DB table names.
+	 * @param connID		ID of this connection. <i>note: may be NULL ; but in this case, logs concerning this connection will be more difficult to localize.</i>
+	 * @param logger		Logger to use in case of need. <i>note: may be NULL ; in this case, error will never be logged, but sometimes DBException may be raised.</i>
+	 * @param features		Features of the DBMS. <i>note: if NULL, they will be detected with the {@link DatabaseMetaData} of the given connection.</i>
+	 * 
+	 * @throws DBException	If the DBMS features must be detected but can not be.
+	 * 
+	 * @since 2.0
+	 */
+	public JDBCConnection(final Connection conn, final JDBCTranslator translator, final String connID, final TAPLog logger, final DBMSFeatures features) throws DBException{
 		if (conn == null)
 			throw new NullPointerException("Missing SQL connection! => can not create a JDBCConnection object.");
 		if (translator == null)
@@ -230,23 +395,23 @@ public class JDBCConnection implements DBConnection {
 		this.logger = logger;
 
 		// Set the supporting features' flags + DBMS type:
-		try{
-			DatabaseMetaData dbMeta = connection.getMetaData();
-			dbms = getDBMSName(dbMeta.getURL());
-			supportsTransaction = dbMeta.supportsTransactions();
-			supportsBatchUpdates = dbMeta.supportsBatchUpdates();
-			supportsDataDefinition = dbMeta.supportsDataDefinitionAndDataManipulationTransactions();
-			supportsSchema = dbMeta.supportsSchemasInTableDefinitions();
-			lowerCaseUnquoted = dbMeta.storesLowerCaseIdentifiers();
-			upperCaseUnquoted = dbMeta.storesUpperCaseIdentifiers();
-			supportsMixedCaseUnquotedIdentifier = dbMeta.supportsMixedCaseIdentifiers();
-			lowerCaseQuoted = dbMeta.storesLowerCaseQuotedIdentifiers();
-			mixedCaseQuoted = dbMeta.storesMixedCaseQuotedIdentifiers();
-			upperCaseQuoted = dbMeta.storesUpperCaseQuotedIdentifiers();
-			supportsMixedCaseQuotedIdentifier = dbMeta.supportsMixedCaseQuotedIdentifiers();
-		}catch(SQLException se){
-			throw new DBException("Unable to access to one or several DB metadata (url, supportsTransaction, supportsBatchUpdates, supportsDataDefinitionAndDataManipulationTransactions, supportsSchemasInTableDefinitions, storesLowerCaseIdentifiers, storesUpperCaseIdentifiers, supportsMixedCaseIdentifiers, storesLowerCaseQuotedIdentifiers, storesMixedCaseQuotedIdentifiers, storesUpperCaseQuotedIdentifiers and supportsMixedCaseQuotedIdentifiers) from the given Connection!");
-		}
+		this.features = (features != null) ? features : new DBMSFeatures(conn);
+		dbms = this.features.dbms;
+		supportsTransaction = this.features.supportsTransaction;
+		supportsBatchUpdates = this.features.supportsBatchUpdates;
+		supportsDataDefinition = this.features.supportsDataDefinition;
+		supportsSchema = this.features.supportsSchema;
+		supportsCopy = DBMS_POSTGRES.equals(dbms);
+
+		// Choose the kind of table to create for uploads:
+		uploadTableType = getDefaultUploadTableType();
+		lowerCaseUnquoted = this.features.lowerCaseUnquoted;
+		upperCaseUnquoted = this.features.upperCaseUnquoted;
+		supportsMixedCaseUnquotedIdentifier = this.features.supportsMixedCaseUnquotedIdentifier;
+		lowerCaseQuoted = this.features.lowerCaseQuoted;
+		mixedCaseQuoted = this.features.mixedCaseQuoted;
+		upperCaseQuoted = this.features.upperCaseQuoted;
+		supportsMixedCaseQuotedIdentifier = this.features.supportsMixedCaseQuotedIdentifier;
 	}
 
 	/**
@@ -286,8 +451,9 @@ public class JDBCConnection implements DBConnection {
 	 * @throws DBException	If the driver can not be found or if the connection can not merely be created (usually because DB parameters are wrong).
 	 * 
 	 * @see DriverManager#getConnection(String, String, String)
+	 * @see SQLiteHealpix#registerFunctions(Connection)
 	 */
-	private final static Connection createConnection(final String driverPath, final String dbUrl, final String dbUser, final String dbPassword) throws DBException{
+	public final static Connection createConnection(final String driverPath, final String dbUrl, final String dbUser, final String dbPassword) throws DBException{
 		// Load the specified JDBC driver:
 		try{
 			Class.forName(driverPath);
@@ -297,11 +463,25 @@ public class JDBCConnection implements DBConnection {
 
 		// Build a connection to the specified database:
 		String url = dbUrl.startsWith(JDBC_PREFIX) ? dbUrl : (JDBC_PREFIX + dbUrl);
+		Connection conn;
 		try{
-			return DriverManager.getConnection(url, dbUser, dbPassword);
+			conn = DriverManager.getConnection(url, dbUser, dbPassword);
 		}catch(SQLException se){
 			throw new DBException("Impossible to establish a connection to the database \"" + url + "\" !", se);
 		}
+
+		// Add the HEALPix functions in SQLite (they are defined per connection):
+		if (url.startsWith(JDBC_PREFIX + ":sqlite:")){
+			try{
+				SQLiteHealpix.registerFunctions(conn);
+			}catch(SQLException se){
+				try{
+					conn.close();
+				}catch(SQLException ignored){}
+				throw new DBException("Impossible to register the HEALPix functions in the SQLite database \"" + url + "\" !", se);
+			}
+		}
+		return conn;
 	}
 
 	@Override
@@ -309,6 +489,22 @@ public class JDBCConnection implements DBConnection {
 		return ID;
 	}
 
+	/**
+	 * <p>Get the features of the DBMS, as detected (or given) at the creation of this connection.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The returned object can be given to {@link #JDBCConnection(Connection, JDBCTranslator, String, TAPLog, DBMSFeatures)}
+	 * 	in order to create another connection to the same database without detecting again these features.
+	 * </i></p>
+	 * 
+	 * @return	The DBMS features.
+	 * 
+	 * @since 2.0
+	 */
+	public final DBMSFeatures getDBMSFeatures(){
+		return features;
+	}
+
 	/**
 	 * <p>Get the JDBC connection wrapped by this {@link JDBCConnection} object.</p>
 	 * 
@@ -322,98 +518,550 @@ public class JDBCConnection implements DBConnection {
 		return connection;
 	}
 
+	/**
+	 * <p>Get the number of rows fetched at once from the database while reading a query result.</p>
+	 * 
+	 * @return	The fetch size, or a negative or null value if query results are not streamed.
+	 * 
+	 * @see #executeQuery(ADQLQuery)
+	 */
+	public final int getFetchSize(){
+		return fetchSize;
+	}
+
+	/**
+	 * <p>Set the number of rows to fetch at once from the database while reading a query result.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	A negative or null value disables the streaming of query results. The JDBC driver will then read the query result
+	 * 	in its default way (which may mean loading the whole result in memory before returning the first row).
+	 * </i></p>
+	 * 
+	 * @param size	The new fetch size.
+	 * 
+	 * @see #executeQuery(ADQLQuery)
+	 */
+	public final void setFetchSize(final int size){
+		fetchSize = size;
+	}
+
+	/**
+	 * <p>Get the maximum number of rows inserted in one batch while filling an uploaded table.</p>
+	 * 
+	 * @return	The maximum number of rows per batch.
+	 * 
+	 * @see #fillUploadedTable(TAPTable, TableIterator)
+	 * 
+	 * @since 2.0
+	 */
+	public final int getUploadBatchRows(){
+		return uploadBatchRows;
+	}
+
+	/**
+	 * <p>Set the maximum number of rows inserted in one batch while filling an uploaded table.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	It is also the number of rows between two notifications of the upload progression (see {@link #setUploadProgressListener(UploadProgressListener)}).
+	 * </i></p>
+	 * 
+	 * @param nbRows	The maximum number of rows per batch. <i>note: if negative or null, 1 will be set.</i>
+	 * 
+	 * @see #fillUploadedTable(TAPTable, TableIterator)
+	 * 
+	 * @since 2.0
+	 */
+	public final void setUploadBatchRows(final int nbRows){
+		uploadBatchRows = Math.max(1, nbRows);
+	}
+
+	/**
+	 * <p>Get the maximum (estimated) size of the rows inserted in one batch while filling an uploaded table.</p>
+	 * 
+	 * @return	The maximum size (in bytes) of a batch, or a negative or null value if there is no such limit.
+	 * 
+	 * @see #fillUploadedTable(TAPTable, TableIterator)
+	 * 
+	 * @since 2.0
+	 */
+	public final long getUploadBatchBytes(){
+		return uploadBatchBytes;
+	}
+
+	/**
+	 * <p>Set the maximum (estimated) size of the rows inserted in one batch while filling an uploaded table.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The size of a row is estimated by {@link #estimateSize(Object[])}.
+	 * </i></p>
+	 * 
+	 * @param nbBytes	The maximum size (in bytes) of a batch. <i>note: if negative or null, the batch size will be limited only in rows.</i>
+	 * 
+	 * @see #fillUploadedTable(TAPTable, TableIterator)
+	 * 
+	 * @since 2.0
+	 */
+	public final void setUploadBatchBytes(final long nbBytes){
+		uploadBatchBytes = nbBytes;
+	}
+
+	/**
+	 * <p>Get the kind of table which should be created by default (in function of the DBMS) for the tables uploaded by users:</p>
+	 * <ul>
+	 * 	<li><b>PostgreSQL</b>: {@link UploadTableType#UNLOGGED}. Uploaded tables are then still visible from other connections
+	 * 	                       (which is needed to load several tables in parallel - see {@link tap.upload.Uploader#setMaxParallelUploads(int)}).</li>
+	 * 	<li><b>SQLite</b>: {@link UploadTableType#TEMPORARY}. Uploaded tables are then not written in the database file.</li>
+	 * 	<li><b>any other DBMS</b>: {@link UploadTableType#REGULAR}.</li>
+	 * </ul>
+	 * 
+	 * @return	The default kind of uploaded table.
+	 * 
+	 * @since 2.0
+	 */
+	protected UploadTableType getDefaultUploadTableType(){
+		if (DBMS_POSTGRES.equals(dbms))
+			return UploadTableType.UNLOGGED;
+		else if (DBMS_SQLITE.equals(dbms))
+			return UploadTableType.TEMPORARY;
+		else
+			return UploadTableType.REGULAR;
+	}
+
+	/**
+	 * Get the kind of table created for the tables uploaded by users.
+	 * 
+	 * @return	The kind of uploaded table.
+	 * 
+	 * @since 2.0
+	 */
+	public final UploadTableType getUploadTableType(){
+		return uploadTableType;
+	}
+
+	/**
+	 * <p>Set the kind of table to create for the tables uploaded by users.</p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	Temporary tables are visible only from the connection which has created them. So, they must not be used
+	 * 	if uploaded tables are loaded with another connection than the one executing the query (e.g. in a parallel upload).
+	 * 	Besides, the DBMS must support the statement <code>CREATE TEMPORARY TABLE</code>.
+	 * </i></p>
+	 * 
+	 * @param type	The kind of uploaded table. <i>note: if NULL, the default one will be set (see {@link #getDefaultUploadTableType()}).</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final void setUploadTableType(final UploadTableType type){
+		uploadTableType = (type == null) ? getDefaultUploadTableType() : type;
+	}
+
+	/**
+	 * <p>Get the minimum number of rows an uploaded table must have to be indexed before the query execution.</p>
+	 * 
+	 * @return	The minimum number of rows, or a negative value if uploaded tables are never indexed.
+	 * 
+	 * @see #indexUploadedTable(TAPTable, TAPColumn[], TAPColumn[][])
+	 * 
+	 * @since 2.0
+	 */
+	public final int getUploadIndexThreshold(){
+		return uploadIndexThreshold;
+	}
+
+	/**
+	 * <p>Set the minimum number of rows an uploaded table must have to be indexed before the query execution.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Indexing a small table costs more than scanning it. So, this threshold should not be too small.
+	 * </i></p>
+	 * 
+	 * @param nbRows	The minimum number of rows. <i>note: 0 to always index ; a negative value to never index.</i>
+	 * 
+	 * @see #indexUploadedTable(TAPTable, TAPColumn[], TAPColumn[][])
+	 * 
+	 * @since 2.0
+	 */
+	public final void setUploadIndexThreshold(final int nbRows){
+		uploadIndexThreshold = nbRows;
+	}
+
+	@Override
+	public void setUploadProgressListener(final UploadProgressListener listener){
+		uploadListener = listener;
+	}
+
 	/* ********************* */
 	/* INTERROGATION METHODS */
 	/* ********************* */
+
+	/**
+	 * <p><i>Note:
+	 * 	If transactions are supported and if the fetch size is positive (see {@link #setFetchSize(int)}), the query result is streamed:
+	 * 	the query is executed inside a read-only transaction (see {@link #startStreaming()}), with a forward-only cursor
+	 * 	and with the set fetch size. This transaction is ended (see {@link #endStreaming()}) when the returned {@link TableIterator} is closed.
+	 * </i></p>
+	 * 
+	 * <p><i><b>Important note:</b>
+	 * 	Whatever is the execution mode, the returned {@link TableIterator} MUST be closed in order to free the database resources
+	 * 	(result, statement and transaction).
+	 * </i></p>
+	 * 
+	 * @see tap.db.DBConnection#executeQuery(adql.query.ADQLQuery)
+	 */
 	@Override
 	public TableIterator executeQuery(final ADQLQuery adqlQuery) throws DBException{
 		String sql = null;
+		Statement stmt = null;
 		ResultSet result = null;
+		boolean streaming = false;
 		try{
-			// 1. Translate the ADQL query into SQL:
-			if (logger != null) logger.logDB(LogLevel.INFO, this, "TRANSLATE", "Translating ADQL: " + adqlQuery.toADQL().replaceAll("(\t|\r?\n)+", " "), null);
-			sql = translator.translate(adqlQuery);
+			// 1. Translate the ADQL query into SQL (unless already translated, if the query is cached):
+			sql = (queryCache == null) ? null : queryCache.getSQL(adqlQuery);
+			if (sql == null){
+				if (logger != null) logger.logDB(LogLevel.INFO, this, "TRANSLATE", "Translating ADQL: " + adqlQuery.toADQL().replaceAll("(\t|\r?\n)+", " "), null);
+				sql = translator.translate(adqlQuery);
+				if (queryCache != null)
+					queryCache.putSQL(adqlQuery, sql);
+			}
+
+			// 2. Start the streaming mode, if possible:
+			streaming = startStreaming();
+
+			// 3. Create a forward-only statement:
+			stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			// ...make it cancelable:
+			runningStatement = stmt;
+			// ...limit its execution time:
+			applyQueryTimeout(stmt, streaming);
+			// ...and set the number of rows to fetch at once:
+			if (streaming && supportsFetchSize){
+				try{
+					stmt.setFetchSize(fetchSize);
+				}catch(SQLException se){
+					supportsFetchSize = false;
+					if (logger != null) logger.logDB(LogLevel.WARNING, this, "EXECUTE", "Fetch size not supported => the query result may be entirely loaded in memory!", se);
+				}
+			}
 
-			// 2. Execute the SQL query:
-			Statement stmt = connection.createStatement();
+			// 4. Execute the SQL query (unless the query has already been canceled):
+			if (Thread.currentThread().isInterrupted())
+				throw new DBException("Query execution canceled!");
 			if (logger != null) logger.logDB(LogLevel.INFO, this, "EXECUTE", "Executing translated query: " + sql.replaceAll("(\t|\r?\n)+", " "), null);
 			result = stmt.executeQuery(sql);
 
-			// 3. Return the result through a TableIterator object:
-			if (logger != null) logger.logDB(LogLevel.INFO, this, "RESULT", "Returning result", null);
-			return new ResultSetTableIterator(result, dbms, adqlQuery.getResultingColumns());
+			// 5. Return the result through a TableIterator object:
+			if (logger != null) logger.logDB(LogLevel.INFO, this, "RESULT", "Returning result" + (streaming ? " (streamed by blocks of " + fetchSize + " rows)" : ""), null);
+			return new JDBCResultIterator(result, stmt, streaming, adqlQuery.getResultingColumns());
 
 		}catch(SQLException se){
+			runningStatement = null;
 			close(result);
+			close(stmt);
+			if (streaming)
+				endStreaming();
 			if (logger != null) logger.logDB(LogLevel.ERROR, this, "EXECUTE", "Unexpected error while EXECUTING SQL query!", se);
 			throw new DBException("Unexpected error while executing a SQL query: " + se.getMessage(), se);
+		}catch(DBException de){
+			runningStatement = null;
+			close(stmt);
+			if (streaming)
+				endStreaming();
+			if (logger != null) logger.logDB(LogLevel.INFO, this, "EXECUTE", "Query execution canceled before its start.", null);
+			throw de;
 		}catch(TranslationException te){
 			close(result);
+			close(stmt);
+			if (streaming)
+				endStreaming();
 			if (logger != null) logger.logDB(LogLevel.ERROR, this, "TRANSLATE", "Unexpected error while TRANSLATING ADQL into SQL!", te);
 			throw new DBException("Unexpected error while translating ADQL into SQL: " + te.getMessage(), te);
 		}catch(DataReadException dre){
+			runningStatement = null;
 			close(result);
+			close(stmt);
+			if (streaming)
+				endStreaming();
 			if (logger != null) logger.logDB(LogLevel.ERROR, this, "RESULT", "Unexpected error while reading the query result!", dre);
 			throw new DBException("Impossible to read the query result, because: " + dre.getMessage(), dre);
 		}
 	}
 
-	/* *********************** */
-	/* TAP_SCHEMA MANIPULATION */
-	/* *********************** */
+	/**
+	 * <p><i>Note:
+	 * 	The timeout is applied on the next query statements by {@link #applyQueryTimeout(Statement, boolean)}.
+	 * </i></p>
+	 * 
+	 * @see tap.db.DBConnection#setQueryTimeout(int)
+	 */
+	@Override
+	public void setQueryTimeout(final int seconds){
+		queryTimeout = seconds;
+	}
 
 	/**
-	 * Tell when, compared to the other TAP standard tables, a given standard TAP table should be created.
+	 * <p>Set the cache in which the SQL translation of the cached ADQL queries must be kept.</p>
 	 * 
-	 * @param table	Standard TAP table.
+	 * <p>
+	 * 	When {@link #executeQuery(ADQLQuery)} is called with a query of this cache, its SQL translation is taken from the cache
+	 * 	or, at the first execution, stored into it. Other queries are translated as usual.
+	 * </p>
 	 * 
-	 * @return	An index between 0 and 4 (included) - 0 meaning the first table to create whereas 4 is the last one.
-	 *          -1 is returned if NULL is given in parameter of if the standard table is not taken into account here.
+	 * <p><i><b>Warning:</b>
+	 * 	All connections using the same cache must use the same translator.
+	 * </i></p>
+	 * 
+	 * @param cache	The query cache. <i>NULL to not cache SQL translations.</i>
+	 * 
+	 * @since 2.0
 	 */
-	protected int getCreationOrder(final STDTable table){
-		if (table == null)
-			return -1;
-
-		switch(table){
-			case SCHEMAS:
-				return 0;
-			case TABLES:
-				return 1;
-			case COLUMNS:
-				return 2;
-			case KEYS:
-				return 3;
-			case KEY_COLUMNS:
-				return 4;
-			default:
-				return -1;
-		}
+	public final void setQueryCache(final QueryCache cache){
+		queryCache = cache;
 	}
 
-	/* ************************************ */
-	/* GETTING TAP_SCHEMA FROM THE DATABASE */
-	/* ************************************ */
-
 	/**
-	 * <p>In this implementation, this function is first creating a virgin {@link TAPMetadata} object
-	 * that will be filled progressively by calling the following functions:</p>
-	 * <ol>
-	 * 	<li>{@link #loadSchemas(TAPTable, TAPMetadata, Statement)}</li>
-	 * 	<li>{@link #loadTables(TAPTable, TAPMetadata, Statement)}</li>
-	 * 	<li>{@link #loadColumns(TAPTable, List, Statement)}</li>
-	 * 	<li>{@link #loadKeys(TAPTable, TAPTable, List, Statement)}</li>
-	 * </ol>
+	 * <p>Limit the execution time of the given statement to the set query timeout (see {@link #setQueryTimeout(int)}).</p>
+	 * 
+	 * <p>
+	 * 	With PostgreSQL, when the query is executed inside a transaction, the timeout is set on the server side with
+	 * 	<code>SET LOCAL statement_timeout</code> ; the setting then disappears with the transaction. Otherwise,
+	 * 	{@link Statement#setQueryTimeout(int)} is used.
+	 * </p>
 	 * 
 	 * <p><i>Note:
-	 * 	If schemas are not supported by this DBMS connection, the DB name of all tables will be set to NULL
-	 * 	and the DB name of all tables will be prefixed by the ADQL name of their respective schema (using {@link #getTablePrefix(String)}).
+	 * 	If the timeout can not be set, a WARNING is logged and the query is executed without limit.
 	 * </i></p>
 	 * 
-	 * @see tap.db.DBConnection#getTAPSchema()
+	 * @param stmt			The statement to limit.
+	 * @param inTransaction	<i>true</i> if the statement will be executed inside a transaction, <i>false</i> otherwise.
 	 */
-	@Override
-	public TAPMetadata getTAPSchema() throws DBException{
-		// Build a virgin TAP metadata:
+	protected void applyQueryTimeout(final Statement stmt, final boolean inTransaction){
+		if (queryTimeout <= 0)
+			return;
+
+		try{
+			if (inTransaction && dbms.equals(DBMS_POSTGRES))
+				stmt.execute("SET LOCAL statement_timeout = " + (queryTimeout * 1000L));
+			else
+				stmt.setQueryTimeout(queryTimeout);
+		}catch(SQLException se){
+			if (logger != null) logger.logDB(LogLevel.WARNING, this, "EXECUTE", "Impossible to limit the query execution time to " + queryTimeout + "s!", se);
+		}
+	}
+
+	/**
+	 * <p>Cancel the statement of the query currently executed or read, or of the table currently uploaded, if any, with {@link Statement#cancel()}.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	While rows are copied with the COPY protocol (see {@link #copyUploadedTable(Object, TAPTable, TableIterator)}),
+	 * 	the statement which has created the table is canceled. With PostgreSQL, it cancels anyway the current operation of the connection.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	Any error is just logged.
+	 * </i></p>
+	 * 
+	 * @see tap.db.DBConnection#cancel()
+	 */
+	@Override
+	public void cancel(){
+		Statement stmt = runningStatement;
+		if (stmt != null){
+			try{
+				stmt.cancel();
+				if (logger != null) logger.logDB(LogLevel.INFO, this, "CANCEL", "Query execution canceled.", null);
+			}catch(SQLException se){
+				if (logger != null) logger.logDB(LogLevel.WARNING, this, "CANCEL", "Impossible to cancel the query execution!", se);
+			}
+		}
+	}
+
+	/**
+	 * <p>Prepare the connection so that the result of the next query can be streamed.</p>
+	 * 
+	 * <p>
+	 * 	Basically, if transactions are supported and if the fetch size is positive, the connection is set in read-only mode
+	 * 	(if supported) and a transaction is started. Indeed, most of the JDBC drivers (and particularly the PostgreSQL one)
+	 * 	can use a cursor - and so, take into account the fetch size - only inside a transaction.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the read-only mode can not be set, it will be afterwards considered as not supported by this connection.
+	 * 	The streaming will however be possible.
+	 * </i></p>
+	 * 
+	 * @return	<i>true</i> if the streaming mode has been started (and so, {@link #endStreaming()} MUST be called at the end of the result reading),
+	 *        	<i>false</i> otherwise.
+	 * 
+	 * @see #endStreaming()
+	 */
+	protected boolean startStreaming(){
+		if (!supportsTransaction || fetchSize <= 0)
+			return false;
+
+		// Set the read-only mode (before the transaction starts):
+		if (supportsReadOnly){
+			try{
+				connection.setReadOnly(true);
+			}catch(SQLException se){
+				supportsReadOnly = false;
+				if (logger != null) logger.logDB(LogLevel.INFO, this, "STREAMING", "Read-only mode not supported => query results will be streamed without it.", null);
+			}
+		}
+
+		// Start the transaction:
+		try{
+			startTransaction();
+			return true;
+		}catch(DBException de){
+			// note: the error has already been logged by startTransaction() ; transactions are now considered as not supported.
+			restoreReadWrite();
+			return false;
+		}
+	}
+
+	/**
+	 * <p>End the streaming mode started by {@link #startStreaming()}.</p>
+	 * 
+	 * <p>
+	 * 	Since the query was just reading, the transaction is rolled back (no modification is expected), ended
+	 * 	and then the read-only mode is turned off.
+	 * </p>
+	 * 
+	 * @see #startStreaming()
+	 */
+	protected void endStreaming(){
+		rollback();
+		endTransaction();
+		restoreReadWrite();
+	}
+
+	/**
+	 * Turn off the read-only mode of the connection, if this mode is supported.
+	 */
+	private void restoreReadWrite(){
+		if (supportsReadOnly){
+			try{
+				connection.setReadOnly(false);
+			}catch(SQLException se){
+				if (logger != null) logger.logDB(LogLevel.WARNING, this, "STREAMING", "Impossible to turn off the read-only mode!", se);
+			}
+		}
+	}
+
+	/**
+	 * <p>{@link TableIterator} over the result of a query executed by {@link JDBCConnection#executeQuery(ADQLQuery)}.</p>
+	 * 
+	 * <p>
+	 * 	Its only difference with {@link ResultSetTableIterator} is that {@link #close()} frees all the resources
+	 * 	associated with the query execution: the {@link ResultSet}, its {@link Statement} and, if the result was streamed,
+	 * 	the transaction (see {@link JDBCConnection#endStreaming()}).
+	 * </p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (CDS;ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	protected class JDBCResultIterator extends ResultSetTableIterator {
+
+		/** Statement which has produced the iterated result. */
+		private final Statement stmt;
+
+		/** Indicate whether the iterated result is streamed ; if <i>true</i>, {@link JDBCConnection#endStreaming()} will be called when closing this iterator. */
+		private final boolean streamed;
+
+		/** Indicate whether this iterator has already been closed. */
+		private boolean closed = false;
+
+		/**
+		 * Build a TableIterator able to read rows and columns of the given query result.
+		 * 
+		 * @param result		Result of the query.
+		 * @param stmt			Statement which has produced the given result.
+		 * @param streamed		Indicate whether the given result is streamed.
+		 * @param resultMeta	List of expected columns. <i>note: these metadata are expected to be really {@link TAPColumn} objects ; MAY be NULL.</i>
+		 * 
+		 * @throws NullPointerException	If NULL is given in parameter.
+		 * @throws DataReadException	If the metadata (columns count and types) can not be fetched.
+		 */
+		public JDBCResultIterator(final ResultSet result, final Statement stmt, final boolean streamed, final DBColumn[] resultMeta) throws NullPointerException, DataReadException{
+			super(result, dbms, resultMeta);
+			this.stmt = stmt;
+			this.streamed = streamed;
+		}
+
+		@Override
+		public void close() throws DataReadException{
+			if (closed)
+				return;
+			closed = true;
+			if (runningStatement == stmt)
+				runningStatement = null;
+			try{
+				super.close();
+			}finally{
+				JDBCConnection.this.close(stmt);
+				if (streamed)
+					endStreaming();
+			}
+		}
+	}
+
+	/* *********************** */
+	/* TAP_SCHEMA MANIPULATION */
+	/* *********************** */
+
+	/**
+	 * Tell when, compared to the other TAP standard tables, a given standard TAP table should be created.
+	 * 
+	 * @param table	Standard TAP table.
+	 * 
+	 * @return	An index between 0 and 4 (included) - 0 meaning the first table to create whereas 4 is the last one.
+	 *          -1 is returned if NULL is given in parameter of if the standard table is not taken into account here.
+	 */
+	protected int getCreationOrder(final STDTable table){
+		if (table == null)
+			return -1;
+
+		switch(table){
+			case SCHEMAS:
+				return 0;
+			case TABLES:
+				return 1;
+			case COLUMNS:
+				return 2;
+			case KEYS:
+				return 3;
+			case KEY_COLUMNS:
+				return 4;
+			default:
+				return -1;
+		}
+	}
+
+	/* ************************************ */
+	/* GETTING TAP_SCHEMA FROM THE DATABASE */
+	/* ************************************ */
+
+	/**
+	 * <p>In this implementation, this function is first creating a virgin {@link TAPMetadata} object
+	 * that will be filled progressively by calling the following functions:</p>
+	 * <ol>
+	 * 	<li>{@link #loadSchemas(TAPTable, TAPMetadata, Statement)}</li>
+	 * 	<li>{@link #loadTables(TAPTable, TAPMetadata, Statement)}</li>
+	 * 	<li>{@link #loadColumns(TAPTable, List, Statement)}</li>
+	 * 	<li>{@link #loadKeys(TAPTable, TAPTable, List, Statement)}</li>
+	 * </ol>
+	 * 
+	 * <p><i>Note:
+	 * 	If schemas are not supported by this DBMS connection, the DB name of all tables will be set to NULL
+	 * 	and the DB name of all tables will be prefixed by the ADQL name of their respective schema (using {@link #getTablePrefix(String)}).
+	 * </i></p>
+	 * 
+	 * @see tap.db.DBConnection#getTAPSchema()
+	 */
+	@Override
+	public TAPMetadata getTAPSchema() throws DBException{
+		// Build a virgin TAP metadata:
 		TAPMetadata metadata = new TAPMetadata();
 
 		// Get the definition of the standard TAP_SCHEMA tables:
@@ -1462,7 +2110,11 @@ public class JDBCConnection implements DBConnection {
 	 * </i></p>
 	 * 
 	 * <p><i>Note:
-	 * 	If the upload schema does not already exist in the database, it will be created.
+	 * 	If the upload schema does not already exist in the database, it will be created (see {@link #ensureUploadSchema(TAPTable)}).
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	The kind of created table (regular, unlogged or temporary) depends on {@link #getUploadTableType()}.
 	 * </i></p>
 	 * 
 	 * @see tap.db.DBConnection#addUploadedTable(tap.metadata.TAPTable, tap.data.TableIterator)
@@ -1477,6 +2129,9 @@ public class JDBCConnection implements DBConnection {
 		// Check the table is well defined (and particularly the schema is well set with an ADQL name = TAP_UPLOAD):
 		checkUploadedTableDef(tableDef);
 
+		// 1. Create the upload schema, if it does not already exist (useless for temporary tables):
+		boolean cachedSchema = (uploadTableType != UploadTableType.TEMPORARY) && ensureUploadSchema(tableDef);
+
 		Statement stmt = null;
 		try{
 
@@ -1484,25 +2139,13 @@ public class JDBCConnection implements DBConnection {
 			startTransaction();
 			// ...create a statement:
 			stmt = connection.createStatement();
-
-			DatabaseMetaData dbMeta = connection.getMetaData();
-
-			// 1. Create the upload schema, if it does not already exist:
-			if (!isSchemaExisting(tableDef.getDBSchemaName(), dbMeta)){
-				stmt.executeUpdate("CREATE SCHEMA " + translator.getQualifiedSchemaName(tableDef) + ";");
-				if (logger != null) logger.logDB(LogLevel.INFO, this, "SCHEMA_CREATED", "Schema \"" + tableDef.getADQLSchemaName() + "\" (in DB: " + translator.getQualifiedSchemaName(tableDef) + ") created.", null);
-			}
-			// 1bis. Ensure the table does not already exist and if it is the case, throw an understandable exception:
-			else if (isTableExisting(tableDef.getDBSchemaName(), tableDef.getDBName(), dbMeta)){
-				DBException de = new DBException("Impossible to create the user uploaded table in the database: " + translator.getQualifiedTableName(tableDef) + "! This table already exists.");
-				if (logger != null) logger.logDB(LogLevel.ERROR, this, "ADD_UPLOAD_TABLE", de.getMessage(), de);
-				throw de;
-			}
+			// ...and make the upload cancelable:
+			runningStatement = stmt;
 
 			// 2. Create the table:
 			// ...build the SQL query:
-			StringBuffer sqlBuf = new StringBuffer("CREATE TABLE ");
-			sqlBuf.append(translator.getQualifiedTableName(tableDef)).append(" (");
+			StringBuffer sqlBuf = new StringBuffer(getCreateUploadedTable());
+			sqlBuf.append(' ').append(translator.getQualifiedTableName(tableDef)).append(" (");
 			Iterator<TAPColumn> it = tableDef.getColumns();
 			while(it.hasNext()){
 				TAPColumn col = it.next();
@@ -1516,14 +2159,35 @@ public class JDBCConnection implements DBConnection {
 			}
 			sqlBuf.append(");");
 			// ...execute the update query:
-			stmt.executeUpdate(sqlBuf.toString());
+			try{
+				stmt.executeUpdate(sqlBuf.toString());
+			}catch(SQLException se){
+				rollback();
+				// Ensure the table does not already exist and if it is the case, throw an understandable exception:
+				if (isTableExisting(tableDef.getDBSchemaName(), tableDef.getDBName(), connection.getMetaData())){
+					DBException de = new DBException("Impossible to create the user uploaded table in the database: " + translator.getQualifiedTableName(tableDef) + "! This table already exists.");
+					if (logger != null) logger.logDB(LogLevel.ERROR, this, "ADD_UPLOAD_TABLE", de.getMessage(), de);
+					throw de;
+				}
+				// If the schema existence was cached, the schema may have been dropped in the meantime ; so, check it again and retry:
+				else if (cachedSchema){
+					forgetUploadSchema();
+					ensureUploadSchema(tableDef);
+					stmt.executeUpdate(sqlBuf.toString());
+				}else
+					throw se;
+			}
 
 			// 3. Fill the table:
-			fillUploadedTable(tableDef, data);
+			int nbRows = fillUploadedTable(tableDef, data);
 
 			// Commit the transaction:
 			commit();
 
+			// Remember the number of rows (useful to decide whether the table should be indexed, and which side drives a cross-match):
+			uploadedRows.put(tableDef, nbRows);
+			tableDef.setNbRows(nbRows);
+
 			// Log the end:
 			if (logger != null) logger.logDB(LogLevel.INFO, this, "TABLE_CREATED", "Table \"" + tableDef.getADQLName() + "\" (in DB: " + translator.getQualifiedTableName(tableDef) + ") created.", null);
 
@@ -1540,17 +2204,134 @@ public class JDBCConnection implements DBConnection {
 			rollback();
 			throw dre;
 		}finally{
+			runningStatement = null;
 			close(stmt);
 			endTransaction();
 		}
 	}
 
+	/**
+	 * <p>Ensure the schema of the given uploaded table exists in the database. If not, it is created.</p>
+	 * 
+	 * <p>
+	 * 	Once checked or created, the existence of the upload schema is cached for the wrapped {@link Connection}
+	 * 	(so, also for the next {@link JDBCConnection}s wrapping it, e.g. in a connection pool).
+	 * 	Then, only the CREATE TABLE statement is needed to create the next uploaded tables.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	Nothing is done if the given table has no DB schema (i.e. when schemas are not supported).
+	 * </i></p>
+	 * 
+	 * @param tableDef	Definition of the uploaded table whose the schema must exist.
+	 * 
+	 * @return	<i>true</i> if the schema existence was already cached, <i>false</i> if it has just been checked or created.
+	 * 
+	 * @throws DBException	If the schema can not be checked or created.
+	 * 
+	 * @since 2.0
+	 */
+	protected boolean ensureUploadSchema(final TAPTable tableDef) throws DBException{
+		String schemaName = tableDef.getDBSchemaName();
+		if (schemaName == null)
+			return false;
+		else if (schemaName.equals(knownUploadSchemas.get(connection)))
+			return true;
+
+		/* note: the schema is created outside of the transaction creating the table, so that a concurrent creation
+		 *       of the same schema (e.g. while uploading several tables in parallel) can be tolerated. */
+		try{
+			DatabaseMetaData dbMeta = connection.getMetaData();
+			if (!isSchemaExisting(schemaName, dbMeta))
+				createUploadSchema(tableDef, dbMeta);
+			knownUploadSchemas.put(connection, schemaName);
+			return false;
+		}catch(SQLException se){
+			if (logger != null) logger.logDB(LogLevel.WARNING, this, "ADD_UPLOAD_TABLE", "Impossible to create the upload schema: " + translator.getQualifiedSchemaName(tableDef) + "!", se);
+			throw new DBException("Impossible to create the upload schema: " + translator.getQualifiedSchemaName(tableDef) + "!", se);
+		}
+	}
+
+	/**
+	 * Forget the cached existence of the upload schema (see {@link #ensureUploadSchema(TAPTable)}).
+	 * 
+	 * @since 2.0
+	 */
+	protected void forgetUploadSchema(){
+		knownUploadSchemas.remove(connection);
+	}
+
+	/**
+	 * <p>Get the beginning of the SQL statement creating an uploaded table, in function of {@link #getUploadTableType()}:</p>
+	 * <ul>
+	 * 	<li>{@link UploadTableType#REGULAR}: <code>CREATE TABLE</code></li>
+	 * 	<li>{@link UploadTableType#UNLOGGED}: <code>CREATE UNLOGGED TABLE</code> (only with PostgreSQL ; <code>CREATE TABLE</code> otherwise)</li>
+	 * 	<li>{@link UploadTableType#TEMPORARY}: <code>CREATE TEMPORARY TABLE</code></li>
+	 * </ul>
+	 * 
+	 * @return	The CREATE statement (without the table name).
+	 * 
+	 * @since 2.0
+	 */
+	protected String getCreateUploadedTable(){
+		switch(uploadTableType){
+			case UNLOGGED:
+				return DBMS_POSTGRES.equals(dbms) ? "CREATE UNLOGGED TABLE" : "CREATE TABLE";
+			case TEMPORARY:
+				return "CREATE TEMPORARY TABLE";
+			default:
+				return "CREATE TABLE";
+		}
+	}
+
+	/**
+	 * <p>Create the schema of the given uploaded table.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the creation fails but the schema exists anyway, it is considered as created concurrently by another connection
+	 * 	and no error is thrown.
+	 * </i></p>
+	 * 
+	 * @param tableDef	Definition of the uploaded table whose the schema must be created.
+	 * @param dbMeta	Metadata about the database (used to check the schema existence in case of creation failure).
+	 * 
+	 * @throws SQLException	If the schema can not be created.
+	 * 
+	 * @since 2.0
+	 */
+	protected void createUploadSchema(final TAPTable tableDef, final DatabaseMetaData dbMeta) throws SQLException{
+		Statement stmt = null;
+		try{
+			stmt = connection.createStatement();
+			stmt.executeUpdate("CREATE SCHEMA " + translator.getQualifiedSchemaName(tableDef) + ";");
+			if (logger != null) logger.logDB(LogLevel.INFO, this, "SCHEMA_CREATED", "Schema \"" + tableDef.getADQLSchemaName() + "\" (in DB: " + translator.getQualifiedSchemaName(tableDef) + ") created.", null);
+		}catch(SQLException se){
+			// The schema may have been created in the meantime by another connection:
+			if (!isSchemaExisting(tableDef.getDBSchemaName(), dbMeta))
+				throw se;
+		}finally{
+			close(stmt);
+		}
+	}
+
 	/**
 	 * <p>Fill the table uploaded by the user with the given data.</p>
 	 * 
+	 * <p>
+	 * 	If the COPY protocol is supported (i.e. PostgreSQL), the rows are bulk loaded with {@link #copyUploadedTable(Object, TAPTable, TableIterator)}.
+	 * 	Otherwise, they are inserted with a {@link PreparedStatement}.
+	 * </p>
+	 * 
+	 * <p>
+	 * 	In this last case, rows are inserted by chunks of batches, if batch updates are supported by the DBMS connection. A chunk is executed as soon as
+	 * 	it contains {@link #getUploadBatchRows()} rows or {@link #getUploadBatchBytes()} bytes (see {@link #executeChunk(PreparedStatement, List, int)}).
+	 * 	Thus, at most one chunk of rows is kept in memory. If a chunk fails, only its rows are inserted again one by one (thanks to a savepoint).
+	 * 	If {@link PreparedStatement#addBatch()} is not supported by the driver, batch updates are flagged as unsupported and one-by-one updates are processed.
+	 * </p>
+	 * 
 	 * <p><i>Note:
-	 * 	Batch updates may be done here if its supported by the DBMS connection.
-	 * 	In case of any failure while using this feature, it will be flagged as unsupported and one-by-one updates will be processed.
+	 * 	The upload listener (see {@link #setUploadProgressListener(UploadProgressListener)}) is notified after each chunk
+	 * 	(or every {@link #getUploadBatchRows()} rows if batch updates are not supported).
 	 * </i></p>
 	 * 
 	 * @param metaTable	Description of the updated table.
@@ -1563,6 +2344,13 @@ public class JDBCConnection implements DBConnection {
 	 * @throws DataReadException	If there is any error while reading the data from the given {@link TableIterator} (and particularly if a limit - in byte or row - has been reached).
 	 */
 	protected int fillUploadedTable(final TAPTable metaTable, final TableIterator data) throws SQLException, DBException, DataReadException{
+		// 0. Bulk load the rows with the COPY protocol, if possible:
+		if (supportsCopy){
+			Object copyManager = getCopyManager();
+			if (copyManager != null)
+				return copyUploadedTable(copyManager, metaTable, data);
+		}
+
 		// 1. Build the SQL update query:
 		StringBuffer sql = new StringBuffer("INSERT INTO ");
 		StringBuffer varParam = new StringBuffer();
@@ -1583,78 +2371,638 @@ public class JDBCConnection implements DBConnection {
 
 		// 2. Prepare the statement:
 		PreparedStatement stmt = null;
-		int nbRows = 0;
+		int nbRows = 0, nbNotified = 0;
+		Statement cancelable = runningStatement;
 		try{
 			stmt = connection.prepareStatement(sql.toString());
+			runningStatement = stmt;
 
-			// 3. Execute the query for each given row:
+			// 3. Execute the query for each given row, by chunks of batches if possible:
+			List<Object[]> chunk = new ArrayList<Object[]>(Math.min(uploadBatchRows, 10000));
+			long chunkBytes = 0;
 			while(data.nextRow()){
 				nbRows++;
-				int c = 1;
-				while(data.hasNextCol()){
-					Object val = data.nextCol();
-					/* If the value is supposed to be a Timestamp, parse it
-					 * and build an appropriate SQL object: */
-					if (val != null && cols[c - 1].getDatatype().type == DBDatatype.TIMESTAMP){
-						try{
-							val = new Timestamp(ISO8601Format.parse(val.toString()));
-						}catch(ParseException pe){
-							if (logger != null) logger.logDB(LogLevel.ERROR, this, "UPLOAD", "Unexpected date format for the " + c + "-th column (" + val + ")! A date formatted in ISO8601 was expected.", pe);
-							throw new DBException("Unexpected date format for the " + c + "-th column (" + val + ")! A date formatted in ISO8601 was expected.", pe);
-						}
+				Object[] row = readUploadedRow(data, cols);
+				setParameters(stmt, row);
+
+				// BATCH INSERTION:
+				if (supportsBatchUpdates){
+					try{
+						stmt.addBatch();
+						chunk.add(row);
+						chunkBytes += estimateSize(row);
+					}catch(SQLException se){
+						/* Batch updates are not supported by the driver: the rows of the current chunk
+						 * and the current row are inserted one by one: */
+						supportsBatchUpdates = false;
+						if (logger != null) logger.logDB(LogLevel.WARNING, this, "EXEC_UPDATE", "BATCH query impossible => TRYING AGAIN IN A NORMAL EXECUTION (executeUpdate())!", se);
+						chunk.add(row);
+						executeRows(stmt, chunk, nbRows - chunk.size() + 1);
+						notifyUpload(metaTable, nbRows - nbNotified);
+						nbNotified = nbRows;
+						chunk.clear();
+						chunkBytes = 0;
+					}
+					// Flush the chunk if full:
+					if (chunk.size() >= uploadBatchRows || (uploadBatchBytes > 0 && chunkBytes >= uploadBatchBytes)){
+						executeChunk(stmt, chunk, nbRows - chunk.size() + 1);
+						notifyUpload(metaTable, nbRows - nbNotified);
+						nbNotified = nbRows;
+						chunk.clear();
+						chunkBytes = 0;
+					}
+				}
+				// NORMAL INSERTION:
+				else{
+					executeUpdate(stmt, nbRows);
+					if (nbRows - nbNotified >= uploadBatchRows){
+						notifyUpload(metaTable, nbRows - nbNotified);
+						nbNotified = nbRows;
 					}
-					stmt.setObject(c++, val);
 				}
-				executeUpdate(stmt, nbRows);
 			}
-			executeBatchUpdates(stmt, nbRows);
+
+			// 4. Flush the last chunk:
+			if (supportsBatchUpdates && chunk.size() > 0)
+				executeChunk(stmt, chunk, nbRows - chunk.size() + 1);
+			notifyUpload(metaTable, nbRows - nbNotified);
 
 			return nbRows;
 
 		}finally{
+			runningStatement = cancelable;
 			close(stmt);
 		}
 	}
 
 	/**
-	 * <p><i><b>Important note:</b>
-	 * 	Only tables uploaded by users can be dropped from the database. To ensure that, the schema name of this table MUST be {@link STDSchema#UPLOADSCHEMA} ("TAP_UPLOAD") in ADQL.
-	 * 	If it has another ADQL name, an exception will be thrown. Of course, the DB name of this schema MAY be different.
-	 * </i></p>
+	 * <p>Read the values of the current row of the given iterator, as they must be inserted into an uploaded table.</p>
 	 * 
-	 * <p><i><b>Important note:</b>
-	 * 	This function may modify the given {@link TAPTable} object if schemas are not supported by this connection.
-	 * 	In this case, this function will prefix the table's DB name by the schema's DB name directly inside the given {@link TAPTable} object
-	 * 	(building the prefix with {@link #getTablePrefix(String)}). Then the DB name of the schema will be set to NULL.
+	 * <p><i>Note:
+	 * 	Values supposed to be timestamps are parsed (as ISO8601 dates) and converted into {@link Timestamp}.
 	 * </i></p>
 	 * 
 	 * <p><i>Note:
-	 * 	This implementation is able to drop only one uploaded table. So if this function finds more than one table matching to the given one,
-	 * 	an exception will be thrown and no table will be dropped.
+	 * 	Only the values of the given columns are read: any additional value of the row is ignored.
 	 * </i></p>
 	 * 
-	 * @see tap.db.DBConnection#dropUploadedTable(tap.metadata.TAPTable)
-	 * @see #checkUploadedTableDef(TAPTable)
+	 * @param data	Iterator over the rows to insert. <i>{@link TableIterator#nextRow()} must have already been called.</i>
+	 * @param cols	Description of the columns.
+	 * 
+	 * @return	All the values of the current row.
+	 * 
+	 * @throws DBException			If a timestamp is not formatted in ISO8601.
+	 * @throws DataReadException	If there is any error while reading the values from the given {@link TableIterator}.
+	 * 
+	 * @since 2.0
 	 */
-	@Override
-	public boolean dropUploadedTable(final TAPTable tableDef) throws DBException{
-		// If no table to upload, consider it has been dropped and return TRUE:
-		if (tableDef == null)
-			return true;
+	protected Object[] readUploadedRow(final TableIterator data, final TAPColumn[] cols) throws DBException, DataReadException{
+		Object[] row = new Object[cols.length];
+		int c = 0;
+		while(c < cols.length && data.hasNextCol()){
+			Object val = data.nextCol();
+			/* If the value is supposed to be a Timestamp, parse it
+			 * and build an appropriate SQL object: */
+			if (val != null && cols[c].getDatatype().type == DBDatatype.TIMESTAMP){
+				try{
+					val = new Timestamp(ISO8601Format.parse(val.toString()));
+				}catch(ParseException pe){
+					if (logger != null) logger.logDB(LogLevel.ERROR, this, "UPLOAD", "Unexpected date format for the " + (c + 1) + "-th column (" + val + ")! A date formatted in ISO8601 was expected.", pe);
+					throw new DBException("Unexpected date format for the " + (c + 1) + "-th column (" + val + ")! A date formatted in ISO8601 was expected.", pe);
+				}
+			}
+			row[c++] = val;
+		}
+		return row;
+	}
 
-		// Check the table is well defined (and particularly the schema is well set with an ADQL name = TAP_UPLOAD):
-		checkUploadedTableDef(tableDef);
+	/**
+	 * Set all the parameters of the given statement with the given values.
+	 * 
+	 * @param stmt	Statement to prepare.
+	 * @param row	Values of all the parameters (in the same order).
+	 * 
+	 * @throws SQLException	If a value can not be set.
+	 * 
+	 * @since 2.0
+	 */
+	private final void setParameters(final PreparedStatement stmt, final Object[] row) throws SQLException{
+		for(int c = 0; c < row.length; c++)
+			stmt.setObject(c + 1, row[c]);
+	}
 
-		Statement stmt = null;
-		try{
+	/**
+	 * <p>Estimate the size (in bytes) of the given row, as it should be sent to the database.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This estimation is used only to limit the size of the batches (see {@link #setUploadBatchBytes(long)}). So it does not need to be exact.
+	 * </i></p>
+	 * 
+	 * @param row	The row whose the size must be estimated.
+	 * 
+	 * @return	The estimated size (in bytes).
+	 * 
+	 * @since 2.0
+	 */
+	protected long estimateSize(final Object[] row){
+		long size = 0;
+		for(Object val : row){
+			if (val == null)
+				size += 1;
+			else if (val instanceof CharSequence)
+				size += ((CharSequence)val).length();
+			else if (val instanceof byte[])
+				size += ((byte[])val).length;
+			else if (val.getClass().isArray())
+				size += 8 * Array.getLength(val);
+			else
+				size += 8;
+		}
+		return size;
+	}
+
+	/**
+	 * <p>Execute the batch of the given statement, containing the given chunk of rows.</p>
+	 * 
+	 * <p>
+	 * 	If the batch execution fails, the database is restored as it was before the batch (thanks to a savepoint) and
+	 * 	the rows of the chunk are inserted one by one. Then, if a row can still not be inserted, a {@link DBException}
+	 * 	precisely identifying this row is thrown. Contrary to {@link #executeBatchUpdates(PreparedStatement, int)},
+	 * 	such failure does not disable the batch updates for the next chunks.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	If no savepoint can be set (e.g. no transaction is used), a batch failure can not be recovered: a {@link DBException} is immediately thrown.
+	 * </i></p>
+	 * 
+	 * @param stmt		Statement whose the batch must be executed.
+	 * @param chunk		Values of all the batched rows.
+	 * @param firstRow	Index (in the whole upload) of the first row of the chunk. It is used only for error management purpose.
+	 * 
+	 * @throws DBException	If the rows can not be inserted.
+	 * 
+	 * @since 2.0
+	 */
+	protected void executeChunk(final PreparedStatement stmt, final List<Object[]> chunk, final int firstRow) throws DBException{
+		// Set a savepoint so that a failed batch can be canceled:
+		Savepoint savepoint = null;
+		if (supportsSavepoints){
+			try{
+				if (!connection.getAutoCommit())
+					savepoint = connection.setSavepoint();
+			}catch(SQLException se){
+				supportsSavepoints = false;
+				if (logger != null) logger.logDB(LogLevel.INFO, this, "EXEC_UPDATE", "Savepoints not supported => a failure of an upload batch will not be recoverable.", se);
+			}
+		}
+
+		try{
+			// Execute all the batched rows:
+			int[] rows = stmt.executeBatch();
+
+			// Check all given rows have been inserted with success:
+			int nbRowsUpdated = 0;
+			for(int i = 0; i < rows.length; i++)
+				nbRowsUpdated += (rows[i] == Statement.SUCCESS_NO_INFO) ? 1 : rows[i];
+			if (nbRowsUpdated != chunk.size()){
+				if (logger != null) logger.logDB(LogLevel.ERROR, this, "EXEC_UPDATE", "ROWS not all update (" + chunk.size() + " to update ; " + nbRowsUpdated + " updated)!", null);
+				throw new DBException("ROWS not all updated (" + chunk.size() + " to update ; " + nbRowsUpdated + " updated)!");
+			}
+
+			// Free the savepoint:
+			if (savepoint != null){
+				try{
+					connection.releaseSavepoint(savepoint);
+				}catch(SQLException se){}
+			}
+
+		}catch(SQLException se){
+			try{
+				stmt.clearBatch();
+			}catch(SQLException se2){}
 
-			// Check the existence of the table to drop:
-			if (!isTableExisting(tableDef.getDBSchemaName(), tableDef.getDBName(), connection.getMetaData()))
+			// No savepoint => the rows already inserted by this batch can not be known:
+			if (savepoint == null){
+				if (logger != null) logger.logDB(LogLevel.ERROR, this, "EXEC_UPDATE", "BATCH execution impossible!", se);
+				throw new DBException("BATCH execution impossible!", se);
+			}
+
+			// Cancel the batch and insert its rows one by one:
+			try{
+				connection.rollback(savepoint);
+			}catch(SQLException se2){
+				if (logger != null) logger.logDB(LogLevel.ERROR, this, "EXEC_UPDATE", "BATCH execution impossible and its cancellation failed!", se2);
+				throw new DBException("BATCH execution impossible and its cancellation failed!", se);
+			}
+			if (logger != null) logger.logDB(LogLevel.WARNING, this, "EXEC_UPDATE", "BATCH execution of the rows " + firstRow + " to " + (firstRow + chunk.size() - 1) + " impossible => TRYING AGAIN IN A NORMAL EXECUTION (executeUpdate())!", se);
+			executeRows(stmt, chunk, firstRow);
+		}
+	}
+
+	/**
+	 * Insert one by one all the given rows with the given statement.
+	 * 
+	 * @param stmt		Prepared INSERT statement.
+	 * @param rows		Values of all rows to insert.
+	 * @param firstRow	Index (in the whole upload) of the first given row. It is used only for error management purpose.
+	 * 
+	 * @throws DBException	If a row can not be inserted.
+	 * 
+	 * @since 2.0
+	 */
+	private final void executeRows(final PreparedStatement stmt, final List<Object[]> rows, final int firstRow) throws DBException{
+		int indRow = firstRow;
+		for(Object[] row : rows){
+			try{
+				setParameters(stmt, row);
+				if (stmt.executeUpdate() != 1){
+					if (logger != null) logger.logDB(LogLevel.ERROR, this, "EXEC_UPDATE", "ROW " + indRow + " not inserted!", null);
+					throw new DBException("ROW " + indRow + " not inserted!");
+				}
+			}catch(SQLException se){
+				if (logger != null) logger.logDB(LogLevel.ERROR, this, "EXEC_UPDATE", "ROW " + indRow + " not inserted!", se);
+				throw new DBException("ROW " + indRow + " not inserted!", se);
+			}
+			indRow++;
+		}
+	}
+
+	/**
+	 * Notify the upload listener (if any) that some rows have just been loaded.
+	 * 
+	 * @param table		The uploaded table.
+	 * @param nbRows	Number of rows loaded since the last notification.
+	 * 
+	 * @since 2.0
+	 */
+	protected final void notifyUpload(final TAPTable table, final int nbRows){
+		if (uploadListener != null && nbRows > 0){
+			try{
+				uploadListener.rowsLoaded(table, nbRows);
+			}catch(Exception ex){
+				if (logger != null) logger.logDB(LogLevel.WARNING, this, "UPLOAD", "Error while notifying the upload progression!", ex);
+			}
+		}
+	}
+
+	/**
+	 * <p>Get the COPY API of the PostgreSQL JDBC driver (i.e. org.postgresql.copy.CopyManager) for the wrapped connection.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The PostgreSQL JDBC driver is not required to compile this library. That's why its COPY API is accessed by reflection.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the COPY API can not be got, the COPY protocol is flagged as unsupported for this connection.
+	 * </i></p>
+	 * 
+	 * @return	The CopyManager of the wrapped connection, or NULL if not available.
+	 * 
+	 * @since 2.0
+	 */
+	protected Object getCopyManager(){
+		try{
+			Class<?> pgConnClass = Class.forName("org.postgresql.PGConnection", true, connection.getClass().getClassLoader());
+			if (connection.isWrapperFor(pgConnClass)){
+				Object pgConn = connection.unwrap(pgConnClass);
+				return pgConnClass.getMethod("getCopyAPI").invoke(pgConn);
+			}
+		}catch(Exception ex){
+			if (logger != null) logger.logDB(LogLevel.INFO, this, "UPLOAD", "COPY protocol not available => uploaded rows will be inserted with INSERT queries.", ex);
+		}
+		supportsCopy = false;
+		return null;
+	}
+
+	/**
+	 * <p>Fill the table uploaded by the user with the given data, using the COPY protocol of the PostgreSQL JDBC driver.</p>
+	 * 
+	 * <p>
+	 * 	Rows are encoded in CSV (see {@link CopyInputStream}) while the driver reads them. So rows are sent to the database as soon as they
+	 * 	are read from the given {@link TableIterator} and only a small buffer is kept in memory.
+	 * </p>
+	 * 
+	 * @param copyManager	The COPY API of the PostgreSQL JDBC driver (see {@link #getCopyManager()}).
+	 * @param metaTable		Description of the updated table.
+	 * @param data			Iterator over the rows to insert.
+	 * 
+	 * @return	Number of inserted rows.
+	 * 
+	 * @throws DBException			If the COPY operation fails or if the number of copied rows is not the expected one.
+	 * @throws SQLException			If any other SQL exception occurs.
+	 * @throws DataReadException	If there is any error while reading the data from the given {@link TableIterator} (and particularly if a limit - in byte or row - has been reached).
+	 * 
+	 * @since 2.0
+	 */
+	protected int copyUploadedTable(final Object copyManager, final TAPTable metaTable, final TableIterator data) throws SQLException, DBException, DataReadException{
+		// 1. Build the COPY query:
+		StringBuffer sql = new StringBuffer("COPY ");
+		// ...table name:
+		sql.append(translator.getQualifiedTableName(metaTable)).append(" (");
+		// ...list of columns:
+		TAPColumn[] cols = data.getMetadata();
+		for(int c = 0; c < cols.length; c++){
+			if (c > 0)
+				sql.append(", ");
+			sql.append(translator.getColumnName(cols[c]));
+		}
+		// ...data format:
+		sql.append(") FROM STDIN WITH CSV");
+
+		// 2. Stream all rows to the database:
+		CopyInputStream input = new CopyInputStream(data, cols){
+			@Override
+			protected void rowsEncoded(final int nbRows){
+				notifyUpload(metaTable, nbRows);
+			}
+		};
+		long nbCopied;
+		try{
+			Method copyIn = copyManager.getClass().getMethod("copyIn", String.class, InputStream.class, int.class);
+			nbCopied = (Long)copyIn.invoke(copyManager, sql.toString(), input, CopyInputStream.BUFFER_SIZE);
+		}catch(InvocationTargetException ite){
+			// Error while reading or encoding the rows:
+			if (input.getError() instanceof DataReadException)
+				throw (DataReadException)input.getError();
+			else if (input.getError() instanceof DBException){
+				if (logger != null) logger.logDB(LogLevel.ERROR, this, "UPLOAD", input.getError().getMessage(), input.getError());
+				throw (DBException)input.getError();
+			}
+			// Error while copying:
+			else if (ite.getCause() instanceof SQLException)
+				throw (SQLException)ite.getCause();
+			else
+				throw new DBException("COPY of the uploaded rows impossible!", ite.getCause());
+		}catch(Exception ex){
+			// Reflection errors:
+			throw new DBException("COPY of the uploaded rows impossible!", ex);
+		}
+
+		// 3. Check all rows have been copied:
+		if (nbCopied != input.getNbRows()){
+			if (logger != null) logger.logDB(LogLevel.ERROR, this, "EXEC_UPDATE", "ROWS not all copied (" + input.getNbRows() + " to copy ; " + nbCopied + " copied)!", null);
+			throw new DBException("ROWS not all copied (" + input.getNbRows() + " to copy ; " + nbCopied + " copied)!");
+		}
+
+		return input.getNbRows();
+	}
+
+	/**
+	 * <p>{@link InputStream} encoding in CSV (as expected by the PostgreSQL command <code>COPY ... FROM STDIN WITH CSV</code>)
+	 * the rows of a {@link TableIterator}.</p>
+	 * 
+	 * <p>
+	 * 	Rows are read from the {@link TableIterator} only when more bytes are asked. If an error occurs while reading or encoding a row,
+	 * 	an {@link IOException} is thrown (which will make the COPY fail) and the original error is available with {@link #getError()}.
+	 * </p>
+	 * 
+	 * <p>Values are encoded as follows:</p>
+	 * <ul>
+	 * 	<li>NULL is an empty unquoted field,</li>
+	 * 	<li>a timestamp (ISO8601 string) is converted into a {@link Timestamp} (like in {@link JDBCConnection#fillUploadedTable(TAPTable, TableIterator)}),</li>
+	 * 	<li>a byte array is written in the hexadecimal format of PostgreSQL (e.g. <code>\x0aff</code>),</li>
+	 * 	<li>any other array is written as its items separated by a space,</li>
+	 * 	<li>and all strings are quoted.</li>
+	 * </ul>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	protected static class CopyInputStream extends InputStream {
+		/** Size (in bytes) of the buffer used by the driver to send rows to the database. Rows are also encoded by blocks of (at least) this size. */
+		public final static int BUFFER_SIZE = 65536;
+
+		private final static char[] HEXA = "0123456789abcdef".toCharArray();
+
+		/** Rows to encode. */
+		private final TableIterator data;
+		/** Description of the columns. */
+		private final TAPColumn[] cols;
+
+		/** Encoding buffer. */
+		private final StringBuilder rows = new StringBuilder(BUFFER_SIZE + 1024);
+		/** Encoded bytes not yet read. */
+		private byte[] buffer = new byte[0];
+		/** Position of the next byte to read in {@link #buffer}. */
+		private int pos = 0;
+		/** Indicate whether all rows have been read. */
+		private boolean eof = false;
+
+		/** Number of rows read so far. */
+		private int nbRows = 0;
+		/** Number of rows already notified with {@link #rowsEncoded(int)}. */
+		private int nbNotified = 0;
+		/** Error which occurred while reading or encoding a row. */
+		private Exception error = null;
+
+		/**
+		 * Build a CSV stream over the given rows.
+		 * 
+		 * @param data	Rows to encode.
+		 * @param cols	Description of the columns.
+		 */
+		public CopyInputStream(final TableIterator data, final TAPColumn[] cols){
+			this.data = data;
+			this.cols = cols;
+		}
+
+		/**
+		 * Get the number of rows read so far.
+		 * 
+		 * @return	Number of encoded rows.
+		 */
+		public final int getNbRows(){
+			return nbRows;
+		}
+
+		/**
+		 * Get the error which occurred while reading or encoding a row.
+		 * 
+		 * @return	A {@link DataReadException} or a {@link DBException}, or NULL if no error occurred.
+		 */
+		public final Exception getError(){
+			return error;
+		}
+
+		@Override
+		public int read() throws IOException{
+			if (!fill())
+				return -1;
+			return buffer[pos++] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException{
+			if (len == 0)
+				return 0;
+			if (!fill())
+				return -1;
+			int n = Math.min(len, buffer.length - pos);
+			System.arraycopy(buffer, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		/**
+		 * Encode the next rows if all the encoded bytes have been read.
+		 * 
+		 * @return	<i>true</i> if there are bytes to read, <i>false</i> if all rows have been read.
+		 * 
+		 * @throws IOException	If an error occurs while reading or encoding a row.
+		 */
+		private boolean fill() throws IOException{
+			if (pos < buffer.length)
 				return true;
+			if (eof || error != null)
+				return false;
+			try{
+				rows.setLength(0);
+				while(rows.length() < BUFFER_SIZE && !eof){
+					if (data.nextRow()){
+						nbRows++;
+						appendRow();
+					}else
+						eof = true;
+				}
+			}catch(DataReadException dre){
+				error = dre;
+			}catch(DBException de){
+				error = de;
+			}
+			if (error != null)
+				throw new IOException(error.getMessage(), error);
+			buffer = rows.toString().getBytes("UTF-8");
+			pos = 0;
+			rowsEncoded(nbRows - nbNotified);
+			nbNotified = nbRows;
+			return buffer.length > 0;
+		}
+
+		/**
+		 * <p>Notify that some rows have just been encoded (i.e. are about to be sent to the database).</p>
+		 * 
+		 * <p><i>Note:
+		 * 	By default, nothing is done.
+		 * </i></p>
+		 * 
+		 * @param nbRows	Number of rows encoded since the last notification.
+		 */
+		protected void rowsEncoded(final int nbRows){}
+
+		/**
+		 * Encode the current row in CSV.
+		 * 
+		 * @throws DataReadException	If a value can not be read.
+		 * @throws DBException			If a timestamp is not formatted in ISO8601.
+		 */
+		private void appendRow() throws DataReadException, DBException{
+			int c = 0;
+			while(c < cols.length && data.hasNextCol()){
+				Object val = data.nextCol();
+				if (c > 0)
+					rows.append(',');
+				c++;
+				if (val == null)
+					continue;
+				/* If the value is supposed to be a Timestamp, parse it
+				 * and build an appropriate SQL object: */
+				if (cols[c - 1].getDatatype().type == DBDatatype.TIMESTAMP){
+					try{
+						val = new Timestamp(ISO8601Format.parse(val.toString()));
+					}catch(ParseException pe){
+						throw new DBException("Unexpected date format for the " + c + "-th column (" + val + ")! A date formatted in ISO8601 was expected.", pe);
+					}
+				}
+				if (val instanceof Number || val instanceof Boolean)
+					rows.append(val);
+				else if (val instanceof byte[]){
+					rows.append("\\x");
+					for(byte b : (byte[])val)
+						rows.append(HEXA[(b >> 4) & 0xf]).append(HEXA[b & 0xf]);
+				}else if (val.getClass().isArray()){
+					StringBuilder str = new StringBuilder();
+					for(int i = 0; i < Array.getLength(val); i++){
+						if (i > 0)
+							str.append(' ');
+						str.append(Array.get(val, i));
+					}
+					appendQuoted(str);
+				}else
+					appendQuoted(val.toString());
+			}
+			rows.append('\n');
+		}
+
+		/**
+		 * Append the given string between double quotes, after having doubled all its double quotes.
+		 * 
+		 * @param str	String to append.
+		 */
+		private void appendQuoted(final CharSequence str){
+			rows.append('"');
+			for(int i = 0; i < str.length(); i++){
+				char ch = str.charAt(i);
+				if (ch == '"')
+					rows.append('"');
+				rows.append(ch);
+			}
+			rows.append('"');
+		}
+	}
+
+	/**
+	 * <p><i><b>Important note:</b>
+	 * 	Only tables uploaded by users can be dropped from the database. To ensure that, the schema name of this table MUST be {@link STDSchema#UPLOADSCHEMA} ("TAP_UPLOAD") in ADQL.
+	 * 	If it has another ADQL name, an exception will be thrown. Of course, the DB name of this schema MAY be different.
+	 * </i></p>
+	 * 
+	 * <p><i><b>Important note:</b>
+	 * 	This function may modify the given {@link TAPTable} object if schemas are not supported by this connection.
+	 * 	In this case, this function will prefix the table's DB name by the schema's DB name directly inside the given {@link TAPTable} object
+	 * 	(building the prefix with {@link #getTablePrefix(String)}). Then the DB name of the schema will be set to NULL.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	This implementation is able to drop only one uploaded table. So if this function finds more than one table matching to the given one,
+	 * 	an exception will be thrown and no table will be dropped.
+	 * </i></p>
+	 * 
+	 * @see tap.db.DBConnection#dropUploadedTable(tap.metadata.TAPTable)
+	 * @see #checkUploadedTableDef(TAPTable)
+	 */
+	@Override
+	public boolean dropUploadedTable(final TAPTable tableDef) throws DBException{
+		// If no table to upload, consider it has been dropped and return TRUE:
+		if (tableDef == null)
+			return true;
+
+		// Check the table is well defined (and particularly the schema is well set with an ADQL name = TAP_UPLOAD):
+		checkUploadedTableDef(tableDef);
+
+		uploadedRows.remove(tableDef);
+		synchronized(knownUploadIndexes){
+			knownUploadIndexes.remove(translator.getQualifiedTableName(tableDef));
+		}
+
+		Statement stmt = null;
+		try{
 
-			// Execute the update:
 			stmt = connection.createStatement();
-			int cnt = stmt.executeUpdate("DROP TABLE " + translator.getQualifiedTableName(tableDef) + ";");
+			int cnt;
+
+			// With a DBMS supporting it, check the existence of the table to drop and drop it with one statement:
+			if (supportsDropIfExists())
+				cnt = stmt.executeUpdate("DROP TABLE IF EXISTS " + translator.getQualifiedTableName(tableDef) + ";");
+
+			else{
+				// Check the existence of the table to drop:
+				if (!isTableExisting(tableDef.getDBSchemaName(), tableDef.getDBName(), connection.getMetaData()))
+					return true;
+
+				// Execute the update:
+				cnt = stmt.executeUpdate("DROP TABLE " + translator.getQualifiedTableName(tableDef) + ";");
+			}
 
 			// Log the end:
 			if (cnt == 0)
@@ -1687,6 +3035,10 @@ public class JDBCConnection implements DBConnection {
 	 * 		inside the given {@link TAPTable} object (building the prefix with {@link #getTablePrefix(String)}). Then the DB name
 	 * 		of the schema will be set to NULL.
 	 * 	</li>
+	 * 	<li>
+	 * 		If uploaded tables are temporary tables with PostgreSQL, the DB name of the schema is set to {@link #PG_TEMP_SCHEMA}
+	 * 		(the temporary schema of the session).
+	 * 	</li>
 	 * </ul>
 	 * 
 	 * @param tableDef	Definition of the table to create/drop.
@@ -1704,6 +3056,276 @@ public class JDBCConnection implements DBConnection {
 			tableDef.setDBName(getTablePrefix(tableDef.getDBSchemaName()) + tableDef.getDBName());
 			tableDef.getSchema().setDBName(null);
 		}
+		// With PostgreSQL, temporary tables can only be in the temporary schema of the session:
+		else if (uploadTableType == UploadTableType.TEMPORARY && DBMS_POSTGRES.equals(dbms))
+			tableDef.getSchema().setDBName(PG_TEMP_SCHEMA);
+	}
+
+	/**
+	 * <p>Tell whether the DBMS supports the statement <code>DROP TABLE IF EXISTS ...</code>.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	It is the case of PostgreSQL, SQLite and MySQL.
+	 * </i></p>
+	 * 
+	 * @return	<i>true</i> if supported, <i>false</i> otherwise.
+	 * 
+	 * @since 2.0
+	 */
+	protected boolean supportsDropIfExists(){
+		return DBMS_POSTGRES.equals(dbms) || DBMS_SQLITE.equals(dbms) || DBMS_MYSQL.equals(dbms);
+	}
+
+	/**
+	 * <p>Index the given columns of the specified uploaded table and update its statistics, if it has at least
+	 * {@link #getUploadIndexThreshold()} rows.</p>
+	 * 
+	 * <p>The following indexes are created:</p>
+	 * <ul>
+	 * 	<li>a simple index (i.e. B-tree) for each given column having an indexable type (see {@link #isIndexable(TAPColumn)}),</li>
+	 * 	<li>a spatial index for each given pair of coordinates, if supported by the translator (see {@link JDBCTranslator#getPointIndex(DBColumn, DBColumn)}).</li>
+	 * </ul>
+	 * <p>Then, the statistics of the table are updated with the statement returned by {@link #getAnalyzeStatement(TAPTable)}.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The number of rows is known if the table has been uploaded with this connection or if it is already set in the given table definition
+	 * 	(e.g. for a table reused from the {@link tap.upload.UploadCache}). Otherwise, it is counted in the database.
+	 * 	In both cases, it is set in the given table definition (see {@link TAPTable#setNbRows(long)}).
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	The coordinates having a spatial index are flagged as indexed in the given column definitions (see {@link TAPColumn#setIndexed(boolean)}).
+	 * 	Thus, the translator can choose the uploaded table as the indexed side of a positional cross-match.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	The indexes created on each uploaded table are remembered for all connections until the table is dropped.
+	 * 	So, an uploaded table shared by several queries (see {@link tap.upload.UploadCache}) is indexed and analyzed only once
+	 * 	for a given set of columns: only the missing indexes are created by the next queries.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	Indexes and statistics are just optimizations: if one of them can not be created, a WARNING is logged
+	 * 	and the other ones are created anyway.
+	 * </i></p>
+	 * 
+	 * @see tap.db.DBConnection#indexUploadedTable(tap.metadata.TAPTable, tap.metadata.TAPColumn[], tap.metadata.TAPColumn[][])
+	 * @see #checkUploadedTableDef(TAPTable)
+	 */
+	@Override
+	public boolean indexUploadedTable(final TAPTable tableDef, final TAPColumn[] columns, final TAPColumn[][] points) throws DBException{
+		// Nothing to do if no table or if indexing is disabled:
+		if (tableDef == null || uploadIndexThreshold < 0)
+			return false;
+
+		// Check the table is well defined (and particularly the schema is well set with an ADQL name = TAP_UPLOAD):
+		checkUploadedTableDef(tableDef);
+
+		final String dbTableName = translator.getQualifiedTableName(tableDef);
+
+		// 1. List the definitions of all the indexes to create:
+		ArrayList<String> indexDefs = new ArrayList<String>();
+		// ...a simple index on each given column:
+		if (columns != null){
+			for(TAPColumn col : columns){
+				if (col != null && isIndexable(col)){
+					String indexDef = "(" + translator.getColumnName(col) + ")";
+					if (!indexDefs.contains(indexDef))
+						indexDefs.add(indexDef);
+				}
+			}
+		}
+		// ...a spatial index on each given pair of coordinates:
+		Map<String,TAPColumn[]> pointIndexes = new HashMap<String,TAPColumn[]>();
+		if (points != null){
+			for(TAPColumn[] coords : points){
+				if (coords != null && coords.length == 2){
+					String indexDef = translator.getPointIndex(coords[0], coords[1]);
+					if (indexDef != null){
+						pointIndexes.put(indexDef, coords);
+						if (!indexDefs.contains(indexDef))
+							indexDefs.add(indexDef);
+					}
+				}
+			}
+		}
+
+		// ...except the ones already created:
+		final boolean analyzed;
+		synchronized(knownUploadIndexes){
+			Set<String> knownIndexes = knownUploadIndexes.get(dbTableName);
+			analyzed = (knownIndexes != null);
+			if (analyzed){
+				indexDefs.removeAll(knownIndexes);
+				setIndexedPoints(pointIndexes, knownIndexes);
+			}
+		}
+		if (analyzed && indexDefs.isEmpty())
+			return false;
+
+		Statement stmt = null;
+		try{
+			stmt = connection.createStatement();
+			applyQueryTimeout(stmt, false);
+			runningStatement = stmt;
+
+			// 2. Index only tables big enough:
+			Integer nbRows = uploadedRows.get(tableDef);
+			if (nbRows == null && tableDef.getNbRows() >= 0)
+				nbRows = (int)tableDef.getNbRows();
+			else if (nbRows == null){
+				ResultSet rs = null;
+				try{
+					rs = stmt.executeQuery("SELECT COUNT(*) FROM " + dbTableName + ";");
+					nbRows = (rs.next() ? rs.getInt(1) : 0);
+				}finally{
+					close(rs);
+				}
+				tableDef.setNbRows(nbRows);
+			}
+			if (nbRows < uploadIndexThreshold)
+				return false;
+
+			// 3. Create the indexes:
+			Set<String> createdIndexes = new HashSet<String>(indexDefs.size());
+			for(String indexDef : indexDefs){
+				if (createUploadIndex(stmt, tableDef, indexDef))
+					createdIndexes.add(indexDef);
+			}
+			setIndexedPoints(pointIndexes, createdIndexes);
+
+			// 4. Update the statistics of the table:
+			boolean statsUpdated = false;
+			String analyze = getAnalyzeStatement(tableDef);
+			if (analyze != null){
+				try{
+					stmt.executeUpdate(analyze);
+					statsUpdated = true;
+				}catch(SQLException se){
+					if (logger != null) logger.logDB(LogLevel.WARNING, this, "INDEX_UPLOAD_TABLE", "Impossible to update the statistics of the uploaded table: " + dbTableName + "!", se);
+				}
+			}
+
+			// Remember the created indexes:
+			synchronized(knownUploadIndexes){
+				Set<String> knownIndexes = knownUploadIndexes.get(dbTableName);
+				if (knownIndexes == null)
+					knownUploadIndexes.put(dbTableName, createdIndexes);
+				else
+					knownIndexes.addAll(createdIndexes);
+			}
+
+			// Log the end:
+			if (logger != null) logger.logDB(LogLevel.INFO, this, "TABLE_INDEXED", "Table \"" + tableDef.getADQLName() + "\" (in DB: " + dbTableName + ", " + nbRows + " rows) indexed: " + createdIndexes.size() + " index(es) created" + (statsUpdated ? " and statistics updated." : "."), null);
+
+			return (createdIndexes.size() > 0 || statsUpdated);
+
+		}catch(SQLException se){
+			if (logger != null) logger.logDB(LogLevel.WARNING, this, "INDEX_UPLOAD_TABLE", "Impossible to index the uploaded table: " + dbTableName + "!", se);
+			throw new DBException("Impossible to index the uploaded table: " + dbTableName + "!", se);
+		}finally{
+			runningStatement = null;
+			close(stmt);
+		}
+	}
+
+	/**
+	 * Flag as indexed the coordinates of all the given points whose the spatial index is in the given set.
+	 * 
+	 * @param points	Pairs of coordinates, each one associated with the definition of its spatial index.
+	 * @param indexes	Definitions of the existing indexes.
+	 * 
+	 * @since 2.0
+	 */
+	private static void setIndexedPoints(final Map<String,TAPColumn[]> points, final Set<String> indexes){
+		for(Map.Entry<String,TAPColumn[]> point : points.entrySet()){
+			if (indexes.contains(point.getKey())){
+				point.getValue()[0].setIndexed(true);
+				point.getValue()[1].setIndexed(true);
+			}
+		}
+	}
+
+	/**
+	 * <p>Create an index on the specified uploaded table.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The index name is built from the DB name of the table and from the index definition. So, the same index always gets the same name.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the index can not be created, a WARNING is logged and <i>false</i> is returned.
+	 * </i></p>
+	 * 
+	 * @param stmt		Statement to use in order to create the index.
+	 * @param tableDef	Definition of the uploaded table to index.
+	 * @param indexDef	Definition of the index, appended after <code>CREATE INDEX ... ON table</code> (e.g. <code>(col)</code>).
+	 * 
+	 * @return	<i>true</i> if the index has been created, <i>false</i> otherwise.
+	 * 
+	 * @since 2.0
+	 */
+	protected boolean createUploadIndex(final Statement stmt, final TAPTable tableDef, final String indexDef){
+		final String indexName = ("INDEX_" + tableDef.getDBName() + "_" + Integer.toHexString(indexDef.hashCode())).replaceAll("\\W", "_");
+		try{
+			stmt.executeUpdate("CREATE INDEX " + indexName + " ON " + translator.getQualifiedTableName(tableDef) + " " + indexDef + ";");
+			return true;
+		}catch(SQLException se){
+			if (logger != null) logger.logDB(LogLevel.WARNING, this, "INDEX_UPLOAD_TABLE", "Impossible to create the index " + indexName + " on the uploaded table " + translator.getQualifiedTableName(tableDef) + ": " + indexDef + "!", se);
+			return false;
+		}
+	}
+
+	/**
+	 * <p>Tell whether a simple index (i.e. B-tree) can be created on the given uploaded column.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	Binary, CLOB and geometrical (i.e. POINT and REGION, which are stored as strings) columns are not indexed.
+	 * </i></p>
+	 * 
+	 * @param col	An uploaded column.
+	 * 
+	 * @return	<i>true</i> if the column can be indexed, <i>false</i> otherwise.
+	 * 
+	 * @since 2.0
+	 */
+	protected boolean isIndexable(final TAPColumn col){
+		if (col.getDatatype() == null)
+			return false;
+		switch(col.getDatatype().type){
+			case BINARY:
+			case VARBINARY:
+			case BLOB:
+			case CLOB:
+			case POINT:
+			case REGION:
+				return false;
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * <p>Get the SQL statement updating the statistics of the given table, in function of the DBMS:</p>
+	 * <ul>
+	 * 	<li><b>PostgreSQL</b> and <b>SQLite</b>: <code>ANALYZE table</code></li>
+	 * 	<li><b>MySQL</b>: <code>ANALYZE TABLE table</code></li>
+	 * 	<li><b>any other DBMS</b>: NULL</li>
+	 * </ul>
+	 * 
+	 * @param tableDef	The table whose the statistics must be updated.
+	 * 
+	 * @return	The statement to execute, or NULL if statistics can not be updated with this DBMS.
+	 * 
+	 * @since 2.0
+	 */
+	protected String getAnalyzeStatement(final TAPTable tableDef){
+		if (DBMS_POSTGRES.equals(dbms) || DBMS_SQLITE.equals(dbms))
+			return "ANALYZE " + translator.getQualifiedTableName(tableDef) + ";";
+		else if (DBMS_MYSQL.equals(dbms))
+			return "ANALYZE TABLE " + translator.getQualifiedTableName(tableDef) + ";";
+		else
+			return null;
 	}
 
 	/* ************** */
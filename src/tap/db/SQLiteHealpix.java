@@ -0,0 +1,291 @@
+package tap.db;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+
+import org.sqlite.Function;
+
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPTable;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import adql.query.IdentifierField;
+import adql.translator.HealpixTranslator;
+import adql.translator.JDBCTranslator;
+import cds.utils.Healpix;
+
+/**
+ * <p>Adds the HEALPix support to a SQLite database, so that positional queries translated by {@link HealpixTranslator} can use ordinary indexes.</p>
+ * 
+ * <p>This class provides:</p>
+ * <ul>
+ * 	<li>the SQL functions needed by the queries and by the ingestion (see {@link #registerFunctions(Connection)}):
+ * 		<code>healpix(order, ra, dec)</code>, <code>ang_distance(ra1, dec1, ra2, dec2)</code>, <code>radians</code>, <code>sin</code> and <code>cos</code> ;</li>
+ * 	<li>the ingestion of a HEALPix index column for the position of a table (see {@link #addIndexColumn(Connection, JDBCTranslator, TAPTable, int)}).</li>
+ * </ul>
+ * 
+ * <p><i>Note:
+ * 	SQLite functions are defined per connection. So, {@link #registerFunctions(Connection)} must be called for each new connection
+ * 	to a SQLite database. {@link JDBCConnection#createConnection(String, String, String, String)} does it automatically.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ * 
+ * @see HealpixTranslator
+ * @see Healpix
+ */
+public final class SQLiteHealpix {
+
+	/** UCD of a HEALPix index column. */
+	public final static String HEALPIX_UCD = "pos.healpix";
+
+	/** No instance of this class should be created. */
+	private SQLiteHealpix(){}
+
+	/**
+	 * <p>Register in the given SQLite connection the SQL functions needed by {@link HealpixTranslator}:</p>
+	 * <ul>
+	 * 	<li><code>healpix(order, ra, dec)</code>: index of the HEALPix cell (NESTED scheme) containing the given position (in degrees) ;</li>
+	 * 	<li><code>ang_distance(ra1, dec1, ra2, dec2)</code>: exact angular distance (in degrees) between two positions (in degrees) ;</li>
+	 * 	<li><code>radians(x)</code>, <code>sin(x)</code> and <code>cos(x)</code>, used by the exact test of a polygon.</li>
+	 * </ul>
+	 * 
+	 * <p><i>Note:
+	 * 	If one of the arguments is NULL, the result is NULL.
+	 * </i></p>
+	 * 
+	 * @param conn	An open connection to a SQLite database.
+	 * 
+	 * @throws SQLException	If one of the functions can not be registered.
+	 */
+	public static void registerFunctions(final Connection conn) throws SQLException{
+		Function.create(conn, "healpix", new NullSafeFunction("healpix(order, ra, dec)", 3){
+			@Override
+			protected void compute() throws SQLException{
+				try{
+					result(Healpix.ang2pix(value_int(0), value_double(1), value_double(2)));
+				}catch(IllegalArgumentException iae){
+					error(iae.getMessage());
+				}
+			}
+		});
+		Function.create(conn, HealpixTranslator.DISTANCE_FUNCTION, new NullSafeFunction(HealpixTranslator.DISTANCE_FUNCTION + "(ra1, dec1, ra2, dec2)", 4){
+			@Override
+			protected void compute() throws SQLException{
+				result(distance(value_double(0), value_double(1), value_double(2), value_double(3)));
+			}
+		});
+		Function.create(conn, "radians", new NullSafeFunction("radians(x)", 1){
+			@Override
+			protected void compute() throws SQLException{
+				result(Math.toRadians(value_double(0)));
+			}
+		});
+		Function.create(conn, "sin", new NullSafeFunction("sin(x)", 1){
+			@Override
+			protected void compute() throws SQLException{
+				result(Math.sin(value_double(0)));
+			}
+		});
+		Function.create(conn, "cos", new NullSafeFunction("cos(x)", 1){
+			@Override
+			protected void compute() throws SQLException{
+				result(Math.cos(value_double(0)));
+			}
+		});
+	}
+
+	/**
+	 * SQLite function with a fixed number of arguments, returning NULL if one of them is NULL.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static abstract class NullSafeFunction extends Function {
+		/** Type code of a NULL value in SQLite. */
+		private final static int SQLITE_NULL = 5;
+
+		/** Signature of the function, for the error messages. */
+		private final String signature;
+		/** Number of expected arguments. */
+		private final int nbArgs;
+
+		/**
+		 * Builds a function.
+		 * 
+		 * @param signature	Signature of the function, for the error messages.
+		 * @param nbArgs	Number of expected arguments.
+		 */
+		public NullSafeFunction(final String signature, final int nbArgs){
+			this.signature = signature;
+			this.nbArgs = nbArgs;
+		}
+
+		@Override
+		protected final void xFunc() throws SQLException{
+			if (args() != nbArgs)
+				throw new SQLException(signature + " expects " + nbArgs + " argument" + (nbArgs > 1 ? "s" : "") + "!");
+			for(int i = 0; i < nbArgs; i++){
+				if (value_type(i) == SQLITE_NULL){
+					result();
+					return;
+				}
+			}
+			compute();
+		}
+
+		/**
+		 * Compute and set the result of the function, all arguments being not NULL.
+		 * 
+		 * @throws SQLException	If an argument can not be read or if the result can not be set.
+		 */
+		protected abstract void compute() throws SQLException;
+	}
+
+	/**
+	 * Compute the angular distance between two positions with the haversine formula (precise even for very small distances).
+	 * 
+	 * @param ra1	Right ascension of the first position (in degrees).
+	 * @param dec1	Declination of the first position (in degrees).
+	 * @param ra2	Right ascension of the second position (in degrees).
+	 * @param dec2	Declination of the second position (in degrees).
+	 * 
+	 * @return	The distance (in degrees).
+	 */
+	public static double distance(final double ra1, final double dec1, final double ra2, final double dec2){
+		double sinDDec = Math.sin(Math.toRadians(dec2 - dec1) / 2), sinDRa = Math.sin(Math.toRadians(ra2 - ra1) / 2);
+		double a = sinDDec * sinDDec + Math.cos(Math.toRadians(dec1)) * Math.cos(Math.toRadians(dec2)) * sinDRa * sinDRa;
+		return Math.toDegrees(2 * Math.asin(Math.min(1, Math.sqrt(a))));
+	}
+
+	/**
+	 * <p>Add a HEALPix index column for the main position of the given table.</p>
+	 * 
+	 * <p>
+	 * 	The position is given by the columns whose UCD starts with <code>pos.eq.ra</code> and <code>pos.eq.dec</code>
+	 * 	(the ones also flagged with <code>meta.main</code> are preferred).
+	 * </p>
+	 * 
+	 * @param conn			An open connection to the SQLite database, in which the functions have been registered (see {@link #registerFunctions(Connection)}).
+	 * @param translator	Translator to use to write the table and column names.
+	 * @param table			Definition of the table to index.
+	 * @param order			HEALPix order of the index (it must be the one of the {@link HealpixTranslator} which will translate the queries).
+	 * 
+	 * @return	The definition of the new HEALPix index column (already added in the given table definition),
+	 *        	or NULL if the table has no position.
+	 * 
+	 * @throws DBException	If the column can not be added, filled or indexed.
+	 * 
+	 * @see #addIndexColumn(Connection, JDBCTranslator, TAPTable, TAPColumn, TAPColumn, int)
+	 */
+	public static TAPColumn addIndexColumn(final Connection conn, final JDBCTranslator translator, final TAPTable table, final int order) throws DBException{
+		TAPColumn ra = null, dec = null;
+		Iterator<TAPColumn> itCols = table.getColumns();
+		while(itCols.hasNext()){
+			TAPColumn col = itCols.next();
+			String ucd = (col.getUcd() == null) ? "" : col.getUcd().toLowerCase();
+			if (ucd.startsWith("pos.eq.ra") && (ra == null || ucd.contains("meta.main")))
+				ra = col;
+			else if (ucd.startsWith("pos.eq.dec") && (dec == null || ucd.contains("meta.main")))
+				dec = col;
+		}
+		if (ra == null || dec == null)
+			return null;
+		return addIndexColumn(conn, translator, table, ra, dec, order);
+	}
+
+	/**
+	 * <p>Add a HEALPix index column for the given position of the given table.</p>
+	 * 
+	 * <p>
+	 * 	The column is named as expected by {@link HealpixTranslator} (see {@link HealpixTranslator#getIndexColumnName(String, String, int)}).
+	 * 	It is added in the database (<code>ALTER TABLE ... ADD COLUMN</code>), filled with <code>healpix(order, ra, dec)</code> and indexed.
+	 * 	Then, it is added in the given table definition, with the UCD {@link #HEALPIX_UCD}.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	The 3 operations are executed in one transaction, which is rolled back if one of them fails.
+	 * </i></p>
+	 * 
+	 * @param conn			An open connection to the SQLite database, in which the functions have been registered (see {@link #registerFunctions(Connection)}).
+	 * @param translator	Translator to use to write the table and column names.
+	 * @param table			Definition of the table to index.
+	 * @param ra			First coordinate of the position.
+	 * @param dec			Second coordinate of the position.
+	 * @param order			HEALPix order of the index (it must be the one of the {@link HealpixTranslator} which will translate the queries).
+	 * 
+	 * @return	The definition of the new HEALPix index column (already added in the given table definition).
+	 * 
+	 * @throws DBException	If the column can not be added, filled or indexed.
+	 */
+	public static TAPColumn addIndexColumn(final Connection conn, final JDBCTranslator translator, final TAPTable table, final TAPColumn ra, final TAPColumn dec, final int order) throws DBException{
+		if (order < 0 || order > Healpix.MAX_ORDER)
+			throw new DBException("Incorrect HEALPix order: " + order + "! It must be between 0 and " + Healpix.MAX_ORDER + ".");
+
+		// Build the definition of the index column:
+		String colName = HealpixTranslator.getIndexColumnName(ra.getDBName(), dec.getDBName(), order);
+		TAPColumn index = table.getColumn(colName);
+		if (index != null)
+			return index;
+		index = new TAPColumn(colName, new DBType(DBDatatype.BIGINT), "HEALPix index (NESTED scheme, order " + order + ") of the position (" + ra.getADQLName() + ", " + dec.getADQLName() + ").", null, HEALPIX_UCD, null);
+		index.setIndexed(true);
+		table.addColumn(index);
+
+		final String tableName = translator.getQualifiedTableName(table), indexColName = translator.getColumnName(index);
+		Statement stmt = null;
+		boolean autoCommit = true;
+		try{
+			autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			stmt = conn.createStatement();
+
+			// Add, fill and index the column:
+			stmt.executeUpdate("ALTER TABLE " + tableName + " ADD COLUMN " + indexColName + " INTEGER");
+			stmt.executeUpdate("UPDATE " + tableName + " SET " + indexColName + " = healpix(" + order + ", " + translator.getColumnName(ra) + ", " + translator.getColumnName(dec) + ")");
+			stmt.executeUpdate(translator.appendIdentifier(new StringBuilder("CREATE INDEX "), "idx_" + table.getDBName() + "_" + colName, IdentifierField.COLUMN).append(" ON ").append(tableName).append(" (").append(indexColName).append(')').toString());
+
+			conn.commit();
+			return index;
+		}catch(SQLException se){
+			table.removeColumn(colName);
+			try{
+				conn.rollback();
+			}catch(SQLException ignored){}
+			throw new DBException("Impossible to add a HEALPix index column in the table \"" + table.getADQLName() + "\"!", se);
+		}finally{
+			if (stmt != null){
+				try{
+					stmt.close();
+				}catch(SQLException ignored){}
+			}
+			try{
+				conn.setAutoCommit(autoCommit);
+			}catch(SQLException ignored){}
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package tap.db;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import tap.data.TableIterator;
+import tap.metadata.TAPTable;
+
+/**
+ * <p>Let be notified of the progression of an upload (see {@link DBConnection#addUploadedTable(TAPTable, TableIterator)}).</p>
+ * 
+ * <p><i>Note:
+ * 	The notifications are sent by the thread loading the rows. So, implementations should be fast and should never throw any exception.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ * 
+ * @see DBConnection#setUploadProgressListener(UploadProgressListener)
+ */
+public interface UploadProgressListener {
+
+	/**
+	 * Notify that some rows have just been loaded into the database.
+	 * 
+	 * @param table		The uploaded table in which the rows have been loaded.
+	 * @param nbRows	Number of rows loaded since the last notification (for this table).
+	 */
+	public void rowsLoaded(final TAPTable table, final int nbRows);
+
+}
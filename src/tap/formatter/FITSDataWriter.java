@@ -0,0 +1,759 @@
+package tap.formatter;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import tap.data.DataReadException;
+import tap.data.TableIterator;
+import tap.metadata.TAPColumn;
+import tap.metadata.VotType;
+
+/**
+ * <p>Write a table in FITS (an empty primary HDU followed by a BINTABLE extension) in one pass over the rows, without STIL.</p>
+ * 
+ * <p>
+ * 	The width of each column is deduced from its type (see {@link VotType}) before reading any row:
+ * 	numeric columns and columns with a fixed or maximum length (e.g. CHAR(n), VARCHAR(n), BINARY(n)) are written as fixed-width fields,
+ * 	while the columns without any length (e.g. VARCHAR, CLOB, TIMESTAMP, BLOB) are written as variable-length arrays
+ * 	(TFORM = '1PA(max)' or '1PB(max)') whose values are stored in the heap, after the rows.
+ * 	Thus, the size of the FITS header does not depend on the values: only NAXIS2, PCOUNT and the maximum lengths of the variable-length
+ * 	columns are known at the end.
+ * </p>
+ * 
+ * <p>Then, in function of the given output stream:</p>
+ * <ul>
+ * 	<li><b>{@link FileOutputStream}</b> (e.g. result of an asynchronous job): the header and the rows are written directly in the file
+ * 		and, at the end, the heap is appended and the header is rewritten with the final values.</li>
+ * 	<li><b>any other stream</b> (e.g. HTTP response of a synchronous job): the rows and the heap are spooled
+ * 		(in memory up to {@link #SPOOL_MEMORY_LIMIT} bytes, in a temporary file beyond), already serialized as in the final FITS file.
+ * 		Then the header is written, followed by the spooled bytes.</li>
+ * </ul>
+ * 
+ * <p>
+ * 	The maximum number of rows is applied exactly as in {@link VOTableFormat.LimitedStarTable}: when this limit is reached,
+ * 	the iterator is only asked whether another row exists. If so, {@link #lastSequenceOverflowed()} returns <i>true</i>.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	As with STIL, a NULL integer is written with a "magic" value declared in TNULLn, a NULL floating point value is written as NaN
+ * 	and a NULL string or binary value is written as an empty value.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public class FITSDataWriter {
+
+	/** Number of written rows between two checks of the thread interruption. */
+	public final static int INTERRUPTION_CHECK_PERIOD = 1000;
+
+	/** Maximum number of bytes spooled in memory. Beyond, the spooled bytes are moved into a temporary file. */
+	public final static int SPOOL_MEMORY_LIMIT = 4 * 1024 * 1024;
+
+	/** Size (in bytes) of the buffers in which rows and heap values are serialized before being written. */
+	protected final static int BUFFER_SIZE = 8192;
+
+	/** Size of a FITS block. Each HDU (header and data) must be padded to a multiple of this size. */
+	private final static int FITS_BLOCK_SIZE = 2880;
+
+	/** Size of a FITS header card. */
+	private final static int CARD_SIZE = 80;
+
+	/** Metadata of all columns to write. */
+	protected final TAPColumn[] columns;
+
+	/** Encoder of each column. */
+	private final ColumnEncoder[] encoders;
+
+	/** Width (in bytes) of a row. */
+	private final int rowWidth;
+
+	/** Indicates whether the last written table has been truncated at the maximum number of rows. */
+	private boolean overflow = false;
+
+	/** Number of rows written in the last table. */
+	private int nbRows = 0;
+
+	/**
+	 * Build a FITS writer.
+	 * 
+	 * @param columns	Metadata of all columns to write.
+	 * 
+	 * @throws NullPointerException	If the given columns metadata are NULL.
+	 */
+	public FITSDataWriter(final TAPColumn[] columns) throws NullPointerException{
+		if (columns == null)
+			throw new NullPointerException("Missing columns metadata!");
+		this.columns = columns;
+
+		encoders = new ColumnEncoder[columns.length];
+		int width = 0;
+		for(int i = 0; i < columns.length; i++){
+			encoders[i] = createEncoder(new VotType(columns[i].getDatatype()));
+			width += encoders[i].width;
+		}
+		rowWidth = width;
+	}
+
+	/**
+	 * Indicates whether the last written table has been truncated at the maximum number of rows
+	 * (i.e. at least one more row was available).
+	 * 
+	 * @return	<i>true</i> if the last written table overflowed, <i>false</i> otherwise.
+	 */
+	public final boolean lastSequenceOverflowed(){
+		return overflow;
+	}
+
+	/**
+	 * Get the number of rows written in the last table.
+	 * 
+	 * @return	Number of written rows.
+	 */
+	public final int getNbReadRows(){
+		return nbRows;
+	}
+
+	/**
+	 * <p>Write the whole FITS file of the given table in the given stream.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The output stream is flushed but not closed.
+	 * </i></p>
+	 * 
+	 * @param it		Rows to write.
+	 * @param output	Stream in which the FITS file must be written. If it is a {@link FileOutputStream}, nothing is spooled.
+	 * @param maxrec	Maximum number of rows to write. <i>(if negative, there will be no limit)</i>
+	 * @param thread	Thread which has asked for this writing (its interruption flag is checked every {@link #INTERRUPTION_CHECK_PERIOD} rows). <i>May be NULL.</i>
+	 * 
+	 * @throws IOException				If an error occurs while writing in the given stream.
+	 * @throws DataReadException		If an error occurs while reading the given table.
+	 * @throws InterruptedException		If the given thread has been interrupted.
+	 */
+	public void writeTable(final TableIterator it, final OutputStream output, final long maxrec, final Thread thread) throws IOException, DataReadException, InterruptedException{
+		overflow = false;
+		nbRows = 0;
+		for(ColumnEncoder encoder : encoders)
+			encoder.maxLength = 0;
+
+		Spool rowSpool = null;
+		final Spool heapSpool = new Spool();
+		try{
+			final Heap heap = new Heap(heapSpool);
+			WritableByteChannel rowOutput;
+			long headerPosition = -1;
+
+			/* File: write a temporary header (the size of the header does not depend on the values), then the rows directly. */
+			if (output instanceof FileOutputStream){
+				output.flush();
+				FileChannel file = ((FileOutputStream)output).getChannel();
+				headerPosition = file.position();
+				writeFully(file, ByteBuffer.wrap(buildHeader(0, 0)));
+				rowOutput = file;
+			}
+			/* Other stream: spool the rows. */
+			else{
+				rowSpool = new Spool();
+				rowOutput = rowSpool;
+			}
+
+			// Write all rows, up to maxrec:
+			writeRows(it, rowOutput, heap, maxrec, thread);
+			heap.flush();
+
+			// Check for overflow:
+			if (maxrec >= 0 && nbRows >= maxrec)
+				overflow = it.nextRow();
+
+			final long dataSize = (long)nbRows * rowWidth + heapSpool.size();
+			final ByteBuffer padding = ByteBuffer.allocate((int)((FITS_BLOCK_SIZE - dataSize % FITS_BLOCK_SIZE) % FITS_BLOCK_SIZE));
+
+			/* File: append the heap and the padding, and rewrite the header with the final values. */
+			if (rowSpool == null){
+				FileChannel file = (FileChannel)rowOutput;
+				heapSpool.transferTo(file);
+				writeFully(file, padding);
+				ByteBuffer header = ByteBuffer.wrap(buildHeader(nbRows, heapSpool.size()));
+				for(long position = headerPosition; header.hasRemaining();)
+					position += file.write(header, position);
+			}
+			/* Other stream: write the header, and then the spooled rows, heap and padding. */
+			else{
+				WritableByteChannel channel = Channels.newChannel(output);
+				writeFully(channel, ByteBuffer.wrap(buildHeader(nbRows, heapSpool.size())));
+				rowSpool.transferTo(channel);
+				heapSpool.transferTo(channel);
+				writeFully(channel, padding);
+			}
+
+			output.flush();
+		}finally{
+			heapSpool.close();
+			if (rowSpool != null)
+				rowSpool.close();
+		}
+	}
+
+	/**
+	 * Read and write all rows (up to maxrec).
+	 * 
+	 * @param it		Rows to write.
+	 * @param output	Channel in which rows must be written.
+	 * @param heap		Heap in which the values of variable-length columns must be written.
+	 * @param maxrec	Maximum number of rows to write. <i>(if negative, there will be no limit)</i>
+	 * @param thread	Thread which has asked for this writing. <i>May be NULL.</i>
+	 * 
+	 * @throws IOException				If an error occurs while writing the rows.
+	 * @throws DataReadException		If an error occurs while reading the given table.
+	 * @throws InterruptedException		If the given thread has been interrupted.
+	 */
+	private void writeRows(final TableIterator it, final WritableByteChannel output, final Heap heap, final long maxrec, final Thread thread) throws IOException, DataReadException, InterruptedException{
+		final int nbColumns = encoders.length;
+		final ByteBuffer rows = ByteBuffer.allocate(Math.max(BUFFER_SIZE, rowWidth));
+
+		while((maxrec < 0 || nbRows < maxrec) && it.nextRow()){
+			if (rows.remaining() < rowWidth){
+				rows.flip();
+				writeFully(output, rows);
+				rows.clear();
+			}
+
+			int col = 0;
+			for(; col < nbColumns && it.hasNextCol(); col++)
+				encoders[col].write(it, rows, heap);
+			// missing values => NULL:
+			for(; col < nbColumns; col++)
+				encoders[col].writeNull(rows);
+
+			nbRows++;
+			if (thread != null && nbRows % INTERRUPTION_CHECK_PERIOD == 0 && thread.isInterrupted())
+				throw new InterruptedException();
+		}
+
+		rows.flip();
+		writeFully(output, rows);
+	}
+
+	/**
+	 * Build the primary HDU (without data) and the header of the BINTABLE extension.
+	 * 
+	 * @param nbRows	Number of rows (NAXIS2).
+	 * @param heapSize	Size of the heap (PCOUNT).
+	 * 
+	 * @return	Both headers, padded to a multiple of {@link #FITS_BLOCK_SIZE}.
+	 */
+	private byte[] buildHeader(final long nbRows, final long heapSize){
+		StringBuffer buf = new StringBuffer();
+
+		// Primary HDU:
+		addCard(buf, "SIMPLE", formatLogical(true), "file conforms to FITS standard");
+		addCard(buf, "BITPIX", formatInteger(8), "no data in primary HDU");
+		addCard(buf, "NAXIS", formatInteger(0), "no data in primary HDU");
+		addCard(buf, "EXTEND", formatLogical(true), "table extension may follow");
+		endHeader(buf);
+
+		// BINTABLE extension:
+		addCard(buf, "XTENSION", formatString("BINTABLE"), "binary table extension");
+		addCard(buf, "BITPIX", formatInteger(8), "8-bit bytes");
+		addCard(buf, "NAXIS", formatInteger(2), "2-dimensional table");
+		addCard(buf, "NAXIS1", formatInteger(rowWidth), "width of table in bytes");
+		addCard(buf, "NAXIS2", formatInteger(nbRows), "number of rows in table");
+		addCard(buf, "PCOUNT", formatInteger(heapSize), "size of special data area");
+		addCard(buf, "GCOUNT", formatInteger(1), "one data group");
+		addCard(buf, "TFIELDS", formatInteger(columns.length), "number of columns");
+		for(int i = 0; i < columns.length; i++){
+			final int n = i + 1;
+			final TAPColumn column = columns[i];
+			final ColumnEncoder encoder = encoders[i];
+			addCard(buf, "TTYPE" + n, formatString(column.getADQLName()), "label for column " + n);
+			addCard(buf, "TFORM" + n, formatString(encoder.getFormat()), "format for column " + n);
+			if (encoder.getNullValue() != null)
+				addCard(buf, "TNULL" + n, formatInteger(encoder.getNullValue()), "blank value for column " + n);
+			if (column.getUnit() != null)
+				addCard(buf, "TUNIT" + n, formatString(column.getUnit()), "units for column " + n);
+			if (column.getDescription() != null)
+				addCard(buf, "TCOMM" + n, formatString(column.getDescription()), null);
+			if (column.getUcd() != null)
+				addCard(buf, "TUCD" + n, formatString(column.getUcd()), null);
+			if (column.getUtype() != null)
+				addCard(buf, "TUTYP" + n, formatString(column.getUtype()), null);
+		}
+		endHeader(buf);
+
+		byte[] header = new byte[buf.length()];
+		for(int i = 0; i < header.length; i++)
+			header[i] = (byte)buf.charAt(i);
+		return header;
+	}
+
+	/**
+	 * Append a header card.
+	 * 
+	 * @param buf		Header in which the card must be appended.
+	 * @param keyword	Keyword of the card.
+	 * @param value		Value, already formatted.
+	 * @param comment	Comment of the card. <i>May be NULL.</i>
+	 */
+	private static void addCard(final StringBuffer buf, final String keyword, final String value, final String comment){
+		StringBuffer card = new StringBuffer(keyword);
+		while(card.length() < 8)
+			card.append(' ');
+		card.append("= ").append(value);
+		if (comment != null)
+			card.append(" / ").append(comment);
+		appendCard(buf, card);
+	}
+
+	/**
+	 * Append the END card and pad the header to a multiple of {@link #FITS_BLOCK_SIZE} with spaces.
+	 * 
+	 * @param buf	Header to end.
+	 */
+	private static void endHeader(final StringBuffer buf){
+		appendCard(buf, "END");
+		while(buf.length() % FITS_BLOCK_SIZE != 0)
+			buf.append(' ');
+	}
+
+	/**
+	 * Append the given card, truncated or padded to {@link #CARD_SIZE} characters.
+	 * 
+	 * @param buf	Header in which the card must be appended.
+	 * @param card	Card to append.
+	 */
+	private static void appendCard(final StringBuffer buf, final CharSequence card){
+		int length = Math.min(card.length(), CARD_SIZE);
+		buf.append(card, 0, length);
+		for(int i = length; i < CARD_SIZE; i++)
+			buf.append(' ');
+	}
+
+	private static String formatLogical(final boolean value){
+		return "                   " + (value ? 'T' : 'F');
+	}
+
+	private static String formatInteger(final long value){
+		String str = Long.toString(value);
+		StringBuffer buf = new StringBuffer();
+		for(int i = str.length(); i < 20; i++)
+			buf.append(' ');
+		return buf.append(str).toString();
+	}
+
+	/**
+	 * Format a FITS string value: quotes are doubled, non printable ASCII characters are replaced by '?'
+	 * and the value is truncated so that it holds in one card.
+	 * 
+	 * @param value	String to format.
+	 * 
+	 * @return	The formatted value (with its delimiting quotes).
+	 */
+	private static String formatString(final String value){
+		StringBuffer buf = new StringBuffer("'");
+		for(int i = 0; i < value.length() && buf.length() < 68; i++){
+			char c = value.charAt(i);
+			if (c == '\''){
+				if (buf.length() > 66)
+					break;
+				buf.append("''");
+			}else
+				buf.append((c >= 0x20 && c < 0x7f) ? c : '?');
+		}
+		while(buf.length() < 9)
+			buf.append(' ');
+		return buf.append('\'').toString();
+	}
+
+	/**
+	 * Write all remaining bytes of the given buffer in the given channel.
+	 * 
+	 * @param channel	Channel in which bytes must be written.
+	 * @param buffer	Bytes to write.
+	 * 
+	 * @throws IOException	If an error occurs while writing.
+	 */
+	private static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException{
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	/**
+	 * Build the encoder of a column having the given VOTable type.
+	 * 
+	 * @param type	VOTable type of the column.
+	 * 
+	 * @return	The corresponding encoder.
+	 */
+	private static ColumnEncoder createEncoder(final VotType type){
+		// Get the length of arrays (if the maximum length is given, use it as fixed length):
+		int length = -1;
+		if (type.arraysize != null){
+			try{
+				length = Integer.parseInt(type.arraysize.endsWith("*") ? type.arraysize.substring(0, type.arraysize.length() - 1) : type.arraysize);
+			}catch(NumberFormatException nfe){}
+		}
+
+		switch(type.datatype){
+			case SHORT:
+				return new IntegerEncoder('I', 2);
+			case INT:
+				return new IntegerEncoder('J', 4);
+			case LONG:
+				return new IntegerEncoder('K', 8);
+			case FLOAT:
+				return new FloatingEncoder(true);
+			case DOUBLE:
+				return new FloatingEncoder(false);
+			case UNSIGNED_BYTE:
+				/* Note: a variable-length binary is written in the heap (even if a maximum length is known),
+				 * because trailing zeros would otherwise be lost. */
+				return new ArrayEncoder('B', (type.arraysize != null && type.arraysize.endsWith("*")) ? -1 : length);
+			case CHAR:
+			default:
+				return new ArrayEncoder('A', length);
+		}
+	}
+
+	/* ******** */
+	/* ENCODERS */
+	/* ******** */
+
+	/**
+	 * Serialize the values of one column in a FITS row.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static abstract class ColumnEncoder {
+		/** Width (in bytes) of this column in a row. */
+		final int width;
+		/** Maximum number of items written in the heap for this column (only for a variable-length column). */
+		int maxLength = 0;
+
+		ColumnEncoder(final int width){
+			this.width = width;
+		}
+
+		/** @return	Value of TFORMn. */
+		abstract String getFormat();
+
+		/** @return	Value of TNULLn, or NULL if none. */
+		Long getNullValue(){
+			return null;
+		}
+
+		/** Read the next value of the given iterator and write it in the given row buffer (or in the heap). */
+		abstract void write(final TableIterator it, final ByteBuffer row, final Heap heap) throws IOException, DataReadException;
+
+		/** Write a NULL value in the given row buffer. */
+		abstract void writeNull(final ByteBuffer row);
+	}
+
+	/** Encoder of short, int and long columns (NULL = MIN_VALUE). */
+	private static final class IntegerEncoder extends ColumnEncoder {
+		private final char format;
+		private final long nullValue;
+
+		IntegerEncoder(final char format, final int nbBytes){
+			super(nbBytes);
+			this.format = format;
+			nullValue = (nbBytes == 2) ? Short.MIN_VALUE : ((nbBytes == 4) ? Integer.MIN_VALUE : Long.MIN_VALUE);
+		}
+
+		@Override
+		String getFormat(){
+			return String.valueOf(format);
+		}
+
+		@Override
+		Long getNullValue(){
+			return nullValue;
+		}
+
+		@Override
+		void write(final TableIterator it, final ByteBuffer row, final Heap heap) throws DataReadException{
+			long value = it.nextLong();
+			put(row, it.wasNull() ? nullValue : value);
+		}
+
+		@Override
+		void writeNull(final ByteBuffer row){
+			put(row, nullValue);
+		}
+
+		private void put(final ByteBuffer row, final long value){
+			if (width == 2)
+				row.putShort((short)value);
+			else if (width == 4)
+				row.putInt((int)value);
+			else
+				row.putLong(value);
+		}
+	}
+
+	/** Encoder of float and double columns (NULL = NaN). */
+	private static final class FloatingEncoder extends ColumnEncoder {
+		FloatingEncoder(final boolean isFloat){
+			super(isFloat ? 4 : 8);
+		}
+
+		@Override
+		String getFormat(){
+			return (width == 4) ? "E" : "D";
+		}
+
+		@Override
+		void write(final TableIterator it, final ByteBuffer row, final Heap heap) throws DataReadException{
+			double value = it.nextDouble();
+			if (it.wasNull())
+				writeNull(row);
+			else if (width == 4)
+				row.putFloat((float)value);
+			else
+				row.putDouble(value);
+		}
+
+		@Override
+		void writeNull(final ByteBuffer row){
+			if (width == 4)
+				row.putFloat(Float.NaN);
+			else
+				row.putDouble(Double.NaN);
+		}
+	}
+
+	/**
+	 * Encoder of char ('A') and unsignedByte ('B') columns.
+	 * With a fixed length, the values are truncated or padded with zeros. Otherwise, they are written in the heap.
+	 */
+	private static final class ArrayEncoder extends ColumnEncoder {
+		private final char type;
+		private final int length;
+
+		ArrayEncoder(final char type, final int length){
+			super((length >= 0) ? length : 8);
+			this.type = type;
+			this.length = length;
+		}
+
+		@Override
+		String getFormat(){
+			return (length >= 0) ? (length + "" + type) : ("1P" + type + "(" + maxLength + ")");
+		}
+
+		@Override
+		void write(final TableIterator it, final ByteBuffer row, final Heap heap) throws IOException, DataReadException{
+			Object value = it.nextCol();
+			if (value == null){
+				writeNull(row);
+				return;
+			}
+
+			// Variable length => write the value in the heap, and its descriptor in the row:
+			if (length < 0){
+				long offset = heap.size();
+				int nbItems = (type == 'B' && value instanceof byte[]) ? heap.putBytes((byte[])value) : heap.putChars(value.toString());
+				if (offset > Integer.MAX_VALUE)
+					throw new IOException("FITS heap too large (more than " + Integer.MAX_VALUE + " bytes)!");
+				row.putInt(nbItems);
+				row.putInt((int)offset);
+				if (nbItems > maxLength)
+					maxLength = nbItems;
+			}
+			// Fixed length => write the value, truncated or padded with zeros:
+			else{
+				int nbItems;
+				if (type == 'B' && value instanceof byte[]){
+					byte[] bytes = (byte[])value;
+					nbItems = Math.min(bytes.length, length);
+					row.put(bytes, 0, nbItems);
+				}else{
+					String str = value.toString();
+					nbItems = Math.min(str.length(), length);
+					for(int i = 0; i < nbItems; i++)
+						row.put(toByte(str.charAt(i)));
+				}
+				for(int i = nbItems; i < length; i++)
+					row.put((byte)0);
+			}
+		}
+
+		@Override
+		void writeNull(final ByteBuffer row){
+			for(int i = 0; i < width; i++)
+				row.put((byte)0);
+		}
+	}
+
+	/**
+	 * Convert a character into a FITS ASCII character ('?' if not ASCII).
+	 * 
+	 * @param c	Character to convert.
+	 * 
+	 * @return	The corresponding byte.
+	 */
+	private static byte toByte(final char c){
+		return (byte)((c < 0x80) ? c : '?');
+	}
+
+	/* ************ */
+	/* HEAP & SPOOL */
+	/* ************ */
+
+	/**
+	 * Heap of the FITS binary table: values of the variable-length columns, buffered and then written in a {@link Spool}.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static final class Heap {
+		private final Spool spool;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		Heap(final Spool spool){
+			this.spool = spool;
+		}
+
+		/** @return	Number of bytes written in the heap until now. */
+		long size(){
+			return spool.size() + buffer.position();
+		}
+
+		int putChars(final String str) throws IOException{
+			final int length = str.length();
+			for(int i = 0; i < length; i++){
+				if (!buffer.hasRemaining())
+					flush();
+				buffer.put(toByte(str.charAt(i)));
+			}
+			return length;
+		}
+
+		int putBytes(final byte[] bytes) throws IOException{
+			if (buffer.remaining() < bytes.length){
+				flush();
+				if (bytes.length > buffer.capacity()){
+					writeFully(spool, ByteBuffer.wrap(bytes));
+					return bytes.length;
+				}
+			}
+			buffer.put(bytes);
+			return bytes.length;
+		}
+
+		void flush() throws IOException{
+			buffer.flip();
+			writeFully(spool, buffer);
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * <p>Bytes kept in memory (up to {@link FITSDataWriter#SPOOL_MEMORY_LIMIT}) or in a temporary file, to be copied later in the output.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	{@link #close()} must always be called, so that the temporary file (if any) is deleted.
+	 * </i></p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static final class Spool implements WritableByteChannel {
+		private ByteBuffer memory = ByteBuffer.allocate(BUFFER_SIZE);
+		private File file = null;
+		private RandomAccessFile raf = null;
+		private FileChannel channel = null;
+		private long size = 0;
+
+		long size(){
+			return size;
+		}
+
+		@Override
+		public int write(final ByteBuffer src) throws IOException{
+			final int length = src.remaining();
+			if (channel == null){
+				// grow the memory buffer, if still allowed:
+				if (memory.remaining() < length && memory.position() + length <= SPOOL_MEMORY_LIMIT){
+					ByteBuffer bigger = ByteBuffer.allocate(Math.min(SPOOL_MEMORY_LIMIT, Math.max(memory.capacity() * 2, memory.position() + length)));
+					memory.flip();
+					bigger.put(memory);
+					memory = bigger;
+				}
+				// otherwise, move everything into a temporary file:
+				if (memory.remaining() < length){
+					file = File.createTempFile("tap_fits_", ".spool");
+					raf = new RandomAccessFile(file, "rw");
+					channel = raf.getChannel();
+					memory.flip();
+					writeFully(channel, memory);
+					memory = null;
+				}else
+					memory.put(src);
+			}
+			if (channel != null)
+				writeFully(channel, src);
+			size += length;
+			return length;
+		}
+
+		/** Copy all spooled bytes into the given channel. */
+		void transferTo(final WritableByteChannel output) throws IOException{
+			if (channel == null){
+				ByteBuffer content = memory.duplicate();
+				content.flip();
+				writeFully(output, content);
+			}else{
+				long position = 0;
+				while(position < size)
+					position += channel.transferTo(position, size - position, output);
+			}
+		}
+
+		@Override
+		public boolean isOpen(){
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException{
+			if (raf != null){
+				raf.close();
+				raf = null;
+				channel = null;
+				file.delete();
+			}
+		}
+	}
+
+}
@@ -26,15 +26,16 @@ import tap.ServiceConnection;
 import tap.TAPException;
 import tap.TAPExecutionReport;
 import tap.data.TableIterator;
-import tap.formatter.VOTableFormat.LimitedStarTable;
-import uk.ac.starlink.fits.FitsTableWriter;
-import uk.ac.starlink.table.ColumnInfo;
-import uk.ac.starlink.table.StarTable;
-import uk.ac.starlink.table.StoragePolicy;
+import tap.metadata.TAPColumn;
 import uws.service.log.UWSLog.LogLevel;
 
 /**
- * Format any given query (table) result into FITS.
+ * <p>Format any given query (table) result into FITS.</p>
+ * 
+ * <p>
+ * 	The FITS file is written by {@link FITSDataWriter}, in one pass over the rows:
+ * 	directly in the result file of an asynchronous job, or through a compact spool of the already serialized rows otherwise.
+ * </p>
  * 
  * @author Gr&eacute;gory Mantelet (ARI)
  * @version 2.0 (10/2014)
@@ -101,22 +102,17 @@ public class FITSFormat implements OutputFormat {
 			long start = System.currentTimeMillis();
 
 			// Extract the columns' metadata:
-			ColumnInfo[] colInfos = VOTableFormat.toColumnInfos(result, execReport, thread);
-
-			// Turns the result set into a table:
-			LimitedStarTable table = new LimitedStarTable(result, colInfos, execReport.parameters.getMaxRec());
-
-			// Copy the table on disk (or in memory if the table is short):
-			StarTable copyTable = StoragePolicy.PREFER_DISK.copyTable(table);
-
-			/* Format the table in FITS (2 passes are needed for that, hence the copy on disk),
-			 * and write it in the given output stream: */
-			new FitsTableWriter().writeStarTable(copyTable, output);
+			TAPColumn[] columns = VOTableFormat.toTAPColumns(result, execReport, thread);
+			if (columns == null)
+				throw new TAPException("Missing metadata of the result columns!");
 
-			output.flush();
+			/* Format the table in FITS in one pass (the header values depending on the rows
+			 * are written at the end ; see FITSDataWriter), and write it in the given output stream: */
+			FITSDataWriter writer = new FITSDataWriter(columns);
+			writer.writeTable(result, output, execReport.parameters.getMaxRec(), thread);
 
 			if (logFormatReport)
-				service.getLogger().logTAP(LogLevel.INFO, execReport, "FORMAT", "Result formatted (in FITS ; " + table.getNbReadRows() + " rows ; " + table.getColumnCount() + " columns) in " + (System.currentTimeMillis() - start) + "ms!", null);
+				service.getLogger().logTAP(LogLevel.INFO, execReport, "FORMAT", "Result formatted (in FITS ; " + writer.getNbReadRows() + " rows ; " + columns.length + " columns) in " + (System.currentTimeMillis() - start) + "ms!", null);
 		}catch(IOException ioe){
 			throw new TAPException("Error while writing a query result in FITS!", ioe);
 		}
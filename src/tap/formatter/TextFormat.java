@@ -20,8 +20,12 @@ package tap.formatter;
  *                       Astronomisches Rechen Institut (ARI)
  */
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 
 import tap.ServiceConnection;
 import tap.TAPException;
@@ -29,23 +33,40 @@ import tap.TAPExecutionReport;
 import tap.data.TableIterator;
 import uws.service.log.UWSLog.LogLevel;
 import adql.db.DBColumn;
-import cds.util.AsciiTable;
+import adql.db.DBType;
 
 /**
- * Format any given query (table) result into a simple table ASCII representation
- * (columns' width are adjusted so that all columns are well aligned and of the same width).
+ * <p>Format any given query (table) result into a simple table ASCII representation
+ * (columns' width are adjusted so that all columns are well aligned and of the same width).</p>
+ * 
+ * <p>
+ * 	The result is not entirely kept in memory: the width of each column is computed from the first rows only
+ * 	(see {@link #getSampleSize()}) and the following rows are written as soon as they are read.
+ * 	So, if the whole result holds in this sample, all columns are perfectly aligned. Otherwise:
+ * </p>
+ * <ul>
+ * 	<li>the width of integer columns is enlarged to the largest possible value of their type (see {@link #getTypeWidth(DBType)}),</li>
+ * 	<li>a value wider than its column (only possible after the sample) is written entirely, shifting the next columns of the same line.
+ * 		Thus, no value is ever truncated.</li>
+ * </ul>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
  * @version 2.0 (10/2014)
  */
 public class TextFormat implements OutputFormat {
 
+	/** Default number of rows read before writing anything, in order to compute the width of all columns. */
+	public final static int DEFAULT_SAMPLE_SIZE = 1000;
+
 	/** Indicates whether a format report (start and end date/time) must be printed in the log output.  */
 	private boolean logFormatReport;
 
 	/** The {@link ServiceConnection} to use (for the log and to have some information about the service (particularly: name, description). */
 	protected final ServiceConnection service;
 
+	/** Number of rows read before writing anything, in order to compute the width of all columns. If negative, all rows are read first. */
+	protected final int sampleSize;
+
 	/**
 	 * Build a {@link TextFormat}.
 	 * 
@@ -66,11 +87,35 @@ public class TextFormat implements OutputFormat {
 	 * @throws NullPointerException	If the given service connection is <code>null</code>.
 	 */
 	public TextFormat(final ServiceConnection service, final boolean logFormatReport) throws NullPointerException{
+		this(service, logFormatReport, DEFAULT_SAMPLE_SIZE);
+	}
+
+	/**
+	 * Build a {@link TextFormat}.
+	 * 
+	 * @param service			Description of the TAP service.
+	 * @param logFormatReport	<i>true</i> to write a log entry (with nb rows and columns + writing duration) each time a result is written, <i>false</i> otherwise.
+	 * @param sampleSize		Number of rows read before writing anything, in order to compute the width of all columns.
+	 *                  		<i>If negative, all rows are read before being written (so that all columns are perfectly aligned, but the whole result is then kept in memory).</i>
+	 * 
+	 * @throws NullPointerException	If the given service connection is <code>null</code>.
+	 */
+	public TextFormat(final ServiceConnection service, final boolean logFormatReport, final int sampleSize) throws NullPointerException{
 		if (service == null)
 			throw new NullPointerException("The given service connection is NULL!");
 
 		this.service = service;
 		this.logFormatReport = logFormatReport;
+		this.sampleSize = sampleSize;
+	}
+
+	/**
+	 * Get the number of rows read before writing anything, in order to compute the width of all columns.
+	 * 
+	 * @return	Size of the sample. <i>If negative, all rows are read before being written.</i>
+	 */
+	public final int getSampleSize(){
+		return sampleSize;
 	}
 
 	@Override
@@ -97,30 +142,21 @@ public class TextFormat implements OutputFormat {
 	public void writeResult(TableIterator result, OutputStream output, TAPExecutionReport execReport, Thread thread) throws TAPException, InterruptedException{
 		try{
 			// Prepare the formatting of the whole output:
-			AsciiTable asciiTable = new AsciiTable('|');
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output));
 
 			final long startTime = System.currentTimeMillis();
 
-			// Write header:
-			String headerLine = getHeader(result, execReport, thread);
-			asciiTable.addHeaderLine(headerLine);
-			asciiTable.endHeaderLine();
+			// Get the header:
+			String[] header = getHeader(result, execReport, thread);
 
-			// Write data into the AsciiTable object:
-			int nbRows = writeData(result, asciiTable, execReport, thread);
-
-			// Finally write the formatted ASCII table (header + data) in the output stream:
-			String[] lines = asciiTable.displayAligned(new int[]{AsciiTable.LEFT});
-			for(String l : lines){
-				output.write(l.getBytes());
-				output.write('\n');
-			}
+			// Write the header and the data:
+			int nbRows = writeData(result, header, writer, execReport, thread);
 
 			// Add a line in case of an OVERFLOW:
 			if (execReport.parameters.getMaxRec() > 0 && nbRows >= execReport.parameters.getMaxRec())
-				output.write("\nOVERFLOW (more rows were available but have been truncated by the TAP service)".getBytes());
+				writer.write("\nOVERFLOW (more rows were available but have been truncated by the TAP service)");
 
-			output.flush();
+			writer.flush();
 
 			// Report stats about the result writing:
 			if (logFormatReport)
@@ -135,39 +171,40 @@ public class TextFormat implements OutputFormat {
 	 * Get the whole header (one row whose columns are just the columns' name).
 	 * 
 	 * @param result		Result to write later (but it contains also metadata that was extracted from the result itself).
-	 * @param writer		Output in which the metadata must be written.
 	 * @param execReport	Execution report (which contains the metadata extracted/guessed from the ADQL query).
 	 * @param thread		Thread which has asked for this formatting (it must be used in order to test the {@link Thread#isInterrupted()} flag and so interrupt everything if need).
 	 * 
-	 * @return	All the written metadata.
+	 * @return	The name of all columns (an empty array if no metadata are known).
 	 * 
 	 * @throws TAPException				If any other error occurs.
 	 */
-	protected String getHeader(final TableIterator result, final TAPExecutionReport execReport, final Thread thread) throws TAPException{
+	protected String[] getHeader(final TableIterator result, final TAPExecutionReport execReport, final Thread thread) throws TAPException{
 		// Get the columns meta:
 		DBColumn[] selectedColumns = execReport.resultingColumns;
 
-		StringBuffer line = new StringBuffer();
-
 		// If meta are not known, no header will be written:
-		int nbColumns = (selectedColumns == null) ? -1 : selectedColumns.length;
-		if (nbColumns > 0){
+		int nbColumns = (selectedColumns == null) ? 0 : selectedColumns.length;
 
-			// Write all columns' name:
-			for(int i = 0; i < nbColumns - 1; i++)
-				line.append(selectedColumns[i].getADQLName()).append('|');
-			line.append(selectedColumns[nbColumns - 1].getADQLName());
-		}
+		// Get all columns' name:
+		String[] header = new String[nbColumns];
+		for(int i = 0; i < nbColumns; i++)
+			header[i] = selectedColumns[i].getADQLName();
 
-		// Return the header line:
-		return line.toString();
+		// Return the header:
+		return header;
 	}
 
 	/**
-	 * Write all the data rows into the given {@link AsciiTable} object.
+	 * <p>Write the header and all the data rows in the given output.</p>
 	 * 
-	 * @param result			Result to write.	
-	 * @param asciiTable		Output in which the rows (as string) must be written.
+	 * <p>
+	 * 	The first rows (at most {@link #getSampleSize()}) are read before writing anything, in order to compute the width of each column.
+	 * 	Then, the header and these rows are written, followed by the other rows as soon as they are read.
+	 * </p>
+	 * 
+	 * @param queryResult		Result to write.
+	 * @param header			Name of all columns.
+	 * @param writer			Output in which the header and the rows must be written.
 	 * @param execReport		Execution report (which contains the maximum allowed number of records to output).
 	 * @param thread			Thread which has asked for this formatting (it must be used in order to test the {@link Thread#isInterrupted()} flag and so interrupt everything if need).
 	 * 
@@ -177,42 +214,175 @@ public class TextFormat implements OutputFormat {
 	 * @throws InterruptedException		If the thread has been interrupted.
 	 * @throws TAPException				If any other error occurs.
 	 */
-	protected int writeData(final TableIterator queryResult, final AsciiTable asciiTable, final TAPExecutionReport execReport, final Thread thread) throws TAPException{
+	protected int writeData(final TableIterator queryResult, final String[] header, final Writer writer, final TAPExecutionReport execReport, final Thread thread) throws IOException, TAPException, InterruptedException{
 		int nbRows = 0;
 
 		// Get the list of columns:
 		DBColumn[] selectedColumns = execReport.resultingColumns;
-		int nbColumns = selectedColumns.length;
-
-		StringBuffer line = new StringBuffer();
+		final int nbColumns = header.length;
+		final long maxRec = execReport.parameters.getMaxRec();
+
+		// The columns must be at least as wide as their name:
+		int[] widths = new int[nbColumns];
+		for(int i = 0; i < nbColumns; i++)
+			widths[i] = header[i].length();
+
+		// Read the first rows, in order to compute the width of each column:
+		ArrayList<String[]> sample = new ArrayList<String[]>();
+		StringBuffer buffer = new StringBuffer();
+		boolean rowPending = false;
 		while(queryResult.nextRow()){
 			// Deal with OVERFLOW, if needed:
-			if (execReport.parameters.getMaxRec() > 0 && nbRows >= execReport.parameters.getMaxRec())
+			if (maxRec > 0 && nbRows >= maxRec)
 				break;
 
-			// Clear the line buffer:
-			line.delete(0, line.length());
-
-			int indCol = 0;
-			while(queryResult.hasNextCol()){
+			// Stop when the sample is complete (the current row will be written later):
+			if (sampleSize >= 0 && nbRows >= sampleSize){
+				rowPending = true;
+				break;
+			}
 
-				// Write the column value:
-				writeFieldValue(queryResult.nextCol(), selectedColumns[indCol++], line);
+			String[] row = readRow(queryResult, selectedColumns, nbColumns, buffer);
+			for(int i = 0; i < nbColumns; i++)
+				widths[i] = Math.max(widths[i], row[i].length());
+			sample.add(row);
+			nbRows++;
 
-				// Write the column separator (if needed):
-				if (indCol != nbColumns)
-					line.append('|');
-			}
+			if (thread.isInterrupted())
+				throw new InterruptedException();
+		}
 
-			// Append the line/row in the ASCII table:
-			asciiTable.addLine(line.toString());
+		// If there are more rows, integer columns can be enlarged to their largest possible value:
+		if (rowPending){
+			for(int i = 0; i < nbColumns; i++)
+				widths[i] = Math.max(widths[i], getTypeWidth(selectedColumns[i].getDatatype()));
+		}
 
-			nbRows++;
+		// Write the header (centered) and the separator line:
+		for(int i = 0; i < nbColumns; i++){
+			if (i > 0)
+				writer.write('|');
+			int inserted = widths[i] - header[i].length();
+			writeChars(writer, ' ', inserted / 2);
+			writer.write(header[i]);
+			writeChars(writer, ' ', inserted - inserted / 2);
+		}
+		writer.write('\n');
+		for(int i = 0; i < nbColumns; i++){
+			if (i > 0)
+				writer.write('|');
+			writeChars(writer, '-', widths[i]);
+		}
+		writer.write('\n');
+
+		// Write the sample:
+		for(String[] row : sample)
+			writeRow(row, widths, writer);
+		sample.clear();
+
+		// Write all other rows as soon as they are read:
+		if (rowPending){
+			do{
+				// Deal with OVERFLOW, if needed:
+				if (maxRec > 0 && nbRows >= maxRec)
+					break;
+
+				writeRow(readRow(queryResult, selectedColumns, nbColumns, buffer), widths, writer);
+				nbRows++;
+
+				if (thread.isInterrupted())
+					throw new InterruptedException();
+			}while(queryResult.nextRow());
 		}
 
 		return nbRows;
 	}
 
+	/**
+	 * Read all values of the current row.
+	 * 
+	 * @param queryResult		Result to read.
+	 * @param selectedColumns	All columns' metadata.
+	 * @param nbColumns			Number of columns.
+	 * @param buffer			Buffer to use for the formatting of each value (see {@link #writeFieldValue(Object, DBColumn, StringBuffer)}).
+	 * 
+	 * @return	The formatted value of each column (an empty string for a NULL or missing value).
+	 * 
+	 * @throws TAPException	If an error occurs while reading the result.
+	 */
+	private String[] readRow(final TableIterator queryResult, final DBColumn[] selectedColumns, final int nbColumns, final StringBuffer buffer) throws TAPException{
+		String[] row = new String[nbColumns];
+		int indCol = 0;
+		while(indCol < nbColumns && queryResult.hasNextCol()){
+			buffer.delete(0, buffer.length());
+			writeFieldValue(queryResult.nextCol(), selectedColumns[indCol], buffer);
+			row[indCol++] = buffer.toString();
+		}
+		for(; indCol < nbColumns; indCol++)
+			row[indCol] = "";
+		return row;
+	}
+
+	/**
+	 * Write the given row, each value being left-aligned in its column.
+	 * 
+	 * @param row		Values to write.
+	 * @param widths	Width of each column.
+	 * @param writer	Output in which the row must be written.
+	 * 
+	 * @throws IOException	If an error occurs while writing the row.
+	 */
+	private void writeRow(final String[] row, final int[] widths, final Writer writer) throws IOException{
+		for(int i = 0; i < row.length; i++){
+			if (i > 0)
+				writer.write('|');
+			writer.write(row[i]);
+			writeChars(writer, ' ', widths[i] - row[i].length());
+		}
+		writer.write('\n');
+	}
+
+	/**
+	 * Write the given character the given number of times.
+	 * 
+	 * @param writer	Output in which the characters must be written.
+	 * @param c			Character to write.
+	 * @param nb		Number of characters to write. <i>Nothing is written if negative.</i>
+	 * 
+	 * @throws IOException	If an error occurs while writing the characters.
+	 */
+	private static void writeChars(final Writer writer, final char c, final int nb) throws IOException{
+		for(int i = 0; i < nb; i++)
+			writer.write(c);
+	}
+
+	/**
+	 * <p>Get the width of the largest value of the given type, if it is known.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This width is used only when the result has more rows than the sample (see {@link #getSampleSize()}).
+	 * 	It is known only for integer types ; the width of other columns is computed from the sample only.
+	 * </i></p>
+	 * 
+	 * @param type	A column type.
+	 * 
+	 * @return	The width of the largest value of this type, or 0 if unknown.
+	 */
+	protected int getTypeWidth(final DBType type){
+		if (type == null)
+			return 0;
+		switch(type.type){
+			case SMALLINT:
+				return Short.toString(Short.MIN_VALUE).length();
+			case INTEGER:
+				return Integer.toString(Integer.MIN_VALUE).length();
+			case BIGINT:
+				return Long.toString(Long.MIN_VALUE).length();
+			default:
+				return 0;
+		}
+	}
+
 	/**
 	 * Writes the given field value in the given buffer.
 	 * 
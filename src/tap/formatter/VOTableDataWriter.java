@@ -0,0 +1,750 @@
+package tap.formatter;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import tap.data.DataReadException;
+import tap.data.TableIterator;
+import tap.metadata.TAPColumn;
+import tap.metadata.VotType;
+import tap.metadata.VotType.VotDatatype;
+import uk.ac.starlink.votable.DataFormat;
+import uk.ac.starlink.votable.VOSerializer;
+import uk.ac.starlink.votable.VOTableVersion;
+
+/**
+ * <p>Write the TABLE element (FIELDs and DATA) of a VOTable in TABLEDATA, BINARY or BINARY2, without STIL.</p>
+ * 
+ * <p>
+ * 	An encoder is prepared for each column, in function of its VOTable type (see {@link VotType}), when this writer is created.
+ * 	Then, no object is built for the rows: each value is read with the typed accessors of {@link TableIterator}
+ * 	(e.g. {@link TableIterator#nextDouble()}) and serialized directly in a byte buffer.
+ * 	In BINARY and BINARY2, the content of this buffer is base64-encoded on the fly.
+ * </p>
+ * 
+ * <p>
+ * 	The maximum number of rows is applied exactly as in {@link VOTableFormat.LimitedStarTable}: when this limit is reached,
+ * 	the iterator is only asked whether another row exists. If so, {@link #lastSequenceOverflowed()} returns <i>true</i>.
+ * </p>
+ * 
+ * <p><i>Note:
+ * 	The FITS serialization is not supported here ; it is still written by STIL in {@link VOTableFormat}.
+ * 	See {@link #isSupported(DataFormat, VOTableVersion)}.
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public class VOTableDataWriter {
+
+	/** Number of written rows between two checks of the thread interruption. */
+	public final static int INTERRUPTION_CHECK_PERIOD = 1000;
+
+	/** Size (in bytes) of the buffer in which rows are serialized before being written in the output stream. */
+	protected final static int BUFFER_SIZE = 8192;
+
+	/** Serialization of the DATA element: TABLEDATA, BINARY or BINARY2. */
+	protected final DataFormat format;
+
+	/** Version of the VOTable to write. */
+	protected final VOTableVersion version;
+
+	/** Metadata of all columns to write. */
+	protected final TAPColumn[] columns;
+
+	/** Encoder of each column. */
+	private final ColumnEncoder[] encoders;
+
+	/** Indicates whether the last written table has been truncated at the maximum number of rows. */
+	private boolean overflow = false;
+
+	/** Number of rows written in the last table. */
+	private int nbRows = 0;
+
+	/**
+	 * Build a writer of VOTable TABLE element.
+	 * 
+	 * @param columns	Metadata of all columns to write.
+	 * @param format	Serialization of the DATA element (TABLEDATA, BINARY or BINARY2).
+	 * @param version	Version of the VOTable to write.
+	 * 
+	 * @throws NullPointerException		If the given columns, format or version is NULL.
+	 * @throws IllegalArgumentException	If the given serialization is not supported for the given version.
+	 * 
+	 * @see #isSupported(DataFormat, VOTableVersion)
+	 */
+	public VOTableDataWriter(final TAPColumn[] columns, final DataFormat format, final VOTableVersion version) throws NullPointerException, IllegalArgumentException{
+		if (columns == null)
+			throw new NullPointerException("Missing columns metadata!");
+		else if (format == null || version == null)
+			throw new NullPointerException("Missing VOTable serialization or version!");
+		else if (!isSupported(format, version))
+			throw new IllegalArgumentException("Unsupported VOTable serialization: " + format + " (VOTable " + version.getVersionNumber() + ")!");
+
+		this.columns = columns;
+		this.format = format;
+		this.version = version;
+
+		/* Integers have no NULL representation in BINARY and, before VOTable 1.3, in TABLEDATA:
+		 * a "magic" value must be declared in the FIELD. */
+		boolean magicNulls = (format == DataFormat.BINARY || (format == DataFormat.TABLEDATA && !version.allowEmptyTd()));
+
+		encoders = new ColumnEncoder[columns.length];
+		for(int i = 0; i < columns.length; i++)
+			encoders[i] = createEncoder(new VotType(columns[i].getDatatype()), magicNulls, !version.allowEmptyTd());
+	}
+
+	/**
+	 * Tell whether the given serialization can be written by this class in the given VOTable version.
+	 * 
+	 * @param format	A VOTable serialization.
+	 * @param version	A VOTable version.
+	 * 
+	 * @return	<i>true</i> for TABLEDATA, BINARY and BINARY2 (only if allowed by the given version), <i>false</i> otherwise.
+	 */
+	public static boolean isSupported(final DataFormat format, final VOTableVersion version){
+		if (format == DataFormat.TABLEDATA || format == DataFormat.BINARY)
+			return true;
+		else if (format == DataFormat.BINARY2)
+			return version != null && version.allowBinary2();
+		else
+			return false;
+	}
+
+	/**
+	 * Indicates whether the last written table has been truncated at the maximum number of rows
+	 * (i.e. at least one more row was available).
+	 * 
+	 * @return	<i>true</i> if the last written table overflowed, <i>false</i> otherwise.
+	 */
+	public final boolean lastSequenceOverflowed(){
+		return overflow;
+	}
+
+	/**
+	 * Get the number of rows written in the last table.
+	 * 
+	 * @return	Number of written rows.
+	 */
+	public final int getNbReadRows(){
+		return nbRows;
+	}
+
+	/**
+	 * <p>Write the whole TABLE element (FIELDs and DATA) of the given table in the given stream.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The output stream is flushed but not closed.
+	 * </i></p>
+	 * 
+	 * @param it		Rows to write.
+	 * @param output	Stream in which the TABLE element must be written.
+	 * @param maxrec	Maximum number of rows to write. <i>(if negative, there will be no limit)</i>
+	 * @param thread	Thread which has asked for this writing (its interruption flag is checked every {@link #INTERRUPTION_CHECK_PERIOD} rows). <i>May be NULL.</i>
+	 * 
+	 * @throws IOException				If an error occurs while writing in the given stream.
+	 * @throws DataReadException		If an error occurs while reading the given table.
+	 * @throws InterruptedException		If the given thread has been interrupted.
+	 */
+	public void writeTable(final TableIterator it, final OutputStream output, final long maxrec, final Thread thread) throws IOException, DataReadException, InterruptedException{
+		overflow = false;
+		nbRows = 0;
+
+		final ByteSink out = new ByteSink(output, BUFFER_SIZE);
+		final int nbColumns = encoders.length;
+
+		// Write the metadata:
+		out.putAscii("<TABLE>\n");
+		for(int i = 0; i < nbColumns; i++)
+			writeField(columns[i], encoders[i], out);
+
+		// Open the data part:
+		final boolean tabledata = (format == DataFormat.TABLEDATA);
+		final byte[] nullFlags = (format == DataFormat.BINARY2) ? new byte[(nbColumns + 7) / 8] : null;
+		out.putAscii("<DATA>\n<" + format + ">\n");
+		if (!tabledata){
+			out.putAscii("<STREAM encoding='base64'>\n");
+			out.startBase64();
+		}
+
+		// Write all rows, up to maxrec:
+		while((maxrec < 0 || nbRows < maxrec) && it.nextRow()){
+			// read all values of the row:
+			int col = 0;
+			for(; col < nbColumns && it.hasNextCol(); col++)
+				encoders[col].read(it);
+			// missing values => NULL:
+			for(; col < nbColumns; col++)
+				encoders[col].isNull = true;
+
+			// write them:
+			if (tabledata){
+				out.putAscii("<TR>");
+				for(ColumnEncoder encoder : encoders){
+					if (encoder.isNull && encoder.emptyNull)
+						out.putAscii("<TD/>");
+					else{
+						out.putAscii("<TD>");
+						encoder.writeText(out);
+						out.putAscii("</TD>");
+					}
+				}
+				out.putAscii("</TR>\n");
+			}else{
+				if (nullFlags != null){
+					Arrays.fill(nullFlags, (byte)0);
+					for(col = 0; col < nbColumns; col++){
+						if (encoders[col].isNull)
+							nullFlags[col >> 3] |= (0x80 >>> (col & 7));
+					}
+					out.putBytes(nullFlags, nullFlags.length);
+				}
+				for(ColumnEncoder encoder : encoders)
+					encoder.writeBinary(out);
+			}
+
+			nbRows++;
+			if (thread != null && nbRows % INTERRUPTION_CHECK_PERIOD == 0 && thread.isInterrupted())
+				throw new InterruptedException();
+		}
+
+		// Check for overflow:
+		if (maxrec >= 0 && nbRows >= maxrec)
+			overflow = it.nextRow();
+
+		// Close the data part and the table:
+		if (!tabledata){
+			out.endBase64();
+			out.putAscii("</STREAM>\n");
+		}
+		out.putAscii("</" + format + ">\n</DATA>\n</TABLE>\n");
+
+		out.flush(true);
+		output.flush();
+	}
+
+	/**
+	 * Write the FIELD element of the given column.
+	 * 
+	 * @param column	Metadata of the column.
+	 * @param encoder	Encoder of the column (for its VOTable type and its NULL value).
+	 * @param out		Buffer in which the FIELD must be written.
+	 * 
+	 * @throws IOException	If an error occurs while writing the buffer content.
+	 */
+	private void writeField(final TAPColumn column, final ColumnEncoder encoder, final ByteSink out) throws IOException{
+		final VotType type = encoder.type;
+
+		// Attributes (in the same order as STIL):
+		StringBuffer str = new StringBuffer("<FIELD");
+		if (type.arraysize != null && !type.arraysize.equals("1"))
+			str.append(VOSerializer.formatAttribute("arraysize", type.arraysize));
+		str.append(VOSerializer.formatAttribute("datatype", type.datatype.toString()));
+		str.append(VOSerializer.formatAttribute("name", column.getADQLName()));
+		if (column.getUcd() != null)
+			str.append(VOSerializer.formatAttribute("ucd", column.getUcd()));
+		if (column.getUnit() != null)
+			str.append(VOSerializer.formatAttribute("unit", column.getUnit()));
+		if (column.getUtype() != null)
+			str.append(VOSerializer.formatAttribute("utype", column.getUtype()));
+		if (type.xtype != null && version.allowXtype())
+			str.append(VOSerializer.formatAttribute("xtype", type.xtype));
+
+		// Children: description and NULL value:
+		String nullValue = encoder.getNullValue();
+		if (column.getDescription() == null && nullValue == null)
+			str.append("/>\n");
+		else{
+			str.append(">\n");
+			if (column.getDescription() != null)
+				str.append("<DESCRIPTION>").append(VOSerializer.formatText(column.getDescription())).append("</DESCRIPTION>\n");
+			if (nullValue != null)
+				str.append("<VALUES").append(VOSerializer.formatAttribute("null", nullValue)).append("/>\n");
+			str.append("</FIELD>\n");
+		}
+
+		out.putText(str.toString(), false);
+	}
+
+	/**
+	 * Build the encoder of a column having the given VOTable type.
+	 * 
+	 * @param type			VOTable type of the column.
+	 * @param magicNulls	<i>true</i> if a NULL integer must be written with a "magic" value (declared in the FIELD).
+	 * @param noEmptyTd		<i>true</i> if an empty TD is not allowed for a NULL numeric value.
+	 * 
+	 * @return	The corresponding encoder.
+	 */
+	private static ColumnEncoder createEncoder(final VotType type, final boolean magicNulls, final boolean noEmptyTd){
+		switch(type.datatype){
+			case SHORT:
+				return new IntegerEncoder(type, 2, magicNulls);
+			case INT:
+				return new IntegerEncoder(type, 4, magicNulls);
+			case LONG:
+				return new IntegerEncoder(type, 8, magicNulls);
+			case FLOAT:
+				return new FloatingEncoder(type, true, noEmptyTd);
+			case DOUBLE:
+				return new FloatingEncoder(type, false, noEmptyTd);
+			case UNSIGNED_BYTE:
+				return new BytesEncoder(type);
+			case CHAR:
+				return new CharEncoder(type);
+			default: /* theoretically, never happens: a VotType built from a DBType has always one of the above datatypes */
+				return new CharEncoder(new VotType(VotDatatype.CHAR, "*", type.xtype));
+		}
+	}
+
+	/**
+	 * Get the fixed number of items of the given VOTable arraysize.
+	 * 
+	 * @param arraysize	A VOTable arraysize.
+	 * 
+	 * @return	The fixed length, or -1 if the array has a variable length ("*", "n*" or none).
+	 */
+	private static int getFixedLength(final String arraysize){
+		if (arraysize == null || arraysize.charAt(arraysize.length() - 1) == '*')
+			return -1;
+		try{
+			return Integer.parseInt(arraysize);
+		}catch(NumberFormatException nfe){
+			return -1;
+		}
+	}
+
+	/* ******** */
+	/* ENCODERS */
+	/* ******** */
+
+	/**
+	 * Serialize the values of one column. The value of the current row is first read, then written.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static abstract class ColumnEncoder {
+		/** VOTable type written in the FIELD. */
+		final VotType type;
+		/** Indicates whether a NULL value is written in TABLEDATA with an empty TD. */
+		final boolean emptyNull;
+		/** Indicates whether the last read value is NULL. */
+		boolean isNull = false;
+
+		ColumnEncoder(final VotType type, final boolean emptyNull){
+			this.type = type;
+			this.emptyNull = emptyNull;
+		}
+
+		/** @return	The value to declare as NULL in the FIELD, or NULL if none. */
+		String getNullValue(){
+			return null;
+		}
+
+		/** Read the next value of the given iterator, and set {@link #isNull}. */
+		abstract void read(final TableIterator it) throws DataReadException;
+
+		/** Write the last read value in TABLEDATA (i.e. the content of TD). */
+		abstract void writeText(final ByteSink out) throws IOException;
+
+		/** Write the last read value in BINARY/BINARY2. */
+		abstract void writeBinary(final ByteSink out) throws IOException;
+	}
+
+	/** Encoder of short, int and long columns. */
+	private static final class IntegerEncoder extends ColumnEncoder {
+		private final int nbBytes;
+		private final boolean magicNull;
+		private final long magicValue;
+		private long value;
+
+		IntegerEncoder(final VotType type, final int nbBytes, final boolean magicNull){
+			super(type, !magicNull);
+			this.nbBytes = nbBytes;
+			this.magicNull = magicNull;
+			magicValue = (nbBytes == 2) ? Short.MIN_VALUE : ((nbBytes == 4) ? Integer.MIN_VALUE : Long.MIN_VALUE);
+		}
+
+		@Override
+		String getNullValue(){
+			return magicNull ? Long.toString(magicValue) : null;
+		}
+
+		@Override
+		void read(final TableIterator it) throws DataReadException{
+			value = it.nextLong();
+			isNull = it.wasNull();
+		}
+
+		@Override
+		void writeText(final ByteSink out) throws IOException{
+			out.putDecimal(isNull ? magicValue : value);
+		}
+
+		@Override
+		void writeBinary(final ByteSink out) throws IOException{
+			out.putInteger(isNull ? (magicNull ? magicValue : 0) : value, nbBytes);
+		}
+	}
+
+	/** Encoder of float and double columns (NULL = NaN). */
+	private static final class FloatingEncoder extends ColumnEncoder {
+		private final boolean isFloat;
+		private double value;
+
+		FloatingEncoder(final VotType type, final boolean isFloat, final boolean noEmptyTd){
+			super(type, !noEmptyTd);
+			this.isFloat = isFloat;
+		}
+
+		@Override
+		void read(final TableIterator it) throws DataReadException{
+			value = it.nextDouble();
+			isNull = it.wasNull();
+		}
+
+		@Override
+		void writeText(final ByteSink out) throws IOException{
+			if (isNull || Double.isNaN(value))
+				out.putAscii("NaN");
+			else if (Double.isInfinite(value))
+				out.putAscii(value > 0 ? "+Inf" : "-Inf");
+			else
+				out.putAscii(isFloat ? Float.toString((float)value) : Double.toString(value));
+		}
+
+		@Override
+		void writeBinary(final ByteSink out) throws IOException{
+			if (isFloat)
+				out.putInteger(Float.floatToIntBits(isNull ? Float.NaN : (float)value), 4);
+			else
+				out.putInteger(Double.doubleToLongBits(isNull ? Double.NaN : value), 8);
+		}
+	}
+
+	/** Encoder of char columns (fixed or variable length). */
+	private static final class CharEncoder extends ColumnEncoder {
+		private final int length;
+		private String value;
+
+		CharEncoder(final VotType type){
+			super(type, true);
+			length = getFixedLength(type.arraysize);
+		}
+
+		@Override
+		void read(final TableIterator it) throws DataReadException{
+			Object obj = it.nextCol();
+			isNull = (obj == null);
+			value = isNull ? null : obj.toString();
+		}
+
+		@Override
+		void writeText(final ByteSink out) throws IOException{
+			if (!isNull)
+				out.putText(value, true);
+		}
+
+		@Override
+		void writeBinary(final ByteSink out) throws IOException{
+			int nbChars = isNull ? 0 : value.length();
+			if (length < 0)
+				out.putInteger(nbChars, 4);
+			else if (nbChars > length)
+				nbChars = length;
+			for(int i = 0; i < nbChars; i++){
+				char c = value.charAt(i);
+				out.putByte(c < 256 ? c : '?');
+			}
+			for(int i = nbChars; i < length; i++)
+				out.putByte(0);
+		}
+	}
+
+	/** Encoder of unsignedByte columns (fixed or variable length). */
+	private static final class BytesEncoder extends ColumnEncoder {
+		private final int length;
+		private byte[] value;
+
+		BytesEncoder(final VotType type){
+			super(type, true);
+			length = getFixedLength(type.arraysize);
+		}
+
+		@Override
+		void read(final TableIterator it) throws DataReadException{
+			Object obj = it.nextCol();
+			isNull = (obj == null);
+			if (isNull)
+				value = null;
+			else if (obj instanceof byte[])
+				value = (byte[])obj;
+			else if (obj instanceof short[]){
+				short[] shorts = (short[])obj;
+				value = new byte[shorts.length];
+				for(int i = 0; i < shorts.length; i++)
+					value[i] = (byte)shorts[i];
+			}else{
+				String str = obj.toString();
+				value = new byte[str.length()];
+				for(int i = 0; i < value.length; i++)
+					value[i] = (byte)str.charAt(i);
+			}
+		}
+
+		@Override
+		void writeText(final ByteSink out) throws IOException{
+			if (!isNull){
+				for(int i = 0; i < value.length; i++){
+					if (i > 0)
+						out.putByte(' ');
+					out.putDecimal(value[i] & 0xff);
+				}
+			}
+		}
+
+		@Override
+		void writeBinary(final ByteSink out) throws IOException{
+			int nbBytes = isNull ? 0 : value.length;
+			if (length < 0)
+				out.putInteger(nbBytes, 4);
+			else if (nbBytes > length)
+				nbBytes = length;
+			if (nbBytes > 0)
+				out.putBytes(value, nbBytes);
+			for(int i = nbBytes; i < length; i++)
+				out.putByte(0);
+		}
+	}
+
+	/* *********** */
+	/* BYTE BUFFER */
+	/* *********** */
+
+	/**
+	 * <p>Buffer of bytes written in an output stream when full.</p>
+	 * 
+	 * <p>
+	 * 	Between {@link #startBase64()} and {@link #endBase64()}, the bytes are base64-encoded (with a line break every 64 characters)
+	 * 	when written in the output stream. The 1 or 2 last bytes which can not yet be encoded are kept in the buffer until the next flush.
+	 * </p>
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	private static final class ByteSink {
+		/** Characters of the base64 encoding. */
+		private final static byte[] BASE64_ALPHABET = new byte[64];
+		static{
+			String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+			for(int i = 0; i < 64; i++)
+				BASE64_ALPHABET[i] = (byte)alphabet.charAt(i);
+		}
+		/** Number of base64 characters per line. */
+		private final static int BASE64_LINE_LENGTH = 64;
+
+		private final OutputStream output;
+		private final byte[] buffer;
+		private int size = 0;
+
+		/** Indicates whether the bytes must be base64-encoded. */
+		private boolean base64 = false;
+		/** Buffer of base64 characters (created at the first use). */
+		private byte[] encoded = null;
+		/** Number of base64 characters written on the current line. */
+		private int lineLength = 0;
+
+		ByteSink(final OutputStream output, final int bufferSize){
+			this.output = output;
+			buffer = new byte[bufferSize];
+		}
+
+		private void ensure(final int nbBytes) throws IOException{
+			if (size + nbBytes > buffer.length)
+				flush(false);
+		}
+
+		void putByte(final int b) throws IOException{
+			if (size == buffer.length)
+				flush(false);
+			buffer[size++] = (byte)b;
+		}
+
+		void putBytes(final byte[] bytes, final int length) throws IOException{
+			for(int i = 0; i < length;){
+				ensure(1);
+				int n = Math.min(length - i, buffer.length - size);
+				System.arraycopy(bytes, i, buffer, size, n);
+				size += n;
+				i += n;
+			}
+		}
+
+		/** Write the given number of low bytes of the given integer (big-endian). */
+		void putInteger(final long value, final int nbBytes) throws IOException{
+			ensure(nbBytes);
+			for(int shift = (nbBytes - 1) * 8; shift >= 0; shift -= 8)
+				buffer[size++] = (byte)(value >>> shift);
+		}
+
+		/** Write the decimal representation of the given integer. */
+		void putDecimal(long value) throws IOException{
+			if (value == Long.MIN_VALUE){
+				putAscii("-9223372036854775808");
+				return;
+			}
+			ensure(20);
+			if (value < 0){
+				buffer[size++] = '-';
+				value = -value;
+			}
+			int start = size;
+			do{
+				buffer[size++] = (byte)('0' + (value % 10));
+				value /= 10;
+			}while(value > 0);
+			// digits have been written backward:
+			for(int i = start, j = size - 1; i < j; i++, j--){
+				byte tmp = buffer[i];
+				buffer[i] = buffer[j];
+				buffer[j] = tmp;
+			}
+		}
+
+		/** Write a string containing only ASCII characters. */
+		void putAscii(final String str) throws IOException{
+			final int length = str.length();
+			for(int i = 0; i < length; i++)
+				putByte(str.charAt(i));
+		}
+
+		/**
+		 * Write the given string in UTF-8.
+		 * If <i>escape</i> is <i>true</i>, the XML special characters are escaped and the characters not allowed in XML are replaced by '?'.
+		 */
+		void putText(final String str, final boolean escape) throws IOException{
+			final int length = str.length();
+			for(int i = 0; i < length; i++){
+				char c = str.charAt(i);
+				if (c < 0x80){
+					if (escape){
+						if (c == '&'){
+							putAscii("&amp;");
+							continue;
+						}else if (c == '<'){
+							putAscii("&lt;");
+							continue;
+						}else if (c == '>'){
+							putAscii("&gt;");
+							continue;
+						}else if (c < 0x20 && c != '\t' && c != '\n' && c != '\r')
+							c = '?';
+					}
+					putByte(c);
+				}else if (c < 0x800){
+					ensure(2);
+					buffer[size++] = (byte)(0xc0 | (c >> 6));
+					buffer[size++] = (byte)(0x80 | (c & 0x3f));
+				}else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))){
+					int codePoint = Character.toCodePoint(c, str.charAt(++i));
+					ensure(4);
+					buffer[size++] = (byte)(0xf0 | (codePoint >> 18));
+					buffer[size++] = (byte)(0x80 | ((codePoint >> 12) & 0x3f));
+					buffer[size++] = (byte)(0x80 | ((codePoint >> 6) & 0x3f));
+					buffer[size++] = (byte)(0x80 | (codePoint & 0x3f));
+				}else if ((c >= 0xd800 && c <= 0xdfff) || c >= 0xfffe)
+					putByte('?');
+				else{
+					ensure(3);
+					buffer[size++] = (byte)(0xe0 | (c >> 12));
+					buffer[size++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+					buffer[size++] = (byte)(0x80 | (c & 0x3f));
+				}
+			}
+		}
+
+		/** Start encoding in base64 all the next written bytes. */
+		void startBase64() throws IOException{
+			flush(true);
+			base64 = true;
+			lineLength = 0;
+			if (encoded == null)
+				encoded = new byte[(buffer.length / 3 + 1) * 4 + buffer.length / 48 + 2];
+		}
+
+		/** Encode and write all the remaining bytes (with padding), and stop the base64 encoding. */
+		void endBase64() throws IOException{
+			flush(true);
+			base64 = false;
+			if (lineLength > 0)
+				putByte('\n');
+		}
+
+		/**
+		 * Write the buffer content in the output stream.
+		 * 
+		 * @param end	<i>true</i> to encode all remaining bytes in base64 (padding included),
+		 *           	<i>false</i> to keep the last bytes not forming a group of 3.
+		 */
+		void flush(final boolean end) throws IOException{
+			if (!base64){
+				output.write(buffer, 0, size);
+				size = 0;
+				return;
+			}
+
+			final int n = end ? size : size - (size % 3);
+			int e = 0, i = 0;
+			for(; i + 2 < n; i += 3){
+				int bits = ((buffer[i] & 0xff) << 16) | ((buffer[i + 1] & 0xff) << 8) | (buffer[i + 2] & 0xff);
+				encoded[e++] = BASE64_ALPHABET[bits >>> 18];
+				encoded[e++] = BASE64_ALPHABET[(bits >>> 12) & 0x3f];
+				encoded[e++] = BASE64_ALPHABET[(bits >>> 6) & 0x3f];
+				encoded[e++] = BASE64_ALPHABET[bits & 0x3f];
+				if ((lineLength += 4) == BASE64_LINE_LENGTH){
+					encoded[e++] = '\n';
+					lineLength = 0;
+				}
+			}
+			// last incomplete group (only at the end):
+			if (i < n){
+				int bits = ((buffer[i] & 0xff) << 16) | ((i + 1 < n) ? (buffer[i + 1] & 0xff) << 8 : 0);
+				encoded[e++] = BASE64_ALPHABET[bits >>> 18];
+				encoded[e++] = BASE64_ALPHABET[(bits >>> 12) & 0x3f];
+				encoded[e++] = (i + 1 < n) ? BASE64_ALPHABET[(bits >>> 6) & 0x3f] : (byte)'=';
+				encoded[e++] = '=';
+				lineLength += 4;
+				i = n;
+			}
+			output.write(encoded, 0, e);
+
+			// keep the bytes not yet encoded:
+			System.arraycopy(buffer, n, buffer, 0, size - n);
+			size -= n;
+		}
+	}
+
+}
@@ -57,6 +57,7 @@ import adql.db.DBType.DBDatatype;
  * <p>
  * 	Format and version of the resulting VOTable can be provided in parameters at the construction time.
  * 	This formatter is using STIL. So all formats and versions managed by STIL are also here.
+ * 	However, TABLEDATA, BINARY and BINARY2 are written by {@link VOTableDataWriter}, which does not build any object per row.
  * 	Basically, you have the following formats: TABLEDATA, BINARY, BINARY2 (only when using VOTable v1.3) and FITS.
  * 	The versions are: 1.0, 1.1, 1.2 and 1.3.
  * </p>
@@ -351,24 +352,53 @@ public class VOTableFormat implements OutputFormat {
 		try{
 			long start = System.currentTimeMillis();
 
-			ColumnInfo[] colInfos = toColumnInfos(queryResult, execReport, thread);
+			int nbRows, nbColumns;
+			boolean overflow;
+			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"));
 
-			/* Turns the result set into a table. */
-			LimitedStarTable table = new LimitedStarTable(queryResult, colInfos, execReport.parameters.getMaxRec());
+			/* TABLEDATA, BINARY and BINARY2 are written natively. */
+			if (VOTableDataWriter.isSupported(votFormat, votVersion)){
+				TAPColumn[] columns = toTAPColumns(queryResult, execReport, thread);
+				if (columns == null)
+					throw new TAPException("Missing metadata of the result columns!");
 
-			/* Prepares the object that will do the serialization work. */
-			VOSerializer voser = VOSerializer.makeSerializer(votFormat, votVersion, table);
-			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output));
+				/* Prepares the object that will do the serialization work. */
+				VOTableDataWriter tableWriter = new VOTableDataWriter(columns, votFormat, votVersion);
 
-			/* Write header. */
-			writeHeader(votVersion, execReport, out);
+				/* Write header. */
+				writeHeader(votVersion, execReport, out);
 
-			/* Write table element. */
-			voser.writeInlineTableElement(out);
-			out.flush();
+				/* Write table element (directly in the output stream ; the header has already been flushed). */
+				tableWriter.writeTable(queryResult, output, execReport.parameters.getMaxRec(), thread);
+
+				nbRows = tableWriter.getNbReadRows();
+				nbColumns = columns.length;
+				overflow = tableWriter.lastSequenceOverflowed();
+			}
+			/* Any other serialization (i.e. FITS) is written by STIL. */
+			else{
+				ColumnInfo[] colInfos = toColumnInfos(queryResult, execReport, thread);
+
+				/* Turns the result set into a table. */
+				LimitedStarTable table = new LimitedStarTable(queryResult, colInfos, execReport.parameters.getMaxRec());
+
+				/* Prepares the object that will do the serialization work. */
+				VOSerializer voser = VOSerializer.makeSerializer(votFormat, votVersion, table);
+
+				/* Write header. */
+				writeHeader(votVersion, execReport, out);
+
+				/* Write table element. */
+				voser.writeInlineTableElement(out);
+				out.flush();
+
+				nbRows = table.getNbReadRows();
+				nbColumns = table.getColumnCount();
+				overflow = table.lastSequenceOverflowed();
+			}
 
 			/* Check for overflow and write INFO if required. */
-			if (table.lastSequenceOverflowed()){
+			if (overflow){
 				out.write("<INFO name=\"QUERY_STATUS\" value=\"OVERFLOW\"/>");
 				out.newLine();
 			}
@@ -382,7 +412,7 @@ public class VOTableFormat implements OutputFormat {
 			out.flush();
 
 			if (logFormatReport)
-				service.getLogger().logTAP(LogLevel.INFO, execReport, "FORMAT", "Result formatted (in VOTable ; " + table.getNbReadRows() + " rows ; " + table.getColumnCount() + " columns) in " + (System.currentTimeMillis() - start) + "ms!", null);
+				service.getLogger().logTAP(LogLevel.INFO, execReport, "FORMAT", "Result formatted (in VOTable ; " + nbRows + " rows ; " + nbColumns + " columns) in " + (System.currentTimeMillis() - start) + "ms!", null);
 		}catch(IOException ioe){
 			throw new TAPException("Error while writing a query result in VOTable!", ioe);
 		}
@@ -451,6 +481,35 @@ public class VOTableFormat implements OutputFormat {
 	 * @throws InterruptedException		If the given thread has been interrupted.
 	 */
 	public static final ColumnInfo[] toColumnInfos(final TableIterator result, final TAPExecutionReport execReport, final Thread thread) throws IOException, TAPException, InterruptedException{
+		TAPColumn[] columns = toTAPColumns(result, execReport, thread);
+		if (columns != null){
+
+			// Build the corresponding ColumnInfo objects:
+			ColumnInfo[] colInfos = new ColumnInfo[columns.length];
+			for(int i = 0; i < columns.length; i++)
+				colInfos[i] = getColumnInfo(columns[i]);
+
+			return colInfos;
+		}else
+			return null;
+	}
+
+	/**
+	 * Get the most appropriate metadata of all columns of the given query result, using those extracted from the ADQL query
+	 * and those provided by the result.
+	 * 
+	 * @param result		The query result.
+	 * @param execReport	The report of the query execution.
+	 * @param thread		The thread which asked for the result writing.
+	 * 
+	 * @return				Metadata of all columns, or NULL if no metadata have been found (theoretically, it never happens).
+	 * 
+	 * @throws TAPException				If there is any error while getting the metadata.
+	 * @throws InterruptedException		If the given thread has been interrupted.
+	 * 
+	 * @see #getValidColMeta(DBColumn, TAPColumn)
+	 */
+	public static final TAPColumn[] toTAPColumns(final TableIterator result, final TAPExecutionReport execReport, final Thread thread) throws TAPException, InterruptedException{
 		// Get the metadata extracted/guesses from the ADQL query:
 		DBColumn[] columnsFromQuery = execReport.resultingColumns;
 
@@ -461,17 +520,14 @@ public class VOTableFormat implements OutputFormat {
 		if (columnsFromQuery != null){
 
 			// Initialize the resulting array:
-			ColumnInfo[] colInfos = new ColumnInfo[columnsFromQuery.length];
+			TAPColumn[] columns = new TAPColumn[columnsFromQuery.length];
 
 			// For each column:
 			for(DBColumn field : columnsFromQuery){
 
 				// Try to build/get appropriate metadata for this field/column:
 				TAPColumn colFromResult = (columnsFromResult != null && indField < columnsFromResult.length) ? columnsFromResult[indField] : null;
-				TAPColumn tapCol = getValidColMeta(field, colFromResult);
-
-				// Build the corresponding ColumnInfo object:
-				colInfos[indField] = getColumnInfo(tapCol);
+				columns[indField] = getValidColMeta(field, colFromResult);
 
 				indField++;
 
@@ -479,7 +535,7 @@ public class VOTableFormat implements OutputFormat {
 					throw new InterruptedException();
 			}
 
-			return colInfos;
+			return columns;
 		}else
 			return null;
 	}
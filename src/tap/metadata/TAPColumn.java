@@ -67,7 +67,7 @@ import adql.db.DBType.DBDatatype;
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (09/2014)
+ * @version 2.0 (10/2014)
  */
 public class TAPColumn implements DBColumn {
 
@@ -373,8 +373,10 @@ public class TAPColumn implements DBColumn {
 	 */
 	public final void setDBName(String name){
 		name = (name != null) ? name.trim() : name;
-		if (name != null && name.length() > 0)
+		if (name != null && name.length() > 0){
 			dbName = name;
+			modified();
+		}
 	}
 
 	@Override
@@ -403,6 +405,17 @@ public class TAPColumn implements DBColumn {
 		this.table = table;
 	}
 
+	/**
+	 * Notify the metadata set owning this column (if any) that this column has been modified
+	 * (see {@link TAPMetadata#getModificationCount()}).
+	 * 
+	 * @since 2.0
+	 */
+	protected final void modified(){
+		if (table instanceof TAPTable)
+			((TAPTable)table).modified();
+	}
+
 	/**
 	 * Get the description of this column.
 	 * 
@@ -494,8 +507,10 @@ public class TAPColumn implements DBColumn {
 	 * @param type	Its new datatype.
 	 */
 	public final void setDatatype(final DBType type){
-		if (type != null)
+		if (type != null){
 			datatype = type;
+			modified();
+		}
 	}
 
 	/**
@@ -521,6 +536,7 @@ public class TAPColumn implements DBColumn {
 	 * 
 	 * @return	<i>true</i> if this column is indexed, <i>false</i> otherwise.
 	 */
+	@Override
 	public final boolean isIndexed(){
 		return indexed;
 	}
@@ -532,6 +548,7 @@ public class TAPColumn implements DBColumn {
 	 */
 	public final void setIndexed(boolean indexed){
 		this.indexed = indexed;
+		modified();
 	}
 
 	/**
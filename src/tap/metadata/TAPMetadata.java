@@ -61,7 +61,7 @@ import adql.db.DBType.DBDatatype;
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (09/2014)
+ * @version 2.0 (10/2014)
  */
 public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResource {
 
@@ -76,6 +76,10 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 	 * By default, it is the resource name ; so here, the corresponding TAP URI would be: "/tables". */
 	protected String accessURL = getName();
 
+	/** Number of modifications done so far on this metadata set, its schemas, their tables and their columns.
+	 * @since 2.0 */
+	private volatile long modificationCount = 0;
+
 	/**
 	 * <p>Build an empty list of metadata.</p>
 	 * 
@@ -112,8 +116,13 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 	 * @param s	The schema to add.
 	 */
 	public final void addSchema(TAPSchema s){
-		if (s != null && s.getADQLName() != null)
-			schemas.put(s.getADQLName(), s);
+		if (s != null && s.getADQLName() != null){
+			TAPSchema former = schemas.put(s.getADQLName(), s);
+			if (former != null && former != s)
+				former.setMetadata(null);
+			s.setMetadata(this);
+			modified();
+		}
 	}
 
 	/**
@@ -246,15 +255,55 @@ public class TAPMetadata implements Iterable<TAPSchema>, VOSIResource, TAPResour
 	public final TAPSchema removeSchema(String schemaName){
 		if (schemaName == null)
 			return null;
-		else
-			return schemas.remove(schemaName);
+
+		TAPSchema removedSchema = schemas.remove(schemaName);
+		if (removedSchema != null){
+			removedSchema.setMetadata(null);
+			modified();
+		}
+		return removedSchema;
 	}
 
 	/**
 	 * Remove all schemas of this metadata set.
 	 */
 	public final void removeAllSchemas(){
+		for(TAPSchema s : schemas.values())
+			s.setMetadata(null);
 		schemas.clear();
+		modified();
+	}
+
+	/**
+	 * <p>Get the number of modifications done so far on this metadata set.</p>
+	 * 
+	 * <p>
+	 * 	This number is incremented each time a schema, a table or a column is added or removed,
+	 * 	and each time the DB name, the datatype or any other information used to check and translate
+	 * 	ADQL queries is changed on one of them. Thus, an object computed from these metadata (e.g. an index
+	 * 	of all published tables) is still up-to-date as long as this number does not change.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	Only the schemas, tables and columns attached to this metadata set are followed: a table or a column
+	 * 	does not increment this number before being added in it.
+	 * </i></p>
+	 * 
+	 * @return	Number of modifications of this metadata set.
+	 * 
+	 * @since 2.0
+	 */
+	public final long getModificationCount(){
+		return modificationCount;
+	}
+
+	/**
+	 * Increment the number of modifications of this metadata set (see {@link #getModificationCount()}).
+	 * 
+	 * @since 2.0
+	 */
+	protected final void modified(){
+		modificationCount++;
 	}
 
 	@Override
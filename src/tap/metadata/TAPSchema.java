@@ -21,7 +21,7 @@ package tap.metadata;
  */
 
 import java.awt.List;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -44,7 +44,7 @@ import tap.metadata.TAPTable.TableType;
  * </i></p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (08/2014)
+ * @version 2.0 (10/2014)
  */
 public class TAPSchema implements Iterable<TAPTable> {
 
@@ -55,6 +55,10 @@ public class TAPSchema implements Iterable<TAPTable> {
 	 * <i>Note: It MAY be NULL. By default, it is the ADQL name.</i> */
 	private String dbName = null;
 
+	/** Metadata set in which this schema is. <i>MAY be NULL</i>
+	 * @since 2.0 */
+	private TAPMetadata metadata = null;
+
 	/** Description of this schema.
 	 * <i>Note: Standard TAP schema field ; MAY be NULL.</i> */
 	private String description = null;
@@ -68,7 +72,7 @@ public class TAPSchema implements Iterable<TAPTable> {
 	 * Its content is totally free and never used or checked.</i> */
 	protected Object otherData = null;
 
-	/** List all tables contained inside this schema. */
+	/** List all tables contained inside this schema (in their insertion order). */
 	protected final Map<String,TAPTable> tables;
 
 	/**
@@ -92,7 +96,7 @@ public class TAPSchema implements Iterable<TAPTable> {
 		int indPrefix = schemaName.lastIndexOf('.');
 		adqlName = (indPrefix >= 0) ? schemaName.substring(indPrefix + 1).trim() : schemaName.trim();
 		dbName = adqlName;
-		tables = new HashMap<String,TAPTable>();
+		tables = new LinkedHashMap<String,TAPTable>();
 	}
 
 	/**
@@ -176,6 +180,45 @@ public class TAPSchema implements Iterable<TAPTable> {
 	public final void setDBName(String name){
 		name = (name != null) ? name.trim() : name;
 		dbName = name;
+		modified();
+	}
+
+	/**
+	 * Get the metadata set in which this schema is.
+	 * 
+	 * @return	Its metadata set. <i>MAY be NULL</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final TAPMetadata getMetadata(){
+		return metadata;
+	}
+
+	/**
+	 * <p>Set the metadata set in which this schema is.</p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	For consistency reasons, this function SHOULD be called only by the {@link TAPMetadata}
+	 * 	that owns this schema.
+	 * </i></p>
+	 * 
+	 * @param metadata	The metadata set that owns this schema. <i>MAY be NULL</i>
+	 * 
+	 * @since 2.0
+	 */
+	protected final void setMetadata(final TAPMetadata metadata){
+		this.metadata = metadata;
+	}
+
+	/**
+	 * Notify the metadata set owning this schema (if any) that this schema, one of its tables
+	 * or one of their columns has been modified (see {@link TAPMetadata#getModificationCount()}).
+	 * 
+	 * @since 2.0
+	 */
+	protected final void modified(){
+		if (metadata != null)
+			metadata.modified();
 	}
 
 	/**
@@ -257,6 +300,7 @@ public class TAPSchema implements Iterable<TAPTable> {
 		if (newTable != null && newTable.getADQLName() != null){
 			tables.put(newTable.getADQLName(), newTable);
 			newTable.setSchema(this);
+			modified();
 		}
 	}
 
@@ -400,8 +444,10 @@ public class TAPSchema implements Iterable<TAPTable> {
 			return null;
 
 		TAPTable removedTable = tables.remove(tableName);
-		if (removedTable != null)
+		if (removedTable != null){
 			removedTable.setSchema(null);
+			modified();
+		}
 		return removedTable;
 	}
 
@@ -427,6 +473,7 @@ public class TAPSchema implements Iterable<TAPTable> {
 			it.remove();
 			entry.getValue().setSchema(null);
 		}
+		modified();
 	}
 
 	@Override
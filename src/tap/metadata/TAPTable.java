@@ -50,7 +50,7 @@ import adql.db.DBType;
  * </i></p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (08/2014)
+ * @version 2.0 (10/2014)
  */
 public class TAPTable implements DBTable {
 
@@ -104,6 +104,11 @@ public class TAPTable implements DBTable {
 	 * Its content is totally free and never used or checked.</i> */
 	protected Object otherData = null;
 
+	/** Number of rows of this table. A negative value means "unknown".
+	 * <i>Note: it is set by the TAP library for the uploaded tables ; it is only used to choose the driving side of a cross-match.</i>
+	 * @since 2.0 */
+	protected long nbRows = -1;
+
 	/**
 	 * <p>Build a {@link TAPTable} instance with the given ADQL name.</p>
 	 * 
@@ -234,6 +239,7 @@ public class TAPTable implements DBTable {
 	public final void setDBName(String name){
 		name = (name != null) ? name.trim() : name;
 		dbName = (name == null || name.length() == 0) ? adqlName : name;
+		modified();
 	}
 
 	@Override
@@ -286,6 +292,17 @@ public class TAPTable implements DBTable {
 		this.schema = schema;
 	}
 
+	/**
+	 * Notify the metadata set owning this table (if any) that this table or one of its columns
+	 * has been modified (see {@link TAPMetadata#getModificationCount()}).
+	 * 
+	 * @since 2.0
+	 */
+	protected final void modified(){
+		if (schema != null)
+			schema.modified();
+	}
+
 	/**
 	 * Get the type of this table.
 	 * 
@@ -345,6 +362,35 @@ public class TAPTable implements DBTable {
 		this.utype = utype;
 	}
 
+	/**
+	 * <p>Get the number of rows of this table in the database.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	By default, it is unknown (-1), except for the uploaded tables for which it is set by the TAP library
+	 * 	(see {@link tap.db.JDBCConnection#addUploadedTable(TAPTable, tap.data.TableIterator)}).
+	 * </i></p>
+	 * 
+	 * @return	Its (estimated) number of rows, or a negative value if unknown.
+	 * 
+	 * @since 2.0
+	 */
+	@Override
+	public long getNbRows(){
+		return nbRows;
+	}
+
+	/**
+	 * Set the number of rows of this table in the database.
+	 * 
+	 * @param nbRows	Its (estimated) number of rows, or a negative value if unknown.
+	 * 
+	 * @since 2.0
+	 */
+	public void setNbRows(final long nbRows){
+		this.nbRows = nbRows;
+		modified();
+	}
+
 	/**
 	 * <p>Get the other (piece of) information associated with this table.</p>
 	 * 
@@ -388,6 +434,7 @@ public class TAPTable implements DBTable {
 		if (newColumn != null && newColumn.getADQLName() != null){
 			columns.put(newColumn.getADQLName(), newColumn);
 			newColumn.setTable(this);
+			modified();
 		}
 	}
 
@@ -610,8 +657,10 @@ public class TAPTable implements DBTable {
 			return null;
 
 		TAPColumn removedColumn = columns.remove(columnName);
-		if (removedColumn != null)
+		if (removedColumn != null){
 			deleteColumnRelations(removedColumn);
+			modified();
+		}
 
 		return removedColumn;
 	}
@@ -648,6 +697,7 @@ public class TAPTable implements DBTable {
 			it.remove();
 			deleteColumnRelations(entry.getValue());
 		}
+		modified();
 	}
 
 	/**
@@ -878,6 +928,7 @@ public class TAPTable implements DBTable {
 		copy.setOtherData(otherData);
 		copy.setType(type);
 		copy.setUtype(utype);
+		copy.setNbRows(nbRows);
 		return copy;
 	}
 
@@ -152,6 +152,10 @@ public class TAP implements VOSIResource {
 	public void destroy(){
 		for(TAPResource res : resources.values())
 			res.destroy();
+
+		// Free the resources of the factory (i.e. connections pool):
+		if (service.getFactory() != null)
+			service.getFactory().destroy();
 	}
 
 	/**
@@ -20,13 +20,18 @@ package tap.upload;
  *                       Astronomisches Rechen Institut (ARI)
  */
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.InvalidParameterException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Enumeration;
 
 import tap.TAPException;
@@ -52,7 +57,7 @@ import com.oreilly.servlet.MultipartRequest;
  * </ul>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (08/2014)
+ * @version 2.0 (10/2014)
  */
 public class TableLoader {
 	/** Regular expression of any acceptable URL for a table data source. */
@@ -71,8 +76,13 @@ public class TableLoader {
 	 * <i>Note: This attribute is NULL if the table is provided as a URL.</i> */
 	private final String param;
 	/** File containing the table data. It points toward the multipart item/parameter whose the name matches the attribute {@link #param}.
-	 * <i>Note: This attribute is NULL if the table is provided as a URL.</i> */
-	private final File file;
+	 * <i>Note: This attribute is NULL if the table is provided as a URL, until its content is downloaded in a temporary file (see {@link #getContentDigest(long)}).</i> */
+	private File file;
+
+	/** Digest of the table data (see {@link #getContentDigest(long)}).
+	 * <i>Note: This attribute is NULL until the digest is computed.</i>
+	 * @since 2.0 */
+	private String digest = null;
 
 	/**
 	 * <p>Build the object representation of an item of the UPLOAD parameter: a table.</p>
@@ -176,18 +186,109 @@ public class TableLoader {
 	 * @throws IOException	If any error occurs while open the stream.
 	 */
 	public InputStream openStream() throws IOException{
-		if (url != null)
-			return url.openStream();
-		else
+		if (file != null)
 			return new FileInputStream(file);
+		else
+			return url.openStream();
+	}
+
+	/**
+	 * <p>Get the digest (SHA-256, in hexadecimal) of the table data.</p>
+	 * 
+	 * <p>
+	 * 	Two uploads with the same digest have the same content. It lets identify a table already uploaded before (see {@link UploadCache}).
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the table data are provided as a URL, they are downloaded in a temporary file while computing the digest.
+	 * 	This file is then read by {@link #openStream()} (so that the data are downloaded only once) and deleted by {@link #deleteFile()}.
+	 * </i></p>
+	 * 
+	 * @param maxSize	Maximum number of bytes to read. <i>note: if negative, there is no limit.</i>
+	 * 
+	 * @return	Digest of the table data.
+	 * 
+	 * @throws IOException	If the table data can not be read or are bigger than the given maximum size.
+	 * 
+	 * @since 2.0
+	 */
+	public String getContentDigest(final long maxSize) throws IOException{
+		if (digest != null)
+			return digest;
+
+		MessageDigest md;
+		try{
+			md = MessageDigest.getInstance("SHA-256");
+		}catch(NoSuchAlgorithmException nsae){
+			throw new IOException("Impossible to compute the digest of the uploaded table \"" + tableName + "\"!", nsae);
+		}
+
+		InputStream input = null;
+		OutputStream copy = null;
+		File tmpFile = null;
+		try{
+			input = openStream();
+			// Download the table data in a temporary file, if not already in a file:
+			if (file == null){
+				tmpFile = File.createTempFile("upload_", ".tmp");
+				copy = new BufferedOutputStream(new FileOutputStream(tmpFile));
+			}
+			byte[] buffer = new byte[8192];
+			int nbRead;
+			long size = 0;
+			while((nbRead = input.read(buffer)) > 0){
+				size += nbRead;
+				if (maxSize >= 0 && size > maxSize)
+					throw new IOException("The uploaded table \"" + tableName + "\" exceeds the maximum size of " + maxSize + " bytes!");
+				md.update(buffer, 0, nbRead);
+				if (copy != null)
+					copy.write(buffer, 0, nbRead);
+			}
+			if (copy != null){
+				copy.close();
+				copy = null;
+				file = tmpFile;
+				tmpFile = null;
+			}
+		}finally{
+			if (input != null)
+				input.close();
+			if (copy != null)
+				copy.close();
+			if (tmpFile != null)
+				tmpFile.delete();
+		}
+
+		// Format the digest in hexadecimal:
+		StringBuffer buf = new StringBuffer();
+		for(byte b : md.digest())
+			buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		digest = buf.toString();
+		return digest;
+	}
+
+	/**
+	 * <p>Get the size of the table data.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the table data are provided as a URL, the size is known only once they have been downloaded (see {@link #getContentDigest(long)}).
+	 * </i></p>
+	 * 
+	 * @return	Size (in bytes) of the table data, or -1 if unknown.
+	 * 
+	 * @since 2.0
+	 */
+	public long getContentSize(){
+		return (file != null) ? file.length() : -1;
 	}
 
 	/**
 	 * <p>Delete the table data stored in the cache.</p>
 	 * 
 	 * <p>
-	 * 	This function will just delete the file in case the table data are coming from a multipart request.
-	 * 	If the table data are provided as a URL, nothing is done (so we can consider that the cache does not contain any more the associated table data).
+	 * 	This function will just delete the file in case the table data are coming from a multipart request
+	 * 	or have been downloaded in a temporary file (see {@link #getContentDigest(long)}).
+	 * 	Otherwise, if the table data are provided as a URL, nothing is done (so we can consider that the cache does not contain any more the associated table data).
 	 * </p>
 	 * 
 	 * @return	<i>true</i> if the file does not exist any more in the cache,
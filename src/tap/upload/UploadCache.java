@@ -0,0 +1,402 @@
+package tap.upload;
+
+/*
+ * This file is part of TAPLibrary.
+ * 
+ * TAPLibrary is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * TAPLibrary is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with TAPLibrary.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2014 - Astronomisches Rechen Institut (ARI)
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import tap.db.DBConnection;
+import tap.db.DBException;
+import tap.log.TAPLog;
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPMetadata.STDSchema;
+import tap.metadata.TAPSchema;
+import tap.metadata.TAPTable;
+import uws.service.log.UWSLog.LogLevel;
+
+/**
+ * <p>Cache of the tables uploaded in the database, so that the same uploaded content is loaded only once for several jobs.</p>
+ * 
+ * <p>
+ * 	An uploaded table is identified by a key computed by the {@link Uploader} from the digest of the uploaded content
+ * 	(which includes the column metadata of the VOTable) and from the upload limit. When a job uploads a content whose
+ * 	the key is already in this cache, the existing database table is reused instead of being loaded again
+ * 	(see {@link #acquire(String, TAPTable)}). Only the DB name of the table is shared: the ADQL name of the table
+ * 	in TAP_UPLOAD stays the one chosen by each job.
+ * </p>
+ * 
+ * <h3>Reference counting and eviction</h3>
+ * 
+ * <p>
+ * 	Each job using a cached table holds a reference on it, until the end of its execution (see {@link #release(TAPTable, DBConnection)}).
+ * 	A table is dropped from the database only when it is not used any more by any job and when:
+ * </p>
+ * <ul>
+ * 	<li>it has not been used for more than {@link #getTimeToLive()} milliseconds,</li>
+ * 	<li>or the total size of the cached tables exceeds {@link #getMaxSize()} bytes (the least recently used tables are then dropped first).</li>
+ * </ul>
+ * <p>
+ * 	The eviction is done each time a table is added or released, with the connection of the calling job.
+ * 	All the remaining tables should be dropped when the service is stopped (see {@link #clear(DBConnection)}).
+ * </p>
+ * 
+ * <p><i><b>Warning:</b>
+ * 	A table loaded by a job must be visible from all other connections and must keep the same DB name whatever is the job.
+ * 	So, this cache must not be used with temporary uploaded tables, nor with a database which does not support schemas
+ * 	(the upload schema name would be then merged in the table name).
+ * </i></p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ * @since 2.0
+ */
+public class UploadCache {
+
+	/** Default time (in milliseconds) during which an unused table stays in the cache: 1 hour. */
+	public final static long DEFAULT_TIME_TO_LIVE = 3600000;
+
+	/** Default maximum total size (in bytes) of the cached tables: 1GB. */
+	public final static long DEFAULT_MAX_SIZE = 1024 * 1024 * 1024;
+
+	/** Logger to use. <i>MAY be NULL</i> */
+	protected final TAPLog logger;
+
+	/** Time (in milliseconds) during which an unused table stays in the cache. <i>note: if negative or null, unused tables are dropped as soon as possible.</i> */
+	protected long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+	/** Maximum total size (in bytes) of the cached tables. <i>note: if negative, there is no size limit.</i> */
+	protected long maxSize = DEFAULT_MAX_SIZE;
+
+	/** All cached tables, ordered from the least recently used to the most recently used one. */
+	private final LinkedHashMap<String,Entry> entries = new LinkedHashMap<String,Entry>(16, 0.75f, true);
+
+	/** All cached tables, indexed by their DB name. */
+	private final Map<String,Entry> entriesByDBName = new HashMap<String,Entry>();
+
+	/** Total size (in bytes) of the cached tables. */
+	private long totalSize = 0;
+
+	/**
+	 * Build an upload cache with the default time-to-live and maximum size.
+	 * 
+	 * @param logger	Logger to use. <i>MAY be NULL</i>
+	 */
+	public UploadCache(final TAPLog logger){
+		this(logger, DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Build an upload cache.
+	 * 
+	 * @param logger		Logger to use. <i>MAY be NULL</i>
+	 * @param timeToLive	Time (in milliseconds) during which an unused table stays in the cache.
+	 * @param maxSize		Maximum total size (in bytes) of the cached tables. <i>note: if negative, there is no size limit.</i>
+	 */
+	public UploadCache(final TAPLog logger, final long timeToLive, final long maxSize){
+		this.logger = logger;
+		this.timeToLive = timeToLive;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the time during which an unused table stays in the cache.
+	 * 
+	 * @return	Time-to-live (in milliseconds) of an unused table.
+	 */
+	public final long getTimeToLive(){
+		return timeToLive;
+	}
+
+	/**
+	 * Set the time during which an unused table stays in the cache.
+	 * 
+	 * @param timeToLive	Time-to-live (in milliseconds) of an unused table. <i>note: if negative or null, unused tables are dropped as soon as possible.</i>
+	 */
+	public final void setTimeToLive(final long timeToLive){
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Get the maximum total size of the cached tables.
+	 * 
+	 * @return	Maximum size (in bytes), or a negative value if there is no size limit.
+	 */
+	public final long getMaxSize(){
+		return maxSize;
+	}
+
+	/**
+	 * Set the maximum total size of the cached tables.
+	 * 
+	 * @param maxSize	Maximum size (in bytes). <i>note: if negative, there is no size limit.</i>
+	 */
+	public final void setMaxSize(final long maxSize){
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the number of tables currently in the cache.
+	 * 
+	 * @return	Number of cached tables.
+	 */
+	public final synchronized int getNbTables(){
+		return entries.size();
+	}
+
+	/**
+	 * Get the total size of the tables currently in the cache.
+	 * 
+	 * @return	Total size (in bytes) of the cached tables.
+	 */
+	public final synchronized long getSize(){
+		return totalSize;
+	}
+
+	/**
+	 * Tell whether the given uploaded table is managed by this cache, that's to say whether its DB name is shared by all jobs uploading the same content.
+	 * 
+	 * @param table	Description of an uploaded table in a job.
+	 * 
+	 * @return	<i>true</i> if the given table is in this cache, <i>false</i> otherwise.
+	 */
+	public synchronized boolean contains(final TAPTable table){
+		return table != null && entriesByDBName.containsKey(table.getDBName());
+	}
+
+	/**
+	 * <p>Reuse the cached table corresponding to the given key, if any.</p>
+	 * 
+	 * <p>
+	 * 	If found, the given table description gets the DB name, the number of rows and a copy of the columns of the cached table,
+	 * 	and a reference on the cached table is held until {@link #release(TAPTable, DBConnection)} is called.
+	 * </p>
+	 * 
+	 * @param key	Key of the uploaded content.
+	 * @param table	Description of the uploaded table in the job (with the ADQL name chosen by the job, and without any column).
+	 * 
+	 * @return	<i>true</i> if a cached table has been found (the given table then does not need to be loaded),
+	 *        	<i>false</i> otherwise.
+	 */
+	public synchronized boolean acquire(final String key, final TAPTable table){
+		Entry entry = entries.get(key);
+		if (entry == null)
+			return false;
+
+		entry.nbRefs++;
+		table.setDBName(entry.dbName);
+		table.setNbRows(entry.nbRows);
+		for(TAPColumn col : entry.columns)
+			table.addColumn((TAPColumn)col.copy(null, null, null));
+
+		if (logger != null) logger.logTAP(LogLevel.INFO, this, "UPLOAD_CACHE", "Uploaded table \"" + table.getADQLName() + "\" already loaded in the database (in DB: " + entry.dbName + "). It will be reused.", null);
+		return true;
+	}
+
+	/**
+	 * <p>Add in this cache the given table, just loaded in the database.</p>
+	 * 
+	 * <p>
+	 * 	A reference on this table is held by the calling job until {@link #release(TAPTable, DBConnection)} is called.
+	 * 	Then, the tables which are not used any more may be evicted (see {@link #evict(DBConnection)}).
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	The table is not added if its key is already in this cache (e.g. if the same content has been loaded concurrently by
+	 * 	another job) or if its size exceeds the maximum size of this cache. In this case, it must be dropped by the job as usual.
+	 * </i></p>
+	 * 
+	 * @param key	Key of the uploaded content.
+	 * @param table	Description of the loaded table.
+	 * @param size	Size (in bytes) of the uploaded content.
+	 * @param conn	Connection to use to drop the evicted tables.
+	 * 
+	 * @return	<i>true</i> if the table has been added, <i>false</i> otherwise.
+	 */
+	public boolean add(final String key, final TAPTable table, final long size, final DBConnection conn){
+		synchronized(this){
+			if (key == null || entries.containsKey(key) || entriesByDBName.containsKey(table.getDBName()) || (maxSize >= 0 && size > maxSize))
+				return false;
+
+			Entry entry = new Entry(key, table, Math.max(0, size));
+			entries.put(key, entry);
+			entriesByDBName.put(entry.dbName, entry);
+			totalSize += entry.size;
+		}
+		evict(conn);
+		return true;
+	}
+
+	/**
+	 * <p>Release the reference held by a job on the given table.</p>
+	 * 
+	 * <p>Then, the tables which are not used any more may be evicted (see {@link #evict(DBConnection)}).</p>
+	 * 
+	 * @param table	Description of an uploaded table in the job.
+	 * @param conn	Connection to use to drop the evicted tables.
+	 * 
+	 * @return	<i>true</i> if the given table is managed by this cache (it must then not be dropped by the job),
+	 *        	<i>false</i> otherwise (the job must drop it itself).
+	 */
+	public boolean release(final TAPTable table, final DBConnection conn){
+		synchronized(this){
+			Entry entry = entriesByDBName.get(table.getDBName());
+			if (entry == null)
+				return false;
+			entry.nbRefs = Math.max(0, entry.nbRefs - 1);
+			entry.lastUse = System.currentTimeMillis();
+		}
+		evict(conn);
+		return true;
+	}
+
+	/**
+	 * <p>Drop all the tables which are not used any more and which have expired,
+	 * and then the least recently used ones until the total size of the cache is below the maximum size.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	A table which can not be dropped is just removed from the cache. The error is logged.
+	 * </i></p>
+	 * 
+	 * @param conn	Connection to use to drop the evicted tables.
+	 */
+	public void evict(final DBConnection conn){
+		List<Entry> evicted = new ArrayList<Entry>();
+		synchronized(this){
+			final long now = System.currentTimeMillis();
+			Iterator<Entry> it = entries.values().iterator();
+			while(it.hasNext()){
+				Entry entry = it.next();
+				if (entry.nbRefs == 0 && (now - entry.lastUse >= timeToLive || (maxSize >= 0 && totalSize > maxSize))){
+					it.remove();
+					remove(entry);
+					evicted.add(entry);
+				}
+			}
+		}
+		drop(evicted, conn);
+	}
+
+	/**
+	 * <p>Drop all the cached tables which are not used any more, whatever is their time-to-live.</p>
+	 * 
+	 * <p>This function should be called when the TAP service is stopped.</p>
+	 * 
+	 * @param conn	Connection to use to drop the tables.
+	 */
+	public void clear(final DBConnection conn){
+		List<Entry> evicted = new ArrayList<Entry>();
+		synchronized(this){
+			Iterator<Entry> it = entries.values().iterator();
+			while(it.hasNext()){
+				Entry entry = it.next();
+				if (entry.nbRefs == 0){
+					it.remove();
+					remove(entry);
+					evicted.add(entry);
+				}
+			}
+		}
+		drop(evicted, conn);
+	}
+
+	/**
+	 * Forget the given entry in the index by DB name and in the total size.
+	 * <i>note: the entry must be removed from {@link #entries} by the caller.</i>
+	 * 
+	 * @param entry	The removed entry.
+	 */
+	private void remove(final Entry entry){
+		entriesByDBName.remove(entry.dbName);
+		totalSize -= entry.size;
+	}
+
+	/**
+	 * Drop the tables of the given evicted entries.
+	 * 
+	 * @param evicted	Entries removed from this cache.
+	 * @param conn		Connection to use to drop the tables.
+	 */
+	private void drop(final List<Entry> evicted, final DBConnection conn){
+		for(Entry entry : evicted){
+			TAPSchema schema = new TAPSchema(STDSchema.UPLOADSCHEMA.label);
+			schema.setDBName(entry.dbSchemaName);
+			TAPTable table = new TAPTable(entry.dbName);
+			table.setDBName(entry.dbName);
+			schema.addTable(table);
+			try{
+				conn.dropUploadedTable(table);
+				if (logger != null) logger.logTAP(LogLevel.INFO, this, "UPLOAD_CACHE", "Cached uploaded table \"" + entry.dbName + "\" evicted.", null);
+			}catch(DBException de){
+				if (logger != null) logger.logTAP(LogLevel.ERROR, this, "UPLOAD_CACHE", "Can not drop the evicted uploaded table \"" + entry.dbName + "\" from the database!", de);
+			}
+		}
+	}
+
+	/**
+	 * Description of a table in the cache.
+	 * 
+	 * @author Gr&eacute;gory Mantelet (ARI)
+	 * @version 2.0 (10/2014)
+	 * @since 2.0
+	 */
+	protected static class Entry {
+		/** Key of the uploaded content. */
+		public final String key;
+		/** DB name of the schema of the table. */
+		public final String dbSchemaName;
+		/** DB name of the table. */
+		public final String dbName;
+		/** Columns of the table. */
+		public final TAPColumn[] columns;
+		/** Size (in bytes) of the uploaded content. */
+		public final long size;
+		/** Number of rows of the table. <i>note: negative if unknown.</i> */
+		public final long nbRows;
+		/** Number of jobs currently using this table. */
+		public int nbRefs = 1;
+		/** Date/Time (in milliseconds) at which this table has been used for the last time. */
+		public long lastUse = System.currentTimeMillis();
+
+		/**
+		 * Build a cache entry, referenced by the job which has just loaded the given table.
+		 * 
+		 * @param key	Key of the uploaded content.
+		 * @param table	Description of the loaded table.
+		 * @param size	Size (in bytes) of the uploaded content.
+		 */
+		public Entry(final String key, final TAPTable table, final long size){
+			this.key = key;
+			this.dbSchemaName = table.getDBSchemaName();
+			this.dbName = table.getDBName();
+			this.size = size;
+			this.nbRows = table.getNbRows();
+			ArrayList<TAPColumn> cols = new ArrayList<TAPColumn>(table.getNbColumns());
+			Iterator<TAPColumn> it = table.getColumns();
+			while(it.hasNext())
+				cols.add((TAPColumn)it.next().copy(null, null, null));
+			this.columns = cols.toArray(new TAPColumn[cols.size()]);
+		}
+	}
+
+}
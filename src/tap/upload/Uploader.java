@@ -22,21 +22,30 @@ package tap.upload;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import tap.ServiceConnection;
 import tap.ServiceConnection.LimitUnit;
 import tap.TAPException;
 import tap.data.DataReadException;
 import tap.data.LimitedTableIterator;
+import tap.data.StreamingVOTableIterator;
+import tap.data.StreamingVOTableIterator.UnsupportedFeatureException;
 import tap.data.TableIterator;
 import tap.data.VOTableIterator;
 import tap.db.DBConnection;
+import tap.db.DBException;
+import tap.db.UploadProgressListener;
 import tap.metadata.TAPColumn;
 import tap.metadata.TAPMetadata;
 import tap.metadata.TAPMetadata.STDSchema;
 import tap.metadata.TAPSchema;
 import tap.metadata.TAPTable;
 import uws.UWSException;
+import uws.service.log.UWSLog.LogLevel;
 
 import com.oreilly.servlet.multipart.ExceededSizeException;
 
@@ -45,14 +54,14 @@ import com.oreilly.servlet.multipart.ExceededSizeException;
  * 
  * <p>
  * 	This class manages particularly the upload limit in rows and in bytes by creating a {@link LimitedTableIterator}
- * 	with a {@link VOTableIterator}.
+ * 	with a {@link StreamingVOTableIterator} (or with a {@link VOTableIterator} for the VOTables it can not read).
  * </p>
  * 
  * @author Gr&eacute;gory Mantelet (CDS;ARI)
- * @version 2.0 (09/2014)
+ * @version 2.0 (10/2014)
  * 
  * @see LimitedTableIterator
- * @see VOTableIterator
+ * @see StreamingVOTableIterator
  */
 public class Uploader {
 	/** Specification of the TAP service. */
@@ -70,6 +79,30 @@ public class Uploader {
 	/** Number of rows already loaded. */
 	protected int nbRows = 0;
 
+	/** Maximum number of tables loaded at the same time. <i>1 means that tables are loaded one after the other.</i>
+	 * @since 2.0 */
+	protected int maxParallelUploads = 1;
+
+	/** Cache of the tables already loaded in the database by previous jobs. <i>NULL if uploaded tables must always be loaded.</i>
+	 * @since 2.0 */
+	protected UploadCache uploadCache = null;
+
+	/** Object to notify of the upload progression, whatever is the connection loading the table. <i>NULL if no notification must be sent.</i>
+	 * @since 2.0 */
+	protected UploadProgressListener uploadListener = null;
+
+	/** Indicate whether the upload has been canceled (see {@link #cancel()}).
+	 * @since 2.0 */
+	private volatile boolean canceled = false;
+
+	/** Indicate whether a table loading has failed during a parallel upload. The other loadings must then stop as soon as possible.
+	 * @since 2.0 */
+	private final AtomicBoolean failed = new AtomicBoolean(false);
+
+	/** Connections currently loading tables: the one of this {@link Uploader} and the additional ones of a parallel upload.
+	 * @since 2.0 */
+	private final List<DBConnection> loadingConnections = new ArrayList<DBConnection>();
+
 	/**
 	 * Build an {@link Uploader} object.
 	 * 
@@ -128,6 +161,135 @@ public class Uploader {
 			throw new TAPException("Upload aborted: this functionality is disabled in this TAP service!");
 	}
 
+	/**
+	 * <p>Get the maximum number of tables which can be loaded at the same time by {@link #upload(TableLoader[])}.</p>
+	 * 
+	 * @return	Maximum number of concurrent table loadings. <i>1 means that tables are loaded one after the other.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final int getMaxParallelUploads(){
+		return maxParallelUploads;
+	}
+
+	/**
+	 * <p>Set the maximum number of tables which can be loaded at the same time by {@link #upload(TableLoader[])}.</p>
+	 * 
+	 * <p>
+	 * 	If greater than 1, the uploaded tables are parsed and loaded concurrently, each on its own database connection
+	 * 	(see {@link #uploadInParallel(TableLoader[], TAPTable[])}). This limit is applied for each {@link Uploader}, that's to say for each job.
+	 * </p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	The parallel mode must be enabled only if tables loaded with one database connection are visible from the other connections
+	 * 	(i.e. not with temporary tables).
+	 * </i></p>
+	 * 
+	 * @param max	Maximum number of concurrent table loadings. <i>note: if less than 1, 1 will be set.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final void setMaxParallelUploads(final int max){
+		maxParallelUploads = Math.max(1, max);
+	}
+
+	/**
+	 * <p>Get the cache of the tables already loaded in the database by previous jobs.</p>
+	 * 
+	 * @return	The upload cache, or NULL if uploaded tables are always loaded.
+	 * 
+	 * @since 2.0
+	 */
+	public final UploadCache getUploadCache(){
+		return uploadCache;
+	}
+
+	/**
+	 * <p>Set the cache of the tables already loaded in the database by previous jobs.</p>
+	 * 
+	 * <p>
+	 * 	With a cache, {@link #upload(TableLoader[])} reuses the database table of any uploaded content already loaded
+	 * 	by a previous job (see {@link #getCacheKey(TableLoader)}), and adds in the cache the newly loaded tables.
+	 * </p>
+	 * 
+	 * <p><i><b>Warning:</b>
+	 * 	The cached tables are not dropped by the job any more, but released with {@link UploadCache#release(TAPTable, DBConnection)}.
+	 * 	See {@link UploadCache} for the restrictions on the uploaded tables.
+	 * </i></p>
+	 * 
+	 * @param cache	The upload cache to use. <i>NULL to always load uploaded tables.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final void setUploadCache(final UploadCache cache){
+		uploadCache = cache;
+	}
+
+	/**
+	 * <p>Set the object to notify of the upload progression.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	This listener is set on every connection loading a table (see {@link DBConnection#setUploadProgressListener(UploadProgressListener)}),
+	 * 	including the additional connections of a parallel upload. So, it may be notified concurrently by several threads.
+	 * </i></p>
+	 * 
+	 * @param listener	The listener to notify. <i>NULL to stop notifying.</i>
+	 * 
+	 * @since 2.0
+	 */
+	public final void setUploadProgressListener(final UploadProgressListener listener){
+		uploadListener = listener;
+	}
+
+	/**
+	 * <p>Cancel the upload currently running, if any.</p>
+	 * 
+	 * <p>
+	 * 	The statements running on all the connections loading tables are canceled (see {@link DBConnection#cancel()}),
+	 * 	and no more row is read from the uploaded VOTables. Then, {@link #upload(TableLoader[])} drops the tables already loaded
+	 * 	and throws a {@link TAPException}.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	This function is expected to be called by another thread than the one executing {@link #upload(TableLoader[])} ;
+	 * 	typically, by the thread aborting the job. It never throws any exception.
+	 * </i></p>
+	 * 
+	 * @since 2.0
+	 */
+	public void cancel(){
+		canceled = true;
+		stopLoadings(null);
+	}
+
+	/**
+	 * Tell whether the table loadings must stop: the upload has been canceled, a parallel loading has failed,
+	 * or the current thread has been interrupted.
+	 * 
+	 * @return	<i>true</i> if the loadings must stop, <i>false</i> otherwise.
+	 * 
+	 * @since 2.0
+	 */
+	protected final boolean isStopped(){
+		return canceled || failed.get() || Thread.currentThread().isInterrupted();
+	}
+
+	/**
+	 * Cancel the statements running on all the connections loading tables, except the given one.
+	 * 
+	 * @param except	Connection whose the statement must not be canceled. <i>MAY be NULL</i>
+	 */
+	private void stopLoadings(final DBConnection except){
+		List<DBConnection> connections;
+		synchronized(loadingConnections){
+			connections = new ArrayList<DBConnection>(loadingConnections);
+		}
+		for(DBConnection conn : connections){
+			if (conn != except)
+				conn.cancel();
+		}
+	}
+
 	/**
 	 * <p>Upload all the given VOTable inputs.</p>
 	 * 
@@ -137,6 +299,17 @@ public class Uploader {
 	 * 	is created, will be associated with the uploaded tables and will be returned by this function.
 	 * </i></p>
 	 * 
+	 * <p><i>Note:
+	 * 	The tables are loaded one after the other, or concurrently if {@link #getMaxParallelUploads()} is greater than 1.
+	 * 	In both cases, they are listed in the returned schema in the same order as the given array.
+	 * 	If the upload fails, all the tables already loaded are dropped.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	If an upload cache is set (see {@link #setUploadCache(UploadCache)}), the tables already loaded by a previous job
+	 * 	are reused instead of being loaded again, and the loaded tables are added in the cache.
+	 * </i></p>
+	 * 
 	 * @param loaders	Array of tables to upload.
 	 * 
 	 * @return	A {@link TAPSchema} containing the list and the description of all uploaded tables.
@@ -146,43 +319,324 @@ public class Uploader {
 	 * @see DBConnection#addUploadedTable(TAPTable, tap.data.TableIterator)
 	 */
 	public TAPSchema upload(final TableLoader[] loaders) throws TAPException{
-		InputStream votable = null;
-		String tableName = null;
+		// Declare all tables in the TAP_UPLOAD schema (in the given order):
+		TAPTable[] tables = new TAPTable[loaders.length];
+		String[] keys = new String[loaders.length];
+		List<TableLoader> toLoad = new ArrayList<TableLoader>(loaders.length);
+		List<TAPTable> toCreate = new ArrayList<TAPTable>(loaders.length);
+		for(int i = 0; i < loaders.length; i++){
+			tables[i] = new TAPTable(loaders[i].tableName);
+			// reuse the table already loaded by a previous job, if any:
+			if (uploadCache != null && (keys[i] = getCacheKey(loaders[i])) != null && uploadCache.acquire(keys[i], tables[i]))
+				keys[i] = null;
+			// ...otherwise, it must be loaded:
+			else{
+				tables[i].setDBName(loaders[i].tableName + "_" + System.currentTimeMillis());
+				toLoad.add(loaders[i]);
+				toCreate.add(tables[i]);
+			}
+			uploadSchema.addTable(tables[i]);
+		}
+
+		// Create and fill them in the database:
+		synchronized(loadingConnections){
+			loadingConnections.add(dbConn);
+		}
 		try{
-			// Iterate over the full list of uploaded tables:
-			for(TableLoader loader : loaders){
-				tableName = loader.tableName;
+			TableLoader[] loadersToLoad = toLoad.toArray(new TableLoader[toLoad.size()]);
+			TAPTable[] tablesToCreate = toCreate.toArray(new TAPTable[toCreate.size()]);
+			if (maxParallelUploads > 1 && loadersToLoad.length > 1)
+				uploadInParallel(loadersToLoad, tablesToCreate);
+			else{
+				boolean[] loaded = new boolean[loadersToLoad.length];
+				for(int i = 0; i < loadersToLoad.length; i++){
+					try{
+						uploadTable(loadersToLoad[i], tablesToCreate[i], dbConn);
+						loaded[i] = true;
+					}catch(TAPException te){
+						dropTables(tablesToCreate, loaded);
+						throw te;
+					}
+				}
+			}
+		}catch(TAPException te){
+			// Release the reused tables:
+			if (uploadCache != null){
+				for(TAPTable table : tables){
+					if (!toCreate.contains(table))
+						uploadCache.release(table, dbConn);
+				}
+			}
+			throw te;
+		}finally{
+			synchronized(loadingConnections){
+				loadingConnections.remove(dbConn);
+			}
+		}
 
-				// Open a stream toward the VOTable:
-				votable = loader.openStream();
+		// Add the loaded tables in the cache:
+		if (uploadCache != null){
+			for(int i = 0; i < loaders.length; i++){
+				if (keys[i] != null)
+					uploadCache.add(keys[i], tables[i], loaders[i].getContentSize(), dbConn);
+			}
+		}
+
+		// Return the TAP_UPLOAD schema (containing just the description of the uploaded tables):
+		return uploadSchema;
+	}
+
+	/**
+	 * <p>Load concurrently all the given tables.</p>
+	 * 
+	 * <p>
+	 * 	At most {@link #getMaxParallelUploads()} tables are loaded at the same time: one with the connection of this {@link Uploader}
+	 * 	(in the current thread) and the others in dedicated threads with additional connections got from the {@link tap.TAPFactory}.
+	 * 	These additional connections are asked only if free connections are available (see {@link tap.TAPFactory#countFreeConnections()}),
+	 * 	and they are freed as soon as all tables are loaded. Without any additional connection, tables are loaded one after the other.
+	 * </p>
+	 * 
+	 * <p>
+	 * 	As soon as a table can not be loaded, no other table loading is started and the running ones are stopped
+	 * 	(their statements are canceled and no more row is read). Once they are finished, all loaded tables are dropped
+	 * 	and the error of the table which has failed first is thrown.
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	The additional connections are registered like the one of this {@link Uploader}, so that {@link #cancel()} reaches them.
+	 * 	The upload progression listener (see {@link #setUploadProgressListener(UploadProgressListener)}) is notified by all of them.
+	 * </i></p>
+	 * 
+	 * @param loaders	Tables to upload.
+	 * @param tables	Description of these tables (in the same order). <i>They must already be part of the TAP_UPLOAD schema.</i>
+	 * 
+	 * @throws TAPException	If any table can not be loaded, or if interrupted.
+	 * 
+	 * @since 2.0
+	 */
+	protected void uploadInParallel(final TableLoader[] loaders, final TAPTable[] tables) throws TAPException{
+		final AtomicInteger nextTable = new AtomicInteger(0);
+		final TAPException[] errors = new TAPException[loaders.length];
+		final boolean[] loaded = new boolean[loaders.length];
+		failed.set(false);
 
-				// Start reading the VOTable (with the identified limit, if any):
-				TableIterator dataIt = new LimitedTableIterator(VOTableIterator.class, votable, limitUnit, limit);
+		// Get the additional connections:
+		List<DBConnection> connections = new ArrayList<DBConnection>();
+		int nbWorkers = Math.min(maxParallelUploads, loaders.length);
+		for(int i = 1; i < nbWorkers && service.getFactory().countFreeConnections() > 0; i++){
+			try{
+				connections.add(service.getFactory().getConnection(dbConn.getID() + "_upload" + i));
+			}catch(TAPException te){
+				if (service.getLogger() != null) service.getLogger().logTAP(LogLevel.WARNING, this, "UPLOADING", "Impossible to get an additional connection for the parallel upload! Tables will be loaded with only " + i + " connection(s).", te);
+				break;
+			}
+		}
+		// ...and make them cancelable:
+		synchronized(loadingConnections){
+			loadingConnections.addAll(connections);
+		}
 
-				// Define the table to upload:
-				TAPColumn[] columns = dataIt.getMetadata();
-				TAPTable table = new TAPTable(tableName);
-				table.setDBName(tableName + "_" + System.currentTimeMillis());
-				for(TAPColumn col : columns)
-					table.addColumn(col);
+		List<Thread> workers = new ArrayList<Thread>(connections.size());
+		try{
+			if (service.getLogger() != null) service.getLogger().logTAP(LogLevel.INFO, this, "UPLOADING", "Loading " + loaders.length + " tables with " + (connections.size() + 1) + " connections in parallel.", null);
+
+			// Start the loading of tables in separated threads with the additional connections:
+			for(final DBConnection conn : connections){
+				Thread worker = new Thread(Thread.currentThread().getName() + "_upload" + (workers.size() + 1)){
+					@Override
+					public void run(){
+						uploadNextTables(loaders, tables, conn, nextTable, loaded, errors);
+					}
+				};
+				workers.add(worker);
+				worker.start();
+			}
 
-				// Add the table to the TAP_UPLOAD schema:
-				uploadSchema.addTable(table);
+			// Load tables also in this thread with the connection of this Uploader:
+			uploadNextTables(loaders, tables, dbConn, nextTable, loaded, errors);
+
+			// Wait for the end of all the other loadings:
+			try{
+				for(Thread worker : workers)
+					worker.join();
+			}catch(InterruptedException ie){
+				failed.set(true);
+				stopLoadings(dbConn);
+				for(Thread worker : workers)
+					worker.interrupt();
+				for(Thread worker : workers){
+					try{
+						worker.join();
+					}catch(InterruptedException ie2){}
+				}
+				Thread.currentThread().interrupt();
+				dropTables(tables, loaded);
+				throw new TAPException("Upload interrupted!", ie);
+			}
+
+		}finally{
+			synchronized(loadingConnections){
+				loadingConnections.removeAll(connections);
+			}
+			for(DBConnection conn : connections)
+				service.getFactory().freeConnection(conn);
+		}
+
+		// In case of failure or cancellation, drop all loaded tables and throw the error which has stopped the loadings:
+		if (failed.get() || canceled){
+			dropTables(tables, loaded);
+			for(TAPException te : errors){
+				if (te != null)
+					throw te;
+			}
+			throw new TAPException("Upload interrupted!");
+		}
+	}
+
+	/**
+	 * <p>Load, with the given connection, the next tables which are not yet loaded (see {@link #uploadInParallel(TableLoader[], TAPTable[])}).</p>
+	 * 
+	 * <p>
+	 * 	This function stops as soon as all tables are taken or as soon as the loadings must stop (see {@link #isStopped()}).
+	 * 	If a table loading fails, the loadings running on the other connections are stopped.
+	 * </p>
+	 * 
+	 * @param loaders	Tables to upload.
+	 * @param tables	Description of these tables (in the same order).
+	 * @param conn		Connection to use.
+	 * @param nextTable	Index of the next table to load (shared by all loading threads).
+	 * @param loaded	Indicate, for each table, whether it has been successfully loaded.
+	 * @param errors	Error of each table loading (only the first failure is kept ; see {@link #fail(int, TAPException, DBConnection, TAPException[])}).
+	 */
+	private void uploadNextTables(final TableLoader[] loaders, final TAPTable[] tables, final DBConnection conn, final AtomicInteger nextTable, final boolean[] loaded, final TAPException[] errors){
+		int i;
+		while(!isStopped() && (i = nextTable.getAndIncrement()) < loaders.length){
+			try{
+				if (service.getLogger() != null) service.getLogger().logTAP(LogLevel.INFO, this, "UPLOADING", "Loading the table \"" + loaders[i].tableName + "\" with the connection \"" + conn.getID() + "\".", null);
+				uploadTable(loaders[i], tables[i], conn);
+				loaded[i] = true;
+			}catch(TAPException te){
+				fail(i, te, conn, errors);
+			}catch(RuntimeException re){
+				fail(i, new TAPException("Unexpected error while loading the table \"" + loaders[i].tableName + "\"!", re), conn, errors);
+			}
+		}
+	}
+
+	/**
+	 * <p>Report the failure of a table loading during a parallel upload.</p>
+	 * 
+	 * <p>
+	 * 	Only the first failure is kept, and the loadings running on the other connections are then stopped.
+	 * 	Indeed, the next failures are most likely caused by this stop.
+	 * </p>
+	 * 
+	 * @param index		Index of the table which can not be loaded.
+	 * @param error		The loading error.
+	 * @param conn		Connection used to load the table.
+	 * @param errors	Error of each table loading.
+	 */
+	private void fail(final int index, final TAPException error, final DBConnection conn, final TAPException[] errors){
+		if (!failed.getAndSet(true)){
+			errors[index] = error;
+			stopLoadings(conn);
+		}
+	}
+
+	/**
+	 * <p>Get the key identifying the given uploaded content in the upload cache (see {@link #setUploadCache(UploadCache)}).</p>
+	 * 
+	 * <p>
+	 * 	This key is built from the digest of the uploaded content (see {@link TableLoader#getContentDigest(long)}),
+	 * 	which includes the column metadata (the FIELDs of the VOTable), and from the upload limit (which may truncate the loaded rows).
+	 * </p>
+	 * 
+	 * <p><i>Note:
+	 * 	If the digest can not be computed (e.g. the content exceeds the upload limit in bytes), a WARNING is logged and NULL is returned:
+	 * 	the table is then loaded as usual, without being cached.
+	 * </i></p>
+	 * 
+	 * @param loader	Table to upload.
+	 * 
+	 * @return	The key of the uploaded content, or NULL if it can not be computed.
+	 * 
+	 * @since 2.0
+	 */
+	protected String getCacheKey(final TableLoader loader){
+		try{
+			String digest = loader.getContentDigest((limitUnit == LimitUnit.bytes) ? limit : -1);
+			return digest + ((limitUnit == null) ? "" : "_" + limit + limitUnit);
+		}catch(IOException ioe){
+			if (service.getLogger() != null) service.getLogger().logTAP(LogLevel.WARNING, this, "UPLOADING", "Impossible to identify the uploaded table \"" + loader.tableName + "\" in the upload cache: it will be loaded without being cached.", ioe);
+			return null;
+		}
+	}
 
-				// Create and fill the corresponding table in the database:
-				dbConn.addUploadedTable(table, dataIt);
+	/**
+	 * <p>Create and fill the given table in the "database".</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The columns of the given table are set from the metadata of the VOTable.
+	 * </i></p>
+	 * 
+	 * <p><i>Note:
+	 * 	The VOTable is read with a {@link StreamingVOTableIterator}. If it uses a feature not supported by this iterator
+	 * 	(e.g. the FITS serialization or a multi-dimensional array ; see {@link UnsupportedFeatureException}), it is opened again
+	 * 	and read with a {@link VOTableIterator}.
+	 * </i></p>
+	 * 
+	 * @param loader	Table to upload.
+	 * @param table		Description of this table. <i>It must already be part of the TAP_UPLOAD schema.</i>
+	 * @param conn		Connection to use.
+	 * 
+	 * @throws TAPException	If any error occurs while reading the VOTable input or while uploading the table into the "database".
+	 * 
+	 * @since 2.0
+	 */
+	protected void uploadTable(final TableLoader loader, final TAPTable table, final DBConnection conn) throws TAPException{
+		InputStream votable = null;
+		try{
+			// Open a stream toward the VOTable:
+			votable = loader.openStream();
 
-				// Close the VOTable stream:
+			// Start reading the VOTable (with the identified limit, if any), until the loadings must stop:
+			TableIterator dataIt;
+			try{
+				dataIt = openVOTable(StreamingVOTableIterator.class, votable);
+			}catch(UnsupportedFeatureException ufe){
+				// The streaming parser can not read this VOTable => read it again with STIL:
+				if (service.getLogger() != null)
+					service.getLogger().logTAP(LogLevel.INFO, this, "UPLOADING", "The uploaded table \"" + loader.tableName + "\" is read with STIL: " + ufe.getMessage(), null);
 				votable.close();
-				votable = null;
+				votable = loader.openStream();
+				dataIt = openVOTable(VOTableIterator.class, votable);
 			}
+
+			// Define the table to upload:
+			TAPColumn[] columns = dataIt.getMetadata();
+			for(TAPColumn col : columns)
+				table.addColumn(col);
+
+			// Create and fill the corresponding table in the database:
+			conn.setUploadProgressListener(uploadListener);
+			try{
+				conn.addUploadedTable(table, dataIt);
+			}finally{
+				conn.setUploadProgressListener(null);
+			}
+
+			// Close the VOTable stream:
+			votable.close();
+			votable = null;
 		}catch(DataReadException dre){
-			if (dre.getCause() instanceof ExceededSizeException)
+			if (isStopped())
+				throw new TAPException("Upload of the table \"" + loader.tableName + "\" canceled!", dre);
+			else if (dre.getCause() instanceof ExceededSizeException)
 				throw dre;
 			else
-				throw new TAPException("Error while reading the VOTable \"" + tableName + "\": " + dre.getMessage(), dre, UWSException.BAD_REQUEST);
+				throw new TAPException("Error while reading the VOTable \"" + loader.tableName + "\": " + dre.getMessage(), dre, UWSException.BAD_REQUEST);
 		}catch(IOException ioe){
-			throw new TAPException("IO error while reading the VOTable of \"" + tableName + "\"!", ioe);
+			throw new TAPException("IO error while reading the VOTable of \"" + loader.tableName + "\"!", ioe);
 		}finally{
 			try{
 				if (votable != null)
@@ -191,9 +645,47 @@ public class Uploader {
 				;
 			}
 		}
+	}
 
-		// Return the TAP_UPLOAD schema (containing just the description of the uploaded tables):
-		return uploadSchema;
+	/**
+	 * Create an iterator over the given VOTable, with the identified limit (if any), which stops as soon as the loadings must stop.
+	 * 
+	 * @param classIt	Class of the {@link TableIterator} to use to read the VOTable.
+	 * @param votable	Stream toward the VOTable to read.
+	 * 
+	 * @return	The iterator over the VOTable rows.
+	 * 
+	 * @throws DataReadException	If the VOTable can not be read with the given iterator, or if the limit has been reached.
+	 * 
+	 * @since 2.0
+	 */
+	private TableIterator openVOTable(final Class<? extends TableIterator> classIt, final InputStream votable) throws DataReadException{
+		return new LimitedTableIterator(classIt, votable, limitUnit, limit){
+			@Override
+			public boolean nextRow() throws DataReadException{
+				if (isStopped())
+					throw new DataReadException("Upload canceled!");
+				return super.nextRow();
+			}
+		};
+	}
+
+	/**
+	 * Drop (with the connection of this {@link Uploader}) all the given tables which have been loaded.
+	 * 
+	 * @param tables	All uploaded tables.
+	 * @param loaded	Indicate, for each table, whether it has been successfully loaded (and so, whether it must be dropped).
+	 */
+	private void dropTables(final TAPTable[] tables, final boolean[] loaded){
+		for(int i = 0; i < tables.length; i++){
+			if (!loaded[i])
+				continue;
+			try{
+				dbConn.dropUploadedTable(tables[i]);
+			}catch(DBException de){
+				if (service.getLogger() != null) service.getLogger().logTAP(LogLevel.WARNING, this, "DROP_UPLOAD", "Impossible to drop the uploaded table \"" + tables[i].getADQLName() + "\" after an upload failure!", de);
+			}
+		}
 	}
 
 }
@@ -23,10 +23,12 @@ import adql.db.FunctionDef.FunctionParam;
 import adql.db.exception.UnresolvedIdentifiersException;
 import adql.parser.ADQLParser;
 import adql.parser.ParseException;
+import adql.query.ADQLObject;
 import adql.query.ADQLQuery;
 import adql.query.operand.ADQLColumn;
 import adql.query.operand.ADQLOperand;
 import adql.query.operand.function.DefaultUDF;
+import adql.search.SearchColumnHandler;
 
 public class TestDBChecker {
 
@@ -101,6 +103,72 @@ public class TestDBChecker {
 		}catch(ParseException pe){}
 	}
 
+	@Test
+	public void testOverlayTables(){
+		// Tables of the overlay are resolved as well as the ones of the shared base list:
+		DefaultDBTable barTable = new DefaultDBTable("bar");
+		barTable.addColumn(new DefaultDBColumn("colB", new DBType(DBDatatype.INTEGER), barTable));
+		SearchTableList base = new SearchTableList(tables);
+		OverlaySearchTableList overlay = new OverlaySearchTableList(base, Arrays.asList(barTable));
+		ADQLParser parser = new ADQLParser(new DBChecker(overlay));
+		try{
+			assertNotNull(parser.parseQuery("SELECT colI, colB FROM foo, bar;"));
+		}catch(ParseException pe){
+			pe.printStackTrace();
+			fail("Tables of the base list and of the overlay should be both resolved!");
+		}
+
+		// The base list is not modified by the overlay:
+		assertEquals(1, base.size());
+		assertEquals(0, base.search("bar").size());
+		assertEquals(1, overlay.search("bar").size());
+		assertEquals(1, overlay.search("foo").size());
+
+		// Tables of another overlay on the same base list are not visible:
+		parser = new ADQLParser(new DBChecker(new OverlaySearchTableList(base)));
+		try{
+			parser.parseQuery("SELECT * FROM bar;");
+			fail("The table \"bar\" is not in this overlay: this test should have failed!");
+		}catch(ParseException pe){
+			assertTrue(pe instanceof UnresolvedIdentifiersException);
+		}
+	}
+
+	@Test
+	public void testQueryItems(){
+		ADQLParser parser = new ADQLParser();
+		try{
+			ADQLQuery query = parser.parseQuery("SELECT foo.*, colI, POINT('ICRS', 1, 2) FROM foo JOIN (SELECT colS FROM foo) AS sub ON foo.colS = sub.colS WHERE colI IN (SELECT colI FROM foo) AND CONTAINS(colG, REGION('CIRCLE ICRS 1 2 3')) = 1 ORDER BY 1;");
+			DBChecker.QueryItems items = new DBChecker.QueryItems(query);
+
+			// Only the tables of the clause FROM, but not the ones inside its sub-query:
+			assertEquals(2, items.tables.size());
+			assertEquals(1, items.wildcards.size());
+			assertEquals(1, items.colRefs.size());
+
+			// The same columns as the ones found by a search handler (so, none of the sub-queries):
+			SearchColumnHandler sHandler = new SearchColumnHandler();
+			sHandler.search(query);
+			assertEquals(sHandler.getNbMatch(), items.columns.size());
+			Iterator<ADQLObject> itColumns = sHandler.iterator();
+			for(ADQLColumn col : items.columns)
+				assertTrue(col == itColumns.next());
+
+			// Geometries, explicit coordinate systems and STC-S expressions:
+			assertEquals(3, items.geometries.size());
+			assertEquals(1, items.coordSys.size());
+			assertEquals("ICRS", items.coordSys.get(0).getValue());
+			assertEquals(1, items.regions.size());
+
+			// Only the sub-query outside the clause FROM:
+			assertEquals(1, items.subQueries.size());
+			assertEquals("SELECT colI\nFROM foo", items.subQueries.get(0).toADQL());
+		}catch(ParseException pe){
+			pe.printStackTrace();
+			fail();
+		}
+	}
+
 	@Test
 	public void testUDFManagement(){
 		// UNKNOWN FUNCTIONS ARE NOT ALLOWED:
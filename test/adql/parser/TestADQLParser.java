@@ -40,4 +40,27 @@ public class TestADQLParser {
 		}
 	}
 
+	@Test
+	public void testReuse(){
+		ADQLParser parser = new ADQLParser();
+		try{
+			// A CharSequence is lexed directly (non-ASCII characters included):
+			StringBuilder buf = new StringBuilder("SELECT 'd\u00e9j\u00e0 vu' FROM foo;");
+			ADQLQuery query = parser.parseQuery(buf);
+			assertEquals("d\u00e9j\u00e0 vu", ((StringConstant)(query.getSelect().get(0).getOperand())).getValue());
+
+			// The same parser can parse other queries, even after an error:
+			try{
+				parser.parseQuery("SELECT FROM foo;");
+				fail("This query has no SELECT item: it should have failed!");
+			}catch(ParseException pe){}
+			query = parser.parseQuery("SELECT a, b FROM bar;");
+			assertEquals(2, query.getSelect().size());
+			assertEquals("bar", query.getFrom().toADQL());
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while reusing a parser.");
+		}
+	}
+
 }
@@ -0,0 +1,54 @@
+package adql.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import adql.parser.ADQLParser;
+
+public class TestBoundingBoxTranslator {
+
+	private static String translateWhere(final String condition) throws Exception{
+		return (new BoundingBoxTranslator(false)).translate((new ADQLParser()).parseQuery("SELECT * FROM foo WHERE " + condition).getWhere()).substring(6);
+	}
+
+	@Test
+	public void testTranslate(){
+		try{
+			// Cone search: bounding box + exact test:
+			assertEquals("(dec BETWEEN 19.0 AND 21.0 AND ra BETWEEN 8.935815069218847 AND 11.064184930781153 AND sin(radians(dec - 20.0)/2)*sin(radians(dec - 20.0)/2) + cos(radians(dec))*0.9396926207859084*sin(radians(ra - 10.0)/2)*sin(radians(ra - 10.0)/2) <= 7.615242180438042E-5)", translateWhere("CONTAINS(POINT('', ra, dec), CIRCLE('', 10, 20, 1)) = 1"));
+
+			// Very small radius (1 mas) => the haversine threshold keeps its precision (cos(radius) would be exactly 1):
+			double sinHalfRadius = Math.sin(Math.toRadians(1 / 3600000.0) / 2);
+			assertTrue(sinHalfRadius * sinHalfRadius > 0);
+			assertTrue(translateWhere("CONTAINS(POINT('', ra, dec), CIRCLE('', 10, 20, " + (1 / 3600000.0) + ")) = 1").endsWith(" <= " + (sinHalfRadius * sinHalfRadius) + ")"));
+
+			// Radius greater than 180 degrees => the whole sphere (sin(radius/2) would decrease again):
+			assertTrue(translateWhere("CONTAINS(POINT('', ra, dec), CIRCLE('', 10, 20, 200)) = 1").endsWith(" <= 1.0)"));
+			assertTrue(translateWhere("DISTANCE(POINT('', 10, 20), POINT('', ra, dec)) < 200").endsWith(" <= 1.0)"));
+
+			// Wrap-around of the longitude:
+			assertTrue(translateWhere("DISTANCE(POINT('', 0.2, 0), POINT('', ra, dec)) < 1").startsWith("(dec BETWEEN -1.0 AND 1.0 AND (ra >= 359.2 OR ra <= 1.2) AND "));
+			assertEquals("(dec BETWEEN -2.0 AND 2.0 AND (ra >= 359.0 OR ra <= 1.0))", translateWhere("INTERSECTS(BOX('', 0, 0, 2, 4), POINT('', ra, dec)) = 1"));
+
+			// Pole in the region => no constraint on the longitude:
+			assertTrue(translateWhere("CONTAINS(POINT('', ra, dec), CIRCLE('', 100, 89.5, 1)) = 1").startsWith("(dec BETWEEN 88.5 AND 90.0 AND sin("));
+			assertTrue(translateWhere("CONTAINS(POINT('', ra, dec), POLYGON('', 0, 80, 120, 80, 240, 80)) = 1").startsWith("(dec BETWEEN 80.0 AND 90.0 AND cos("));
+
+			// Polygon: the latitude range includes the bulge of the edges:
+			assertTrue(translateWhere("CONTAINS(POINT('', ra, dec), POLYGON('', 350, 10, 10, 10, 10, 20, 350, 20)) = 1").startsWith("(dec BETWEEN 10.0 AND 20.28355945452972 AND (ra >= 350.0 OR ra <= 10.0) AND cos("));
+
+			// ...and the exact test of a non-convex polygon is the ADQL function:
+			assertEquals("(dec BETWEEN 0.0 AND 10.037423045910717 AND ra BETWEEN 0.0 AND 10.0 AND CONTAINS(POINT('', ra, dec), POLYGON('', 0, 0, 10, 0, 5, 2, 10, 10, 0, 10)) = 1)", translateWhere("CONTAINS(POINT('', ra, dec), POLYGON('', 0, 0, 10, 0, 5, 2, 10, 10, 0, 10)) = 1"));
+
+			// Not a constant region => not rewritten:
+			assertEquals("CONTAINS(POINT('', ra, dec), CIRCLE('', ra2, 0, 1)) = 1", translateWhere("CONTAINS(POINT('', ra, dec), CIRCLE('', ra2, 0, 1)) = 1"));
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while translating positional predicates.");
+		}
+	}
+
+}
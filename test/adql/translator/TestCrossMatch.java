@@ -0,0 +1,107 @@
+package adql.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.DefaultDBColumn;
+import adql.db.DefaultDBTable;
+import adql.parser.ADQLParser;
+import adql.query.ADQLQuery;
+import adql.query.constraint.Comparison;
+import adql.query.from.ADQLJoin;
+
+public class TestCrossMatch {
+
+	private static ArrayList<DBTable> tables;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception{
+		// A big catalog whose the position is indexed:
+		DefaultDBTable cat = new DefaultDBTable("cat");
+		cat.addColumn(indexedColumn("ra", cat));
+		cat.addColumn(indexedColumn("dec", cat));
+		cat.addColumn(indexedColumn("pos", cat));
+
+		// Two uploaded tables, not indexed, of different sizes:
+		DefaultDBTable small = new DefaultDBTable("small");
+		small.addColumn(new DefaultDBColumn("ra", small));
+		small.addColumn(new DefaultDBColumn("dec", small));
+		small.addColumn(new DefaultDBColumn("r", small));
+		small.setNbRows(10);
+		DefaultDBTable large = new DefaultDBTable("large");
+		large.addColumn(new DefaultDBColumn("ra", large));
+		large.addColumn(new DefaultDBColumn("dec", large));
+		large.setNbRows(100000);
+
+		tables = new ArrayList<DBTable>(3);
+		tables.add(cat);
+		tables.add(small);
+		tables.add(large);
+	}
+
+	private static DefaultDBColumn indexedColumn(final String name, final DBTable table){
+		DefaultDBColumn col = new DefaultDBColumn(name, table);
+		col.setIndexed(true);
+		return col;
+	}
+
+	private static Comparison parseWhere(final String adql) throws Exception{
+		ADQLQuery query = (new ADQLParser(new DBChecker(tables))).parseQuery(adql);
+		return (Comparison)((query.getWhere().isEmpty()) ? ((ADQLJoin)query.getFrom()).getJoinCondition().get(0) : query.getWhere().get(0));
+	}
+
+	@Test
+	public void testAnalyze(){
+		try{
+			// The indexed table is probed, whatever is the order in ADQL:
+			CrossMatch xmatch = CrossMatch.analyze(parseWhere("SELECT * FROM cat AS c, small AS s WHERE DISTANCE(POINT('', c.ra, c.dec), POINT('', s.ra, s.dec)) < 0.01"));
+			assertEquals("cat", xmatch.getProbed().getDBTable().getDBName());
+			assertEquals("small", xmatch.getDriving().getDBTable().getDBName());
+			xmatch = CrossMatch.analyze(parseWhere("SELECT * FROM small AS s JOIN cat AS c ON CONTAINS(POINT('', s.ra, s.dec), CIRCLE('', c.ra, c.dec, 0.01)) = 1"));
+			assertEquals("cat", xmatch.getProbed().getDBTable().getDBName());
+			assertNull(xmatch.getProbed().getPoint());
+
+			// Without index, the smaller table drives:
+			xmatch = CrossMatch.analyze(parseWhere("SELECT * FROM small AS s, large AS l WHERE 0.01 >= DISTANCE(POINT('', s.ra, s.dec), POINT('', l.ra, l.dec))"));
+			assertEquals("large", xmatch.getProbed().getDBTable().getDBName());
+			assertEquals("small", xmatch.getDriving().getDBTable().getDBName());
+
+			// ...except if the radius comes from the other table:
+			xmatch = CrossMatch.analyze(parseWhere("SELECT * FROM cat AS c, small AS s WHERE DISTANCE(POINT('', s.ra, s.dec), POINT('', c.ra, c.dec)) < s.r"));
+			assertEquals("small", xmatch.getDriving().getDBTable().getDBName());
+
+			// Not a cross-match:
+			assertNull(CrossMatch.analyze(parseWhere("SELECT * FROM cat AS c WHERE DISTANCE(POINT('', c.ra, c.dec), POINT('', 10, 20)) < 0.01")));
+			assertNull(CrossMatch.analyze(parseWhere("SELECT * FROM cat AS c, small AS s WHERE DISTANCE(POINT('', c.ra, c.dec), POINT('', s.ra, s.dec)) > 0.01")));
+			assertNull(CrossMatch.analyze(parseWhere("SELECT * FROM cat AS c, small AS s WHERE CONTAINS(POINT('', s.ra, s.dec), CIRCLE('', c.ra, c.dec, 0.01)) = 0")));
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while analyzing a cross-match.");
+		}
+	}
+
+	@Test
+	public void testTranslate(){
+		try{
+			String adql = "SELECT * FROM small AS s, cat AS c WHERE DISTANCE(POINT('', c.ra, c.dec), POINT('', s.ra, s.dec)) < 0.01";
+			assertEquals("(spoint(radians(c.ra),radians(c.dec)) @ scircle(spoint(radians(s.ra),radians(s.dec)),radians(0.01)) AND degrees(spoint(radians(c.ra),radians(c.dec)) <-> spoint(radians(s.ra),radians(s.dec))) < 0.01)", (new PgSphereTranslator(false)).translate(parseWhere(adql)));
+			assertEquals("q3c_join(s.ra, s.dec, c.ra, c.dec, 0.01)", (new Q3CTranslator(false)).translate(parseWhere(adql)));
+
+			// The indexed point is written out of the circle, even if it is the center of the CIRCLE in ADQL:
+			assertEquals("(spoint(radians(c.ra),radians(c.dec)) @ scircle(spoint(radians(s.ra),radians(s.dec)),radians(0.01)))", (new PgSphereTranslator(false)).translate(parseWhere("SELECT * FROM small AS s JOIN cat AS c ON CONTAINS(POINT('', s.ra, s.dec), CIRCLE('', c.ra, c.dec, 0.01)) = 1")));
+			assertEquals("(c.pos @ scircle(spoint(radians(s.ra),radians(s.dec)),radians(0.01)) AND degrees(c.pos <-> spoint(radians(s.ra),radians(s.dec))) <= 0.01)", (new PgSphereTranslator(false)).translate(parseWhere("SELECT * FROM small AS s, cat AS c WHERE DISTANCE(POINT('', s.ra, s.dec), c.pos) <= 0.01")));
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while translating a cross-match.");
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package adql.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.DefaultDBColumn;
+import adql.db.DefaultDBTable;
+import adql.parser.ADQLParser;
+import cds.utils.Healpix;
+
+public class TestHealpixTranslator {
+
+	private static ArrayList<DBTable> tables;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception{
+		// A catalog with a HEALPix index column:
+		DefaultDBTable cat = new DefaultDBTable("cat");
+		cat.addColumn(new DefaultDBColumn("ra", cat));
+		cat.addColumn(new DefaultDBColumn("dec", cat));
+		cat.addColumn(new DefaultDBColumn(HealpixTranslator.getIndexColumnName("ra", "dec", 12), cat));
+
+		// A catalog without HEALPix index column:
+		DefaultDBTable other = new DefaultDBTable("other");
+		other.addColumn(new DefaultDBColumn("ra", other));
+		other.addColumn(new DefaultDBColumn("dec", other));
+
+		tables = new ArrayList<DBTable>(2);
+		tables.add(cat);
+		tables.add(other);
+	}
+
+	private static String translateWhere(final String adql) throws Exception{
+		return (new HealpixTranslator(12, false)).translate((new ADQLParser(new DBChecker(tables))).parseQuery(adql).getWhere()).substring(6);
+	}
+
+	@Test
+	public void testTranslate(){
+		try{
+			// Cone search: HEALPix cells + exact test:
+			assertEquals("((cat.hpx12_ra_dec = 81360393 OR cat.hpx12_ra_dec = 81360395 OR cat.hpx12_ra_dec = 81360398 OR cat.hpx12_ra_dec = 81360417) AND ang_distance(cat.ra, cat.dec, 10.0, 20.0) <= 0.001)", translateWhere("SELECT * FROM cat WHERE CONTAINS(POINT('', ra, dec), CIRCLE('', 10, 20, 0.001)) = 1"));
+			assertEquals("((cat.hpx12_ra_dec = 81360393 OR cat.hpx12_ra_dec = 81360395 OR cat.hpx12_ra_dec = 81360398 OR cat.hpx12_ra_dec = 81360417) AND ang_distance(cat.ra, cat.dec, 10.0, 20.0) < 0.001)", translateWhere("SELECT * FROM cat WHERE DISTANCE(POINT('', ra, dec), POINT('', 10, 20)) < 0.001"));
+			assertEquals(81360395, Healpix.ang2pix(12, 10, 20));
+
+			// Convex polygon: HEALPix cells + exact test:
+			assertTrue(translateWhere("SELECT * FROM cat WHERE CONTAINS(POINT('', ra, dec), POLYGON('', 10, 20, 10.01, 20, 10, 20.01)) = 1").startsWith("((cat.hpx12_ra_dec = 81360393 OR cat.hpx12_ra_dec BETWEEN 81360395 AND 81360396 OR cat.hpx12_ra_dec = 81360398 OR cat.hpx12_ra_dec = 81360417 OR cat.hpx12_ra_dec = 81360420) AND cos(radians(cat.dec))*("));
+
+			// Big region: the cells are listed at a lower order:
+			assertTrue(translateWhere("SELECT * FROM cat WHERE CONTAINS(POINT('', ra, dec), CIRCLE('', 10, 20, 30)) = 1").startsWith("((cat.hpx12_ra_dec BETWEEN 524288 AND 540671 OR "));
+
+			// No HEALPix index => bounding box:
+			assertTrue(translateWhere("SELECT * FROM other WHERE CONTAINS(POINT('', ra, dec), CIRCLE('', 10, 20, 1)) = 1").startsWith("(other.dec BETWEEN 19.0 AND 21.0 AND other.ra BETWEEN "));
+
+			// Distance between columns:
+			assertEquals("ang_distance(cat.ra, cat.dec, other.ra, other.dec) > 1", translateWhere("SELECT * FROM cat, other WHERE DISTANCE(POINT('', cat.ra, cat.dec), POINT('', other.ra, other.dec)) > 1"));
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while translating positional predicates with HEALPix.");
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package adql.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import adql.parser.ADQLParser;
+import adql.query.ADQLQuery;
+
+public class TestPgSphereTranslator {
+
+	@Test
+	public void testTranslate(){
+		PgSphereTranslator translator = new PgSphereTranslator(false);
+		try{
+			ADQLQuery query = (new ADQLParser()).parseQuery("SELECT TOP 5 -mag*2, COUNT(*) FROM foo WHERE CONTAINS(POINT('ICRS', ra, dec), POLYGON('ICRS', 1, 2, 3, 4, 5, 6)) = 1 AND id IN (1, 2, 3) GROUP BY mag;");
+			String expected = "SELECT -mag*2 AS \"*\" , COUNT(*) AS \"COUNT_ALL\"\nFROM foo\nWHERE (spoint(radians(ra),radians(dec)) @ spoly '{(1d,2d),(3d,4d),(5d,6d)}') AND id IN (1 , 2 , 3)\nGROUP BY mag\nLimit 5";
+
+			// Translation into a new string:
+			assertEquals(expected, translator.translate(query));
+
+			// Translation appended at the end of an existing buffer:
+			StringBuilder sql = new StringBuilder("EXPLAIN ");
+			translator.translate(query, sql);
+			assertEquals("EXPLAIN " + expected, sql.toString());
+
+			// Translation of a single node:
+			assertEquals("spoint(radians(ra),radians(dec))", translator.translate(query.getWhere().get(0)).substring(1, 33));
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while translating an ADQL query.");
+		}
+	}
+
+	@Test
+	public void testIndexFriendlyPredicates(){
+		PgSphereTranslator translator = new PgSphereTranslator(false);
+		ADQLParser parser = new ADQLParser();
+		try{
+			// CONTAINS/INTERSECTS compared to 1 or 0:
+			assertEquals("(spoint(radians(ra),radians(dec)) @ scircle(spoint(radians(10),radians(20)),radians(1)))", translator.translate(parser.parseQuery("SELECT * FROM foo WHERE CONTAINS(POINT('', ra, dec), CIRCLE('', 10, 20, 1)) = 1").getWhere()).substring(6));
+			assertEquals("NOT (pos && sbox '((11d,22d),(9d,18d))')", translator.translate(parser.parseQuery("SELECT * FROM foo WHERE INTERSECTS(pos, BOX('', 10, 20, 2, 4)) = 0").getWhere()).substring(6));
+			assertEquals("NOT (pos @ scircle(spoint(radians(1),radians(2)),radians(3)))", translator.translate(parser.parseQuery("SELECT * FROM foo WHERE CONTAINS(pos, CIRCLE('', 1, 2, 3)) != 1").getWhere()).substring(6));
+			assertEquals("(pos @ scircle(spoint(radians(1),radians(2)),radians(3))) = '2'", translator.translate(parser.parseQuery("SELECT * FROM foo WHERE CONTAINS(pos, CIRCLE('', 1, 2, 3)) = 2").getWhere()).substring(6));
+
+			// Distance threshold, centered on the constant point:
+			assertEquals("(pos @ scircle(spoint(radians(10),radians(-20)),radians(0.5)) AND degrees(spoint(radians(10),radians(-20)) <-> pos) < 0.5)", translator.translate(parser.parseQuery("SELECT * FROM foo WHERE DISTANCE(POINT('', 10, -20), pos) < 0.5").getWhere()).substring(6));
+			assertEquals("(a.pos @ scircle(b.pos,radians(1)) AND degrees(a.pos <-> b.pos) <= 1)", translator.translate(parser.parseQuery("SELECT * FROM foo AS a, bar AS b WHERE 1 >= DISTANCE(a.pos, b.pos)").getWhere()).substring(6));
+
+			// ...but not if the threshold is not a constant radius of a scircle:
+			assertEquals("degrees(a.pos <-> b.pos) < 91", translator.translate(parser.parseQuery("SELECT * FROM foo AS a, bar AS b WHERE DISTANCE(a.pos, b.pos) < 91").getWhere()).substring(6));
+			assertEquals("degrees(a.pos <-> b.pos) < a.r", translator.translate(parser.parseQuery("SELECT * FROM foo AS a, bar AS b WHERE DISTANCE(a.pos, b.pos) < a.r").getWhere()).substring(6));
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while translating geometrical predicates.");
+		}
+	}
+
+}
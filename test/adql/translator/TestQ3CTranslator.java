@@ -0,0 +1,70 @@
+package adql.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.DefaultDBColumn;
+import adql.db.DefaultDBTable;
+import adql.parser.ADQLParser;
+
+public class TestQ3CTranslator {
+
+	private static ArrayList<DBTable> tables;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception{
+		// A big catalog indexed with Q3C:
+		DefaultDBTable big = new DefaultDBTable("big");
+		DefaultDBColumn col = new DefaultDBColumn("ra", big);
+		col.setIndexed(true);
+		big.addColumn(col);
+		col = new DefaultDBColumn("dec", big);
+		col.setIndexed(true);
+		big.addColumn(col);
+
+		// A small list of positions, not indexed:
+		DefaultDBTable small = new DefaultDBTable("small");
+		small.addColumn(new DefaultDBColumn("ra", small));
+		small.addColumn(new DefaultDBColumn("dec", small));
+
+		tables = new ArrayList<DBTable>(2);
+		tables.add(big);
+		tables.add(small);
+	}
+
+	private static String translateWhere(final String adql) throws Exception{
+		return (new Q3CTranslator(false)).translate((new ADQLParser(new DBChecker(tables))).parseQuery(adql).getWhere()).substring(6);
+	}
+
+	@Test
+	public void testTranslate(){
+		try{
+			// Cone search:
+			assertEquals("q3c_radial_query(big.ra, big.dec, 10, -20, 0.5)", translateWhere("SELECT * FROM big WHERE CONTAINS(POINT('', ra, dec), CIRCLE('', 10, -20, 0.5)) = 1"));
+			assertEquals("NOT q3c_radial_query(big.ra, big.dec, 10, -20, 0.5)", translateWhere("SELECT * FROM big WHERE INTERSECTS(CIRCLE('', 10, -20, 0.5), POINT('', ra, dec)) = 0"));
+			assertEquals("q3c_radial_query(big.ra, big.dec, 10, -20, 0.5)", translateWhere("SELECT * FROM big WHERE DISTANCE(POINT('', 10, -20), POINT('', ra, dec)) < 0.5"));
+
+			// Polygon:
+			assertEquals("q3c_poly_query(big.ra, big.dec, ARRAY[1, 2, 3, 4, 5, 6]::double precision[])", translateWhere("SELECT * FROM big WHERE CONTAINS(POINT('', ra, dec), POLYGON('', 1, 2, 3, 4, 5, 6)) = 1"));
+
+			// Cross-match: the indexed table is always the scanned side:
+			assertEquals("q3c_join(s.ra, s.dec, b.ra, b.dec, 0.001)", translateWhere("SELECT * FROM big AS b, small AS s WHERE DISTANCE(POINT('', b.ra, b.dec), POINT('', s.ra, s.dec)) <= 0.001"));
+			assertEquals("q3c_join(s.ra, s.dec, b.ra, b.dec, 0.001)", translateWhere("SELECT * FROM big AS b, small AS s WHERE 0.001 > DISTANCE(POINT('', s.ra, s.dec), POINT('', b.ra, b.dec))"));
+			assertEquals("q3c_join(s.ra, s.dec, b.ra, b.dec, 0.001)", translateWhere("SELECT * FROM big AS b, small AS s WHERE CONTAINS(POINT('', s.ra, s.dec), CIRCLE('', b.ra, b.dec, 0.001)) = 1"));
+
+			// Distance:
+			assertEquals("q3c_dist(b.ra, b.dec, s.ra, s.dec) > 1", translateWhere("SELECT * FROM big AS b, small AS s WHERE DISTANCE(POINT('', b.ra, b.dec), POINT('', s.ra, s.dec)) > 1"));
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error while translating positional predicates with Q3C.");
+		}
+	}
+
+}
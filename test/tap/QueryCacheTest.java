@@ -0,0 +1,60 @@
+package tap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import adql.query.ADQLQuery;
+
+public class QueryCacheTest {
+
+	@Test
+	public void testNormalize(){
+		// Whitespaces, comments and the case of reserved words do not matter:
+		String expected = "SELECT TOP 10 ra , dec FROM \"Cat\" WHERE mag < 2 ORDER BY ra";
+		assertEquals(expected, QueryCache.normalize("SELECT TOP 10 ra, dec FROM \"Cat\" WHERE mag < 2 ORDER BY ra"));
+		assertEquals(expected, QueryCache.normalize("select  top 10 ra,dec\n\tfrom \"Cat\" -- a comment\nwhere mag<2 order by ra;"));
+
+		// ...but the case of identifiers and strings does:
+		assertEquals("SELECT RA FROM cat WHERE name = 'Vega'", QueryCache.normalize("select RA from cat where name = 'Vega'"));
+
+		// A lexical error can not be normalized:
+		assertNull(QueryCache.normalize("SELECT \"ra FROM cat"));
+		assertNull(QueryCache.normalize(null));
+	}
+
+	@Test
+	public void testLRU(){
+		QueryCache cache = new QueryCache(2);
+		ADQLQuery q1 = new ADQLQuery(), q2 = new ADQLQuery(), q3 = new ADQLQuery();
+		String k1 = cache.getKey("SELECT * FROM t1", null, null), k2 = cache.getKey("SELECT * FROM t2", null, null), k3 = cache.getKey("SELECT * FROM t3", null, 100);
+		assertNotNull(k1);
+
+		cache.put(k1, q1);
+		cache.put(k2, q2);
+		cache.putSQL(q1, "SELECT * FROM t1");
+		assertSame(q1, cache.get(cache.getKey("select *\nfrom t1;", null, null)));
+
+		// MAXREC is part of the key:
+		assertNull(cache.get(cache.getKey("SELECT * FROM t1", null, 100)));
+
+		// q2 is the least recently used query:
+		cache.put(k3, q3);
+		assertEquals(2, cache.getSize());
+		assertNull(cache.get(k2));
+		assertSame(q3, cache.get(k3));
+		assertEquals("SELECT * FROM t1", cache.getSQL(q1));
+		assertNull(cache.getSQL(q2));
+
+		assertEquals(2, cache.getNbHits());
+		assertEquals(2, cache.getNbMisses());
+
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertNull(cache.getSQL(q1));
+	}
+
+}
@@ -0,0 +1,84 @@
+package tap.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import tap.data.ColumnBatch.VectorType;
+
+public class BatchTableIteratorTest {
+
+	@Test
+	public void testAdapters(){
+		InputStream input = null, input2 = null;
+		BatchTableIterator batchIt = null;
+		TableIterator rowIt = null, expectedIt = null;
+		try{
+			// Read a VOTable by batches:
+			input = new BufferedInputStream(new FileInputStream(VOTableIteratorTest.dataVOTable));
+			batchIt = new TableIteratorBatchAdapter(new VOTableIterator(input));
+			ColumnBatch batch = new ColumnBatch(batchIt.getMetadata(), 32);
+			assertEquals(VectorType.LONG, batch.getType(0));
+			assertEquals(VectorType.DOUBLE, batch.getType(1));
+
+			// TEST the batches are entirely filled, except the last one:
+			assertEquals(32, batchIt.nextBatch(batch));
+			assertEquals(5227706337957249025L, batch.getLongs(0)[0]);
+			assertEquals(315.196288862219, batch.getDoubles(1)[0], 0);
+			assertFalse(batch.isNull(1, 0));
+			assertEquals(32, batchIt.nextBatch(batch));
+			assertEquals(32, batchIt.nextBatch(batch));
+			assertEquals(4, batchIt.nextBatch(batch));
+			assertEquals(0, batchIt.nextBatch(batch));
+			assertEquals(0, batch.getSize());
+			batchIt.close();
+
+			// Read the batches row by row, and compare with a direct reading:
+			input.close();
+			input = new BufferedInputStream(new FileInputStream(VOTableIteratorTest.dataVOTable));
+			input2 = new BufferedInputStream(new FileInputStream(VOTableIteratorTest.dataVOTable));
+			rowIt = new BatchTableIteratorAdapter(new TableIteratorBatchAdapter(new VOTableIterator(input)), 7);
+			expectedIt = new VOTableIterator(input2);
+			int countLines = 0;
+			while(expectedIt.nextRow()){
+				assertTrue(rowIt.nextRow());
+				countLines++;
+				while(expectedIt.hasNextCol()){
+					assertTrue(rowIt.hasNextCol());
+					assertEquals(expectedIt.nextCol(), rowIt.nextCol());
+					assertEquals(expectedIt.getColType().toString(), rowIt.getColType().toString());
+				}
+				assertFalse(rowIt.hasNextCol());
+			}
+			assertFalse(rowIt.nextRow());
+			assertEquals(100, countLines);
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("An exception occurs while reading a correct VOTable by batches.");
+		}finally{
+			try{
+				if (input != null)
+					input.close();
+				if (input2 != null)
+					input2.close();
+			}catch(IOException e){
+				e.printStackTrace();
+			}
+			try{
+				if (rowIt != null)
+					rowIt.close();
+				if (expectedIt != null)
+					expectedIt.close();
+			}catch(DataReadException dre){}
+		}
+	}
+
+}
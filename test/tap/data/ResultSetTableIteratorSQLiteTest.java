@@ -0,0 +1,78 @@
+package tap.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import testtools.DBTools;
+
+/**
+ * <p>Test the typed accessors of {@link ResultSetTableIterator} with an in-memory SQLite database.</p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ */
+public class ResultSetTableIteratorSQLiteTest {
+
+	private Connection sqlite;
+
+	@Before
+	public void setUp() throws Exception{
+		sqlite = DBTools.createConnection("sqlite", null, null, ":memory:", null, null);
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		DBTools.closeConnection(sqlite);
+	}
+
+	@Test
+	public void testPrimitiveAccessors(){
+		TableIterator it = null;
+		try{
+			Statement stmt = sqlite.createStatement();
+			stmt.executeUpdate("CREATE TABLE nums (i INTEGER, r REAL);");
+			stmt.executeUpdate("INSERT INTO nums VALUES (3, 2.0);");
+			stmt.executeUpdate("INSERT INTO nums VALUES (NULL, 1.5);");
+
+			it = new ResultSetTableIterator(stmt.executeQuery("SELECT i, r FROM nums;"), "sqlite");
+
+			// TEST an integral value is read whatever is the column type:
+			assertTrue(it.nextRow());
+			assertEquals(3, it.nextInt());
+			assertFalse(it.wasNull());
+			assertEquals(2, it.nextLong());
+			assertFalse(it.wasNull());
+
+			// TEST a floating value with a decimal part is not truncated:
+			assertTrue(it.nextRow());
+			assertEquals(0, it.nextLong());
+			assertTrue(it.wasNull());
+			try{
+				it.nextLong();
+				fail("1.5 should not be readable as an integer!");
+			}catch(DataReadException dre){
+				assertEquals("Incorrect integer value: 1.5! (column \"r\")", dre.getMessage());
+			}
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("An exception occurs while reading numeric values.");
+		}finally{
+			if (it != null){
+				try{
+					it.close();
+				}catch(DataReadException dre){}
+			}
+		}
+	}
+
+}
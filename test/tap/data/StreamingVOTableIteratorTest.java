@@ -0,0 +1,222 @@
+package tap.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import tap.ServiceConnection.LimitUnit;
+import tap.data.StreamingVOTableIterator.UnsupportedFeatureException;
+import tap.metadata.TAPColumn;
+
+public class StreamingVOTableIteratorTest {
+
+	public final static String directory = (new File("")).getAbsolutePath() + "/test/tap/data/";
+
+	public final static File dataVOTable = new File(directory + "testdata.vot");
+	public final static File binaryVOTable = new File(directory + "testdata_binary.vot");
+
+	public final static File emptyVOTable = new File(directory + "emptyset.vot");
+	public final static File emptyBinaryVOTable = new File(directory + "emptyset_binary.vot");
+
+	@Test
+	public void testWithNULL(){
+		try{
+			new StreamingVOTableIterator(null);
+			fail("The constructor should have failed, because: the given VOTable is NULL.");
+		}catch(Exception ex){
+			assertEquals(ex.getClass().getName(), "java.lang.NullPointerException");
+		}
+	}
+
+	@Test
+	public void testSameAsSTIL(){
+		for(File file : new File[]{dataVOTable,binaryVOTable,emptyVOTable,emptyBinaryVOTable}){
+			InputStream input1 = null, input2 = null;
+			TableIterator it1 = null, it2 = null;
+			try{
+				input1 = new BufferedInputStream(new FileInputStream(file));
+				input2 = new BufferedInputStream(new FileInputStream(file));
+				it1 = new VOTableIterator(input1);
+				it2 = new StreamingVOTableIterator(input2);
+
+				// TEST the column metadata are the same:
+				TAPColumn[] meta1 = it1.getMetadata(), meta2 = it2.getMetadata();
+				assertEquals(meta1.length, meta2.length);
+				for(int i = 0; i < meta1.length; i++){
+					assertEquals(meta1[i].getADQLName(), meta2[i].getADQLName());
+					assertEquals(meta1[i].getDatatype().toString(), meta2[i].getDatatype().toString());
+				}
+
+				// TEST all rows and values are the same:
+				while(it1.nextRow()){
+					assertTrue(it2.nextRow());
+					while(it1.hasNextCol()){
+						assertTrue(it2.hasNextCol());
+						assertEquals(it1.nextCol(), it2.nextCol());
+						assertEquals(it1.getColType().toString(), it2.getColType().toString());
+					}
+					assertFalse(it2.hasNextCol());
+				}
+				assertFalse(it2.nextRow());
+
+			}catch(Exception ex){
+				ex.printStackTrace(System.err);
+				fail("An exception occurs while reading a correct VOTable (" + file.getName() + ").");
+			}finally{
+				try{
+					if (input1 != null)
+						input1.close();
+					if (input2 != null)
+						input2.close();
+				}catch(IOException e){
+					e.printStackTrace();
+				}
+				try{
+					if (it1 != null)
+						it1.close();
+					if (it2 != null)
+						it2.close();
+				}catch(DataReadException dre){}
+			}
+		}
+	}
+
+	@Test
+	public void testWithBinary2(){
+		/* 2 rows of (short, char(*), double[2]) ; the second row has a NULL string and a NULL short:
+		 *  - row 1: flags=0x00 | short=1 | char(*)=3,'abc' | double[2]=0.5,-1
+		 *  - row 2: flags=0xC0 | short=0 | char(*)=0       | double[2]=2,3 */
+		final String votable = "<?xml version='1.0'?><VOTABLE version=\"1.3\" xmlns=\"http://www.ivoa.net/xml/VOTable/v1.3\"><RESOURCE><TABLE>" + "<FIELD name=\"s\" datatype=\"short\"/><FIELD name=\"str\" datatype=\"char\" arraysize=\"*\"/><FIELD name=\"d\" datatype=\"double\" arraysize=\"2\"/>" + "<DATA><BINARY2><STREAM encoding='base64'>AAABAAAAA2FiYz/gAAAAAAAAv/AAAAAAAADAAAAAAAAAQAAAAAAAAABACAAAAAAAAA==</STREAM></BINARY2></DATA></TABLE></RESOURCE></VOTABLE>";
+		TableIterator it = null;
+		try{
+			it = new StreamingVOTableIterator(new ByteArrayInputStream(votable.getBytes("UTF-8")));
+			assertEquals(3, it.getMetadata().length);
+
+			assertTrue(it.nextRow());
+			assertEquals((short)1, it.nextCol());
+			assertEquals("abc", it.nextCol());
+			assertArrayEquals(new double[]{0.5,-1}, (double[])it.nextCol(), 0);
+
+			assertTrue(it.nextRow());
+			assertNull(it.nextCol());
+			assertNull(it.nextCol());
+			assertArrayEquals(new double[]{2,3}, (double[])it.nextCol(), 0);
+
+			assertFalse(it.nextRow());
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("An exception occurs while reading a correct BINARY2 VOTable.");
+		}finally{
+			if (it != null){
+				try{
+					it.close();
+				}catch(DataReadException dre){}
+			}
+		}
+	}
+
+	@Test
+	public void testIntegerRange(){
+		final String header = "<?xml version='1.0'?><VOTABLE version=\"1.3\" xmlns=\"http://www.ivoa.net/xml/VOTable/v1.3\"><RESOURCE><TABLE>";
+		final String footer = "</TR></TABLEDATA></DATA></TABLE></RESOURCE></VOTABLE>";
+		final String[][] fields = new String[][]{{"unsignedByte","255","256"},{"short","-32768","32768"},{"int","0x7fffffff","2147483648"}};
+		for(String[] field : fields){
+			// The extreme value of the type is accepted:
+			String votable = header + "<FIELD name=\"v\" datatype=\"" + field[0] + "\"/><DATA><TABLEDATA><TR><TD>" + field[1] + "</TD>" + footer;
+			TableIterator it = null;
+			try{
+				it = new StreamingVOTableIterator(new ByteArrayInputStream(votable.getBytes("UTF-8")));
+				assertTrue(it.nextRow());
+				it.nextCol();
+			}catch(Exception ex){
+				ex.printStackTrace(System.err);
+				fail("The value " + field[1] + " should be accepted for the type " + field[0] + ".");
+			}
+
+			// ...but not a value out of its range:
+			votable = header + "<FIELD name=\"v\" datatype=\"" + field[0] + "\"/><DATA><TABLEDATA><TR><TD>" + field[2] + "</TD>" + footer;
+			try{
+				it = new StreamingVOTableIterator(new ByteArrayInputStream(votable.getBytes("UTF-8")));
+				assertTrue(it.nextRow());
+				it.nextCol();
+				fail("The value " + field[2] + " should be rejected for the type " + field[0] + ".");
+			}catch(DataReadException dre){
+				assertTrue(dre.getMessage().startsWith("Incorrect value for the 1-th field"));
+			}catch(Exception ex){
+				ex.printStackTrace(System.err);
+				fail("Unexpected exception while reading an out of range value.");
+			}
+		}
+	}
+
+	@Test
+	public void testUnsupportedFeatures(){
+		final String header = "<?xml version='1.0'?><VOTABLE version=\"1.3\" xmlns=\"http://www.ivoa.net/xml/VOTable/v1.3\"><RESOURCE><TABLE>";
+		final String[] votables = new String[]{header + "<FIELD name=\"v\" datatype=\"int\"/><DATA><FITS><STREAM href=\"http://example.org/table.fits\"/></FITS></DATA></TABLE></RESOURCE></VOTABLE>",header + "<FIELD name=\"v\" datatype=\"int\"/><DATA><BINARY><STREAM href=\"http://example.org/table.bin\"/></BINARY></DATA></TABLE></RESOURCE></VOTABLE>",header + "<FIELD name=\"v\" datatype=\"int\"/><DATA><BINARY><STREAM encoding=\"gzip\">AAAA</STREAM></BINARY></DATA></TABLE></RESOURCE></VOTABLE>",header + "<FIELD name=\"m\" datatype=\"int\" arraysize=\"2x3\"/><DATA><TABLEDATA><TR><TD>1 2 3 4 5 6</TD></TR></TABLEDATA></DATA></TABLE></RESOURCE></VOTABLE>"};
+		for(String votable : votables){
+			try{
+				new StreamingVOTableIterator(new ByteArrayInputStream(votable.getBytes("UTF-8")));
+				fail("This VOTable should not be supported: " + votable);
+			}catch(UnsupportedFeatureException ufe){
+				// Expected: the VOTable must be read with VOTableIterator.
+			}catch(Exception ex){
+				ex.printStackTrace(System.err);
+				fail("Unexpected exception while reading an unsupported VOTable.");
+			}
+		}
+
+		// The multi-dimensional array can be read by VOTableIterator instead:
+		TableIterator it = null;
+		try{
+			it = new VOTableIterator(new ByteArrayInputStream(votables[3].getBytes("UTF-8")));
+			assertTrue(it.nextRow());
+			assertArrayEquals(new int[]{1,2,3,4,5,6}, (int[])it.nextCol());
+			assertFalse(it.nextRow());
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected exception while reading a multi-dimensional array with VOTableIterator.");
+		}finally{
+			if (it != null){
+				try{
+					it.close();
+				}catch(DataReadException dre){}
+			}
+		}
+	}
+
+	@Test
+	public void testWithLimit(){
+		LimitedTableIterator it = null;
+		try{
+			it = new LimitedTableIterator(StreamingVOTableIterator.class, new BufferedInputStream(new FileInputStream(dataVOTable)), LimitUnit.bytes, 10000);
+			while(it.nextRow()){
+				while(it.hasNextCol())
+					it.nextCol();
+			}
+			fail("The bytes limit should have been reached.");
+		}catch(DataReadException dre){
+			assertTrue(it != null && it.isOverflow());
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected exception while reading a VOTable with a bytes limit.");
+		}finally{
+			if (it != null){
+				try{
+					it.close();
+				}catch(DataReadException dre){}
+			}
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package tap.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -79,6 +80,47 @@ public class VOTableIteratorTest {
 		}
 	}
 
+	@Test
+	public void testTypedAccessors(){
+		InputStream input = null;
+		TableIterator it = null;
+		try{
+			input = new BufferedInputStream(new FileInputStream(dataVOTable));
+			it = new VOTableIterator(input);
+			assertTrue(it.nextRow());
+			// TEST the values of the first row, read without nextCol():
+			assertEquals(5227706337957249025L, it.nextLong());
+			assertFalse(it.wasNull());
+			assertEquals(315.196288862219, it.nextDouble(), 0);
+			assertEquals(35.8348069501976, it.nextDouble(), 0);
+			assertEquals(0, it.nextInt());
+			assertFalse(it.wasNull());
+			assertFalse(it.hasNextCol());
+			// TEST a decimal value can not be read as an integer:
+			assertTrue(it.nextRow());
+			it.nextLong();
+			try{
+				it.nextLong();
+				fail("A decimal value should not be read as an integer.");
+			}catch(DataReadException dre){}
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("An exception occurs while reading a correct VOTable with the typed accessors.");
+		}finally{
+			try{
+				if (input != null)
+					input.close();
+			}catch(IOException e){
+				e.printStackTrace();
+			}
+			if (it != null){
+				try{
+					it.close();
+				}catch(DataReadException dre){}
+			}
+		}
+	}
+
 	@Test
 	public void testWithBinary(){
 		InputStream input = null;
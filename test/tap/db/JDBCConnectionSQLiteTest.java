@@ -0,0 +1,636 @@
+package tap.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tap.data.AbstractTableIterator;
+import tap.data.DataReadException;
+import tap.data.TableIterator;
+import tap.db.JDBCConnection.CopyInputStream;
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPMetadata.STDSchema;
+import tap.metadata.TAPSchema;
+import tap.metadata.TAPTable;
+import testtools.DBTools;
+import uws.ISO8601Format;
+import adql.db.DBChecker;
+import adql.db.DBTable;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import adql.parser.ADQLParser;
+import adql.translator.PostgreSQLTranslator;
+
+/**
+ * <p>Test the upload and the query execution of {@link JDBCConnection} with an in-memory SQLite database.</p>
+ *
+ * <p>
+ * 	The COPY protocol of PostgreSQL is tested without any PostgreSQL server: the CSV encoding is tested on
+ * 	{@link CopyInputStream} and {@link JDBCConnection#copyUploadedTable(Object, TAPTable, TableIterator)} is given
+ * 	a fake CopyManager.
+ * </p>
+ *
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ */
+public class JDBCConnectionSQLiteTest {
+
+	private final static TAPColumn[] COLUMNS = new TAPColumn[]{new TAPColumn("s", new DBType(DBDatatype.VARCHAR)),new TAPColumn("i", new DBType(DBDatatype.INTEGER))};
+
+	private final static String SPECIAL_STRING = "a \"quoted\" back\\slash,\ttab\nand new line";
+
+	private Connection sqlite;
+	private JDBCConnection conn;
+
+	@Before
+	public void setUp() throws Exception{
+		sqlite = DBTools.createConnection("sqlite", null, null, ":memory:", null, null);
+		conn = new JDBCConnection(sqlite, new PostgreSQLTranslator(false), "SQLITE", null);
+	}
+
+	@After
+	public void tearDown() throws Exception{
+		DBTools.closeConnection(sqlite);
+	}
+
+	@Test
+	public void testCopyInputStream(){
+		try{
+			TAPColumn[] cols = new TAPColumn[]{new TAPColumn("s", new DBType(DBDatatype.VARCHAR)),new TAPColumn("i", new DBType(DBDatatype.INTEGER)),new TAPColumn("t", new DBType(DBDatatype.TIMESTAMP)),new TAPColumn("b", new DBType(DBDatatype.VARBINARY)),new TAPColumn("a", new DBType(DBDatatype.VARCHAR))};
+			Object[][] rows = new Object[][]{{SPECIAL_STRING,1,"2014-10-01T12:00:00Z",new byte[]{0x0a,(byte)0xff},new int[]{1,2,3}},{null,null,null,null,null},{"",true,null,new byte[0],new double[0]}};
+
+			// TEST the CSV encoding (strings always quoted, NULL as an empty unquoted field):
+			String timestamp = new Timestamp(ISO8601Format.parse("2014-10-01T12:00:00Z")).toString();
+			CopyInputStream input = new CopyInputStream(new RowsIterator(cols, rows, -1), cols);
+			assertEquals("\"a \"\"quoted\"\" back\\slash,\ttab\nand new line\",1,\"" + timestamp + "\",\\x0aff,\"1 2 3\"\n" + ",,,,\n" + "\"\",true,,\\x,\"\"\n", read(input, 1000));
+			assertEquals(3, input.getNbRows());
+			assertNull(input.getError());
+			assertEquals(-1, input.read());
+
+			// TEST the rows are encoded by blocks and all notified:
+			rows = new Object[10000][];
+			for(int r = 0; r < rows.length; r++)
+				rows[r] = new Object[]{"row number " + r,r};
+			final int[] nbNotified = new int[2];
+			input = new CopyInputStream(new RowsIterator(COLUMNS, rows, -1), COLUMNS){
+				@Override
+				protected void rowsEncoded(int nbRows){
+					nbNotified[0] += nbRows;
+					nbNotified[1]++;
+				}
+			};
+			String csv = read(input, 100);
+			assertEquals(rows.length, csv.split("\n").length);
+			assertTrue(csv.endsWith("\"row number 9999\",9999\n"));
+			assertEquals(rows.length, input.getNbRows());
+			assertEquals(rows.length, nbNotified[0]);
+			assertTrue(nbNotified[1] > 1);
+
+			// TEST an incorrect timestamp stops the encoding:
+			input = new CopyInputStream(new RowsIterator(cols, new Object[][]{{"a",1,"not a date",null,null}}, -1), cols);
+			try{
+				read(input, 100);
+				fail("The timestamp \"not a date\" should not be accepted!");
+			}catch(IOException ioe){
+				assertTrue(input.getError() instanceof DBException);
+				assertEquals("Unexpected date format for the 3-th column (not a date)! A date formatted in ISO8601 was expected.", input.getError().getMessage());
+			}
+
+			// TEST a reading error stops the encoding:
+			input = new CopyInputStream(new RowsIterator(COLUMNS, new Object[][]{{"a",1},{"b",2}}, 1), COLUMNS);
+			try{
+				read(input, 100);
+				fail("The reading error should stop the encoding!");
+			}catch(IOException ioe){
+				assertTrue(input.getError() instanceof DataReadException);
+			}
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error: " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testCopyUploadedTable(){
+		TAPTable tableDef = createUploadedTable("copy_test");
+		Object[][] rows = new Object[][]{{SPECIAL_STRING,1},{null,null},{"c",3}};
+		try{
+			// TEST the COPY query and the copied rows:
+			FakeCopyManager copyManager = new FakeCopyManager(-1);
+			assertEquals(3, conn.copyUploadedTable(copyManager, tableDef, new RowsIterator(COLUMNS, rows, -1)));
+			assertEquals("COPY " + conn.translator.getQualifiedTableName(tableDef) + " (s, i) FROM STDIN WITH CSV", copyManager.sql);
+			assertEquals("\"a \"\"quoted\"\" back\\slash,\ttab\nand new line\",1\n,\n\"c\",3\n", copyManager.csv);
+
+			// TEST the number of copied rows is checked:
+			try{
+				conn.copyUploadedTable(new FakeCopyManager(2), tableDef, new RowsIterator(COLUMNS, rows, -1));
+				fail("The missing row should have been detected!");
+			}catch(DBException de){
+				assertEquals("ROWS not all copied (3 to copy ; 2 copied)!", de.getMessage());
+			}
+
+			// TEST a reading error is thrown as such:
+			try{
+				conn.copyUploadedTable(new FakeCopyManager(-1), tableDef, new RowsIterator(COLUMNS, rows, 2));
+				fail("The reading error should have been thrown!");
+			}catch(DataReadException dre){
+				assertEquals("Reading error at the row 3!", dre.getMessage());
+			}
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error: " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testFillUploadedTable(){
+		Object[][] rows = new Object[10][];
+		for(int r = 0; r < rows.length; r++)
+			rows[r] = new Object[]{"row " + r + " " + SPECIAL_STRING,r};
+		rows[5] = new Object[]{null,null};
+
+		try{
+			// TEST the rows are inserted by chunks of rows:
+			conn.setUploadBatchRows(3);
+			TAPTable tableDef = createUploadedTable("chunks_test");
+			List<Integer> notifications = upload(conn, tableDef, rows);
+			assertEquals(Arrays.asList(3, 3, 3, 1), notifications);
+			assertEquals(rows.length, tableDef.getNbRows());
+			assertRows(tableDef, rows);
+
+			// TEST the rows are inserted by chunks of bytes:
+			conn.setUploadBatchRows(100);
+			conn.setUploadBatchBytes(2 * (8 + ("row 0 " + SPECIAL_STRING).length()));
+			tableDef = createUploadedTable("bytes_test");
+			notifications = upload(conn, tableDef, rows);
+			assertEquals(Arrays.asList(2, 2, 3, 2, 1), notifications);
+			assertRows(tableDef, rows);
+
+			// TEST the values in excess are ignored:
+			conn.setUploadBatchBytes(0);
+			tableDef = createUploadedTable("excess_test");
+			upload(conn, tableDef, new Object[][]{{"a",1,"excess"},{"b",2}});
+			assertRows(tableDef, new Object[][]{{"a",1},{"b",2}});
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error: " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testFillUploadedTableFallbacks(){
+		Object[][] rows = new Object[7][];
+		for(int r = 0; r < rows.length; r++)
+			rows[r] = new Object[]{"row " + r,r};
+
+		try{
+			// TEST a failed batch is inserted again row by row:
+			JDBCConnection failingConn = new JDBCConnection(failingConnection(sqlite, "executeBatch", null, true), new PostgreSQLTranslator(false), "FAILING_BATCH", null);
+			failingConn.setUploadBatchRows(3);
+			TAPTable tableDef = createUploadedTable("failed_batch_test");
+			assertEquals(Arrays.asList(3, 3, 1), upload(failingConn, tableDef, rows));
+			assertRows(tableDef, rows);
+
+			// TEST a failed batch can not be recovered without savepoint:
+			failingConn = new JDBCConnection(failingConnection(sqlite, "executeBatch", null, false), new PostgreSQLTranslator(false), "NO_SAVEPOINT", null);
+			failingConn.setUploadBatchRows(3);
+			tableDef = createUploadedTable("no_savepoint_test");
+			try{
+				upload(failingConn, tableDef, rows);
+				fail("The failed batch should not have been recovered!");
+			}catch(DBException de){
+				assertEquals("BATCH execution impossible!", de.getMessage());
+			}
+			assertFalse(isTableExisting(tableDef));
+
+			// TEST batches are given up if not supported by the driver:
+			failingConn = new JDBCConnection(failingConnection(sqlite, "addBatch", null, false), new PostgreSQLTranslator(false), "NO_BATCH", null);
+			failingConn.setUploadBatchRows(3);
+			tableDef = createUploadedTable("no_batch_test");
+			assertEquals(Arrays.asList(1, 3, 3), upload(failingConn, tableDef, rows));
+			assertRows(tableDef, rows);
+
+			// TEST the number of inserted rows is checked:
+			failingConn = new JDBCConnection(failingConnection(sqlite, "executeBatch", new int[]{1,0,1}, false), new PostgreSQLTranslator(false), "MISSING_ROW", null);
+			failingConn.setUploadBatchRows(3);
+			tableDef = createUploadedTable("missing_row_test");
+			try{
+				upload(failingConn, tableDef, rows);
+				fail("The missing row should have been detected!");
+			}catch(DBException de){
+				assertEquals("ROWS not all updated (3 to update ; 2 updated)!", de.getMessage());
+			}
+			assertFalse(isTableExisting(tableDef));
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error: " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testIndexUploadedTable(){
+		Object[][] rows = new Object[5][];
+		for(int r = 0; r < rows.length; r++)
+			rows[r] = new Object[]{"row " + r,r};
+
+		TAPTable tableDef = createUploadedTable("index_test");
+		try{
+			upload(conn, tableDef, rows);
+
+			// TEST the number of rows is counted if unknown:
+			JDBCConnection otherConn = new JDBCConnection(sqlite, new PostgreSQLTranslator(false), "OTHER", null);
+			otherConn.setUploadIndexThreshold(6);
+			TAPTable otherDef = createUploadedTable("index_test");
+			otherDef.setDBName(tableDef.getDBName());
+			otherDef.getSchema().setDBName(null);
+			assertFalse(otherConn.indexUploadedTable(otherDef, new TAPColumn[]{otherDef.getColumn("i")}, null));
+			assertEquals(rows.length, otherDef.getNbRows());
+
+			// TEST indexing can be disabled:
+			conn.setUploadIndexThreshold(-1);
+			assertFalse(conn.indexUploadedTable(tableDef, new TAPColumn[]{tableDef.getColumn("i")}, null));
+
+			// TEST small tables are not indexed:
+			conn.setUploadIndexThreshold(6);
+			assertFalse(conn.indexUploadedTable(tableDef, new TAPColumn[]{tableDef.getColumn("i")}, null));
+			assertEquals(0, countIndexes(tableDef));
+
+			// TEST tables big enough are indexed:
+			conn.setUploadIndexThreshold(5);
+			assertTrue(conn.indexUploadedTable(tableDef, new TAPColumn[]{tableDef.getColumn("i")}, null));
+			assertEquals(1, countIndexes(tableDef));
+
+			// TEST an index is created only once:
+			assertFalse(conn.indexUploadedTable(tableDef, new TAPColumn[]{tableDef.getColumn("i")}, null));
+			assertEquals(1, countIndexes(tableDef));
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error: " + ex.getMessage());
+		}finally{
+			try{
+				conn.dropUploadedTable(tableDef);
+			}catch(DBException de){}
+		}
+	}
+
+	@Test
+	public void testExecuteQuery(){
+		try{
+			ADQLParser parser = createDataTable(5);
+			TableIterator result = null;
+
+			// TEST the result is streamed inside a transaction ended at the closing:
+			conn.setFetchSize(2);
+			try{
+				result = conn.executeQuery(parser.parseQuery("SELECT i FROM data ORDER BY i"));
+				assertFalse(sqlite.getAutoCommit());
+				int nbRows = 0;
+				while(result.nextRow())
+					assertEquals(nbRows++, result.nextInt());
+				assertEquals(5, nbRows);
+			}finally{
+				if (result != null)
+					result.close();
+			}
+			assertTrue(sqlite.getAutoCommit());
+
+			// TEST the result is not streamed if there is no fetch size:
+			conn.setFetchSize(0);
+			try{
+				result = conn.executeQuery(parser.parseQuery("SELECT COUNT(*) FROM data"));
+				assertTrue(sqlite.getAutoCommit());
+				assertTrue(result.nextRow());
+				assertEquals(5, result.nextInt());
+			}finally{
+				result.close();
+			}
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error: " + ex.getMessage());
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testCancel(){
+		try{
+			ADQLParser parser = createDataTable(1000);
+
+			// TEST nothing happens if no query is running:
+			conn.cancel();
+
+			// TEST a running query can be canceled from another thread:
+			conn.setQueryTimeout(60);
+			Thread canceler = new Thread(){
+				@Override
+				public void run(){
+					try{
+						Thread.sleep(500);
+					}catch(InterruptedException ie){}
+					conn.cancel();
+				}
+			};
+			canceler.start();
+			final long start = System.currentTimeMillis();
+			try{
+				conn.executeQuery(parser.parseQuery("SELECT COUNT(*) FROM data AS a, data AS b, data AS c")).close();
+				fail("The query should have been canceled!");
+			}catch(DBException de){
+				assertTrue(de.getMessage().startsWith("Unexpected error while executing a SQL query: "));
+				assertTrue(System.currentTimeMillis() - start < 30000);
+			}
+			canceler.join();
+
+			// TEST the connection can still be used:
+			TableIterator result = conn.executeQuery(parser.parseQuery("SELECT COUNT(*) FROM data"));
+			try{
+				assertTrue(result.nextRow());
+				assertEquals(1000, result.nextInt());
+			}finally{
+				result.close();
+			}
+
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("Unexpected error: " + ex.getMessage());
+		}
+	}
+
+	/* ***************** */
+	/* UTILITY FUNCTIONS */
+	/* ***************** */
+
+	private static TAPTable createUploadedTable(final String name){
+		TAPSchema uploadSchema = new TAPSchema(STDSchema.UPLOADSCHEMA.label);
+		TAPTable tableDef = new TAPTable(name);
+		uploadSchema.addTable(tableDef);
+		for(TAPColumn col : COLUMNS)
+			tableDef.addColumn(new TAPColumn(col.getADQLName(), col.getDatatype()));
+		return tableDef;
+	}
+
+	private static List<Integer> upload(final JDBCConnection conn, final TAPTable tableDef, final Object[][] rows) throws DBException, DataReadException{
+		final List<Integer> notifications = new ArrayList<Integer>();
+		conn.setUploadProgressListener(new UploadProgressListener(){
+			@Override
+			public void rowsLoaded(TAPTable table, int nbRows){
+				notifications.add(nbRows);
+			}
+		});
+		assertTrue(conn.addUploadedTable(tableDef, new RowsIterator(COLUMNS, rows, -1)));
+		conn.setUploadProgressListener(null);
+		return notifications;
+	}
+
+	private void assertRows(final TAPTable tableDef, final Object[][] rows) throws SQLException{
+		Statement stmt = sqlite.createStatement();
+		try{
+			ResultSet rs = stmt.executeQuery("SELECT s, i FROM " + conn.translator.getQualifiedTableName(tableDef) + " ORDER BY rowid;");
+			int r = 0;
+			while(rs.next()){
+				assertEquals(rows[r][0], rs.getString(1));
+				assertEquals(rows[r][1], rs.getObject(2));
+				r++;
+			}
+			assertEquals(rows.length, r);
+			rs.close();
+		}finally{
+			stmt.close();
+		}
+	}
+
+	private boolean isTableExisting(final TAPTable tableDef) throws SQLException{
+		Statement stmt = sqlite.createStatement();
+		try{
+			ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_temp_master WHERE type = 'table' AND name = '" + tableDef.getDBName() + "';");
+			return rs.next() && rs.getInt(1) > 0;
+		}finally{
+			stmt.close();
+		}
+	}
+
+	private int countIndexes(final TAPTable tableDef) throws SQLException{
+		Statement stmt = sqlite.createStatement();
+		try{
+			ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_temp_master WHERE type = 'index' AND tbl_name = '" + tableDef.getDBName() + "';");
+			return rs.next() ? rs.getInt(1) : 0;
+		}finally{
+			stmt.close();
+		}
+	}
+
+	private ADQLParser createDataTable(final int nbRows) throws SQLException{
+		Statement stmt = sqlite.createStatement();
+		try{
+			stmt.executeUpdate("CREATE TABLE data (i INTEGER);");
+			sqlite.setAutoCommit(false);
+			for(int r = 0; r < nbRows; r++)
+				stmt.executeUpdate("INSERT INTO data VALUES (" + r + ");");
+			sqlite.commit();
+			sqlite.setAutoCommit(true);
+		}finally{
+			stmt.close();
+		}
+
+		TAPTable data = new TAPTable("data");
+		data.addColumn(new TAPColumn("i", new DBType(DBDatatype.INTEGER)));
+		ArrayList<DBTable> tables = new ArrayList<DBTable>(1);
+		tables.add(data);
+		ADQLParser parser = new ADQLParser(new DBChecker(tables));
+		parser.setDebug(false);
+		return parser;
+	}
+
+	private static String read(final InputStream input, final int blockSize) throws IOException{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[blockSize];
+		int n;
+		while((n = input.read(buffer, 0, blockSize)) >= 0)
+			output.write(buffer, 0, n);
+		return output.toString("UTF-8");
+	}
+
+	/**
+	 * <p>Wrap the given connection so that the given method of its prepared statements fails (or returns the given result) at its first call.</p>
+	 * 
+	 * <p><i>Note:
+	 * 	The SQLite JDBC driver does not support savepoints. If asked, they are emulated with the SQL statements of SQLite.
+	 * </i></p>
+	 */
+	private static Connection failingConnection(final Connection conn, final String method, final Object result, final boolean savepoints){
+		return (Connection)Proxy.newProxyInstance(JDBCConnectionSQLiteTest.class.getClassLoader(), new Class<?>[]{Connection.class}, new InvocationHandler(){
+			private boolean failed = false;
+
+			@Override
+			public Object invoke(Object proxy, Method m, Object[] args) throws Throwable{
+				if (savepoints && m.getName().equals("setSavepoint")){
+					executeUpdate(conn, "SAVEPOINT test_savepoint;");
+					return new Savepoint(){
+						@Override
+						public int getSavepointId() throws SQLException{
+							return 1;
+						}
+
+						@Override
+						public String getSavepointName() throws SQLException{
+							return "test_savepoint";
+						}
+					};
+				}else if (savepoints && m.getName().equals("rollback") && args != null){
+					executeUpdate(conn, "ROLLBACK TO test_savepoint;");
+					return null;
+				}else if (savepoints && m.getName().equals("releaseSavepoint")){
+					executeUpdate(conn, "RELEASE test_savepoint;");
+					return null;
+				}
+
+				final Object res = delegate(conn, m, args);
+				if (!m.getName().equals("prepareStatement"))
+					return res;
+				final String sql = (String)args[0];
+				final PreparedStatement[] stmt = new PreparedStatement[]{(PreparedStatement)res};
+				return Proxy.newProxyInstance(JDBCConnectionSQLiteTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, new InvocationHandler(){
+					@Override
+					public Object invoke(Object proxy, Method m, Object[] args) throws Throwable{
+						if (!failed && m.getName().equals(method)){
+							failed = true;
+							if (result == null){
+								// note: the batch of the SQLite driver can not be really cleared ; so another statement is used after the failure.
+								stmt[0].close();
+								stmt[0] = conn.prepareStatement(sql);
+								throw new SQLException("Test failure of " + method + "()!");
+							}
+							delegate(stmt[0], m, args);
+							return result;
+						}
+						return delegate(stmt[0], m, args);
+					}
+				});
+			}
+		});
+	}
+
+	private static void executeUpdate(final Connection conn, final String sql) throws SQLException{
+		Statement stmt = conn.createStatement();
+		try{
+			stmt.executeUpdate(sql);
+		}finally{
+			stmt.close();
+		}
+	}
+
+	private static Object delegate(final Object obj, final Method m, final Object[] args) throws Throwable{
+		try{
+			return m.invoke(obj, args);
+		}catch(InvocationTargetException ite){
+			throw ite.getCause();
+		}
+	}
+
+	/**
+	 * Fake CopyManager of the PostgreSQL JDBC driver: it just reads the CSV rows.
+	 */
+	public static class FakeCopyManager {
+		private final long nbCopied;
+		public String sql = null;
+		public String csv = null;
+
+		public FakeCopyManager(final long nbCopied){
+			this.nbCopied = nbCopied;
+		}
+
+		public long copyIn(final String sql, final InputStream input, final int bufferSize) throws SQLException, IOException{
+			this.sql = sql;
+			csv = read(input, bufferSize);
+			return (nbCopied < 0) ? ((CopyInputStream)input).getNbRows() : nbCopied;
+		}
+	}
+
+	/**
+	 * Iterator over rows kept in memory. A reading error can be thrown at a given row.
+	 */
+	private static class RowsIterator extends AbstractTableIterator {
+		private final TAPColumn[] cols;
+		private final Object[][] rows;
+		private final int errorRow;
+		private int indRow = -1;
+		private int indCol = 0;
+
+		public RowsIterator(final TAPColumn[] cols, final Object[][] rows, final int errorRow){
+			this.cols = cols;
+			this.rows = rows;
+			this.errorRow = errorRow;
+		}
+
+		@Override
+		public TAPColumn[] getMetadata(){
+			return cols;
+		}
+
+		@Override
+		public boolean nextRow() throws DataReadException{
+			if (indRow + 1 == errorRow)
+				throw new DataReadException("Reading error at the row " + (errorRow + 1) + "!");
+			indCol = 0;
+			return (++indRow < rows.length);
+		}
+
+		@Override
+		public boolean hasNextCol() throws IllegalStateException, DataReadException{
+			return indCol < rows[indRow].length;
+		}
+
+		@Override
+		public Object nextCol() throws NoSuchElementException, IllegalStateException, DataReadException{
+			if (!hasNextCol())
+				throw new NoSuchElementException();
+			Object val = rows[indRow][indCol++];
+			lastNull = (val == null);
+			return val;
+		}
+
+		@Override
+		public DBType getColType() throws IllegalStateException, DataReadException{
+			return (indCol <= cols.length) ? cols[indCol - 1].getDatatype() : null;
+		}
+
+		@Override
+		protected int getColIndex(){
+			return indCol;
+		}
+
+		@Override
+		public void close() throws DataReadException{}
+	}
+
+}
@@ -0,0 +1,111 @@
+package tap.formatter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import tap.data.TableIterator;
+import tap.data.VOTableIterator;
+import tap.data.VOTableIteratorTest;
+import uk.ac.starlink.fits.FitsTableBuilder;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.util.ByteArrayDataSource;
+import uk.ac.starlink.util.FileDataSource;
+
+public class FITSDataWriterTest {
+
+	@Test
+	public void testWriteTable(){
+		File fitsFile = null;
+		TableIterator input = null;
+		try{
+			fitsFile = File.createTempFile("FITSDataWriterTest", ".fits");
+
+			// TEST the writing in a file (header rewritten at the end):
+			input = new VOTableIterator(open());
+			FITSDataWriter writer = new FITSDataWriter(input.getMetadata());
+			FileOutputStream fileOutput = new FileOutputStream(fitsFile);
+			writer.writeTable(input, fileOutput, 30, Thread.currentThread());
+			fileOutput.close();
+			input.close();
+			assertEquals(30, writer.getNbReadRows());
+			assertTrue(writer.lastSequenceOverflowed());
+			assertEquals(0, fitsFile.length() % 2880);
+			check(new FitsTableBuilder().makeStarTable(new FileDataSource(fitsFile), true, StoragePolicy.PREFER_MEMORY), 30);
+
+			// TEST the writing in any other stream (spooled rows) => same bytes:
+			input = new VOTableIterator(open());
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			writer.writeTable(input, output, 30, Thread.currentThread());
+			input.close();
+			assertTrue(writer.lastSequenceOverflowed());
+			byte[] fileContent = new byte[(int)fitsFile.length()];
+			InputStream fileInput = new FileInputStream(fitsFile);
+			assertEquals(fileContent.length, fileInput.read(fileContent));
+			fileInput.close();
+			assertArrayEquals(fileContent, output.toByteArray());
+
+			// TEST without limit:
+			input = new VOTableIterator(open());
+			output = new ByteArrayOutputStream();
+			writer.writeTable(input, output, -1, Thread.currentThread());
+			assertEquals(100, writer.getNbReadRows());
+			assertFalse(writer.lastSequenceOverflowed());
+			check(new FitsTableBuilder().makeStarTable(new ByteArrayDataSource("test", output.toByteArray()), true, StoragePolicy.PREFER_MEMORY), 100);
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("An exception occurs while writing a FITS file!");
+		}finally{
+			try{
+				if (input != null)
+					input.close();
+			}catch(Exception e){
+				e.printStackTrace();
+			}
+			if (fitsFile != null)
+				fitsFile.delete();
+		}
+	}
+
+	/**
+	 * Compare the given FITS table with the test VOTable.
+	 */
+	private void check(final StarTable table, final int expectedNbRows) throws Exception{
+		TableIterator expected = new VOTableIterator(open());
+		try{
+			assertEquals(4, table.getColumnCount());
+			RowSequence rows = table.getRowSequence();
+			int nbRows = 0;
+			while(rows.next()){
+				assertTrue(expected.nextRow());
+				nbRows++;
+				Object[] row = rows.getRow();
+				for(int i = 0; i < row.length; i++)
+					assertEquals(expected.nextCol(), row[i]);
+				assertFalse(expected.hasNextCol());
+			}
+			rows.close();
+			assertEquals(expectedNbRows, nbRows);
+		}finally{
+			expected.close();
+		}
+	}
+
+	private static InputStream open() throws Exception{
+		return new BufferedInputStream(new FileInputStream(VOTableIteratorTest.dataVOTable));
+	}
+
+}
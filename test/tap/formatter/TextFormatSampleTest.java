@@ -0,0 +1,264 @@
+package tap.formatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import tap.ServiceConnection;
+import tap.TAPExecutionReport;
+import tap.TAPFactory;
+import tap.TAPJob;
+import tap.data.ResultSetTableIterator;
+import tap.data.TableIterator;
+import tap.file.TAPFileManager;
+import tap.log.TAPLog;
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPMetadata;
+import tap.parameters.TAPParameters;
+import testtools.DBTools;
+import uws.service.UserIdentifier;
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+import adql.db.FunctionDef;
+
+/**
+ * <p>Test the computation of the columns' width by {@link TextFormat} when the result is bigger than the sample
+ * (see {@link TextFormat#getSampleSize()}).</p>
+ * 
+ * <p>These tests use an in-memory SQLite database.</p>
+ * 
+ * @author Gr&eacute;gory Mantelet (ARI)
+ * @version 2.0 (10/2014)
+ */
+public class TextFormatSampleTest {
+
+	private static ServiceConnection serviceConn;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception{
+		serviceConn = new ServiceConnectionTest();
+	}
+
+	@Test
+	public void testWriteResultInSample(){
+		try{
+			// TEST the output is the same as the former AsciiTable output when the whole result holds in the sample:
+			String expected = "       name       |  n  \n" + "------------------|-----\n" + "a                 |1    \n" + "bb                |22   \n" + "ccc               |333  \n" + "a much longer name|4444 \n" + "e                 |55555\n";
+			assertEquals(expected, format(10, 100));
+			assertEquals(expected, format(5, 100));
+
+			// TEST a negative sample size reads all rows first:
+			assertEquals(expected, format(-1, 100));
+
+			// TEST the OVERFLOW in the sample:
+			assertEquals("name| n \n" + "----|---\n" + "a   |1  \n" + "bb  |22 \n" + "ccc |333\n" + "\nOVERFLOW (more rows were available but have been truncated by the TAP service)", format(10, 3));
+
+		}catch(Exception t){
+			t.printStackTrace();
+			fail("Unexpected exception!");
+		}
+	}
+
+	@Test
+	public void testWriteResultBeyondSample(){
+		try{
+			// TEST the integer column is enlarged to its largest value, and the wider value after the sample is written entirely:
+			assertEquals("name|     n     \n" + "----|-----------\n" + "a   |1          \n" + "bb  |22         \n" + "ccc |333        \n" + "a much longer name|4444       \n" + "e   |55555      \n", format(2, 100));
+
+			// TEST an empty sample (only the column names and types are used):
+			assertEquals("name|     n     \n" + "----|-----------\n" + "a   |1          \n" + "bb  |22         \n" + "ccc |333        \n" + "a much longer name|4444       \n" + "e   |55555      \n", format(0, 100));
+
+			// TEST the OVERFLOW after the sample:
+			assertEquals("name|     n     \n" + "----|-----------\n" + "a   |1          \n" + "bb  |22         \n" + "ccc |333        \n" + "a much longer name|4444       \n" + "\nOVERFLOW (more rows were available but have been truncated by the TAP service)", format(2, 4));
+
+		}catch(Exception t){
+			t.printStackTrace();
+			fail("Unexpected exception!");
+		}
+	}
+
+	@Test
+	public void testGetTypeWidth(){
+		TextFormat formatter = new TextFormat(serviceConn, false, 2);
+		assertEquals(6, formatter.getTypeWidth(new DBType(DBDatatype.SMALLINT)));
+		assertEquals(11, formatter.getTypeWidth(new DBType(DBDatatype.INTEGER)));
+		assertEquals(20, formatter.getTypeWidth(new DBType(DBDatatype.BIGINT)));
+		assertEquals(0, formatter.getTypeWidth(new DBType(DBDatatype.DOUBLE)));
+		assertEquals(0, formatter.getTypeWidth(new DBType(DBDatatype.VARCHAR)));
+		assertEquals(0, formatter.getTypeWidth(null));
+	}
+
+	/**
+	 * Format, with the given sample size and MAXREC, a small table of 5 rows whose 4th row has the widest values.
+	 * 
+	 * @param sampleSize	Number of rows to read before writing anything.
+	 * @param maxRec		Maximum number of rows to write.
+	 * 
+	 * @return	The formatted result.
+	 * 
+	 * @throws Exception	If any error occurs while creating the table or while formatting it.
+	 */
+	private static String format(final int sampleSize, final int maxRec) throws Exception{
+		Connection sqlite = null;
+		try{
+			sqlite = DBTools.createConnection("sqlite", null, null, ":memory:", null, null);
+			Statement stmt = sqlite.createStatement();
+			stmt.executeUpdate("CREATE TABLE data (name VARCHAR, n INTEGER);");
+			stmt.executeUpdate("INSERT INTO data VALUES ('a', 1);");
+			stmt.executeUpdate("INSERT INTO data VALUES ('bb', 22);");
+			stmt.executeUpdate("INSERT INTO data VALUES ('ccc', 333);");
+			stmt.executeUpdate("INSERT INTO data VALUES ('a much longer name', 4444);");
+			stmt.executeUpdate("INSERT INTO data VALUES ('e', 55555);");
+
+			HashMap<String,Object> tapParams = new HashMap<String,Object>(1);
+			tapParams.put(TAPJob.PARAM_MAX_REC, String.valueOf(maxRec));
+			TAPParameters params = new TAPParameters(serviceConn, tapParams);
+			TAPExecutionReport report = new TAPExecutionReport("123456A", true, params);
+			report.resultingColumns = new TAPColumn[]{new TAPColumn("name", new DBType(DBDatatype.VARCHAR)),new TAPColumn("n", new DBType(DBDatatype.INTEGER))};
+
+			TableIterator it = new ResultSetTableIterator(stmt.executeQuery("SELECT name, n FROM data;"), "sqlite");
+
+			TextFormat formatter = new TextFormat(serviceConn, false, sampleSize);
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			formatter.writeResult(it, output, report, Thread.currentThread());
+			it.close();
+
+			return output.toString();
+		}finally{
+			if (sqlite != null){
+				try{
+					DBTools.closeConnection(sqlite);
+				}catch(Exception ex){}
+			}
+		}
+	}
+
+	private static class ServiceConnectionTest implements ServiceConnection {
+
+		@Override
+		public int[] getOutputLimit(){
+			return new int[]{1000000,1000000};
+		}
+
+		@Override
+		public LimitUnit[] getOutputLimitType(){
+			return new LimitUnit[]{LimitUnit.bytes,LimitUnit.bytes};
+		}
+
+		@Override
+		public String getProviderName(){
+			return null;
+		}
+
+		@Override
+		public String getProviderDescription(){
+			return null;
+		}
+
+		@Override
+		public boolean isAvailable(){
+			return true;
+		}
+
+		@Override
+		public String getAvailability(){
+			return "AVAILABLE";
+		}
+
+		@Override
+		public int[] getRetentionPeriod(){
+			return null;
+		}
+
+		@Override
+		public int[] getExecutionDuration(){
+			return null;
+		}
+
+		@Override
+		public UserIdentifier getUserIdentifier(){
+			return null;
+		}
+
+		@Override
+		public boolean uploadEnabled(){
+			return false;
+		}
+
+		@Override
+		public int[] getUploadLimit(){
+			return null;
+		}
+
+		@Override
+		public LimitUnit[] getUploadLimitType(){
+			return null;
+		}
+
+		@Override
+		public int getMaxUploadSize(){
+			return 0;
+		}
+
+		@Override
+		public TAPMetadata getTAPMetadata(){
+			return null;
+		}
+
+		@Override
+		public Collection<String> getCoordinateSystems(){
+			return null;
+		}
+
+		@Override
+		public Collection<String> getGeometries(){
+			return null;
+		}
+
+		@Override
+		public Collection<FunctionDef> getUDFs(){
+			return null;
+		}
+
+		@Override
+		public TAPLog getLogger(){
+			return null;
+		}
+
+		@Override
+		public TAPFactory getFactory(){
+			return null;
+		}
+
+		@Override
+		public TAPFileManager getFileManager(){
+			return null;
+		}
+
+		@Override
+		public Iterator<OutputFormat> getOutputFormats(){
+			return null;
+		}
+
+		@Override
+		public OutputFormat getOutputFormat(String mimeOrAlias){
+			return null;
+		}
+
+		@Override
+		public int getNbMaxAsyncJobs(){
+			return -1;
+		}
+
+	}
+
+}
@@ -0,0 +1,89 @@
+package tap.formatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import tap.data.TableIterator;
+import tap.data.VOTableIterator;
+import tap.data.VOTableIteratorTest;
+import uk.ac.starlink.votable.DataFormat;
+import uk.ac.starlink.votable.VOTableVersion;
+
+public class VOTableDataWriterTest {
+
+	@Test
+	public void testWriteTable(){
+		for(DataFormat format : new DataFormat[]{DataFormat.TABLEDATA, DataFormat.BINARY, DataFormat.BINARY2}){
+			// TEST with an overflow:
+			roundTrip(format, 30, 30, true);
+			// TEST without limit:
+			roundTrip(format, -1, 100, false);
+			// TEST with a limit equal to the number of rows (=> no overflow):
+			roundTrip(format, 100, 100, false);
+		}
+	}
+
+	/**
+	 * Write the test VOTable with the given serialization, read it back and compare it with the original one.
+	 */
+	private void roundTrip(final DataFormat format, final long maxrec, final int expectedNbRows, final boolean expectedOverflow){
+		TableIterator input = null, result = null, expected = null;
+		try{
+			// Write the table:
+			input = new VOTableIterator(open());
+			VOTableDataWriter writer = new VOTableDataWriter(input.getMetadata(), format, VOTableVersion.V13);
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			output.write("<VOTABLE version=\"1.3\"><RESOURCE type=\"results\">".getBytes("UTF-8"));
+			writer.writeTable(input, output, maxrec, Thread.currentThread());
+			output.write("</RESOURCE></VOTABLE>".getBytes("UTF-8"));
+			assertEquals(expectedNbRows, writer.getNbReadRows());
+			assertEquals(expectedOverflow, writer.lastSequenceOverflowed());
+
+			// Read it back and compare with the original table:
+			result = new VOTableIterator(new ByteArrayInputStream(output.toByteArray()));
+			expected = new VOTableIterator(open());
+			assertEquals(4, result.getMetadata().length);
+			int nbRows = 0;
+			while(result.nextRow()){
+				assertTrue(expected.nextRow());
+				nbRows++;
+				while(expected.hasNextCol()){
+					assertTrue(result.hasNextCol());
+					assertEquals(expected.nextCol(), result.nextCol());
+					assertEquals(expected.getColType().toString(), result.getColType().toString());
+				}
+				assertFalse(result.hasNextCol());
+			}
+			assertEquals(expectedNbRows, nbRows);
+		}catch(Exception ex){
+			ex.printStackTrace(System.err);
+			fail("An exception occurs while writing a VOTable in " + format + "!");
+		}finally{
+			try{
+				if (input != null)
+					input.close();
+				if (result != null)
+					result.close();
+				if (expected != null)
+					expected.close();
+			}catch(Exception e){
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static InputStream open() throws Exception{
+		return new BufferedInputStream(new FileInputStream(VOTableIteratorTest.dataVOTable));
+	}
+
+}
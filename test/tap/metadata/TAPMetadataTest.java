@@ -0,0 +1,75 @@
+package tap.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import adql.db.DBType;
+import adql.db.DBType.DBDatatype;
+
+public class TAPMetadataTest {
+
+	@Test
+	public void testModificationCount(){
+		TAPMetadata meta = new TAPMetadata();
+		long count = meta.getModificationCount();
+
+		// A schema, table or column built outside of the metadata set is not followed:
+		TAPSchema schema = new TAPSchema("s");
+		TAPTable table = schema.addTable("t");
+		TAPColumn col = table.addColumn("c");
+		assertEquals(count, meta.getModificationCount());
+
+		// ...until it is added in it:
+		meta.addSchema(schema);
+		assertSame(meta, schema.getMetadata());
+		assertTrue(meta.getModificationCount() > count);
+
+		// Any structural modification, at any level, is then detected:
+		count = meta.getModificationCount();
+		schema.addTable("t2");
+		assertTrue(meta.getModificationCount() > count);
+
+		count = meta.getModificationCount();
+		table.addColumn("c2");
+		assertTrue(meta.getModificationCount() > count);
+
+		count = meta.getModificationCount();
+		table.removeColumn("c2");
+		assertTrue(meta.getModificationCount() > count);
+
+		count = meta.getModificationCount();
+		col.setDBName("c_db");
+		assertTrue(meta.getModificationCount() > count);
+
+		count = meta.getModificationCount();
+		col.setDatatype(new DBType(DBDatatype.INTEGER));
+		assertTrue(meta.getModificationCount() > count);
+
+		count = meta.getModificationCount();
+		col.setIndexed(true);
+		assertTrue(meta.getModificationCount() > count);
+
+		// ...but not the modification of a description:
+		count = meta.getModificationCount();
+		col.setDescription("A column.");
+		assertEquals(count, meta.getModificationCount());
+
+		// A removed table is not followed anymore:
+		schema.removeTable("t");
+		count = meta.getModificationCount();
+		table.addColumn("c3");
+		assertEquals(count, meta.getModificationCount());
+
+		// Idem for a removed schema:
+		meta.removeSchema("s");
+		assertNull(schema.getMetadata());
+		count = meta.getModificationCount();
+		schema.addTable("t3");
+		assertEquals(count, meta.getModificationCount());
+	}
+
+}
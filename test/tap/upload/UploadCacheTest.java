@@ -0,0 +1,51 @@
+package tap.upload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import tap.metadata.TAPColumn;
+import tap.metadata.TAPTable;
+
+public class UploadCacheTest {
+
+	@Test
+	public void testAcquire(){
+		UploadCache cache = new UploadCache(null);
+
+		// Nothing to reuse in an empty cache:
+		assertFalse(cache.acquire("key", new TAPTable("t1")));
+
+		// Add a loaded table:
+		TAPTable loaded = new TAPTable("t1");
+		loaded.setDBName("t1_123");
+		loaded.addColumn(new TAPColumn("ra"));
+		loaded.addColumn(new TAPColumn("dec"));
+		loaded.setNbRows(4200);
+		assertTrue(cache.add("key", loaded, 1000, null));
+		assertFalse(cache.add("key", loaded, 1000, null));
+
+		// Reuse it in another job (with another ADQL name):
+		TAPTable reused = new TAPTable("t2");
+		assertTrue(cache.acquire("key", reused));
+		assertEquals("t2", reused.getADQLName());
+		assertEquals("t1_123", reused.getDBName());
+		assertEquals(2, reused.getNbColumns());
+		assertEquals(4200, reused.getNbRows());
+
+		// TEST only the cached tables are shared (e.g. by the query cache):
+		assertTrue(cache.contains(reused));
+		TAPTable notCached = new TAPTable("t3");
+		notCached.setDBName("t3_456");
+		assertFalse(cache.contains(notCached));
+
+		// The table stays in the cache while it is used:
+		assertTrue(cache.release(loaded, null));
+		assertTrue(cache.release(reused, null));
+		assertEquals(1, cache.getNbTables());
+		assertEquals(1000, cache.getSize());
+	}
+
+}